@@ -0,0 +1,272 @@
+package com.ceardannan.java2jpa.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+
+import com.ceardannan.java2jpa.IncrementalMappingCache;
+import com.ceardannan.java2jpa.Java2JpaMappingGenerator;
+import com.ceardannan.java2jpa.JpaMappingRendererDefaultImpl;
+import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategy;
+import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategyDefaultImpl;
+import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategyRuleImpl;
+import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.scan.ScanSession;
+
+/**
+ * Generates the jpa mapping file for the classes of the configured packages of the project, after they are compiled.
+ * <p>
+ * The generation runs inside the build, without forking: the classes of the project are loaded through a {@link ScanSession}
+ * on the compile classpath of the project, and are not initialized.
+ * The inputs of the generation(the class files, the classpath, the configuration and the version of the generator) are fingerprinted: when none of them changed
+ * since the previous build and the mapping file exists, the generation is skipped. Otherwise the mappings are generated incrementally,
+ * only the classes that changed are analyzed again, and the mapping file is only written when its content changed.
+ * </p>
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * {@code
+ * <plugin>
+ *     <groupId>com.ceardannan.generation</groupId>
+ *     <artifactId>java2jpa-maven-plugin</artifactId>
+ *     <version>0.1.0</version>
+ *     <executions>
+ *         <execution>
+ *             <goals><goal>generate</goal></goals>
+ *         </execution>
+ *     </executions>
+ *     <configuration>
+ *         <packages><package>com.test.model</package></packages>
+ *     </configuration>
+ * </plugin>
+ * }
+ * </pre>
+ * </p>
+ *
+ * @goal generate
+ * @phase process-classes
+ * @requiresDependencyResolution compile
+ * @threadSafe
+ */
+public class GenerateMojo extends AbstractMojo {
+
+	/**
+	 * The project
+	 *
+	 * @parameter default-value="${project}"
+	 * @required
+	 * @readonly
+	 */
+	private MavenProject project;
+
+	/**
+	 * The version of the plugin, part of the fingerprint of the configuration
+	 *
+	 * @parameter default-value="${plugin.version}"
+	 * @required
+	 * @readonly
+	 */
+	private String pluginVersion;
+
+	/**
+	 * Names of the packages(subpackages included) to generate mappings for
+	 *
+	 * @parameter
+	 * @required
+	 */
+	private String[] packages;
+
+	/**
+	 * The directory with the compiled classes of the project
+	 *
+	 * @parameter default-value="${project.build.outputDirectory}"
+	 * @required
+	 */
+	private File classesDirectory;
+
+	/**
+	 * The mapping file to generate
+	 *
+	 * @parameter default-value="${project.build.outputDirectory}/META-INF/orm.xml"
+	 * @required
+	 */
+	private File outputFile;
+
+	/**
+	 * Properties file with the rules of a {@link RenderJpaMappingForClassStrategyRuleImpl}.
+	 * If not set, a {@link RenderJpaMappingForClassStrategyDefaultImpl} is used.
+	 *
+	 * @parameter
+	 */
+	private File strategyRules;
+
+	/**
+	 * The directory the fingerprint of the inputs and the cached mappings are stored in
+	 *
+	 * @parameter default-value="${project.build.directory}/java2jpa"
+	 * @required
+	 */
+	private File cacheDirectory;
+
+	/**
+	 * Number of threads that render the classes
+	 *
+	 * @parameter default-value="1"
+	 */
+	private int parallelism;
+
+	/**
+	 * Whether to skip the generation
+	 *
+	 * @parameter expression="${java2jpa.skip}" default-value="false"
+	 */
+	private boolean skip;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		if (skip){
+			getLog().info("Skipping the generation of " + outputFile + ".");
+			return;
+		}
+		if (! classesDirectory.isDirectory()){
+			getLog().info("No classes in " + classesDirectory + ", skipping the generation of " + outputFile + ".");
+			return;
+		}
+		List<File> classpathElements = getClasspathElements();
+		File fingerprintFile = new File(cacheDirectory, "inputs.fingerprint");
+		try {
+			InputFingerprint fingerprint = createFingerprint(classpathElements);
+			if (outputFile.isFile() && fingerprint.isUpToDate(fingerprintFile)){
+				getLog().info("Jpa mapping " + outputFile + " is up to date.");
+				return;
+			}
+			IncrementalMappingCache incrementalMappingCache = new IncrementalMappingCache(new File(cacheDirectory, "mappings.cache"));
+			if (! fingerprint.hasSameConfiguration(fingerprintFile)){
+				incrementalMappingCache.clear();
+			}
+			generate(classpathElements, incrementalMappingCache);
+			fingerprint.store(fingerprintFile);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not generate the jpa mapping " + outputFile + ".", e);
+		} catch (IllegalArgumentException e) {
+			throw new MojoFailureException("Invalid configuration to generate the jpa mapping " + outputFile + ": " + e.getMessage());
+		}
+	}
+
+	private List<File> getClasspathElements() throws MojoExecutionException {
+		List<File> classpathElements = new ArrayList<File>();
+		try {
+			for (String classpathElement: project.getCompileClasspathElements()){
+				classpathElements.add(new File(classpathElement));
+			}
+		} catch (DependencyResolutionRequiredException e) {
+			throw new MojoExecutionException("The compile classpath of the project is not resolved.", e);
+		}
+		return classpathElements;
+	}
+
+	/**
+	 * Fingerprints the inputs: the configuration, the content of the class files of the project and the files of the rest of the classpath.
+	 */
+	private InputFingerprint createFingerprint(List<File> classpathElements) throws IOException {
+		InputFingerprint fingerprint = new InputFingerprint();
+		//another version of the generator can map the same classes differently
+		fingerprint.addConfiguration("pluginVersion", pluginVersion);
+		fingerprint.addConfiguration("generator", getGeneratorFingerprint());
+		fingerprint.addConfiguration("packages", Arrays.toString(packages));
+		fingerprint.addConfiguration("outputFile", outputFile.getAbsolutePath());
+		if (strategyRules != null){
+			fingerprint.addConfigurationFile(strategyRules);
+		}
+		fingerprint.addClassFiles(classesDirectory);
+		for (File classpathElement: classpathElements){
+			if (! classpathElement.getAbsoluteFile().equals(classesDirectory.getAbsoluteFile())){
+				fingerprint.addClasspathElement(classpathElement);
+			}
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the location of the java2jpa classes, with the size and modification time of the jar,
+	 * so a rebuilt snapshot of the generator is not mistaken for the one of the previous generation.
+	 */
+	private String getGeneratorFingerprint(){
+		CodeSource codeSource = Java2JpaMappingGenerator.class.getProtectionDomain().getCodeSource();
+		if (codeSource == null || codeSource.getLocation() == null){
+			return null;
+		}
+		String location = codeSource.getLocation().toString();
+		try {
+			File generatorFile = new File(codeSource.getLocation().toURI());
+			if (generatorFile.isFile()){
+				return location + ":" + generatorFile.length() + ":" + generatorFile.lastModified();
+			}
+		} catch (URISyntaxException e) {
+			//not a file, the location alone is the fingerprint
+		} catch (IllegalArgumentException e) {
+			//not a file, the location alone is the fingerprint
+		}
+		return location;
+	}
+
+	private RenderJpaMappingForClassStrategy createStrategy() throws IOException {
+		if (strategyRules != null){
+			return RenderJpaMappingForClassStrategyRuleImpl.fromFile(strategyRules);
+		}
+		return new RenderJpaMappingForClassStrategyDefaultImpl();
+	}
+
+	private void generate(List<File> classpathElements, IncrementalMappingCache incrementalMappingCache) throws IOException {
+		long start = System.currentTimeMillis();
+		URL[] urls = new URL[classpathElements.size()];
+		for (int i = 0; i < urls.length; i++){
+			try {
+				urls[i] = classpathElements.get(i).toURI().toURL();
+			} catch (MalformedURLException e) {
+				throw new IllegalArgumentException("Invalid classpath element " + classpathElements.get(i) + ".", e);
+			}
+		}
+		URLClassLoader classpathClassLoader = new URLClassLoader(urls, getClass().getClassLoader());
+		ScanSession scanSession = new ScanSession(classpathClassLoader);
+		try {
+			Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+			java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(createStrategy());
+			java2JpaMappingGenerator.setParallelism(parallelism);
+			java2JpaMappingGenerator.setScanSession(scanSession);
+			JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl(outputFile.getPath());
+			java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+			java2JpaMappingGenerator.generateJpaMappingsIncrementally(scanSession.getAllClassesIn(packages), incrementalMappingCache);
+
+			String mapping = jpaMappingRenderer.getMappedFilesAsStringMap().get(outputFile.getPath());
+			if (outputFile.isFile() && mapping.equals(FileUtils.readFileToString(outputFile, JpaMappingRendererDefaultImpl.MAPPING_ENCODING))){
+				getLog().info("Jpa mapping " + outputFile + " unchanged(" + (System.currentTimeMillis() - start) + " ms).");
+			}
+			else {
+				jpaMappingRenderer.createMappedFiles();
+				getLog().info("Jpa mapping " + outputFile + " generated(" + (System.currentTimeMillis() - start) + " ms).");
+			}
+		}
+		finally {
+			scanSession.close();
+			//the metadata of the classes of the classpath stays cached by the plugin classLoader otherwise
+			ReflectionUtil.clearClassMetadataCache(classpathClassLoader, getClass().getClassLoader());
+		}
+	}
+
+}
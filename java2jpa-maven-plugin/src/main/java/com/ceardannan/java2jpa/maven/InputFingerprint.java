@@ -0,0 +1,259 @@
+package com.ceardannan.java2jpa.maven;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Fingerprint of the inputs of a generation, used to skip the generation when none of its inputs changed since the previous one.
+ * <p>
+ * The inputs are split in two parts:
+ * <ul>
+ * <li>the configuration(f.e. the packages and the strategy rules): when it changes, mappings cached by an earlier generation can no longer be used</li>
+ * <li>the classes: the content of the class files of the project and the size and modification time of the files on its classpath</li>
+ * </ul>
+ * Both parts are hashed while the inputs are added. Once a hash is read, no more inputs can be added.
+ * </p>
+ *
+ */
+public class InputFingerprint {
+
+	private static final String CONFIGURATION_HASH_KEY = "configurationHash";
+
+	private static final String INPUT_HASH_KEY = "inputHash";
+
+	private static final String CLASS_SUFFIX = ".class";
+
+	private MessageDigest configurationDigest = createDigest();
+
+	private MessageDigest inputDigest = createDigest();
+
+	private String configurationHash;
+
+	private String inputHash;
+
+	private void checkOpen(){
+		if (configurationHash != null){
+			throw new IllegalStateException("The fingerprint is computed already, no more inputs can be added.");
+		}
+	}
+
+	/**
+	 * Adds a setting of the configuration.
+	 *
+	 * @param name - name of the setting
+	 * @param value - value of the setting, may be null
+	 */
+	public void addConfiguration(String name, String value){
+		checkOpen();
+		configurationDigest.update(toBytes(name + "=" + value + "\n"));
+	}
+
+	/**
+	 * Adds the content of a file of the configuration(f.e. the strategy rules).
+	 *
+	 * @param file - the file
+	 * @throws IOException if the file cannot be read
+	 */
+	public void addConfigurationFile(File file) throws IOException {
+		checkOpen();
+		configurationDigest.update(toBytes(file.getPath() + "\n"));
+		updateDigest(configurationDigest, new FileInputStream(file));
+	}
+
+	/**
+	 * Adds the content of all class files in a directory(f.e. target/classes) and its subdirectories.
+	 *
+	 * @param directory - the directory
+	 * @throws IOException if a class file cannot be read
+	 */
+	public void addClassFiles(File directory) throws IOException {
+		checkOpen();
+		addClassFiles(directory, "");
+	}
+
+	private void addClassFiles(File directory, String path) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null){
+			return;
+		}
+		Arrays.sort(files);
+		for (File file: files){
+			if (file.isDirectory()){
+				addClassFiles(file, path + file.getName() + "/");
+			}
+			else if (file.getName().endsWith(CLASS_SUFFIX)){
+				inputDigest.update(toBytes(path + file.getName() + "\n"));
+				updateDigest(inputDigest, new FileInputStream(file));
+			}
+		}
+	}
+
+	/**
+	 * Adds an element of the classpath(a jar or a directory), by the size and modification time of its files.
+	 *
+	 * @param classpathElement - the jar or directory
+	 */
+	public void addClasspathElement(File classpathElement){
+		checkOpen();
+		inputDigest.update(toBytes(classpathElement.getPath() + "\n"));
+		addFileStats(classpathElement);
+	}
+
+	private void addFileStats(File file){
+		if (file.isDirectory()){
+			File[] files = file.listFiles();
+			if (files != null){
+				Arrays.sort(files);
+				for (File child: files){
+					addFileStats(child);
+				}
+			}
+		}
+		else if (file.isFile()){
+			inputDigest.update(toBytes(file.getName() + ":" + file.length() + ":" + file.lastModified() + "\n"));
+		}
+	}
+
+	/**
+	 * Returns the hash of the configuration
+	 *
+	 * @return the configurationHash
+	 */
+	public String getConfigurationHash() {
+		compute();
+		return configurationHash;
+	}
+
+	/**
+	 * Returns the hash of the configuration and the classes together
+	 *
+	 * @return the inputHash
+	 */
+	public String getInputHash() {
+		compute();
+		return inputHash;
+	}
+
+	private void compute(){
+		if (configurationHash == null){
+			configurationHash = toHex(configurationDigest.digest());
+			inputDigest.update(toBytes(configurationHash));
+			inputHash = toHex(inputDigest.digest());
+		}
+	}
+
+	/**
+	 * Returns whether the inputs are the same as the ones of a stored fingerprint.
+	 *
+	 * @param fingerprintFile - the file of the stored fingerprint
+	 * @return whether the inputs did not change, false if no fingerprint is stored
+	 */
+	public boolean isUpToDate(File fingerprintFile){
+		Properties storedFingerprint = load(fingerprintFile);
+		return getInputHash().equals(storedFingerprint.getProperty(INPUT_HASH_KEY));
+	}
+
+	/**
+	 * Returns whether the configuration is the same as the one of a stored fingerprint.
+	 *
+	 * @param fingerprintFile - the file of the stored fingerprint
+	 * @return whether the configuration did not change, false if no fingerprint is stored
+	 */
+	public boolean hasSameConfiguration(File fingerprintFile){
+		Properties storedFingerprint = load(fingerprintFile);
+		return getConfigurationHash().equals(storedFingerprint.getProperty(CONFIGURATION_HASH_KEY));
+	}
+
+	/**
+	 * Stores the fingerprint in a file, to compare the inputs of the next generation with.
+	 *
+	 * @param fingerprintFile - the file to store the fingerprint in
+	 * @throws IOException if the file cannot be written
+	 */
+	public void store(File fingerprintFile) throws IOException {
+		Properties fingerprint = new Properties();
+		fingerprint.setProperty(CONFIGURATION_HASH_KEY, getConfigurationHash());
+		fingerprint.setProperty(INPUT_HASH_KEY, getInputHash());
+		File directory = fingerprintFile.getAbsoluteFile().getParentFile();
+		if (! directory.isDirectory() && ! directory.mkdirs()){
+			throw new IOException("Could not create directory " + directory + ".");
+		}
+		OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(fingerprintFile));
+		try {
+			fingerprint.store(outputStream, "java2jpa input fingerprint");
+		}
+		finally {
+			outputStream.close();
+		}
+	}
+
+	private static Properties load(File fingerprintFile){
+		Properties fingerprint = new Properties();
+		if (fingerprintFile.isFile()){
+			try {
+				InputStream inputStream = new BufferedInputStream(new FileInputStream(fingerprintFile));
+				try {
+					fingerprint.load(inputStream);
+				}
+				finally {
+					inputStream.close();
+				}
+			} catch (IOException e) {
+				//an unreadable fingerprint is out of date
+				fingerprint.clear();
+			}
+		}
+		return fingerprint;
+	}
+
+	private static MessageDigest createDigest(){
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			//cannot happen, SHA-1 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void updateDigest(MessageDigest digest, InputStream inputStream) throws IOException {
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1){
+				digest.update(buffer, 0, read);
+			}
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	private static byte[] toBytes(String string){
+		try {
+			return string.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			//cannot happen, UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] digest){
+		StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b: digest){
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+}
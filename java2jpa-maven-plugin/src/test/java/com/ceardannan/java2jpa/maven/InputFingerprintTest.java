@@ -0,0 +1,98 @@
+package com.ceardannan.java2jpa.maven;
+
+import java.io.File;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InputFingerprintTest {
+
+	private File directory;
+
+	private File classesDirectory;
+
+	private File fingerprintFile;
+
+	@Before
+	public void createClassesDirectory() throws Exception{
+		directory = File.createTempFile("java2jpa-fingerprint", "");
+		directory.delete();
+		classesDirectory = new File(directory, "classes");
+		FileUtils.writeStringToFile(new File(classesDirectory, "com/test/model/Item.class"), "item");
+		FileUtils.writeStringToFile(new File(classesDirectory, "com/test/model/Order.class"), "order");
+		FileUtils.writeStringToFile(new File(classesDirectory, "META-INF/orm.xml"), "mapping");
+		fingerprintFile = new File(directory, "java2jpa/inputs.fingerprint");
+	}
+
+	@After
+	public void deleteClassesDirectory() throws Exception{
+		FileUtils.deleteDirectory(directory);
+	}
+
+	private InputFingerprint createFingerprint(String packages) throws Exception{
+		InputFingerprint fingerprint = new InputFingerprint();
+		fingerprint.addConfiguration("packages", packages);
+		fingerprint.addClassFiles(classesDirectory);
+		return fingerprint;
+	}
+
+	@Test
+	public void testUpToDate() throws Exception{
+		InputFingerprint fingerprint = createFingerprint("com.test.model");
+		Assert.assertFalse(fingerprint.isUpToDate(fingerprintFile));
+		Assert.assertFalse(fingerprint.hasSameConfiguration(fingerprintFile));
+		fingerprint.store(fingerprintFile);
+		Assert.assertTrue(createFingerprint("com.test.model").isUpToDate(fingerprintFile));
+
+		// files other than class files are ignored, f.e. the generated mapping itself
+		FileUtils.writeStringToFile(new File(classesDirectory, "META-INF/orm.xml"), "other mapping");
+		Assert.assertTrue(createFingerprint("com.test.model").isUpToDate(fingerprintFile));
+
+		// rewriting a class file with the same content changes nothing
+		new File(classesDirectory, "com/test/model/Item.class").setLastModified(1000);
+		Assert.assertTrue(createFingerprint("com.test.model").isUpToDate(fingerprintFile));
+	}
+
+	@Test
+	public void testChangedClass() throws Exception{
+		createFingerprint("com.test.model").store(fingerprintFile);
+		FileUtils.writeStringToFile(new File(classesDirectory, "com/test/model/Item.class"), "changed item");
+		InputFingerprint fingerprint = createFingerprint("com.test.model");
+		Assert.assertFalse(fingerprint.isUpToDate(fingerprintFile));
+		Assert.assertTrue(fingerprint.hasSameConfiguration(fingerprintFile));
+	}
+
+	@Test
+	public void testChangedConfiguration() throws Exception{
+		createFingerprint("com.test.model").store(fingerprintFile);
+		InputFingerprint fingerprint = createFingerprint("com.test");
+		Assert.assertFalse(fingerprint.isUpToDate(fingerprintFile));
+		Assert.assertFalse(fingerprint.hasSameConfiguration(fingerprintFile));
+	}
+
+	@Test
+	public void testClasspathElement() throws Exception{
+		File jar = new File(directory, "lib.jar");
+		FileUtils.writeStringToFile(jar, "jar");
+		InputFingerprint fingerprint = createFingerprint("com.test.model");
+		fingerprint.addClasspathElement(jar);
+		fingerprint.store(fingerprintFile);
+
+		jar.setLastModified(jar.lastModified() - 10000);
+		InputFingerprint changedFingerprint = createFingerprint("com.test.model");
+		changedFingerprint.addClasspathElement(jar);
+		Assert.assertFalse(changedFingerprint.isUpToDate(fingerprintFile));
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testAddAfterCompute() throws Exception{
+		InputFingerprint fingerprint = createFingerprint("com.test.model");
+		fingerprint.getInputHash();
+		fingerprint.addConfiguration("parallelism", "2");
+	}
+
+}
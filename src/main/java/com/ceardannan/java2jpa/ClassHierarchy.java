@@ -0,0 +1,239 @@
+package com.ceardannan.java2jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.ClassModelRepository;
+
+/**
+ * Class hierarchy graph of a set of classes to map, built once per generation, keyed by fully qualified class name.
+ * <p>
+ * The graph holds the classes to map and all their superclasses(java.lang.Object excluded), with their superclass and direct-subclass links,
+ * their depth(0 for a class that directly extends java.lang.Object) and whether they are mapped as an entity.
+ * For every class, the nearest entity superclass, the root entity(the topmost entity in its superclass chain) and whether it has an entity subclass
+ * are precomputed, looking through any intermediate classes that are not entities(f.e. mapped superclasses),
+ * so all inheritance questions are answered in constant time.
+ * </p>
+ * <p>
+ * The graph of a generation is held by its {@link MappingUniverse}(or {@link ClassModelUniverse}), so it is built once per generation
+ * and released with it.
+ * </p>
+ *
+ */
+public class ClassHierarchy {
+
+	/**
+	 * The nodes of the graph, by class name
+	 */
+	private Map<String, Node> nodes = new HashMap<String, Node>();
+
+	private ClassHierarchy(HierarchySource source, Collection<String> classNames){
+		for (String className: classNames){
+			getOrCreateNode(className, source);
+		}
+		// mark the entity subclasses going up, stopping at the first superclass that is marked already
+		for (Node node: nodes.values()){
+			if (node.entity){
+				for (Node superclass = node.superclass; superclass != null && ! superclass.hasEntitySubclass; superclass = superclass.superclass){
+					superclass.hasEntitySubclass = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the hierarchy graph of the given classes, deciding which classes are entities with the given strategy.
+	 *
+	 * @param allClassesToMap - all classes to map
+	 * @param renderJpaMappingForClassStrategy - the strategy that decides the render type of the classes
+	 * @return the hierarchy graph
+	 */
+	public static ClassHierarchy forClasses(Collection<Class<?>> allClassesToMap, final RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy){
+		final Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
+		List<String> classNames = new ArrayList<String>();
+		for (Class<?> clazz: allClassesToMap){
+			classes.put(clazz.getName(), clazz);
+			classNames.add(clazz.getName());
+		}
+		return new ClassHierarchy(new HierarchySource() {
+			@Override
+			public String getSuperclassName(String className) {
+				Class<?> superclass = classes.get(className).getSuperclass();
+				if (superclass == null){
+					return null;
+				}
+				classes.put(superclass.getName(), superclass);
+				return superclass.getName();
+			}
+
+			@Override
+			public boolean isEntity(String className) {
+				return ClassRenderType.ENTITY.equals(renderJpaMappingForClassStrategy.getRenderTypeFor(classes.get(className)));
+			}
+		}, classNames);
+	}
+
+	/**
+	 * Builds the hierarchy graph of the given class models, deciding which classes are entities with the given strategy.
+	 * The models of superclasses that are not given are resolved through the classModelRepository.
+	 *
+	 * @param allClassModelsToMap - the models of all classes to map
+	 * @param renderJpaMappingForClassModelStrategy - the strategy that decides the render type of the classes
+	 * @param classModelRepository - the repository used to resolve the models of superclasses
+	 * @return the hierarchy graph
+	 */
+	public static ClassHierarchy forClassModels(Collection<ClassModel> allClassModelsToMap,
+			final RenderJpaMappingForClassModelStrategy renderJpaMappingForClassModelStrategy, final ClassModelRepository classModelRepository){
+		final Map<String, ClassModel> classModels = new HashMap<String, ClassModel>();
+		List<String> classNames = new ArrayList<String>();
+		for (ClassModel classModel: allClassModelsToMap){
+			classModels.put(classModel.getName(), classModel);
+			classNames.add(classModel.getName());
+		}
+		return new ClassHierarchy(new HierarchySource() {
+			private ClassModel getClassModel(String className){
+				ClassModel classModel = classModels.get(className);
+				return classModel != null ? classModel : classModelRepository.getClassModel(className);
+			}
+
+			@Override
+			public String getSuperclassName(String className) {
+				ClassModel classModel = getClassModel(className);
+				return classModel == null ? null : classModel.getSuperclassName();
+			}
+
+			@Override
+			public boolean isEntity(String className) {
+				ClassModel classModel = getClassModel(className);
+				return classModel != null && ClassRenderType.ENTITY.equals(renderJpaMappingForClassModelStrategy.getRenderTypeFor(classModel));
+			}
+		}, classNames);
+	}
+
+	private Node getOrCreateNode(String className, HierarchySource source){
+		Node node = nodes.get(className);
+		if (node == null){
+			String superclassName = source.getSuperclassName(className);
+			Node superclass = superclassName == null || superclassName.equals(Object.class.getName()) ? null : getOrCreateNode(superclassName, source);
+			node = new Node(className, superclass, source.isEntity(className));
+			nodes.put(className, node);
+		}
+		return node;
+	}
+
+	/**
+	 * Returns whether the class is part of this graph(a class to map or one of their superclasses).
+	 *
+	 * @param className - fully qualified name of the class
+	 * @return whether the class is part of the graph
+	 */
+	public boolean contains(String className) {
+		return nodes.containsKey(className);
+	}
+
+	private Node getNode(String className){
+		Node node = nodes.get(className);
+		if (node == null){
+			throw new IllegalArgumentException("Class " + className + " is not part of the class hierarchy.");
+		}
+		return node;
+	}
+
+	/**
+	 * @param className - fully qualified name of a class of the graph
+	 * @return the name of the superclass, null if the class directly extends java.lang.Object
+	 */
+	public String getSuperclassName(String className) {
+		Node superclass = getNode(className).superclass;
+		return superclass == null ? null : superclass.className;
+	}
+
+	/**
+	 * @param className - fully qualified name of a class of the graph
+	 * @return the unmodifiable names of the direct subclasses of the class within the graph
+	 */
+	public List<String> getDirectSubclassNames(String className) {
+		return Collections.unmodifiableList(getNode(className).subclassNames);
+	}
+
+	/**
+	 * @param className - fully qualified name of a class of the graph
+	 * @return the number of superclasses of the class, java.lang.Object excluded
+	 */
+	public int getDepth(String className) {
+		return getNode(className).depth;
+	}
+
+	/**
+	 * @param className - fully qualified name of a class of the graph
+	 * @return whether the class is mapped as an entity
+	 */
+	public boolean isEntity(String className) {
+		return getNode(className).entity;
+	}
+
+	/**
+	 * @param className - fully qualified name of a class of the graph
+	 * @return the name of the nearest superclass that is an entity, through any intermediate classes that are not, null if there is none
+	 */
+	public String getNearestEntitySuperclassName(String className) {
+		return getNode(className).nearestEntitySuperclassName;
+	}
+
+	/**
+	 * @param className - fully qualified name of a class of the graph
+	 * @return the name of the topmost entity in the superclass chain of the class(the class itself included), null if there is none
+	 */
+	public String getRootEntityName(String className) {
+		return getNode(className).rootEntityName;
+	}
+
+	/**
+	 * @param className - fully qualified name of a class of the graph
+	 * @return whether any(direct or indirect) subclass of the class within the graph is an entity
+	 */
+	public boolean hasEntitySubclass(String className) {
+		return getNode(className).hasEntitySubclass;
+	}
+
+	/**
+	 * Resolves the superclasses and entity decisions of the classes of the graph.
+	 */
+	private interface HierarchySource {
+		String getSuperclassName(String className);
+
+		boolean isEntity(String className);
+	}
+
+	private static class Node {
+		private String className;
+		private Node superclass;
+		private List<String> subclassNames = new ArrayList<String>();
+		private int depth;
+		private boolean entity;
+		private String nearestEntitySuperclassName;
+		private String rootEntityName;
+		private boolean hasEntitySubclass;
+
+		Node(String className, Node superclass, boolean entity){
+			this.className = className;
+			this.superclass = superclass;
+			this.entity = entity;
+			if (superclass != null){
+				superclass.subclassNames.add(className);
+				depth = superclass.depth + 1;
+				nearestEntitySuperclassName = superclass.entity ? superclass.className : superclass.nearestEntitySuperclassName;
+				rootEntityName = superclass.rootEntityName;
+			}
+			if (rootEntityName == null && entity){
+				rootEntityName = className;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+package com.ceardannan.java2jpa;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.ceardannan.util.ReflectionUtil;
+
+/**
+ * Computes the fingerprints of the mappings of the classes of a generation, as used by an {@link IncrementalMappingCache}.
+ * <p>
+ * The mapping of a class depends on more than the class itself: on its superclasses(inherited fields, the id field and the inheritance
+ * of the entity), on its subclasses(whether it is the root of an entity hierarchy), on the classes of its fields(embedded or many-to-one)
+ * and on the elements of its collections(the fields referring back to it decide a one-to-many).
+ * The fingerprint of a class is a hash of the bytecode of all these classes, and of whether they are part of the generation,
+ * so the fingerprint of a class changes whenever one of the classes its mapping depends on changes.
+ * </p>
+ * <p>
+ * The bytecode of every class is read and hashed once. Classes loaded by the bootstrap classloader(f.e. java.lang.String) are not read,
+ * they are considered unchanged.
+ * </p>
+ *
+ */
+class ClassMappingFingerprints {
+
+	private transient Logger log = Logger.getLogger(this.getClass());
+
+	private static final Comparator<Class<?>> CLASS_NAME_ORDER = new Comparator<Class<?>>() {
+		@Override
+		public int compare(Class<?> class1, Class<?> class2) {
+			return class1.getName().compareTo(class2.getName());
+		}
+	};
+
+	private Set<Class<?>> allClassesToMap;
+
+	/**
+	 * The subclasses within allClassesToMap, direct or not, by superclass
+	 */
+	private Map<Class<?>, List<Class<?>>> subclassesPerClass = new HashMap<Class<?>, List<Class<?>>>();
+
+	/**
+	 * The hashes of the bytecode read so far, by class
+	 */
+	private Map<Class<?>, String> bytecodeHashes = new HashMap<Class<?>, String>();
+
+	/**
+	 * @param allClassesToMap - complete list of classes that will be mapped
+	 */
+	ClassMappingFingerprints(Collection<Class<?>> allClassesToMap){
+		this.allClassesToMap = new HashSet<Class<?>>(allClassesToMap);
+		for (Class<?> clazz: allClassesToMap){
+			for (Class<?> superclass = clazz.getSuperclass(); superclass != null; superclass = superclass.getSuperclass()){
+				List<Class<?>> subclasses = subclassesPerClass.get(superclass);
+				if (subclasses == null){
+					subclasses = new ArrayList<Class<?>>();
+					subclassesPerClass.put(superclass, subclasses);
+				}
+				subclasses.add(clazz);
+			}
+		}
+	}
+
+	/**
+	 * Returns the classes the mapping of a class depends on: the class and its superclasses, its subclasses within allClassesToMap,
+	 * and the classes(and their superclasses) of its fields and of the elements of its collection fields, inherited fields included.
+	 *
+	 * @param clazz - the class
+	 * @return the classes the mapping of the class depends on, the class itself included
+	 */
+	Set<Class<?>> getDependencies(Class<?> clazz){
+		Set<Class<?>> dependencies = new HashSet<Class<?>>();
+		addWithSuperclasses(clazz, dependencies);
+		List<Class<?>> subclasses = subclassesPerClass.get(clazz);
+		if (subclasses != null){
+			for (Class<?> subclass: subclasses){
+				addWithSuperclasses(subclass, dependencies);
+			}
+		}
+		for (Class<?> declaringClass = clazz; declaringClass != null; declaringClass = declaringClass.getSuperclass()){
+			for (Field field: declaringClass.getDeclaredFields()){
+				addWithSuperclasses(field.getType(), dependencies);
+				if (Collection.class.isAssignableFrom(field.getType())){
+					Class<?> elementClass = ReflectionUtil.getCollectionElementClass(clazz, field);
+					if (elementClass != null){
+						addWithSuperclasses(elementClass, dependencies);
+					}
+				}
+			}
+		}
+		return dependencies;
+	}
+
+	private static void addWithSuperclasses(Class<?> clazz, Set<Class<?>> classes){
+		Class<?> superclass = clazz;
+		while (superclass != null && classes.add(superclass)){
+			superclass = superclass.getSuperclass();
+		}
+	}
+
+	/**
+	 * Returns the fingerprint of the mapping of a class: a hash of the bytecode of its dependencies, see {@link #getDependencies(Class)}.
+	 *
+	 * @param clazz - the class
+	 * @return the fingerprint in hexadecimal notation
+	 */
+	String getFingerprint(Class<?> clazz){
+		List<Class<?>> dependencies = new ArrayList<Class<?>>(getDependencies(clazz));
+		Collections.sort(dependencies, CLASS_NAME_ORDER);
+		MessageDigest digest = createDigest();
+		for (Class<?> dependency: dependencies){
+			digest.update(toBytes(dependency.getName() + "=" + getBytecodeHash(dependency)
+					+ (allClassesToMap.contains(dependency) ? "+" : "-") + ";"));
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Returns the hash of the bytecode of a class, read through its classloader.
+	 *
+	 * @param clazz - the class
+	 * @return the hash in hexadecimal notation, or an empty string if the class has no bytecode of its own
+	 *         (primitive, array or bootstrap classes), or if it cannot be read
+	 */
+	String getBytecodeHash(Class<?> clazz){
+		String bytecodeHash = bytecodeHashes.get(clazz);
+		if (bytecodeHash == null){
+			bytecodeHash = readBytecodeHash(clazz);
+			bytecodeHashes.put(clazz, bytecodeHash);
+		}
+		return bytecodeHash;
+	}
+
+	private String readBytecodeHash(Class<?> clazz){
+		ClassLoader classLoader = clazz.getClassLoader();
+		if (classLoader == null || clazz.isArray() || clazz.isPrimitive()){
+			return "";
+		}
+		InputStream inputStream = classLoader.getResourceAsStream(clazz.getName().replace('.', '/') + ".class");
+		if (inputStream == null){
+			log.warn("Bytecode of class " + clazz.getName() + " not found, changes to it are not detected.");
+			return "";
+		}
+		try {
+			MessageDigest digest = createDigest();
+			try {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = inputStream.read(buffer)) != -1){
+					digest.update(buffer, 0, read);
+				}
+			}
+			finally {
+				inputStream.close();
+			}
+			return toHex(digest.digest());
+		} catch (IOException e) {
+			log.warn("Bytecode of class " + clazz.getName() + " cannot be read, changes to it are not detected.", e);
+			return "";
+		}
+	}
+
+	private static MessageDigest createDigest(){
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			//cannot happen, SHA-1 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] toBytes(String string){
+		try {
+			return string.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			//cannot happen, UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] digest){
+		StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b: digest){
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.ceardannan.java2jpa;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable plan of the jpa mapping of a single class, compiled once by the {@link Java2JpaMappingGenerator}
+ * from the decisions of the renderJpaMappingForClassStrategy, and executed when rendering the class.
+ * <p>
+ * The plan holds the render type of the class, its id field, the inheritance mapping type(for entities)
+ * and the action to take for every declared field, so the strategy is consulted once per class instead of once per field.
+ * </p>
+ *
+ */
+public final class ClassMappingPlan {
+
+	private final Class<?> mappedClass;
+	private final ClassRenderType renderType;
+	private final Field idField;
+	private final InheritanceMappingType inheritanceMappingType;
+	private final List<FieldMapping> fieldMappings;
+	private final List<String> transientPropertyNames;
+
+	/**
+	 * @param mappedClass - the class to map
+	 * @param renderType - how the class is mapped
+	 * @param idField - the id field of the class, null if it has none
+	 * @param inheritanceMappingType - how the inheritance of the class is mapped, null if not decided yet(or if the class is not an entity)
+	 * @param fieldMappings - the mappings of the declared fields, in declaration order
+	 * @param transientPropertyNames - the readable properties without a field, rendered as transient attributes
+	 */
+	public ClassMappingPlan(Class<?> mappedClass, ClassRenderType renderType, Field idField, InheritanceMappingType inheritanceMappingType,
+			List<FieldMapping> fieldMappings, List<String> transientPropertyNames){
+		this.mappedClass = mappedClass;
+		this.renderType = renderType;
+		this.idField = idField;
+		this.inheritanceMappingType = inheritanceMappingType;
+		this.fieldMappings = Collections.unmodifiableList(new ArrayList<FieldMapping>(fieldMappings));
+		this.transientPropertyNames = Collections.unmodifiableList(new ArrayList<String>(transientPropertyNames));
+	}
+
+	/**
+	 * @return the class to map
+	 */
+	public Class<?> getMappedClass() {
+		return mappedClass;
+	}
+
+	/**
+	 * @return how the class is mapped
+	 */
+	public ClassRenderType getRenderType() {
+		return renderType;
+	}
+
+	/**
+	 * @return the id field of the class, null if it has none
+	 */
+	public Field getIdField() {
+		return idField;
+	}
+
+	/**
+	 * @return how the inheritance of the class is mapped, null if not decided when the plan was compiled
+	 */
+	public InheritanceMappingType getInheritanceMappingType() {
+		return inheritanceMappingType;
+	}
+
+	/**
+	 * @return the unmodifiable mappings of the declared fields, in declaration order
+	 */
+	public List<FieldMapping> getFieldMappings() {
+		return fieldMappings;
+	}
+
+	/**
+	 * @return the unmodifiable names of the readable properties without a field
+	 */
+	public List<String> getTransientPropertyNames() {
+		return transientPropertyNames;
+	}
+
+	@Override
+	public String toString() {
+		return renderType + " " + mappedClass.getName() + fieldMappings;
+	}
+
+	/**
+	 * The compiled mapping of a single field.
+	 */
+	public static final class FieldMapping {
+		private final Field field;
+		private final FieldMappingAction action;
+		private final CollectionRenderType collectionRenderType;
+
+		/**
+		 * @param field - the field
+		 * @param action - what rendering the field requires
+		 * @param collectionRenderType - how the collection is rendered, for the COLLECTION action only
+		 */
+		public FieldMapping(Field field, FieldMappingAction action, CollectionRenderType collectionRenderType){
+			this.field = field;
+			this.action = action;
+			this.collectionRenderType = collectionRenderType;
+		}
+
+		/**
+		 * @return the field
+		 */
+		public Field getField() {
+			return field;
+		}
+
+		/**
+		 * @return what rendering the field requires
+		 */
+		public FieldMappingAction getAction() {
+			return action;
+		}
+
+		/**
+		 * @return how the collection is rendered, null unless the action is COLLECTION
+		 */
+		public CollectionRenderType getCollectionRenderType() {
+			return collectionRenderType;
+		}
+
+		@Override
+		public String toString() {
+			return field.getName() + "=" + (collectionRenderType != null ? collectionRenderType : action);
+		}
+	}
+
+}
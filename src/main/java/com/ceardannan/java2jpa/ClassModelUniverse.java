@@ -0,0 +1,88 @@
+package com.ceardannan.java2jpa;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.ClassModelRepository;
+
+/**
+ * The complete, unmodifiable set of class models of a generation on class models: the counterpart of {@link MappingUniverse}.
+ * <p>
+ * Being a Collection, a universe is passed wherever allClassModelsToMap is expected. It iterates the class models in the order they were given,
+ * and holds the {@link ClassHierarchy} of the class models, built when it is first asked for.
+ * </p>
+ *
+ */
+public class ClassModelUniverse extends AbstractCollection<ClassModel> {
+
+	/**
+	 * The class models, in the order they were given
+	 */
+	private List<ClassModel> classModels;
+
+	private RenderJpaMappingForClassModelStrategy renderJpaMappingForClassModelStrategy;
+
+	private ClassModelRepository classModelRepository;
+
+	/**
+	 * The hierarchy graph of the class models, null until it is first asked for
+	 */
+	private volatile ClassHierarchy classHierarchy;
+
+	/**
+	 * @param classModels - the models of all classes of the generation
+	 * @param renderJpaMappingForClassModelStrategy - the strategy that decides the render types of the classes
+	 * @param classModelRepository - the repository used to resolve the models of superclasses
+	 */
+	public ClassModelUniverse(Collection<ClassModel> classModels, RenderJpaMappingForClassModelStrategy renderJpaMappingForClassModelStrategy,
+			ClassModelRepository classModelRepository){
+		this.classModels = Collections.unmodifiableList(new ArrayList<ClassModel>(classModels));
+		this.renderJpaMappingForClassModelStrategy = renderJpaMappingForClassModelStrategy;
+		this.classModelRepository = classModelRepository;
+	}
+
+	@Override
+	public Iterator<ClassModel> iterator() {
+		return classModels.iterator();
+	}
+
+	@Override
+	public int size() {
+		return classModels.size();
+	}
+
+	/**
+	 * Returns the strategy that decides the render types of the classes
+	 *
+	 * @return the renderJpaMappingForClassModelStrategy
+	 */
+	public RenderJpaMappingForClassModelStrategy getRenderJpaMappingForClassModelStrategy() {
+		return renderJpaMappingForClassModelStrategy;
+	}
+
+	/**
+	 * Returns the hierarchy graph of the class models of the universe, deciding which classes are entities with the strategy of the universe.
+	 * The graph is built once, when it is first asked for.
+	 *
+	 * @return the hierarchy graph of the class models
+	 */
+	public ClassHierarchy getClassHierarchy() {
+		ClassHierarchy hierarchy = classHierarchy;
+		if (hierarchy == null){
+			synchronized (this) {
+				hierarchy = classHierarchy;
+				if (hierarchy == null){
+					hierarchy = ClassHierarchy.forClassModels(classModels, renderJpaMappingForClassModelStrategy, classModelRepository);
+					classHierarchy = hierarchy;
+				}
+			}
+		}
+		return hierarchy;
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.ceardannan.java2jpa;
+
+/**
+ * Enum that represents what rendering a field of a class requires, as decided when compiling the {@link ClassMappingPlan} of the class.
+ *
+ */
+public enum FieldMappingAction {
+	/**
+	 * Represents a simple id
+	 */
+	ID,
+	/**
+	 * Represents an embedded id
+	 */
+	EMBEDDED_ID,
+	/**
+	 * Represents a collection, rendered as given by its {@link CollectionRenderType}
+	 */
+	COLLECTION,
+	/**
+	 * Represents a collection that cannot be mapped, rendered as a transient attribute
+	 */
+	TRANSIENT,
+	/**
+	 * Represents a java.util.Map, which is not supported
+	 */
+	MAP,
+	/**
+	 * Represents an array, which is not supported
+	 */
+	ARRAY,
+	/**
+	 * Represents an object reference, rendered as an embedded attribute or a many-to-one
+	 */
+	REFERENCE,
+	/**
+	 * Represents a field that is automapped(primitives, basic Java types, enums,..) or not mapped at all, and is not rendered
+	 */
+	SKIP;
+}
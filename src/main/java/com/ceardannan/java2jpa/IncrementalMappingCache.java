@@ -0,0 +1,293 @@
+package com.ceardannan.java2jpa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.ceardannan.util.FileUtil;
+
+/**
+ * Persistent cache of the mappings of the classes of a generation, stored in a file(f.e. target/java2jpa-mappings.cache),
+ * used by {@link Java2JpaMappingGenerator#generateJpaMappingsIncrementally(Collection, IncrementalMappingCache)}.
+ * <p>
+ * For every class, the {@link JpaMappingModel.ClassMapping} recorded in the previous generation(or the fact that the class was not mapped)
+ * is stored together with the fingerprint of the bytecode of the classes its mapping depends on, see {@link ClassMappingFingerprints}.
+ * In the next generation, only the classes with a different fingerprint are analyzed again, the mappings of the others are taken from the cache.
+ * </p>
+ * <p>
+ * The cache is bound to the class and the configuration(see {@link RenderJpaMappingForClassStrategyDefaultImpl#getConfigurationFingerprint()})
+ * of the renderJpaMappingForClassStrategy that recorded it: a generation with a strategy of another class or with another configuration
+ * starts from an empty cache.
+ * </p>
+ *
+ */
+public class IncrementalMappingCache {
+
+	private transient Logger log = Logger.getLogger(this.getClass());
+
+	/**
+	 * The file the cache is stored in
+	 */
+	private File file;
+
+	/**
+	 * Name of the class of the strategy that recorded the cached mappings, null if nothing is cached
+	 */
+	private String strategyName;
+
+	/**
+	 * Fingerprint of the configuration of the strategy that recorded the cached mappings, null if nothing is cached
+	 */
+	private String configurationFingerprint;
+
+	/**
+	 * The cached mappings, by class name, null until read from the file
+	 */
+	private Map<String, CachedClassMapping> cachedClassMappings;
+
+	private long hitCount;
+
+	private long missCount;
+
+	/**
+	 * The cached mapping of a single class
+	 */
+	static final class CachedClassMapping implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String fingerprint;
+		private final JpaMappingModel.ClassMapping classMapping;
+
+		CachedClassMapping(String fingerprint, JpaMappingModel.ClassMapping classMapping){
+			this.fingerprint = fingerprint;
+			this.classMapping = classMapping;
+		}
+
+		/**
+		 * @return the mapping of the class, null if the class was not mapped
+		 */
+		JpaMappingModel.ClassMapping getClassMapping() {
+			return classMapping;
+		}
+	}
+
+	/**
+	 * Creates a cache that is stored in the given file. The file is read when the cache is first used, and written by {@link #store()}.
+	 *
+	 * @param file - the file to store the cache in
+	 */
+	public IncrementalMappingCache(File file){
+		this.file = file.getAbsoluteFile();
+	}
+
+	/**
+	 * Returns the file
+	 *
+	 * @return the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of classes whose mapping was taken from the cache
+	 *
+	 * @return the hitCount
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of classes that were analyzed because their mapping was not cached or changed
+	 *
+	 * @return the missCount
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of cached classes
+	 *
+	 * @return the number of cached classes
+	 */
+	public synchronized int size() {
+		return getCachedClassMappings().size();
+	}
+
+	/**
+	 * Removes all cached mappings, from memory and from disk.
+	 */
+	public synchronized void clear(){
+		cachedClassMappings = new HashMap<String, CachedClassMapping>();
+		strategyName = null;
+		configurationFingerprint = null;
+		if (file.exists() && ! file.delete()){
+			log.warn("Could not delete cache file " + file + ".");
+		}
+	}
+
+	/**
+	 * Prepares the cache for a generation with a strategy: if the cached mappings were recorded by a strategy of another class
+	 * or with another configuration, they are removed.
+	 *
+	 * @param renderJpaMappingForClassStrategy - the strategy of the generation
+	 */
+	synchronized void useFor(RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy){
+		String name = renderJpaMappingForClassStrategy.getClass().getName();
+		String fingerprint = getConfigurationFingerprint(renderJpaMappingForClassStrategy);
+		getCachedClassMappings();
+		if (! name.equals(strategyName)){
+			if (strategyName != null){
+				log.info("Cached mappings were recorded by strategy " + strategyName + ", they are not used by strategy " + name + ".");
+			}
+			cachedClassMappings.clear();
+		}
+		else if (! fingerprint.equals(configurationFingerprint)){
+			log.info("Cached mappings were recorded with another configuration of strategy " + name + ", they are not used.");
+			cachedClassMappings.clear();
+		}
+		strategyName = name;
+		configurationFingerprint = fingerprint;
+	}
+
+	/**
+	 * Returns the fingerprint of the configuration of a strategy, see {@link RenderJpaMappingForClassStrategyDefaultImpl#getConfigurationFingerprint()}.
+	 * The configuration of a {@link RenderJpaMappingForClassStrategyCachingImpl} is the strategy it caches.
+	 */
+	private static String getConfigurationFingerprint(RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy){
+		if (renderJpaMappingForClassStrategy instanceof RenderJpaMappingForClassStrategyCachingImpl){
+			RenderJpaMappingForClassStrategy cachedStrategy =
+					((RenderJpaMappingForClassStrategyCachingImpl) renderJpaMappingForClassStrategy).getRenderJpaMappingForClassStrategy();
+			return cachedStrategy.getClass().getName() + ":" + getConfigurationFingerprint(cachedStrategy);
+		}
+		if (renderJpaMappingForClassStrategy instanceof RenderJpaMappingForClassStrategyDefaultImpl){
+			return ((RenderJpaMappingForClassStrategyDefaultImpl) renderJpaMappingForClassStrategy).getConfigurationFingerprint();
+		}
+		return "";
+	}
+
+	/**
+	 * Returns the cached mapping of a class, if its fingerprint did not change.
+	 *
+	 * @param className - fully qualified name of the class
+	 * @param fingerprint - the current fingerprint of the class
+	 * @return the cached mapping, null if the class is not cached or its fingerprint changed
+	 */
+	synchronized CachedClassMapping get(String className, String fingerprint){
+		CachedClassMapping cachedClassMapping = getCachedClassMappings().get(className);
+		if (cachedClassMapping != null && cachedClassMapping.fingerprint.equals(fingerprint)){
+			hitCount++;
+			return cachedClassMapping;
+		}
+		missCount++;
+		return null;
+	}
+
+	/**
+	 * Caches the mapping of a class.
+	 *
+	 * @param className - fully qualified name of the class
+	 * @param fingerprint - the fingerprint of the class
+	 * @param classMapping - the mapping of the class, null if the class is not mapped
+	 */
+	synchronized void put(String className, String fingerprint, JpaMappingModel.ClassMapping classMapping){
+		getCachedClassMappings().put(className, new CachedClassMapping(fingerprint, classMapping));
+	}
+
+	/**
+	 * Removes the cached mappings of all classes but the given ones(f.e. of classes that were removed).
+	 *
+	 * @param classNames - fully qualified names of the classes to keep
+	 */
+	synchronized void retainAll(Collection<String> classNames){
+		Set<String> classNamesToKeep = new HashSet<String>(classNames);
+		for (Iterator<String> cachedClassNames = getCachedClassMappings().keySet().iterator(); cachedClassNames.hasNext();){
+			if (! classNamesToKeep.contains(cachedClassNames.next())){
+				cachedClassNames.remove();
+			}
+		}
+	}
+
+	private Map<String, CachedClassMapping> getCachedClassMappings(){
+		if (cachedClassMappings == null){
+			cachedClassMappings = new HashMap<String, CachedClassMapping>();
+			load();
+		}
+		return cachedClassMappings;
+	}
+
+	/**
+	 * Reads the cached mappings from disk. If they are not stored or cannot be read, nothing is cached.
+	 */
+	@SuppressWarnings("unchecked")
+	private void load(){
+		if (! file.isFile()){
+			return;
+		}
+		try {
+			ObjectInputStream inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				String storedStrategyName = (String) inputStream.readObject();
+				String storedConfigurationFingerprint = (String) inputStream.readObject();
+				Map<String, CachedClassMapping> storedClassMappings = (Map<String, CachedClassMapping>) inputStream.readObject();
+				strategyName = storedStrategyName;
+				configurationFingerprint = storedConfigurationFingerprint;
+				cachedClassMappings.putAll(storedClassMappings);
+			}
+			finally {
+				inputStream.close();
+			}
+		} catch (IOException e) {
+			log.warn("Could not read cache file " + file + ", it is ignored.", e);
+		} catch (ClassNotFoundException e) {
+			log.warn("Could not read cache file " + file + ", it is ignored.", e);
+		} catch (ClassCastException e) {
+			log.warn("Could not read cache file " + file + ", it is ignored.", e);
+		}
+	}
+
+	/**
+	 * Writes the cached mappings to disk. A temporary file is written first,
+	 * so a concurrent reader never sees a partially written cache file.
+	 */
+	public synchronized void store(){
+		File directory = file.getParentFile();
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		try {
+			if (directory != null && ! directory.isDirectory() && ! directory.mkdirs()){
+				throw new IOException("Could not create cache directory " + directory + ".");
+			}
+			ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+			try {
+				outputStream.writeObject(strategyName);
+				outputStream.writeObject(configurationFingerprint);
+				outputStream.writeObject(new HashMap<String, CachedClassMapping>(getCachedClassMappings()));
+			}
+			finally {
+				outputStream.close();
+			}
+			FileUtil.replaceFile(temporaryFile, file);
+		} catch (IOException e) {
+			temporaryFile.delete();
+			log.warn("Could not store the mappings in cache file " + file + ".", e);
+		}
+	}
+
+}
@@ -2,16 +2,32 @@ package com.ceardannan.java2jpa;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.NotImplementedException;
 import org.apache.log4j.Logger;
 
+import com.ceardannan.util.BeanIntrospector;
 import com.ceardannan.util.ReflectionUtil;
 import com.ceardannan.util.StringUtil;
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.ClassModelRepository;
+import com.ceardannan.util.classfile.FieldModel;
+import com.ceardannan.util.scan.ClasspathScanner;
+import com.ceardannan.util.scan.ScanSession;
 
 /**
  * This generator generates JPA Mappings for a given set of Java (domain) classes.
@@ -38,6 +54,26 @@ public class Java2JpaMappingGenerator {
 
 	private transient Logger log = Logger.getLogger(this.getClass());
 
+	/**
+	 * Marks the end of the stream of class names of a pipelined generation
+	 */
+	private static final String END_OF_CLASS_NAMES = new String("END_OF_CLASS_NAMES");
+
+	/**
+	 * Marks the end of the stream of analyzed classes of a pipelined generation
+	 */
+	private static final AnalyzedClass END_OF_ANALYZED_CLASSES = new AnalyzedClass(null, false);
+
+	/**
+	 * Strategy to generate the values of simple ids
+	 */
+	private static final String GENERATED_VALUE_STRATEGY = "AUTO";
+
+	/**
+	 * Fetch type of many-to-one attributes
+	 */
+	private static final String FETCH_TYPE = "LAZY";
+
 	/**
 	 * The jpaMappingRenderer
 	 */
@@ -48,6 +84,31 @@ public class Java2JpaMappingGenerator {
 	 */
 	private RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy;
 	
+	/**
+	 * The scanSession, null if classes are loaded by the classloader of the current thread
+	 */
+	private ScanSession scanSession;
+	
+	/**
+	 * Whether the classes of packages are scanned, analyzed and rendered in a pipeline
+	 */
+	private boolean pipelined;
+	
+	/**
+	 * Capacity of the queues between the stages of the pipeline
+	 */
+	private int pipelineQueueSize = 256;
+	
+	/**
+	 * Number of threads that render the classes, 1 to render them on the calling thread
+	 */
+	private int parallelism = 1;
+	
+	/**
+	 * The work deferred to the barrier stage of a pipelined generation, null when not generating in a pipeline
+	 */
+	private DeferredWork deferredWork;
+	
 	/**
 	 * Returns the jpaMappingRenderer
 	 * 
@@ -74,8 +135,90 @@ public class Java2JpaMappingGenerator {
 		this.renderJpaMappingForClassStrategy = renderJpaMappingForClassStrategy;
 	}
 	
+	/**
+	 * Returns the scanSession
+	 * 
+	 * @return the scanSession, null if classes are loaded by the classloader of the current thread
+	 */
+	public ScanSession getScanSession() {
+		return scanSession;
+	}
+	/**
+	 * Sets the scanSession through which the classes of the packages are scanned and loaded.
+	 * The classes are then loaded in isolation, without being initialized, and can be garbage collected once the session is closed
+	 * (and the jpaMappingRenderer is no longer used).
+	 * Closing the session is the responsibility of the caller.
+	 * 
+	 * @param scanSession
+	 */
+	public void setScanSession(ScanSession scanSession) {
+		this.scanSession = scanSession;
+	}
+	
+	/**
+	 * Returns whether the classes of packages are scanned, analyzed and rendered in a pipeline
+	 * 
+	 * @return the pipelined
+	 */
+	public boolean isPipelined() {
+		return pipelined;
+	}
+	/**
+	 * Sets whether the classes of packages are scanned, analyzed and rendered in a pipeline, see {@link #generateJpaMappingsPipelined(String...)}.
+	 * 
+	 * @param pipelined
+	 */
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+	/**
+	 * Returns the pipelineQueueSize
+	 * 
+	 * @return the pipelineQueueSize
+	 */
+	public int getPipelineQueueSize() {
+		return pipelineQueueSize;
+	}
+	/**
+	 * Sets the capacity of the queues between the stages of the pipeline. Defaults to 256.
+	 * 
+	 * @param pipelineQueueSize
+	 */
+	public void setPipelineQueueSize(int pipelineQueueSize) {
+		if (pipelineQueueSize < 1){
+			throw new IllegalArgumentException("pipelineQueueSize should be at least 1, but was " + pipelineQueueSize);
+		}
+		this.pipelineQueueSize = pipelineQueueSize;
+	}
+	
+	/**
+	 * Returns the number of threads that render the classes
+	 * 
+	 * @return the parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+	/**
+	 * Sets the number of threads that render the classes, see {@link #generateJpaMappingsInParallel(MappingUniverse)}. 
+	 * Defaults to 1: the classes are rendered on the calling thread.
+	 * Mappings that are analyzed on class models(see {@link #generateJpaMappingsForClassModels(Collection)}) are always rendered on the calling thread.
+	 * 
+	 * @param parallelism
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1){
+			throw new IllegalArgumentException("parallelism should be at least 1, but was " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+	
 	/**
 	 * Generates JPA Mappings for all classes (for which a JPA Mapping should be created) in the given packages.
+	 * Jars that contain a {@link com.ceardannan.util.scan.ClassIndex} for the packages are not scanned:
+	 * their classes(and class models) are read from the index.
+	 * The classes are selected on their class models if the renderJpaMappingForClassStrategy can, see {@link #canSelectOnClassModels()},
+	 * and their mappings are analyzed on their class models as well if it can, see {@link #generateJpaMappingsForClassModels(Collection)}.
 	 * 
 	 * @param packageNames - names of the packages for which' classes jpa mappings need to be created
 	 * @throws ClassNotFoundException
@@ -83,22 +226,591 @@ public class Java2JpaMappingGenerator {
 	 */
 	public void generateJpaMappingsForPackages(String... packageNames)
 			throws ClassNotFoundException, IOException {
-		Collection<Class<?>> allClasses = ReflectionUtil
-				.getAllClassesIn(packageNames);
-		generateJpaMappingsForPackages(allClasses);
+		if (pipelined){
+			generateJpaMappingsPipelined(packageNames);
+		}
+		else if (canSelectOnClassModels()){
+			generateJpaMappingsForClassModels(scanSession != null ? scanSession.getAllClassModelsIn(packageNames)
+					: new ClasspathScanner().getAllClassModelsIn(packageNames));
+		}
+		else if (scanSession != null){
+			generateJpaMappingsForPackages(scanSession.getAllClassesIn(packageNames));
+		}
+		else {
+			Collection<Class<?>> allClasses = ReflectionUtil
+					.getAllClassesIn(packageNames);
+			generateJpaMappingsForPackages(allClasses);
+		}
+	}
+	
+	/**
+	 * Generates JPA Mappings for all classes (for which a JPA Mapping should be created) in the given packages, in a pipeline of three stages:
+	 * <ul>
+	 * <li>scanning: the class names are streamed from the classpath scan as soon as they are found</li>
+	 * <li>analysis: the classes are loaded(without being initialized), checked on whether they need mapping and introspected</li>
+	 * <li>rendering: the classes are rendered as soon as they are analyzed, on the calling thread</li>
+	 * </ul>
+	 * The stages are connected by bounded queues, so scanning, analysis and rendering overlap.
+	 * The steps that need the complete set of classes(the inheritance mapping of entities, and the checks on whether referenced classes are mapped as entities)
+	 * are deferred to a barrier stage that runs once all classes are rendered.
+	 * This requires a jpaMappingRenderer that accepts the inheritance related elements of a class after its attributes, as {@link JpaMappingRendererDefaultImpl} does;
+	 * the result is the same as the one of a sequential generation.
+	 * 
+	 * @param packageNames - names of the packages for which' classes jpa mappings need to be created
+	 */
+	public void generateJpaMappingsPipelined(final String... packageNames) {
+		log.debug("Generating mappings in a pipeline..");
+		final BlockingQueue<String> classNames = new ArrayBlockingQueue<String>(pipelineQueueSize);
+		final BlockingQueue<AnalyzedClass> analyzedClasses = new ArrayBlockingQueue<AnalyzedClass>(pipelineQueueSize);
+		final ClasspathScanner classpathScanner = new ClasspathScanner();
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		deferredWork = new DeferredWork();
+		try {
+			Future<?> scanStage = executorService.submit(new Runnable() {
+				@SuppressWarnings("synthetic-access")
+				@Override
+				public void run() {
+					try {
+						if (scanSession != null){
+							scanSession.streamFullyQualifiedClassNames(classNames, packageNames);
+						}
+						else {
+							classpathScanner.streamFullyQualifiedClassNames(classNames, packageNames);
+						}
+					}
+					finally {
+						putQuietly(classNames, END_OF_CLASS_NAMES);
+					}
+				}
+			});
+			Future<?> analysisStage = executorService.submit(new Runnable() {
+				@SuppressWarnings("synthetic-access")
+				@Override
+				public void run() {
+					try {
+						String className;
+						while ((className = classNames.take()) != END_OF_CLASS_NAMES){
+							Collection<Class<?>> loadedClasses = scanSession != null ? scanSession.loadClasses(Collections.singletonList(className))
+									: classpathScanner.loadClasses(Collections.singletonList(className), false);
+							for (Class<?> clazz: loadedClasses){
+								analyzedClasses.put(analyzeClass(clazz));
+							}
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					finally {
+						putQuietly(analyzedClasses, END_OF_ANALYZED_CLASSES);
+					}
+				}
+			});
+
+			//rendering stage
+			List<Class<?>> allClasses = new ArrayList<Class<?>>();
+			AnalyzedClass analyzedClass;
+			while ((analyzedClass = analyzedClasses.take()) != END_OF_ANALYZED_CLASSES){
+				allClasses.add(analyzedClass.clazz);
+				if (analyzedClass.needsMapping){
+					log.debug("Creating mapping for class: " + analyzedClass.clazz.getName());
+					renderClass(analyzedClass.plan != null ? analyzedClass.plan : compileMappingPlan(analyzedClass.clazz, null), allClasses);
+				}
+				else {
+					log.info("Ignoring class: " + analyzedClass.clazz.getName());
+				}
+			}
+			try {
+				analysisStage.get();
+			}
+			catch (ExecutionException e){
+				// the scan stage can be blocked on its full queue, which is not taken from anymore
+				scanStage.cancel(true);
+				throw e;
+			}
+			scanStage.get();
+
+			renderDeferredWork(new MappingUniverse(allClasses, renderJpaMappingForClassStrategy));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while generating the mappings.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Generating the mappings failed.", e.getCause());
+		}
+		finally {
+			deferredWork = null;
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Analyzes a class in the analysis stage of a pipelined generation:
+	 * checks whether the class needs mapping, and compiles the mapping plan of the classes that do, ahead of their rendering.
+	 * The inheritance mapping type is not part of these plans, it is decided in the barrier stage.
+	 * 
+	 * @param clazz - the class to analyze
+	 * @return the analyzed class
+	 */
+	protected AnalyzedClass analyzeClass(Class<?> clazz) {
+		boolean needsMapping = renderJpaMappingForClassStrategy.classNeedsMapping(clazz);
+		return new AnalyzedClass(clazz, needsMapping, needsMapping ? compileMappingPlan(clazz, null) : null);
+	}
+
+	/**
+	 * Barrier stage of a pipelined generation: renders the work that needs the complete set of classes.
+	 * 
+	 * @param allClassesToMap - complete list of classes that will be mapped
+	 */
+	private void renderDeferredWork(Collection<Class<?>> allClassesToMap) {
+		DeferredWork work = deferredWork;
+		deferredWork = null;
+		for (Class<?> entityClass: work.entityClasses){
+			renderInheritance(entityClass, allClassesToMap);
+		}
+		for (DeferredEntityCheck entityCheck: work.entityChecks){
+			warnIfNotMappedAsEntity(entityCheck.type, entityCheck.warning, allClassesToMap);
+		}
+	}
+
+	private static <T> void putQuietly(BlockingQueue<T> queue, T element){
+		try {
+			queue.put(element);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Generates JPA Mappings for all classes, given as class models, for which a JPA Mapping should be created.
+	 * The classes to map are selected on their models, by the classNeedsMapping(ClassModel) method of the renderJpaMappingForClassStrategy,
+	 * which should implement {@link RenderJpaMappingForClassModelStrategy}.
+	 * If the strategy takes all its decisions on class models(see {@link #canAnalyzeOnClassModels()}) and the jpaMappingRenderer is a
+	 * {@link JpaMappingRendererDefaultImpl}, the mappings are analyzed and rendered from the class models, and no class is loaded at all.
+	 * Otherwise the selected classes are loaded, without being initialized, and their mappings are analyzed by reflection on them.
+	 * 
+	 * @param classModels - complete list of the models of the classes that will be mapped
+	 */
+	public void generateJpaMappingsForClassModels(Collection<ClassModel> classModels) {
+		if (canAnalyzeOnClassModels() && jpaMappingRenderer instanceof JpaMappingRendererDefaultImpl){
+			JpaMappingRendererDefaultImpl jpaMappingRendererDefaultImpl = (JpaMappingRendererDefaultImpl) jpaMappingRenderer;
+			for (JpaMappingModel.ClassMapping classMapping: analyzeJpaMappingsForClassModels(classModels).getClassMappings()){
+				jpaMappingRendererDefaultImpl.renderClassMapping(classMapping);
+			}
+			return;
+		}
+		if (renderJpaMappingForClassStrategy instanceof RenderJpaMappingForClassStrategyDefaultImpl){
+			// superclasses within the given models are resolved from them, instead of parsing their class files again
+			((RenderJpaMappingForClassStrategyDefaultImpl) renderJpaMappingForClassStrategy).getClassModelRepository().addAll(classModels);
+		}
+		List<String> classNamesToMap = new ArrayList<String>();
+		for (ClassModel classModel: selectClassModelsToMap(classModels)){
+			classNamesToMap.add(classModel.getName());
+		}
+		generateJpaMappingsForPackages(scanSession != null ? scanSession.loadClasses(classNamesToMap)
+				: new ClasspathScanner().loadClasses(classNamesToMap, false));
 	}
 
 	/**
 	 * Generates JPA Mappings for all classes for which a JPA Mapping should be created.
+	 * The classes are indexed in a {@link MappingUniverse} first, see {@link #generateJpaMappings(MappingUniverse)}.
 	 * 
 	 * @param classes - complete list of classes that will be mapped
 	 */
 	public void generateJpaMappingsForPackages(Collection<Class<?>> classes) {
+		generateJpaMappings(MappingUniverse.of(classes, renderJpaMappingForClassStrategy));
+	}
+
+	/**
+	 * Generates JPA Mappings for all classes of the universe for which a JPA Mapping should be created.
+	 * The universe is passed on as allClassesToMap, to the renderJpaMappingForClassStrategy as well.
+	 * 
+	 * @param universe - all classes that will be mapped
+	 */
+	public void generateJpaMappings(MappingUniverse universe) {
+		if (parallelism > 1){
+			generateJpaMappingsInParallel(universe);
+			return;
+		}
 		log.debug("Generating mappings..");
 
 		// for each class
-		for (Class<?> clazz : classes) {
-			addJpaMappingForClass(clazz, classes);
+		for (Class<?> clazz : universe) {
+			addJpaMappingForClass(clazz, universe);
+		}
+	}
+
+	/**
+	 * Analysis phase of a two-phase generation: records the JPA Mappings of all classes for which a JPA Mapping should be created
+	 * into a {@link JpaMappingModel}, using a {@link JpaMappingModelBuilder} instead of the jpaMappingRenderer.
+	 * 
+	 * @param classes - complete list of classes that will be mapped
+	 * @return the model of the mappings
+	 */
+	public JpaMappingModel analyzeJpaMappings(Collection<Class<?>> classes) {
+		JpaMappingRenderer renderer = jpaMappingRenderer;
+		JpaMappingModelBuilder jpaMappingModelBuilder = new JpaMappingModelBuilder();
+		jpaMappingRenderer = jpaMappingModelBuilder;
+		try {
+			generateJpaMappingsForPackages(classes);
+		}
+		finally {
+			jpaMappingRenderer = renderer;
+		}
+		return jpaMappingModelBuilder.getJpaMappingModel();
+	}
+
+	/**
+	 * Analysis phase of a two-phase generation for classes given as class models: takes the same decisions as {@link #analyzeJpaMappings(Collection)},
+	 * by the methods of {@link RenderJpaMappingForClassModelStrategy}, which the renderJpaMappingForClassStrategy should implement.
+	 * None of the classes is loaded, so the mappings can be analyzed for classes that cannot be loaded(f.e. while they are being compiled).
+	 * Other classes(superclasses, field types, ...) are looked up in the class model repository of the strategy, 
+	 * if it is a {@link RenderJpaMappingForClassStrategyDefaultImpl}.
+	 * 
+	 * @param classModels - complete list of the models of the classes that will be mapped
+	 * @return the model of the mappings
+	 */
+	public JpaMappingModel analyzeJpaMappingsForClassModels(Collection<ClassModel> classModels) {
+		RenderJpaMappingForClassModelStrategy renderJpaMappingForClassModelStrategy = getRenderJpaMappingForClassModelStrategy();
+		ClassModelRepository classModelRepository;
+		if (renderJpaMappingForClassStrategy instanceof RenderJpaMappingForClassStrategyDefaultImpl){
+			classModelRepository = ((RenderJpaMappingForClassStrategyDefaultImpl) renderJpaMappingForClassStrategy).getClassModelRepository();
+		}
+		else {
+			classModelRepository = new ClassModelRepository();
+		}
+		classModelRepository.addAll(classModels);
+		List<ClassModel> classModelsToMap = selectClassModelsToMap(classModels);
+		Set<String> entityClassNames = new HashSet<String>();
+		for (ClassModel classModel: classModelsToMap){
+			if (ClassRenderType.ENTITY.equals(renderJpaMappingForClassModelStrategy.getRenderTypeFor(classModel))){
+				entityClassNames.add(classModel.getName());
+			}
+		}
+		ClassModelUniverse universe = new ClassModelUniverse(classModels, renderJpaMappingForClassModelStrategy, classModelRepository);
+		List<JpaMappingModel.ClassMapping> classMappings = new ArrayList<JpaMappingModel.ClassMapping>();
+		for (ClassModel classModel: classModelsToMap){
+			log.debug("Creating mapping for class: " + classModel.getName());
+			classMappings.add(analyzeClassModel(classModel, universe, entityClassNames, classModelRepository));
+		}
+		return new JpaMappingModel(classMappings);
+	}
+
+	/**
+	 * Returns whether the classes to map can be selected on their class models, before they are loaded.
+	 * This requires a renderJpaMappingForClassStrategy that implements {@link RenderJpaMappingForClassModelStrategy},
+	 * and that decides on class models as it decides on classes: its classNeedsMapping(ClassModel) method should be declared by the class
+	 * that declares its classNeedsMapping(Class) method, or by a subclass of it.
+	 * Else a subclass that only overrides classNeedsMapping(Class)(f.e. to map more classes) would be bypassed.
+	 * 
+	 * @return whether the classes to map can be selected on their class models
+	 */
+	protected boolean canSelectOnClassModels(){
+		if (! (renderJpaMappingForClassStrategy instanceof RenderJpaMappingForClassModelStrategy)){
+			return false;
+		}
+		return decidesOnClassModelsAsOnClasses("classNeedsMapping", new Class<?>[]{Class.class}, new Class<?>[]{ClassModel.class});
+	}
+
+	/**
+	 * Returns whether the mappings of the classes can be analyzed on their class models, without loading the classes.
+	 * This requires that the classes can be selected on their class models(see {@link #canSelectOnClassModels()}), and that
+	 * every other method of {@link RenderJpaMappingForClassModelStrategy} is declared by the class that declares its counterpart
+	 * of {@link RenderJpaMappingForClassStrategy}, or by a subclass of it.
+	 * 
+	 * @return whether the mappings can be analyzed on class models
+	 */
+	protected boolean canAnalyzeOnClassModels(){
+		return canSelectOnClassModels()
+				&& decidesOnClassModelsAsOnClasses("getRenderTypeFor", new Class<?>[]{Class.class}, new Class<?>[]{ClassModel.class})
+				&& decidesOnClassModelsAsOnClasses("getInheritanceMappingTypeForClass", new Class<?>[]{Class.class, Collection.class},
+						new Class<?>[]{ClassModel.class, Collection.class})
+				&& decidesOnClassModelsAsOnClasses("getCollectionRenderTypeForField", new Class<?>[]{Field.class}, new Class<?>[]{FieldModel.class})
+				&& decidesOnClassModelsAsOnClasses("getIdFieldForClass", new Class<?>[]{Class.class}, new Class<?>[]{ClassModel.class})
+				&& decidesOnClassModelsAsOnClasses("fieldNeedsManyToOneMapping", new Class<?>[]{Field.class}, new Class<?>[]{FieldModel.class});
+	}
+
+	/**
+	 * Returns whether the class model version of a method of the renderJpaMappingForClassStrategy is declared by the class that declares
+	 * the class version, or by a subclass of it. Else a subclass that only overrides the class version would be bypassed.
+	 */
+	private boolean decidesOnClassModelsAsOnClasses(String methodName, Class<?>[] classParameterTypes, Class<?>[] classModelParameterTypes){
+		Class<?> strategyClass = renderJpaMappingForClassStrategy.getClass();
+		try {
+			Class<?> classDecider = strategyClass.getMethod(methodName, classParameterTypes).getDeclaringClass();
+			Class<?> classModelDecider = strategyClass.getMethod(methodName, classModelParameterTypes).getDeclaringClass();
+			return classDecider.isAssignableFrom(classModelDecider);
+		} catch (NoSuchMethodException e) {
+			//cannot happen, both strategy interfaces declare the method
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the models of the classes that need mapping, as decided by the classNeedsMapping(ClassModel) method of the renderJpaMappingForClassStrategy.
+	 * 
+	 * @param classModels - the models of the classes
+	 * @return the models of the classes that need mapping
+	 */
+	private List<ClassModel> selectClassModelsToMap(Collection<ClassModel> classModels){
+		RenderJpaMappingForClassModelStrategy renderJpaMappingForClassModelStrategy = getRenderJpaMappingForClassModelStrategy();
+		List<ClassModel> classModelsToMap = new ArrayList<ClassModel>();
+		for (ClassModel classModel: classModels){
+			if (renderJpaMappingForClassModelStrategy.classNeedsMapping(classModel)){
+				classModelsToMap.add(classModel);
+			}
+			else {
+				log.info("Ignoring class: " + classModel.getName());
+			}
+		}
+		return classModelsToMap;
+	}
+
+	private RenderJpaMappingForClassModelStrategy getRenderJpaMappingForClassModelStrategy(){
+		if (! (renderJpaMappingForClassStrategy instanceof RenderJpaMappingForClassModelStrategy)){
+			throw new IllegalStateException("The renderJpaMappingForClassStrategy should implement RenderJpaMappingForClassModelStrategy to generate mappings for class models.");
+		}
+		return (RenderJpaMappingForClassModelStrategy) renderJpaMappingForClassStrategy;
+	}
+
+	/**
+	 * Analyzes the mapping of a class given as class model, the counterpart of {@link #compileMappingPlan(Class, Collection)} and rendering the plan.
+	 * The same decisions are taken(and the same elements created) by the same methods, only on class models.
+	 * 
+	 * @param classModel - the model of the class to analyze
+	 * @param allClassModelsToMap - the models of all classes that will be mapped
+	 * @param entityClassNames - the names of the classes that will be mapped as an entity
+	 * @param classModelRepository - repository to look up other classes
+	 * @return the mapping of the class
+	 */
+	private JpaMappingModel.ClassMapping analyzeClassModel(ClassModel classModel, Collection<ClassModel> allClassModelsToMap, Set<String> entityClassNames,
+			ClassModelRepository classModelRepository) {
+		RenderJpaMappingForClassModelStrategy renderJpaMappingForClassModelStrategy = getRenderJpaMappingForClassModelStrategy();
+		ClassRenderType renderType = renderJpaMappingForClassModelStrategy.getRenderTypeFor(classModel);
+		FieldModel idField = renderJpaMappingForClassModelStrategy.getIdFieldForClass(classModel);
+		List<JpaMappingModel.Element> elements = new ArrayList<JpaMappingModel.Element>();
+		if (ClassRenderType.ENTITY.equals(renderType)){
+			elements.addAll(getInheritanceElements(classModel.getSimpleName(), 
+					renderJpaMappingForClassModelStrategy.getInheritanceMappingTypeForClass(classModel, allClassModelsToMap)));
+		}
+		for (FieldModel field: classModel.getDeclaredFields()){
+			JpaMappingModel.Element element = analyzeFieldModel(classModel, field, idField, entityClassNames, classModelRepository);
+			if (element != null){
+				elements.add(element);
+			}
+		}
+		Set<String> fieldNames = new HashSet<String>();
+		for (FieldModel field: classModelRepository.getAllFields(classModel)){
+			fieldNames.add(field.getName());
+		}
+		for (String propertyName: BeanIntrospector.getDeclaredReadablePropertyNames(classModel)){
+			if (! fieldNames.contains(propertyName)){
+				elements.add(new JpaMappingModel.Element(MappingElementKind.TRANSIENT, propertyName));
+			}
+		}
+		return new JpaMappingModel.ClassMapping(classModel.getName(), renderType, elements);
+	}
+
+	/**
+	 * Analyzes the mapping of a field of a class given as class model, the counterpart of {@link #compileFieldMapping(Field, Field)} 
+	 * and {@link #renderField(ClassMappingPlan.FieldMapping, Collection)}.
+	 * 
+	 * @param classModel - the model of the class declaring the field
+	 * @param field - the field to analyze
+	 * @param idField - the id field of the class
+	 * @param entityClassNames - the names of the classes that will be mapped as an entity
+	 * @param classModelRepository - repository to look up other classes
+	 * @return the element mapping the field, null if the field is not added explicitly to the mapping
+	 */
+	private JpaMappingModel.Element analyzeFieldModel(ClassModel classModel, FieldModel field, FieldModel idField, Set<String> entityClassNames,
+			ClassModelRepository classModelRepository) {
+		FieldMappingAction action = getFieldMappingAction(new MappedFieldModel(classModel, field, idField, classModelRepository));
+		switch (action) {
+		case ID:
+			return new JpaMappingModel.Element(MappingElementKind.ID, field.getName(), GENERATED_VALUE_STRATEGY);
+		case EMBEDDED_ID:
+			return new JpaMappingModel.Element(MappingElementKind.EMBEDDED_ID, field.getName());
+		case COLLECTION:
+			return analyzeCollectionFieldModel(classModel, field, entityClassNames, classModelRepository);
+		case MAP:
+		case ARRAY:
+			warnUnsupportedField(action, field.getName(), classModel.getName());
+			return null;
+		case REFERENCE:
+			String typeName = field.getTypeName();
+			ClassModel typeModel = classModelRepository.getClassModel(typeName);
+			if (typeModel != null && ClassRenderType.EMBEDDABLE.equals(getRenderJpaMappingForClassModelStrategy().getRenderTypeFor(typeModel))) {
+				return new JpaMappingModel.Element(MappingElementKind.EMBEDDED, field.getName());
+			}
+			if (! entityClassNames.contains(typeName)){
+				log.warn(getReferenceNotMappedWarning(typeName, field.getName(), classModel.getName()));
+			}
+			return new JpaMappingModel.Element(MappingElementKind.MANY_TO_ONE, field.getName(), FETCH_TYPE, getJoinColumnName(field.getName()));
+		case SKIP:
+			return null;
+		default:
+			throw new NotImplementedException("Rendering for fieldMappingAction "
+					+ action + " not implemented.");
+		}
+	}
+
+	/**
+	 * Analyzes the mapping of a collection field of a class given as class model, the counterpart of {@link #renderCollection(Field, Collection)}.
+	 * 
+	 * @param classModel - the model of the class declaring the field
+	 * @param collectionField - the collection field to analyze
+	 * @param entityClassNames - the names of the classes that will be mapped as an entity
+	 * @param classModelRepository - repository to look up other classes
+	 * @return the element mapping the collection
+	 */
+	private JpaMappingModel.Element analyzeCollectionFieldModel(ClassModel classModel, FieldModel collectionField, Set<String> entityClassNames,
+			ClassModelRepository classModelRepository) {
+		CollectionRenderType collectionRenderType = getRenderJpaMappingForClassModelStrategy().getCollectionRenderTypeForField(collectionField);
+		if (collectionRenderType == null){
+			//render collection as transient
+			return new JpaMappingModel.Element(MappingElementKind.TRANSIENT, collectionField.getName());
+		}
+		String otherClassName = classModelRepository.getTypeArgumentClassName(collectionField, 0);
+		ClassModel otherClass = classModelRepository.getClassModel(otherClassName);
+		String otherSimpleName = otherClass != null ? otherClass.getSimpleName() : otherClassName.substring(otherClassName.lastIndexOf('.') + 1);
+		List<FieldModel> possibleFields = null;
+		if (CollectionRenderType.ONETOMANY.equals(collectionRenderType)){
+			possibleFields = otherClass != null ? classModelRepository.getAllFieldsOfType(classModel.getName(), otherClass) : new ArrayList<FieldModel>();
+			if (possibleFields.isEmpty()){
+				log.warn(getMappedByFieldNotFoundWarning(classModel.getName(), otherClassName, collectionField.getName()));
+				collectionRenderType = CollectionRenderType.MANYTOMANY;
+			}
+		}
+		if (! CollectionRenderType.SIMPLE.equals(collectionRenderType) && ! entityClassNames.contains(otherClassName)){
+			log.warn(getElementsNotMappedWarning(otherClassName, collectionField.getName(), classModel.getName()));
+		}
+		switch (collectionRenderType) {
+		case SIMPLE:
+			return new JpaMappingModel.Element(MappingElementKind.ELEMENT_COLLECTION, collectionField.getName(), 
+					StringUtil.javaClassNameToDbName(collectionField.getName()), 
+					getCollectionTableName(classModel.getSimpleName(), collectionField.getName()));
+		case MANYTOMANY:
+			return new JpaMappingModel.Element(MappingElementKind.MANY_TO_MANY, collectionField.getName(), 
+					getJoinTableName(classModel.getSimpleName(), otherSimpleName), 
+					getJoinColumnName(classModel.getSimpleName()), 
+					getJoinColumnName(otherSimpleName));
+		case ONETOMANY:
+			warnIfMultipleMappedByFields(possibleFields.size(), classModel.getName(), otherClassName, possibleFields.get(0).getName(), collectionField.getName());
+			return new JpaMappingModel.Element(MappingElementKind.ONE_TO_MANY, collectionField.getName(), possibleFields.get(0).getName());
+		default:
+			throw new NotImplementedException(
+					"Rendering for collectionRenderType "
+							+ collectionRenderType + " not implemented.");
+		}
+	}
+
+	/**
+	 * Render phase of a two-phase generation: renders a model of mappings into the jpaMappingRenderer.
+	 * The classes of the model are loaded through the classloader of the scanSession, if any, else through the context classloader.
+	 * 
+	 * @param jpaMappingModel - the model of the mappings, see {@link #analyzeJpaMappings(Collection)}
+	 */
+	public void renderJpaMappingModel(JpaMappingModel jpaMappingModel) {
+		jpaMappingModel.renderTo(jpaMappingRenderer, scanSession != null ? scanSession.getClassLoader() : Thread.currentThread().getContextClassLoader());
+	}
+
+	/**
+	 * Generates JPA Mappings for all classes for which a JPA Mapping should be created, analyzing only the classes that changed since
+	 * the previous generation with the same cache, see {@link #analyzeJpaMappingsIncrementally(Collection, IncrementalMappingCache)}.
+	 * All mappings are then rendered into the jpaMappingRenderer.
+	 *
+	 * @param classes - complete list of classes that will be mapped
+	 * @param incrementalMappingCache - the mappings of the previous generation
+	 */
+	public void generateJpaMappingsIncrementally(Collection<Class<?>> classes, IncrementalMappingCache incrementalMappingCache) {
+		renderJpaMappingModel(analyzeJpaMappingsIncrementally(classes, incrementalMappingCache));
+	}
+
+	/**
+	 * Analysis phase of an incremental generation: records the JPA Mappings of all classes for which a JPA Mapping should be created
+	 * into a {@link JpaMappingModel}, analyzing only the classes that changed since the previous generation with the same cache.
+	 * A class is analyzed again when the bytecode of the class, or of a class its mapping depends on(superclasses, subclasses,
+	 * classes of fields and of collection elements), changed; the mappings of all other classes are taken from the cache.
+	 * The cache is stored afterwards.
+	 *
+	 * @param classes - complete list of classes that will be mapped
+	 * @param incrementalMappingCache - the mappings of the previous generation
+	 * @return the model of the mappings
+	 */
+	public JpaMappingModel analyzeJpaMappingsIncrementally(Collection<Class<?>> classes, IncrementalMappingCache incrementalMappingCache) {
+		MappingUniverse universe = MappingUniverse.of(classes, renderJpaMappingForClassStrategy);
+		ClassMappingFingerprints fingerprints = new ClassMappingFingerprints(universe);
+		incrementalMappingCache.useFor(renderJpaMappingForClassStrategy);
+
+		List<JpaMappingModel.ClassMapping> classMappings = new ArrayList<JpaMappingModel.ClassMapping>();
+		Map<Class<?>, String> changedClasses = new LinkedHashMap<Class<?>, String>();
+		List<String> classNames = new ArrayList<String>(universe.size());
+		for (Class<?> clazz : universe) {
+			classNames.add(clazz.getName());
+			String fingerprint = fingerprints.getFingerprint(clazz);
+			IncrementalMappingCache.CachedClassMapping cachedClassMapping = incrementalMappingCache.get(clazz.getName(), fingerprint);
+			if (cachedClassMapping == null){
+				changedClasses.put(clazz, fingerprint);
+			}
+			else if (cachedClassMapping.getClassMapping() != null){
+				classMappings.add(cachedClassMapping.getClassMapping());
+			}
+		}
+		log.info("Analyzing " + changedClasses.size() + " of " + universe.size() + " classes, the mappings of the others are cached.");
+
+		JpaMappingRenderer renderer = jpaMappingRenderer;
+		JpaMappingModelBuilder jpaMappingModelBuilder = new JpaMappingModelBuilder();
+		jpaMappingRenderer = jpaMappingModelBuilder;
+		try {
+			for (Class<?> clazz : changedClasses.keySet()) {
+				addJpaMappingForClass(clazz, universe);
+			}
+		}
+		finally {
+			jpaMappingRenderer = renderer;
+		}
+		JpaMappingModel analyzedModel = jpaMappingModelBuilder.getJpaMappingModel();
+		for (Map.Entry<Class<?>, String> changedClass: changedClasses.entrySet()){
+			String className = changedClass.getKey().getName();
+			incrementalMappingCache.put(className, changedClass.getValue(), analyzedModel.getClassMapping(className));
+		}
+		classMappings.addAll(analyzedModel.getClassMappings());
+		incrementalMappingCache.retainAll(classNames);
+		incrementalMappingCache.store();
+		return new JpaMappingModel(classMappings);
+	}
+
+	/**
+	 * Generates JPA Mappings for all classes of the universe for which a JPA Mapping should be created, 
+	 * rendering the classes concurrently on a pool of {@link #getParallelism()} threads.
+	 * Every class is rendered by a single thread, as all elements a class renders are elements of that class itself.
+	 * This requires a thread-safe jpaMappingRenderer(as {@link JpaMappingRendererDefaultImpl} is) and renderJpaMappingForClassStrategy
+	 * (as {@link RenderJpaMappingForClassStrategyDefaultImpl} is, for the decisions on classes).
+	 * The resulting mapping is the same as the one of a sequential generation, as the renderer orders the classes itself.
+	 * 
+	 * @param universe - all classes that will be mapped
+	 */
+	public void generateJpaMappingsInParallel(final MappingUniverse universe) {
+		log.debug("Generating mappings on " + parallelism + " threads..");
+		ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<Future<?>> renderings = new ArrayList<Future<?>>(universe.size());
+			for (final Class<?> clazz : universe) {
+				renderings.add(executorService.submit(new Runnable() {
+					@Override
+					public void run() {
+						addJpaMappingForClass(clazz, universe);
+					}
+				}));
+			}
+			for (Future<?> rendering: renderings){
+				rendering.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while generating the mappings.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Generating the mappings failed.", e.getCause());
+		}
+		finally {
+			executorService.shutdownNow();
 		}
 	}
 
@@ -128,9 +840,29 @@ public class Java2JpaMappingGenerator {
 	 * @return whether or not the class should be mapped as an entity
 	 */
 	private boolean classWillBeMappedAsEntity(Class<?> clazz, Collection<Class<?>> allClassesToMap){
+		if (allClassesToMap instanceof MappingUniverse && ((MappingUniverse) allClassesToMap).getRenderJpaMappingForClassStrategy() == renderJpaMappingForClassStrategy){
+			return ((MappingUniverse) allClassesToMap).isMappedAsEntity(clazz);
+		}
 		return allClassesToMap.contains(clazz) && ClassRenderType.ENTITY.equals(renderJpaMappingForClassStrategy.getRenderTypeFor(clazz));
 	}
 	
+	/**
+	 * Logs the given warning if the given class will not be mapped as an entity.
+	 * In a pipelined generation, the check is deferred until all classes are known.
+	 * 
+	 * @param clazz - class which should be mapped as an entity
+	 * @param warning - the warning to log if the class will not be mapped as an entity
+	 * @param allClassesToMap - complete list of classes that will be mapped
+	 */
+	private void warnIfNotMappedAsEntity(Class<?> clazz, String warning, Collection<Class<?>> allClassesToMap){
+		if (deferredWork != null){
+			deferredWork.entityChecks.add(new DeferredEntityCheck(clazz, warning));
+		}
+		else if (! classWillBeMappedAsEntity(clazz, allClassesToMap)){
+			log.warn(warning);
+		}
+	}
+	
 	/**
 	 * Returns a joinTableName for a class pair.
 	 * 
@@ -139,17 +871,116 @@ public class Java2JpaMappingGenerator {
 	 * @return joinTableName
 	 */
 	private String getJoinTableName(Class<?> class1, Class<?> class2) {
-		if (class1.getSimpleName().compareToIgnoreCase(class2.getSimpleName()) == 1) {
-			return StringUtil.javaClassNameToDbName(class1.getSimpleName())
+		return getJoinTableName(class1.getSimpleName(), class2.getSimpleName());
+	}
+
+	/**
+	 * Returns a joinTableName for a class pair, given by their simple names.
+	 * 
+	 * @param simpleName1 - simple name of the first class of the class pair to create a join table for
+	 * @param simpleName2 - simple name of the second class of the class pair to create a join table for
+	 * @return joinTableName
+	 */
+	private String getJoinTableName(String simpleName1, String simpleName2) {
+		if (simpleName1.compareToIgnoreCase(simpleName2) == 1) {
+			return StringUtil.javaClassNameToDbName(simpleName1)
 					+ "_"
-					+ StringUtil.javaClassNameToDbName(class2.getSimpleName());
+					+ StringUtil.javaClassNameToDbName(simpleName2);
 		} else {
-			return StringUtil.javaClassNameToDbName(class2.getSimpleName())
+			return StringUtil.javaClassNameToDbName(simpleName2)
 					+ "_"
-					+ StringUtil.javaClassNameToDbName(class1.getSimpleName());
+					+ StringUtil.javaClassNameToDbName(simpleName1);
+		}
+	}
+
+	/**
+	 * Returns a joinColumnName for a field or a class.
+	 * 
+	 * @param name - name of the field, or simple name of the class
+	 * @return joinColumnName
+	 */
+	private String getJoinColumnName(String name) {
+		return StringUtil.javaClassNameToDbName(name) + "_ID";
+	}
+
+	/**
+	 * Returns the collectionTableName of a simple collection.
+	 * 
+	 * @param simpleClassName - simple name of the class declaring the collection
+	 * @param collectionFieldName - name of the collection field
+	 * @return collectionTableName
+	 */
+	private String getCollectionTableName(String simpleClassName, String collectionFieldName) {
+		return StringUtil.javaClassNameToDbName(simpleClassName) + "_"
+				+ StringUtil.javaClassNameToDbName(collectionFieldName);
+	}
+
+	/**
+	 * Returns the warning for a referenced class that is not mapped as an entity.
+	 */
+	private String getReferenceNotMappedWarning(String typeName, String fieldName, String className) {
+		return "Type " + typeName + " of property of " + fieldName + " on class " + className + " not mapped. Manual intervention on the mapping will be required.";
+	}
+
+	/**
+	 * Returns the warning for a class of the elements of a collection that is not mapped as an entity.
+	 */
+	private String getElementsNotMappedWarning(String elementClassName, String collectionFieldName, String className) {
+		return "Type " + elementClassName + " of elements of mapped collection " + collectionFieldName + " on class " + className + " not mapped. Manual intervention on the mapping will be required.";
+	}
+
+	/**
+	 * Logs a warning for a field of which the mapping is not supported.
+	 * 
+	 * @param action - the unsupported action: MAP or ARRAY
+	 * @param fieldName - name of the field
+	 * @param className - name of the class declaring the field
+	 */
+	private void warnUnsupportedField(FieldMappingAction action, String fieldName, String className) {
+		if (FieldMappingAction.MAP.equals(action)){
+			log.warn("Mapping java.util.Maps currently not supported. Hence, cannot map "
+					+ fieldName
+					+ " java.util.Map field of class "
+					+ className + ".");
+		}
+		else {
+			log.warn("Mapping arrays currently not supported. Hence, cannot map "
+					+ fieldName
+					+ " array field of class "
+					+ className + ".");
 		}
 	}
 
+	/**
+	 * Logs a warning if more than one field of the class of the elements of a one-to-many collection can map the collection.
+	 * 
+	 * @param count - the number of fields that can map the collection
+	 * @param className - name of the class declaring the collection
+	 * @param elementClassName - name of the class of the elements
+	 * @param mappedByFieldName - name of the field that maps the collection: the first one
+	 * @param collectionFieldName - name of the collection field
+	 */
+	private void warnIfMultipleMappedByFields(int count, String className, String elementClassName, String mappedByFieldName, String collectionFieldName) {
+		if (count > 1) {
+			log.warn("Multiple fields of type "
+					+ className
+					+ " found on " + elementClassName + ". Using first one("
+					+ mappedByFieldName
+					+ ") to map collection "
+					+ collectionFieldName + " on "
+					+ className + ".");
+		}
+	}
+
+	/**
+	 * Returns the warning for a collection to render as one-to-many of which the elements have no field referring back to the class
+	 * declaring the collection: it is rendered as many-to-many instead.
+	 */
+	private String getMappedByFieldNotFoundWarning(String className, String elementClassName, String collectionFieldName) {
+		return "No field of type " + className + " found on " + elementClassName + " to map collection " + collectionFieldName
+				+ " on " + className + " as one-to-many. Mapping it as many-to-many instead.";
+	}
+
 	/**
 	 * Renders a field (in the attributes section of a class) as a property in the jpa mapping.
 	 * This implementation first determines the classRenderType of the objectField class using the renderJpaMappingForClassStrategy.
@@ -164,11 +995,10 @@ public class Java2JpaMappingGenerator {
 				.getRenderTypeFor(fieldClass))) {
 			jpaMappingRenderer.renderEmbeddedAttributeForClass(objectField.getDeclaringClass(), objectField);
 		} else {
-			if (! classWillBeMappedAsEntity(fieldClass, allClassesToMap)){
-				log.warn("Type " + fieldClass.getName() + " of property of " + objectField.getName() + " on class " + objectField.getDeclaringClass().getName() + " not mapped. Manual intervention on the mapping will be required.");
-			}
-			jpaMappingRenderer.renderManyToOneAttributeForClass(objectField.getDeclaringClass(), objectField, "LAZY",  
-					StringUtil.javaClassNameToDbName(objectField.getName()) + "_ID");
+			warnIfNotMappedAsEntity(fieldClass, getReferenceNotMappedWarning(fieldClass.getName(), objectField.getName(), objectField.getDeclaringClass().getName()),
+					allClassesToMap);
+			jpaMappingRenderer.renderManyToOneAttributeForClass(objectField.getDeclaringClass(), objectField, FETCH_TYPE,  
+					getJoinColumnName(objectField.getName()));
 		}
 	}
 
@@ -181,47 +1011,48 @@ public class Java2JpaMappingGenerator {
 	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
 	 */
 	protected void renderCollection(Field collectionField, Collection<Class<?>> allClassesToMap) {
-		CollectionRenderType collectionRenderType = renderJpaMappingForClassStrategy
-				.getCollectionRenderTypeForField(collectionField);
+		renderCollection(collectionField, renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(collectionField), allClassesToMap);
+	}
+
+	/**
+	 * Renders a field (in the attributes section of a class) as a collection in the jpa mapping, given its collectionRenderType.
+	 * 
+	 * @param collectionField - the field to render in the jpa mapping
+	 * @param collectionRenderType - how to render the collection, null to render it as transient
+	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
+	 */
+	protected void renderCollection(Field collectionField, CollectionRenderType collectionRenderType, Collection<Class<?>> allClassesToMap) {
 		if (collectionRenderType != null) {
-			ParameterizedType collectionListType = (ParameterizedType) collectionField
-					.getGenericType();
-			Class<?> otherClass = (Class<?>) collectionListType
-					.getActualTypeArguments()[0];
 			Class<?> classBeingRendered = collectionField
 					.getDeclaringClass();
+			Class<?> otherClass = ReflectionUtil.getCollectionElementClass(classBeingRendered, collectionField);
+			List<Field> possibleFields = null;
+			if (CollectionRenderType.ONETOMANY.equals(collectionRenderType)){
+				possibleFields = ReflectionUtil.getAllFieldsOfTypeClassOnOtherClass(classBeingRendered, otherClass);
+				if (possibleFields.isEmpty()){
+					log.warn(getMappedByFieldNotFoundWarning(classBeingRendered.getName(), otherClass.getName(), collectionField.getName()));
+					collectionRenderType = CollectionRenderType.MANYTOMANY;
+				}
+			}
 			switch (collectionRenderType) {
 			case SIMPLE:
 				jpaMappingRenderer.renderSimpleCollectionAttributeForClass(collectionField.getDeclaringClass(), collectionField, 
 						StringUtil.javaClassNameToDbName(collectionField.getName()), 
-						StringUtil.javaClassNameToDbName(classBeingRendered.getSimpleName()) + "_"
-							+ StringUtil.javaClassNameToDbName(collectionField.getName()));
+						getCollectionTableName(classBeingRendered.getSimpleName(), collectionField.getName()));
 				break;
 			case MANYTOMANY:
-				if (! classWillBeMappedAsEntity(otherClass, allClassesToMap)){
-					log.warn("Type " + otherClass.getName() + " of elements of mapped collection " + collectionField.getName() + " on class " + classBeingRendered.getName() + " not mapped. Manual intervention on the mapping will be required.");
-				}
+				warnIfNotMappedAsEntity(otherClass, getElementsNotMappedWarning(otherClass.getName(), collectionField.getName(), classBeingRendered.getName()),
+						allClassesToMap);
 				jpaMappingRenderer.renderManyToManyAttributeForClass(collectionField.getDeclaringClass(), collectionField, 
 						getJoinTableName(classBeingRendered,otherClass), 
-						StringUtil.javaClassNameToDbName(classBeingRendered.getSimpleName())+ "_ID", 
-						StringUtil.javaClassNameToDbName(otherClass.getSimpleName()) + "_ID");
+						getJoinColumnName(classBeingRendered.getSimpleName()), 
+						getJoinColumnName(otherClass.getSimpleName()));
 				break;
 			case ONETOMANY:
-				if (! classWillBeMappedAsEntity(otherClass, allClassesToMap)){
-					log.warn("Type " + otherClass.getName() + " of elements of mapped collection " + collectionField.getName() + " on class " + classBeingRendered.getName() + " not mapped. Manual intervention on the mapping will be required.");
-				}
-				List<Field> possibleFields = ReflectionUtil
-						.getAllFieldsOfTypeClassOnOtherClass(
-								classBeingRendered, otherClass);
-				if (possibleFields.size() > 1) {
-					log.warn("Multiple fields of type "
-							+ classBeingRendered
-							+ " found on " + otherClass + ". Using first one("
-							+ possibleFields.get(0).getName()
-							+ ") to map collection "
-							+ collectionField.getName() + " on "
-							+ classBeingRendered + ".");
-				}
+				warnIfNotMappedAsEntity(otherClass, getElementsNotMappedWarning(otherClass.getName(), collectionField.getName(), classBeingRendered.getName()),
+						allClassesToMap);
+				warnIfMultipleMappedByFields(possibleFields.size(), classBeingRendered.getName(), otherClass.getName(), 
+						possibleFields.get(0).getName(), collectionField.getName());
 				Field mappedByField = possibleFields.get(0);
 				jpaMappingRenderer.renderOneToManyAttributeForClass(collectionField.getDeclaringClass(), collectionField, mappedByField.getName());
 				break;
@@ -243,146 +1074,462 @@ public class Java2JpaMappingGenerator {
 	 * Mapping arrays and java.util.Maps currently not supported.
 	 * Whether a field is an id is decided by the getIdFieldForClass<?> of the renderJpaMappingForClassStrategy.
 	 * Since most fields (primitives, basic Java types, enums,..) are automapped, they are not added explicitly to the mapping.
+	 * Rendering a class does not call this method for each field, but executes the field mappings of its compiled {@link ClassMappingPlan}.
 	 * 
 	 * @param field - the field to render in the jpa mapping
 	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
 	 */
 	protected void renderField(Field field, Collection<Class<?>> allClassesToMap) {
-			// if field is id: map field as id
-			if (field.equals(renderJpaMappingForClassStrategy.getIdFieldForClass(field.getDeclaringClass()))) {
-				if (ReflectionUtil.isSimpleClass(field.getType())){
-					jpaMappingRenderer.renderIdForClass(field.getDeclaringClass(), field, "AUTO");
-				}
-				else {
-					ClassRenderType renderType = renderJpaMappingForClassStrategy.getRenderTypeFor(field.getType());
-					if (! ClassRenderType.EMBEDDABLE.equals(renderType)){
-						log.warn("Id " + field.getName() + " of " + field.getDeclaringClass() + " is not a simple class or an embeddable. Still mapping it as an embedded-id, but manual intervention for this mapping will be required.");
-					}
-					jpaMappingRenderer.renderEmbeddedIdForClass(field.getDeclaringClass(), field);
-				}
-			}
-			// render collections
-			else if (Collection.class.isAssignableFrom(field.getType())) {
-				renderCollection(field,allClassesToMap);
-			}
-			// render maps
-			else if (Map.class.isAssignableFrom(field.getType())) {
-				log.warn("Mapping java.util.Maps currently not supported. Hence, cannot map "
-						+ field.getName()
-						+ " java.util.Map field of class "
-						+ field.getDeclaringClass() + ".");
-			} else if (field.getType().isArray()) {
-				log.warn("Mapping arrays currently not supported. Hence, cannot map "
-						+ field.getName()
-						+ " array field of class "
-						+ field.getDeclaringClass() + ".");
+		renderField(compileFieldMapping(field, renderJpaMappingForClassStrategy.getIdFieldForClass(field.getDeclaringClass())), allClassesToMap);
+	}
+
+	/**
+	 * Decides what rendering a field requires, as described in {@link #renderField(Field, Collection)}.
+	 * 
+	 * @param field - the field to compile a mapping for
+	 * @param idField - the id field of the class declaring the field
+	 * @return the mapping of the field
+	 */
+	protected ClassMappingPlan.FieldMapping compileFieldMapping(Field field, Field idField) {
+		FieldMappingAction action = getFieldMappingAction(new MappedReflectedField(field, idField));
+		if (FieldMappingAction.COLLECTION.equals(action)) {
+			CollectionRenderType collectionRenderType = renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(field);
+			return new ClassMappingPlan.FieldMapping(field, collectionRenderType != null ? FieldMappingAction.COLLECTION : FieldMappingAction.TRANSIENT,
+					collectionRenderType);
+		}
+		return new ClassMappingPlan.FieldMapping(field, action, null);
+	}
+
+	/**
+	 * Decides what rendering a field requires, for the fields of classes as well as of class models.
+	 * Collections are decided as COLLECTION, whether they are rendered as transient depends on their collectionRenderType.
+	 * 
+	 * @param field - the field to decide on
+	 * @return what rendering the field requires
+	 */
+	private FieldMappingAction getFieldMappingAction(MappedField field) {
+		// if field is id: map field as id
+		if (field.isId()) {
+			if (field.hasSimpleType()){
+				return FieldMappingAction.ID;
 			}
-			// render if object reference
-			else if (renderJpaMappingForClassStrategy
-					.fieldNeedsManyToOneMapping(field)) {
-				renderObjectReference(field,allClassesToMap);
+			if (! field.hasEmbeddableType()){
+				log.warn("Id " + field.getName() + " of " + field.getDeclaringClassName() + " is not a simple class or an embeddable. Still mapping it as an embedded-id, but manual intervention for this mapping will be required.");
 			}
+			return FieldMappingAction.EMBEDDED_ID;
+		}
+		// collections
+		else if (field.isCollection()) {
+			return FieldMappingAction.COLLECTION;
+		}
+		// maps
+		else if (field.isMap()) {
+			return FieldMappingAction.MAP;
+		}
+		else if (field.isArray()) {
+			return FieldMappingAction.ARRAY;
+		}
+		// object references
+		else if (field.needsManyToOneMapping()) {
+			return FieldMappingAction.REFERENCE;
+		}
+		return FieldMappingAction.SKIP;
 	}
 
 	/**
-	 * Renders the attributes(columns) section of a given class.
+	 * Renders a field (in the attributes section of a class) in the jpa mapping, as decided by its compiled mapping.
 	 * 
-	 * @param clazz - the class to create an attributes section for
+	 * @param fieldMapping - the mapping of the field to render
 	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
 	 */
-	protected void renderAttributes(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
-		List<Field> fieldsOfClass = ReflectionUtil.getAllDeclaredFieldsFor(clazz);
+	protected void renderField(ClassMappingPlan.FieldMapping fieldMapping, Collection<Class<?>> allClassesToMap) {
+		Field field = fieldMapping.getField();
+		switch (fieldMapping.getAction()) {
+		case ID:
+			jpaMappingRenderer.renderIdForClass(field.getDeclaringClass(), field, GENERATED_VALUE_STRATEGY);
+			break;
+		case EMBEDDED_ID:
+			jpaMappingRenderer.renderEmbeddedIdForClass(field.getDeclaringClass(), field);
+			break;
+		case COLLECTION:
+		case TRANSIENT:
+			renderCollection(field, fieldMapping.getCollectionRenderType(), allClassesToMap);
+			break;
+		case MAP:
+		case ARRAY:
+			warnUnsupportedField(fieldMapping.getAction(), field.getName(), field.getDeclaringClass().getName());
+			break;
+		case REFERENCE:
+			renderObjectReference(field, allClassesToMap);
+			break;
+		case SKIP:
+			break;
+		default:
+			throw new NotImplementedException("Rendering for fieldMappingAction "
+					+ fieldMapping.getAction() + " not implemented.");
+		}
+	}
 
-		for (Field field : fieldsOfClass) {
-			renderField(field,allClassesToMap);
+	/**
+	 * Renders the attributes(columns) section of a given class, by executing the field mappings of its plan.
+	 * 
+	 * @param plan - the compiled mapping plan of the class to create an attributes section for
+	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
+	 */
+	protected void renderAttributes(ClassMappingPlan plan, Collection<Class<?>> allClassesToMap) {
+		for (ClassMappingPlan.FieldMapping fieldMapping : plan.getFieldMappings()) {
+			renderField(fieldMapping, allClassesToMap);
 		}
 		
-		for (String transientPropertyName: ReflectionUtil.getNonFieldReadablePropertyNamesOfClass(clazz)){
-			jpaMappingRenderer.renderTransientAttributeForClass(clazz, transientPropertyName);
+		for (String transientPropertyName: plan.getTransientPropertyNames()){
+			jpaMappingRenderer.renderTransientAttributeForClass(plan.getMappedClass(), transientPropertyName);
 		}
 	}
 
 	/**
 	 * Renders the given class as an mappedSuperclass.
 	 * 
-	 * @param clazz - the class to create a jpa mapping for
+	 * @param plan - the compiled mapping plan of the class to create a jpa mapping for
 	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
 	 */
-	protected void renderMappedSuperclass(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
-		jpaMappingRenderer.renderClassAsMappedSuperclass(clazz);
-		renderAttributes(clazz,allClassesToMap);
+	protected void renderMappedSuperclass(ClassMappingPlan plan, Collection<Class<?>> allClassesToMap) {
+		jpaMappingRenderer.renderClassAsMappedSuperclass(plan.getMappedClass());
+		renderAttributes(plan,allClassesToMap);
 	}
 
 	/**
 	 * Renders the given class as an embeddable.
 	 * 
-	 * @param clazz - the class to create a jpa mapping for
+	 * @param plan - the compiled mapping plan of the class to create a jpa mapping for
 	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
 	 */
-	protected void renderEmbeddable(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
-		jpaMappingRenderer.renderClassAsEmbeddable(clazz);
-		renderAttributes(clazz,allClassesToMap);
+	protected void renderEmbeddable(ClassMappingPlan plan, Collection<Class<?>> allClassesToMap) {
+		jpaMappingRenderer.renderClassAsEmbeddable(plan.getMappedClass());
+		renderAttributes(plan,allClassesToMap);
 	}
 
 	/**
 	 * Renders the given class as an entity.
 	 * Not only the attributes are rendered.
-	 * The inheritance hierarchy of the class is checked, and based on these checks, inheritance related jpa elements are added.
-	 * Currently, only SINGLE_TABLE is supported as an inheritance strategy.
+	 * The inheritance related jpa elements are added as decided by the inheritance mapping type of the plan;
+	 * if the plan was compiled before all classes were known(in a pipelined generation), this is deferred until all classes are known.
 	 * 
-	 * @param clazz - the class to create a jpa mapping for
+	 * @param plan - the compiled mapping plan of the class to create a jpa mapping for
 	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
 	 */
-	protected void renderEntity(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
+	protected void renderEntity(ClassMappingPlan plan, Collection<Class<?>> allClassesToMap) {
+		Class<?> clazz = plan.getMappedClass();
 		jpaMappingRenderer.renderClassAsEntity(clazz);
+		if (plan.getInheritanceMappingType() != null){
+			renderInheritance(clazz, plan.getInheritanceMappingType());
+		}
+		else if (deferredWork != null){
+			deferredWork.entityClasses.add(clazz);
+		}
+		else {
+			renderInheritance(clazz, allClassesToMap);
+		}
+		renderAttributes(plan,allClassesToMap);
+	}
+
+	/**
+	 * Renders the inheritance related elements(table, inheritance strategy, discriminator) of the given entity.
+	 * Currently, only SINGLE_TABLE is supported as an inheritance strategy.
+	 * 
+	 * @param clazz - the entity class
+	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on the inheritance hierarchy of the class.
+	 */
+	protected void renderInheritance(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
+		renderInheritance(clazz, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(clazz, allClassesToMap));
+	}
+
+	/**
+	 * Renders the inheritance related elements(table, inheritance strategy, discriminator) of the given entity, given its inheritanceMappingType.
+	 * 
+	 * @param clazz - the entity class
+	 * @param inheritanceMappingType - how to map the inheritance of the class
+	 */
+	protected void renderInheritance(Class<?> clazz, InheritanceMappingType inheritanceMappingType) {
+		for (JpaMappingModel.Element element: getInheritanceElements(clazz.getSimpleName(), inheritanceMappingType)){
+			element.renderTo(jpaMappingRenderer, clazz);
+		}
+	}
 
-		InheritanceMappingType inheritanceMappingType = renderJpaMappingForClassStrategy
-				.getInheritanceMappingTypeForClass(clazz, allClassesToMap);
+	/**
+	 * Returns the inheritance related elements(table, inheritance strategy, discriminator) of an entity, given its inheritanceMappingType.
+	 * 
+	 * @param simpleClassName - the simple name of the entity class
+	 * @param inheritanceMappingType - how to map the inheritance of the class
+	 * @return the elements, in the order in which they are rendered
+	 */
+	private List<JpaMappingModel.Element> getInheritanceElements(String simpleClassName, InheritanceMappingType inheritanceMappingType) {
+		String dbName = StringUtil.javaClassNameToDbName(simpleClassName);
+		List<JpaMappingModel.Element> elements = new ArrayList<JpaMappingModel.Element>();
 		switch (inheritanceMappingType) {
 		case SUBCLASS_WITH_DISCRIMINATOR:
-			jpaMappingRenderer.addDiscriminatorValueElementForClass(clazz, StringUtil.javaClassNameToDbName(clazz.getSimpleName()));
+			elements.add(new JpaMappingModel.Element(MappingElementKind.DISCRIMINATOR_VALUE, null, dbName));
 			break;
 		case NONE:
-			jpaMappingRenderer.addTableElementForClass(clazz, StringUtil.javaClassNameToDbName(clazz.getSimpleName()));
+			elements.add(new JpaMappingModel.Element(MappingElementKind.TABLE, null, dbName));
 			break;
 		case NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE:
-			jpaMappingRenderer.addTableElementForClass(clazz, StringUtil.javaClassNameToDbName(clazz.getSimpleName()));
-			jpaMappingRenderer.addInheritanceStrategyElementForClass(clazz, "SINGLE_TABLE");
-			jpaMappingRenderer.addDiscriminatorValueElementForClass(clazz, StringUtil.javaClassNameToDbName(clazz.getSimpleName()));
-			jpaMappingRenderer.addDiscriminatorColumnElementForClass(clazz, "DISCRIMINATOR");
+			elements.add(new JpaMappingModel.Element(MappingElementKind.TABLE, null, dbName));
+			elements.add(new JpaMappingModel.Element(MappingElementKind.INHERITANCE_STRATEGY, null, "SINGLE_TABLE"));
+			elements.add(new JpaMappingModel.Element(MappingElementKind.DISCRIMINATOR_VALUE, null, dbName));
+			elements.add(new JpaMappingModel.Element(MappingElementKind.DISCRIMINATOR_COLUMN, null, "DISCRIMINATOR"));
 			break;
 		default:
 			throw new NotImplementedException(
 					"Rendering for inheritanceMappingType "
 							+ inheritanceMappingType + " not implemented.");
 		}
-		renderAttributes(clazz,allClassesToMap);
+		return elements;
 	}
 
 	/**
 	 * Renders (the jpa mapping) for a given class.
-	 * First, the renderType(mappedSuperclass, embaddable or entity) is determined.
-	 * Then the mapping for the class is rendered given the determined renderType.
+	 * First, the mapping plan of the class is compiled, see {@link #compileMappingPlan(Class, Collection)}.
+	 * Then the mapping for the class is rendered by executing the plan.
 	 * 
 	 * @param clazz - the class to create a jpa mapping for
 	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
 	 */
 	protected void renderClass(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
-		ClassRenderType renderType = renderJpaMappingForClassStrategy
-					.getRenderTypeFor(clazz);
+		renderClass(compileMappingPlan(clazz, allClassesToMap), allClassesToMap);
+	}
+
+	/**
+	 * Compiles the mapping plan of a given class: the renderType(mappedSuperclass, embaddable or entity), the id field, 
+	 * the inheritance mapping type(for entities) and the mapping of every declared field are decided once, by the renderJpaMappingForClassStrategy.
+	 * 
+	 * @param clazz - the class to compile a mapping plan for
+	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created, 
+	 * 		null if not all classes are known yet(in which case the inheritance mapping type is not decided)
+	 * @return the mapping plan of the class
+	 */
+	protected ClassMappingPlan compileMappingPlan(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
+		ClassRenderType renderType = renderJpaMappingForClassStrategy.getRenderTypeFor(clazz);
+		Field idField = renderJpaMappingForClassStrategy.getIdFieldForClass(clazz);
+		InheritanceMappingType inheritanceMappingType = null;
+		if (ClassRenderType.ENTITY.equals(renderType) && allClassesToMap != null){
+			inheritanceMappingType = renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(clazz, allClassesToMap);
+		}
+		List<ClassMappingPlan.FieldMapping> fieldMappings = new ArrayList<ClassMappingPlan.FieldMapping>();
+		for (Field field: ReflectionUtil.getAllDeclaredFieldsFor(clazz)){
+			fieldMappings.add(compileFieldMapping(field, idField));
+		}
+		return new ClassMappingPlan(clazz, renderType, idField, inheritanceMappingType, fieldMappings, 
+				ReflectionUtil.getNonFieldReadablePropertyNamesOfClass(clazz));
+	}
+
+	/**
+	 * Renders (the jpa mapping) for a given class by executing its compiled mapping plan.
+	 * 
+	 * @param plan - the compiled mapping plan of the class to create a jpa mapping for
+	 * @param allClassesToMap - Collection of all classes for which a jpa mapping will be created. Used to reflect on relations of these classes with the class to map.
+	 */
+	protected void renderClass(ClassMappingPlan plan, Collection<Class<?>> allClassesToMap) {
+		ClassRenderType renderType = plan.getRenderType();
 		switch (renderType) {
 		case MAPPEDSUPERCLASS:
-			renderMappedSuperclass(clazz, allClassesToMap);
+			renderMappedSuperclass(plan, allClassesToMap);
 			break;
 		case EMBEDDABLE:
-			renderEmbeddable(clazz, allClassesToMap);
+			renderEmbeddable(plan, allClassesToMap);
 			break;
 		case ENTITY:
-			renderEntity(clazz, allClassesToMap);
+			renderEntity(plan, allClassesToMap);
 			break;
 		default:
 			throw new NotImplementedException("Rendering for renderType "
 					+ renderType + " not implemented.");
 		}
 	}
+
+	/**
+	 * A field as {@link Java2JpaMappingGenerator#getFieldMappingAction(MappedField)} decides on it: 
+	 * a field of a class or of a class model, so both are decided in the same way.
+	 * The questions are asked in the order of the decision, so only the questions needed for a field are answered.
+	 */
+	private interface MappedField {
+		String getName();
+		String getDeclaringClassName();
+		boolean isId();
+		boolean hasSimpleType();
+		boolean hasEmbeddableType();
+		boolean isCollection();
+		boolean isMap();
+		boolean isArray();
+		boolean needsManyToOneMapping();
+	}
+
+	/**
+	 * A field of a class, answered by reflection and the renderJpaMappingForClassStrategy.
+	 */
+	private class MappedReflectedField implements MappedField {
+		private Field field;
+		private Field idField;
+
+		MappedReflectedField(Field field, Field idField){
+			this.field = field;
+			this.idField = idField;
+		}
+
+		@Override
+		public String getName() {
+			return field.getName();
+		}
+
+		@Override
+		public String getDeclaringClassName() {
+			return field.getDeclaringClass().getName();
+		}
+
+		@Override
+		public boolean isId() {
+			return field.equals(idField);
+		}
+
+		@Override
+		public boolean hasSimpleType() {
+			return ReflectionUtil.isSimpleClass(field.getType());
+		}
+
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public boolean hasEmbeddableType() {
+			return ClassRenderType.EMBEDDABLE.equals(renderJpaMappingForClassStrategy.getRenderTypeFor(field.getType()));
+		}
+
+		@Override
+		public boolean isCollection() {
+			return Collection.class.isAssignableFrom(field.getType());
+		}
+
+		@Override
+		public boolean isMap() {
+			return Map.class.isAssignableFrom(field.getType());
+		}
+
+		@Override
+		public boolean isArray() {
+			return field.getType().isArray();
+		}
+
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public boolean needsManyToOneMapping() {
+			return renderJpaMappingForClassStrategy.fieldNeedsManyToOneMapping(field);
+		}
+	}
+
+	/**
+	 * A field of a class model, answered by the class model repository and the renderJpaMappingForClassStrategy as {@link RenderJpaMappingForClassModelStrategy}.
+	 */
+	private class MappedFieldModel implements MappedField {
+		private ClassModel classModel;
+		private FieldModel field;
+		private FieldModel idField;
+		private ClassModelRepository classModelRepository;
+
+		MappedFieldModel(ClassModel classModel, FieldModel field, FieldModel idField, ClassModelRepository classModelRepository){
+			this.classModel = classModel;
+			this.field = field;
+			this.idField = idField;
+			this.classModelRepository = classModelRepository;
+		}
+
+		@Override
+		public String getName() {
+			return field.getName();
+		}
+
+		@Override
+		public String getDeclaringClassName() {
+			return classModel.getName();
+		}
+
+		@Override
+		public boolean isId() {
+			return field.equals(idField);
+		}
+
+		@Override
+		public boolean hasSimpleType() {
+			return ReflectionUtil.isSimpleClass(field.getTypeName());
+		}
+
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public boolean hasEmbeddableType() {
+			ClassModel typeModel = classModelRepository.getClassModel(field.getTypeName());
+			return typeModel != null && ClassRenderType.EMBEDDABLE.equals(getRenderJpaMappingForClassModelStrategy().getRenderTypeFor(typeModel));
+		}
+
+		@Override
+		public boolean isCollection() {
+			return ! field.isArray() && classModelRepository.isAssignableFrom(Collection.class.getName(), field.getTypeName());
+		}
+
+		@Override
+		public boolean isMap() {
+			return ! field.isArray() && classModelRepository.isAssignableFrom(Map.class.getName(), field.getTypeName());
+		}
+
+		@Override
+		public boolean isArray() {
+			return field.isArray();
+		}
+
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public boolean needsManyToOneMapping() {
+			return getRenderJpaMappingForClassModelStrategy().fieldNeedsManyToOneMapping(field);
+		}
+	}
+
+	/**
+	 * A class that went through the analysis stage of a pipelined generation.
+	 */
+	protected static class AnalyzedClass {
+		private Class<?> clazz;
+		private boolean needsMapping;
+		private ClassMappingPlan plan;
+
+		protected AnalyzedClass(Class<?> clazz, boolean needsMapping){
+			this(clazz, needsMapping, null);
+		}
+
+		/**
+		 * @param clazz - the analyzed class
+		 * @param needsMapping - whether the class needs mapping
+		 * @param plan - the mapping plan of the class, null if it is compiled when rendering the class
+		 */
+		protected AnalyzedClass(Class<?> clazz, boolean needsMapping, ClassMappingPlan plan){
+			this.clazz = clazz;
+			this.needsMapping = needsMapping;
+			this.plan = plan;
+		}
+	}
+
+	/**
+	 * Check on whether a referenced class is mapped as an entity, deferred to the barrier stage.
+	 */
+	private static class DeferredEntityCheck {
+		private Class<?> type;
+		private String warning;
+
+		DeferredEntityCheck(Class<?> type, String warning){
+			this.type = type;
+			this.warning = warning;
+		}
+	}
+
+	/**
+	 * Work deferred to the barrier stage of a pipelined generation.
+	 */
+	private static class DeferredWork {
+		private List<Class<?>> entityClasses = new ArrayList<Class<?>>();
+		private List<DeferredEntityCheck> entityChecks = new ArrayList<DeferredEntityCheck>();
+	}
 }
@@ -0,0 +1,345 @@
+package com.ceardannan.java2jpa;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.scan.ScanSession;
+
+/**
+ * Keeps a jpa mapping file current while the compiled classes of a project change, f.e. during development in an IDE.
+ * <p>
+ * The watcher polls the given class directories(f.e. target/classes) for added, changed and removed class files.
+ * Once a change is detected, the watcher waits until no more changes happen during the quietPeriod(a compiler writes many files at once),
+ * then regenerates the mapping incrementally: the classes of the packages are loaded through a new {@link ScanSession},
+ * so their new versions are used, and only the classes whose mapping may have changed are analyzed again,
+ * see {@link Java2JpaMappingGenerator#analyzeJpaMappingsIncrementally(java.util.Collection, IncrementalMappingCache)}.
+ * The mapping file is only rewritten(atomically) when the mapping changed.
+ * </p>
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * {@code
+ * Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+ * java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+ * Java2JpaMappingWatcher watcher = new Java2JpaMappingWatcher(java2JpaMappingGenerator, new IncrementalMappingCache(new File("target/java2jpa-mappings.cache")),
+ *         "src/main/resources/META-INF/orm.xml", Arrays.asList(new File("target/classes")), "com.test.model");
+ * watcher.start();
+ * ...
+ * watcher.stop();
+ * }
+ * </pre>
+ * </p>
+ *
+ */
+public class Java2JpaMappingWatcher {
+
+	private transient Logger log = Logger.getLogger(this.getClass());
+
+	private Java2JpaMappingGenerator java2JpaMappingGenerator;
+
+	private IncrementalMappingCache incrementalMappingCache;
+
+	/**
+	 * Name of the mapping file to keep current
+	 */
+	private String filename;
+
+	/**
+	 * The class directories to watch
+	 */
+	private List<File> directories;
+
+	/**
+	 * Names of the packages to generate mappings for
+	 */
+	private String[] packageNames;
+
+	/**
+	 * Milliseconds between two polls of the directories
+	 */
+	private long pollInterval = 500;
+
+	/**
+	 * Milliseconds without changes before the mapping is regenerated
+	 */
+	private long quietPeriod = 300;
+
+	/**
+	 * The class files(path to last modification time and size) when the mapping was last regenerated, null before the first regeneration
+	 */
+	private Map<String, String> generatedClassFiles;
+
+	/**
+	 * The model of the mapping that was last written
+	 */
+	private JpaMappingModel writtenJpaMappingModel;
+
+	/**
+	 * The thread polling the directories, null if the watcher is not started
+	 */
+	private Thread thread;
+
+	/**
+	 * @param java2JpaMappingGenerator - the generator, with the renderJpaMappingForClassStrategy set. Its jpaMappingRenderer and scanSession are set by the watcher.
+	 * @param incrementalMappingCache - the cache of the mappings of the classes
+	 * @param filename - name of the mapping file to keep current
+	 * @param directories - the class directories to watch
+	 * @param packageNames - names of the packages to generate mappings for
+	 */
+	public Java2JpaMappingWatcher(Java2JpaMappingGenerator java2JpaMappingGenerator, IncrementalMappingCache incrementalMappingCache, String filename,
+			List<File> directories, String... packageNames){
+		this.java2JpaMappingGenerator = java2JpaMappingGenerator;
+		this.incrementalMappingCache = incrementalMappingCache;
+		this.filename = filename;
+		this.directories = new ArrayList<File>(directories);
+		this.packageNames = packageNames.clone();
+	}
+
+	/**
+	 * Returns the pollInterval
+	 *
+	 * @return the milliseconds between two polls of the directories
+	 */
+	public long getPollInterval() {
+		return pollInterval;
+	}
+
+	/**
+	 * Sets the milliseconds between two polls of the directories. Defaults to 500.
+	 *
+	 * @param pollInterval
+	 */
+	public void setPollInterval(long pollInterval) {
+		if (pollInterval < 1){
+			throw new IllegalArgumentException("pollInterval should be at least 1, but was " + pollInterval);
+		}
+		this.pollInterval = pollInterval;
+	}
+
+	/**
+	 * Returns the quietPeriod
+	 *
+	 * @return the milliseconds without changes before the mapping is regenerated
+	 */
+	public long getQuietPeriod() {
+		return quietPeriod;
+	}
+
+	/**
+	 * Sets the milliseconds without changes to the class files before the mapping is regenerated. Defaults to 300.
+	 *
+	 * @param quietPeriod
+	 */
+	public void setQuietPeriod(long quietPeriod) {
+		if (quietPeriod < 0){
+			throw new IllegalArgumentException("quietPeriod should not be negative, but was " + quietPeriod);
+		}
+		this.quietPeriod = quietPeriod;
+	}
+
+	/**
+	 * Starts watching the directories on a daemon thread. The mapping is regenerated at the first poll.
+	 *
+	 * @throws IllegalStateException if the watcher is started already
+	 */
+	public synchronized void start() {
+		if (thread != null){
+			throw new IllegalStateException("The watcher is started already.");
+		}
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "java2jpa-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching the directories, and waits until a regeneration in progress has finished.
+	 */
+	public void stop() {
+		Thread watchingThread;
+		synchronized (this) {
+			watchingThread = thread;
+			thread = null;
+		}
+		if (watchingThread != null){
+			watchingThread.interrupt();
+			try {
+				watchingThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the watcher is started
+	 *
+	 * @return whether the watcher is started
+	 */
+	public synchronized boolean isStarted() {
+		return thread != null;
+	}
+
+	private void watch() {
+		while (! Thread.currentThread().isInterrupted()){
+			try {
+				regenerateIfChanged();
+				Thread.sleep(pollInterval);
+			} catch (InterruptedException e) {
+				return;
+			} catch (IOException e) {
+				log.error("Could not write the mapping to " + filename + ".", e);
+			} catch (RuntimeException e) {
+				log.error("Could not regenerate the mapping, it is regenerated again at the next change.", e);
+			}
+		}
+	}
+
+	/**
+	 * Polls the directories once: if class files were added, changed or removed since the last regeneration(or if the mapping was never generated),
+	 * waits for the quietPeriod to pass without further changes and regenerates the mapping.
+	 *
+	 * @return whether the mapping was regenerated
+	 * @throws IOException if the mapping file cannot be written
+	 * @throws InterruptedException if interrupted while waiting for the quietPeriod
+	 */
+	public synchronized boolean regenerateIfChanged() throws IOException, InterruptedException {
+		Map<String, String> classFiles = getClassFiles();
+		if (classFiles.equals(generatedClassFiles)){
+			return false;
+		}
+		if (generatedClassFiles != null){
+			long quietSince = System.currentTimeMillis();
+			while (System.currentTimeMillis() - quietSince < quietPeriod){
+				Thread.sleep(Math.min(pollInterval, quietPeriod));
+				Map<String, String> currentClassFiles = getClassFiles();
+				if (! currentClassFiles.equals(classFiles)){
+					classFiles = currentClassFiles;
+					quietSince = System.currentTimeMillis();
+				}
+			}
+		}
+		regenerate();
+		generatedClassFiles = classFiles;
+		return true;
+	}
+
+	/**
+	 * Regenerates the mapping from the current classes in the directories, and rewrites the mapping file if the mapping changed.
+	 *
+	 * @throws IOException if the mapping file cannot be written
+	 */
+	public synchronized void regenerate() throws IOException {
+		long start = System.currentTimeMillis();
+		ClassLoader parent = Thread.currentThread().getContextClassLoader();
+		DirectoriesFirstClassLoader directoriesClassLoader = new DirectoriesFirstClassLoader(getDirectoryURLs(), parent);
+		ScanSession scanSession = new ScanSession(directoriesClassLoader);
+		// the watched directories change between regenerations, a class index in them is out of date
+		scanSession.getClasspathScanner().setUseClassIndex(false);
+		ScanSession previousScanSession = java2JpaMappingGenerator.getScanSession();
+		JpaMappingRenderer previousJpaMappingRenderer = java2JpaMappingGenerator.getJpaMappingRenderer();
+		java2JpaMappingGenerator.setScanSession(scanSession);
+		try {
+			JpaMappingModel jpaMappingModel = java2JpaMappingGenerator.analyzeJpaMappingsIncrementally(scanSession.getAllClassesIn(packageNames), incrementalMappingCache);
+			if (jpaMappingModel.equals(writtenJpaMappingModel) && new File(filename).isFile()){
+				log.info("Mapping unchanged, " + filename + " is not rewritten(" + (System.currentTimeMillis() - start) + " ms).");
+				return;
+			}
+			JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl(filename);
+			java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+			java2JpaMappingGenerator.renderJpaMappingModel(jpaMappingModel);
+			jpaMappingRenderer.createMappedFiles();
+			writtenJpaMappingModel = jpaMappingModel;
+			log.info("Mapping regenerated in " + filename + "(" + (System.currentTimeMillis() - start) + " ms).");
+		}
+		finally {
+			java2JpaMappingGenerator.setJpaMappingRenderer(previousJpaMappingRenderer);
+			java2JpaMappingGenerator.setScanSession(previousScanSession);
+			scanSession.close();
+			//the classes of the session extend or reference classes of the directories classLoader, a new one is created on every regeneration
+			ReflectionUtil.clearClassMetadataCache(directoriesClassLoader, parent);
+		}
+	}
+
+	private URL[] getDirectoryURLs() {
+		URL[] urls = new URL[directories.size()];
+		for (int i = 0; i < urls.length; i++){
+			try {
+				urls[i] = directories.get(i).toURI().toURL();
+			} catch (MalformedURLException e) {
+				throw new IllegalArgumentException("Invalid directory " + directories.get(i) + ".", e);
+			}
+		}
+		return urls;
+	}
+
+	/**
+	 * Returns the class files in the directories, the path of every file mapped to its last modification time and size.
+	 */
+	private Map<String, String> getClassFiles() {
+		Map<String, String> classFiles = new HashMap<String, String>();
+		for (File directory: directories){
+			addClassFiles(directory, classFiles);
+		}
+		return classFiles;
+	}
+
+	private static void addClassFiles(File directory, Map<String, String> classFiles) {
+		File[] files = directory.listFiles();
+		if (files != null){
+			for (File file: files){
+				if (file.isDirectory()){
+					addClassFiles(file, classFiles);
+				}
+				else if (file.getName().endsWith(".class")){
+					classFiles.put(file.getPath(), file.lastModified() + ":" + file.length());
+				}
+			}
+		}
+	}
+
+	/**
+	 * ClassLoader that finds resources in the watched directories before asking its parent,
+	 * so the classes in the directories are scanned and read from there, even if an older version of them is on the classpath of the parent.
+	 */
+	private static class DirectoriesFirstClassLoader extends URLClassLoader {
+
+		DirectoriesFirstClassLoader(URL[] urls, ClassLoader parent){
+			super(urls, parent);
+		}
+
+		@Override
+		public URL getResource(String name) {
+			URL url = findResource(name);
+			return url != null ? url : super.getResource(name);
+		}
+
+		@Override
+		public Enumeration<URL> getResources(String name) throws IOException {
+			List<URL> urls = Collections.list(findResources(name));
+			Enumeration<URL> parentURLs = getParent() == null ? null : getParent().getResources(name);
+			while (parentURLs != null && parentURLs.hasMoreElements()){
+				urls.add(parentURLs.nextElement());
+			}
+			return Collections.enumeration(urls);
+		}
+	}
+
+}
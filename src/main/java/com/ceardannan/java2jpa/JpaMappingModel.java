@@ -0,0 +1,326 @@
+package com.ceardannan.java2jpa;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ceardannan.util.ReflectionUtil;
+
+/**
+ * Immutable, serializable model of the jpa mappings of a set of classes: the result of the analysis phase of a generation,
+ * recorded by a {@link JpaMappingModelBuilder}.
+ * <p>
+ * The model holds, per class, how it is mapped and the elements of its mapping(inheritance, table and discriminator elements, attributes
+ * and relations) in the order they were rendered, by name only, so it can be stored, compared with an earlier model,
+ * and rendered any number of times into any {@link JpaMappingRenderer} without repeating the reflection and the decisions of the strategy,
+ * see {@link #renderTo(JpaMappingRenderer, ClassLoader)}.
+ * </p>
+ *
+ */
+public final class JpaMappingModel implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Orders class mappings by class name
+	 */
+	private static final Comparator<ClassMapping> CLASS_NAME_ORDER = new Comparator<ClassMapping>() {
+		@Override
+		public int compare(ClassMapping classMapping1, ClassMapping classMapping2) {
+			return classMapping1.getClassName().compareTo(classMapping2.getClassName());
+		}
+	};
+
+	private final List<ClassMapping> classMappings;
+
+	private final Map<String, ClassMapping> classMappingsByName;
+
+	/**
+	 * @param classMappings - the mappings of the classes
+	 * @throws IllegalArgumentException if a class is mapped more than once
+	 */
+	public JpaMappingModel(Collection<ClassMapping> classMappings){
+		List<ClassMapping> sortedClassMappings = new ArrayList<ClassMapping>(classMappings);
+		Collections.sort(sortedClassMappings, CLASS_NAME_ORDER);
+		Map<String, ClassMapping> mappingsByName = new HashMap<String, ClassMapping>();
+		for (ClassMapping classMapping: sortedClassMappings){
+			if (mappingsByName.put(classMapping.getClassName(), classMapping) != null){
+				throw new IllegalArgumentException("Class " + classMapping.getClassName() + " is mapped more than once.");
+			}
+		}
+		this.classMappings = Collections.unmodifiableList(sortedClassMappings);
+		this.classMappingsByName = mappingsByName;
+	}
+
+	/**
+	 * @return the unmodifiable mappings of the classes, ordered by class name
+	 */
+	public List<ClassMapping> getClassMappings() {
+		return classMappings;
+	}
+
+	/**
+	 * @param className - fully qualified name of the class
+	 * @return the mapping of the class, null if the class is not mapped
+	 */
+	public ClassMapping getClassMapping(String className) {
+		return classMappingsByName.get(className);
+	}
+
+	/**
+	 * Renders the mappings of all classes into a renderer, in the order of the class names.
+	 *
+	 * @param jpaMappingRenderer - the renderer
+	 * @param classLoader - the classloader that loads the mapped classes(they are not initialized)
+	 * @throws IllegalStateException if a class or field of the model cannot be found
+	 */
+	public void renderTo(JpaMappingRenderer jpaMappingRenderer, ClassLoader classLoader) {
+		for (ClassMapping classMapping: classMappings){
+			classMapping.renderTo(jpaMappingRenderer, classLoader);
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof JpaMappingModel && classMappings.equals(((JpaMappingModel) obj).classMappings);
+	}
+
+	@Override
+	public int hashCode() {
+		return classMappings.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return classMappings.toString();
+	}
+
+	/**
+	 * The immutable mapping of a single class.
+	 */
+	public static final class ClassMapping implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String className;
+		private final ClassRenderType renderType;
+		private final List<Element> elements;
+
+		/**
+		 * @param className - fully qualified name of the class
+		 * @param renderType - how the class is mapped
+		 * @param elements - the elements of the mapping, in the order they are rendered
+		 */
+		public ClassMapping(String className, ClassRenderType renderType, List<Element> elements){
+			this.className = className;
+			this.renderType = renderType;
+			this.elements = Collections.unmodifiableList(new ArrayList<Element>(elements));
+		}
+
+		/**
+		 * @return the fully qualified name of the class
+		 */
+		public String getClassName() {
+			return className;
+		}
+
+		/**
+		 * @return how the class is mapped
+		 */
+		public ClassRenderType getRenderType() {
+			return renderType;
+		}
+
+		/**
+		 * @return the unmodifiable elements of the mapping, in the order they are rendered
+		 */
+		public List<Element> getElements() {
+			return elements;
+		}
+
+		/**
+		 * Renders the mapping of the class into a renderer.
+		 *
+		 * @param jpaMappingRenderer - the renderer
+		 * @param classLoader - the classloader that loads the class(it is not initialized)
+		 * @throws IllegalStateException if the class or one of its fields cannot be found
+		 */
+		public void renderTo(JpaMappingRenderer jpaMappingRenderer, ClassLoader classLoader) {
+			Class<?> clazz;
+			try {
+				clazz = Class.forName(className, false, classLoader);
+			} catch (ClassNotFoundException e) {
+				throw new IllegalStateException("Mapped class " + className + " not found.", e);
+			}
+			switch (renderType) {
+			case MAPPEDSUPERCLASS:
+				jpaMappingRenderer.renderClassAsMappedSuperclass(clazz);
+				break;
+			case EMBEDDABLE:
+				jpaMappingRenderer.renderClassAsEmbeddable(clazz);
+				break;
+			case ENTITY:
+				jpaMappingRenderer.renderClassAsEntity(clazz);
+				break;
+			default:
+				throw new IllegalStateException("Unknown render type " + renderType);
+			}
+			for (Element element: elements){
+				element.renderTo(jpaMappingRenderer, clazz);
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj){
+				return true;
+			}
+			if (! (obj instanceof ClassMapping)){
+				return false;
+			}
+			ClassMapping other = (ClassMapping) obj;
+			return className.equals(other.className) && renderType == other.renderType && elements.equals(other.elements);
+		}
+
+		@Override
+		public int hashCode() {
+			return (className.hashCode() * 31 + renderType.hashCode()) * 31 + elements.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return renderType + " " + className + elements;
+		}
+	}
+
+	/**
+	 * An immutable element of the mapping of a class.
+	 */
+	public static final class Element implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final MappingElementKind kind;
+		private final String name;
+		private final List<String> arguments;
+
+		/**
+		 * @param kind - the kind of element
+		 * @param name - name of the field or property the element maps, null for elements of the class itself
+		 * @param arguments - the arguments of the element, as described by the kind
+		 */
+		public Element(MappingElementKind kind, String name, String... arguments){
+			this.kind = kind;
+			this.name = name;
+			this.arguments = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList(arguments)));
+		}
+
+		/**
+		 * @return the kind of element
+		 */
+		public MappingElementKind getKind() {
+			return kind;
+		}
+
+		/**
+		 * @return the name of the field or property the element maps, null for elements of the class itself
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the unmodifiable arguments of the element
+		 */
+		public List<String> getArguments() {
+			return arguments;
+		}
+
+		private Field getField(Class<?> clazz){
+			Field field = ReflectionUtil.getFieldOfClass(clazz, name);
+			if (field == null){
+				throw new IllegalStateException("Mapped field " + name + " not found on " + clazz.getName() + ".");
+			}
+			return field;
+		}
+
+		/**
+		 * Renders the element into a renderer.
+		 *
+		 * @param jpaMappingRenderer - the renderer
+		 * @param clazz - the mapped class
+		 */
+		void renderTo(JpaMappingRenderer jpaMappingRenderer, Class<?> clazz) {
+			switch (kind) {
+			case INHERITANCE_STRATEGY:
+				jpaMappingRenderer.addInheritanceStrategyElementForClass(clazz, arguments.get(0));
+				break;
+			case TABLE:
+				jpaMappingRenderer.addTableElementForClass(clazz, arguments.get(0));
+				break;
+			case DISCRIMINATOR_COLUMN:
+				jpaMappingRenderer.addDiscriminatorColumnElementForClass(clazz, arguments.get(0));
+				break;
+			case DISCRIMINATOR_VALUE:
+				jpaMappingRenderer.addDiscriminatorValueElementForClass(clazz, arguments.get(0));
+				break;
+			case TRANSIENT:
+				jpaMappingRenderer.renderTransientAttributeForClass(clazz, name);
+				break;
+			case EMBEDDED_ID:
+				jpaMappingRenderer.renderEmbeddedIdForClass(clazz, getField(clazz));
+				break;
+			case ID:
+				jpaMappingRenderer.renderIdForClass(clazz, getField(clazz), arguments.get(0));
+				break;
+			case EMBEDDED:
+				jpaMappingRenderer.renderEmbeddedAttributeForClass(clazz, getField(clazz));
+				break;
+			case MANY_TO_ONE:
+				jpaMappingRenderer.renderManyToOneAttributeForClass(clazz, getField(clazz), arguments.get(0), arguments.get(1));
+				break;
+			case ELEMENT_COLLECTION:
+				jpaMappingRenderer.renderSimpleCollectionAttributeForClass(clazz, getField(clazz), arguments.get(0), arguments.get(1));
+				break;
+			case MANY_TO_MANY:
+				jpaMappingRenderer.renderManyToManyAttributeForClass(clazz, getField(clazz), arguments.get(0), arguments.get(1), arguments.get(2));
+				break;
+			case ONE_TO_MANY:
+				jpaMappingRenderer.renderOneToManyAttributeForClass(clazz, getField(clazz), arguments.get(0));
+				break;
+			default:
+				throw new IllegalStateException("Unknown element kind " + kind);
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj){
+				return true;
+			}
+			if (! (obj instanceof Element)){
+				return false;
+			}
+			Element other = (Element) obj;
+			return kind == other.kind && (name == null ? other.name == null : name.equals(other.name)) && arguments.equals(other.arguments);
+		}
+
+		@Override
+		public int hashCode() {
+			return (kind.hashCode() * 31 + (name == null ? 0 : name.hashCode())) * 31 + arguments.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return kind + (name == null ? "" : " " + name) + (arguments.isEmpty() ? "" : " " + arguments);
+		}
+	}
+
+}
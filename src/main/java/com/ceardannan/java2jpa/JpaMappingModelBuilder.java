@@ -0,0 +1,170 @@
+package com.ceardannan.java2jpa;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Implementation of the JpaMappingRenderer interface that records the rendered mappings into a {@link JpaMappingModel} instead of rendering them:
+ * the analysis phase of a two-phase generation.
+ * Any generation of the {@link Java2JpaMappingGenerator}(sequential, pipelined or parallel) can be recorded by setting a builder as its jpaMappingRenderer,
+ * the recorded model is then rendered in the render phase, see {@link JpaMappingModel#renderTo(JpaMappingRenderer, ClassLoader)}.
+ * Thread-safe: different classes can be recorded concurrently.
+ * As no mapping is rendered, no files are mapped.
+ *
+ */
+public class JpaMappingModelBuilder implements JpaMappingRenderer {
+
+	private ConcurrentMap<Class<?>, ClassMappingBuilder> classMappingBuilders = new ConcurrentHashMap<Class<?>, ClassMappingBuilder>();
+
+	/**
+	 * Records the mapping of a single class
+	 */
+	private static class ClassMappingBuilder {
+		private Class<?> clazz;
+		private ClassRenderType renderType;
+		private List<JpaMappingModel.Element> elements = new ArrayList<JpaMappingModel.Element>();
+
+		ClassMappingBuilder(Class<?> clazz){
+			this.clazz = clazz;
+		}
+
+		synchronized void setRenderType(ClassRenderType renderType) {
+			this.renderType = renderType;
+		}
+
+		synchronized void addElement(MappingElementKind kind, String name, String... arguments) {
+			if (renderType == null){
+				throw new IllegalStateException("Elements cannot be added for class " + clazz.getName() + " before one of the renderAs(Class) methods has been called for this class first.");
+			}
+			elements.add(new JpaMappingModel.Element(kind, name, arguments));
+		}
+
+		synchronized JpaMappingModel.ClassMapping build() {
+			return new JpaMappingModel.ClassMapping(clazz.getName(), renderType, elements);
+		}
+	}
+
+	private ClassMappingBuilder getClassMappingBuilder(Class<?> clazz){
+		ClassMappingBuilder classMappingBuilder = classMappingBuilders.get(clazz);
+		if (classMappingBuilder == null){
+			classMappingBuilder = new ClassMappingBuilder(clazz);
+			ClassMappingBuilder existingClassMappingBuilder = classMappingBuilders.putIfAbsent(clazz, classMappingBuilder);
+			if (existingClassMappingBuilder != null){
+				classMappingBuilder = existingClassMappingBuilder;
+			}
+		}
+		return classMappingBuilder;
+	}
+
+	/**
+	 * Returns the model of the mappings recorded so far.
+	 *
+	 * @return the model
+	 */
+	public JpaMappingModel getJpaMappingModel() {
+		List<JpaMappingModel.ClassMapping> classMappings = new ArrayList<JpaMappingModel.ClassMapping>();
+		for (ClassMappingBuilder classMappingBuilder: classMappingBuilders.values()){
+			classMappings.add(classMappingBuilder.build());
+		}
+		return new JpaMappingModel(classMappings);
+	}
+
+	@Override
+	public void renderClassAsMappedSuperclass(Class<?> clazz) {
+		getClassMappingBuilder(clazz).setRenderType(ClassRenderType.MAPPEDSUPERCLASS);
+	}
+
+	@Override
+	public void renderClassAsEmbeddable(Class<?> clazz) {
+		getClassMappingBuilder(clazz).setRenderType(ClassRenderType.EMBEDDABLE);
+	}
+
+	@Override
+	public void renderClassAsEntity(Class<?> clazz) {
+		getClassMappingBuilder(clazz).setRenderType(ClassRenderType.ENTITY);
+	}
+
+	@Override
+	public void addInheritanceStrategyElementForClass(Class<?> clazz, String inheritanceStrategyName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.INHERITANCE_STRATEGY, null, inheritanceStrategyName);
+	}
+
+	@Override
+	public void addTableElementForClass(Class<?> clazz, String tableName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.TABLE, null, tableName);
+	}
+
+	@Override
+	public void addDiscriminatorColumnElementForClass(Class<?> clazz, String discriminatorColumnName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.DISCRIMINATOR_COLUMN, null, discriminatorColumnName);
+	}
+
+	@Override
+	public void addDiscriminatorValueElementForClass(Class<?> clazz, String discriminatorValue) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.DISCRIMINATOR_VALUE, null, discriminatorValue);
+	}
+
+	@Override
+	public void renderTransientAttributeForClass(Class<?> clazz, String transientPropertyName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.TRANSIENT, transientPropertyName);
+	}
+
+	@Override
+	public void renderEmbeddedIdForClass(Class<?> clazz, Field embeddedIdField) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.EMBEDDED_ID, embeddedIdField.getName());
+	}
+
+	@Override
+	public void renderIdForClass(Class<?> clazz, Field idField, String generatedValueStrategyName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.ID, idField.getName(), generatedValueStrategyName);
+	}
+
+	@Override
+	public void renderEmbeddedAttributeForClass(Class<?> clazz, Field embeddedField) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.EMBEDDED, embeddedField.getName());
+	}
+
+	@Override
+	public void renderManyToOneAttributeForClass(Class<?> clazz, Field manyToOneField, String fetchType, String joinColumnName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.MANY_TO_ONE, manyToOneField.getName(), fetchType, joinColumnName);
+	}
+
+	@Override
+	public void renderSimpleCollectionAttributeForClass(Class<?> clazz, Field collectionField, String valueColumnName, String collectionTableName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.ELEMENT_COLLECTION, collectionField.getName(), valueColumnName, collectionTableName);
+	}
+
+	@Override
+	public void renderManyToManyAttributeForClass(Class<?> clazz, Field collectionField, String joinTableName, String joinColumnName,
+			String inverseJoinColumnName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.MANY_TO_MANY, collectionField.getName(), joinTableName, joinColumnName, inverseJoinColumnName);
+	}
+
+	@Override
+	public void renderOneToManyAttributeForClass(Class<?> clazz, Field collectionField, String mappedByFieldName) {
+		getClassMappingBuilder(clazz).addElement(MappingElementKind.ONE_TO_MANY, collectionField.getName(), mappedByFieldName);
+	}
+
+	/**
+	 * Returns an empty map: the mappings are recorded, not rendered.
+	 */
+	@Override
+	public Map<String, String> getMappedFilesAsStringMap() {
+		return Collections.emptyMap();
+	}
+
+	/**
+	 * Does nothing: the mappings are recorded, not rendered.
+	 */
+	@Override
+	public void createMappedFiles() throws IOException {
+		//NOTHING TO CREATE
+	}
+
+}
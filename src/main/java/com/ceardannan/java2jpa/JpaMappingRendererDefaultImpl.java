@@ -4,16 +4,25 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.io.FileUtils;
 
+import com.ceardannan.util.FileUtil;
 import com.ceardannan.util.XmlFormatter;
 
 /**
  * Default implementation of the JpaMappingRenderer interface.
+ * Thread-safe: different classes can be rendered concurrently, the mapping of every class is kept separately.
+ * The mappings are written ordered by element type, then by class name, so the result does not depend on the order in which the classes were rendered.
+ * Besides the methods of the interface, which take the classes and fields themselves, the mapping of a class can be rendered by name only
+ * from a {@link JpaMappingModel}, see {@link #renderClassMapping(JpaMappingModel.ClassMapping)}: the classes then do not have to be loadable.
  * 
  * @author Steffen Luypaert
  *
@@ -65,26 +74,28 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 	}
 	
 	class MappingInfo{
+		private String className;
 		private Class<?> clazz;
 		private String mappingType;
 		private StringBuilder classContentSb = new StringBuilder();
 		private Map<String,String> attributes = new HashMap<String, String>();
 
-		MappingInfo(Class<?> clazz){
+		MappingInfo(String className, Class<?> clazz){
+			this.className = className;
 			this.clazz = clazz;
 		}
-		void setMappingType(String mappingType) {
+		synchronized void setMappingType(String mappingType) {
 			this.mappingType = mappingType;
 		}
 		
-		void appendToClassContent(String s){
+		synchronized void appendToClassContent(String s){
 			if (mappingType == null){
 				throw new IllegalStateException("appendToClassContent cannot be called for this before one of the renderAs(Class) methods has been called for this class first.");
 			}
 			classContentSb.append(s);
 		}
 		@SuppressWarnings("synthetic-access")
-		void addToAttributes(String name, String content){
+		synchronized void addToAttributes(String name, String content){
 			if (mappingType == null){
 				throw new IllegalStateException("addToAttributes cannot be called for this class before one of the renderAs(Class) methods has been called for this class first.");
 			}
@@ -123,9 +134,9 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 			return sb;
 		}
 		
-		String getXmlMapping(){
+		synchronized String getXmlMapping(){
 			StringBuilder sb = new StringBuilder();
-			sb.append("<"+mappingType+" class=\"" + clazz.getName() + "\">");
+			sb.append("<"+mappingType+" class=\"" + className + "\">");
 			sb.append(classContentSb);
 			StringBuilder attributesSb = getAttributesSb();
 			if (attributesSb.length() > 0){
@@ -137,7 +148,13 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 			return sb.toString();
 		}
 		/**
-		 * @return the clazz
+		 * @return the className
+		 */
+		String getClassName() {
+			return className;
+		}
+		/**
+		 * @return the clazz, null if the class was only rendered by name
 		 */
 		Class<?> getClazz() {
 			return clazz;
@@ -145,13 +162,18 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 		/**
 		 * @return the mappingType
 		 */
-		String getMappingType() {
+		synchronized String getMappingType() {
 			return mappingType;
 		}
 		
 		
 	}
 	
+	/**
+	 * Encoding of the mapped files, as declared in their xml header
+	 */
+	public static final String MAPPING_ENCODING = "UTF-8";
+
 	private static final String TOP_ORM_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"+
 		"<entity-mappings xmlns=\"http://java.sun.com/xml/ns/persistence/orm\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "+
 		"xsi:schemaLocation=\"http://java.sun.com/xml/ns/persistence/orm orm_2_0.xsd\" version=\"2.0\">"+
@@ -159,16 +181,100 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 
 	private static final String BOTTOM_ORM_XML = "</entity-mappings>";
 	
-	private Map<Class<?>,MappingInfo> jpaMappingPerClass = new HashMap<Class<?>, MappingInfo>();
+	private ConcurrentMap<String,MappingInfo> jpaMappingPerClassName = new ConcurrentHashMap<String, MappingInfo>();
+
+	/**
+	 * Orders mappings by the name of their class
+	 */
+	private static final Comparator<MappingInfo> CLASS_NAME_ORDER = new Comparator<MappingInfo>() {
+		@Override
+		public int compare(MappingInfo mappingInfo1, MappingInfo mappingInfo2) {
+			return mappingInfo1.getClassName().compareTo(mappingInfo2.getClassName());
+		}
+	};
 
 	private MappingInfo getMappingInfoForClass(Class<?> clazz){
-		MappingInfo mappingInfo = jpaMappingPerClass.get(clazz);
+		return getMappingInfo(clazz.getName(), clazz);
+	}
+
+	private MappingInfo getMappingInfo(String className, Class<?> clazz){
+		MappingInfo mappingInfo = jpaMappingPerClassName.get(className);
 		if (mappingInfo == null){
-			mappingInfo = new MappingInfo(clazz);
-			jpaMappingPerClass.put(clazz, mappingInfo);
+			mappingInfo = new MappingInfo(className, clazz);
+			MappingInfo existingMappingInfo = jpaMappingPerClassName.putIfAbsent(className, mappingInfo);
+			if (existingMappingInfo != null){
+				mappingInfo = existingMappingInfo;
+			}
 		}
 		return mappingInfo;
 	}
+
+	/**
+	 * Renders the mapping of a class from a model, by the names of the class and its fields only.
+	 * The result is the same as rendering the model with {@link JpaMappingModel.ClassMapping#renderTo(JpaMappingRenderer, ClassLoader)},
+	 * but the class does not have to be loaded(f.e. while it is being compiled).
+	 *
+	 * @param classMapping - the mapping of the class
+	 */
+	public void renderClassMapping(JpaMappingModel.ClassMapping classMapping){
+		MappingInfo mappingInfo = getMappingInfo(classMapping.getClassName(), null);
+		switch (classMapping.getRenderType()) {
+		case MAPPEDSUPERCLASS:
+			mappingInfo.setMappingType("mapped-superclass");
+			break;
+		case EMBEDDABLE:
+			mappingInfo.setMappingType("embeddable");
+			break;
+		case ENTITY:
+			mappingInfo.setMappingType("entity");
+			break;
+		default:
+			throw new IllegalStateException("Unknown render type " + classMapping.getRenderType());
+		}
+		for (JpaMappingModel.Element element: classMapping.getElements()){
+			List<String> arguments = element.getArguments();
+			switch (element.getKind()) {
+			case INHERITANCE_STRATEGY:
+				addInheritanceStrategyElement(mappingInfo, arguments.get(0));
+				break;
+			case TABLE:
+				addTableElement(mappingInfo, arguments.get(0));
+				break;
+			case DISCRIMINATOR_COLUMN:
+				addDiscriminatorColumnElement(mappingInfo, arguments.get(0));
+				break;
+			case DISCRIMINATOR_VALUE:
+				addDiscriminatorValueElement(mappingInfo, arguments.get(0));
+				break;
+			case TRANSIENT:
+				renderTransientAttribute(mappingInfo, element.getName());
+				break;
+			case EMBEDDED_ID:
+				renderEmbeddedId(mappingInfo, element.getName());
+				break;
+			case ID:
+				renderId(mappingInfo, element.getName(), arguments.get(0));
+				break;
+			case EMBEDDED:
+				renderEmbeddedAttribute(mappingInfo, element.getName());
+				break;
+			case MANY_TO_ONE:
+				renderManyToOneAttribute(mappingInfo, element.getName(), arguments.get(0), arguments.get(1));
+				break;
+			case ELEMENT_COLLECTION:
+				renderSimpleCollectionAttribute(mappingInfo, element.getName(), arguments.get(0), arguments.get(1));
+				break;
+			case MANY_TO_MANY:
+				renderManyToManyAttribute(mappingInfo, element.getName(), arguments.get(0), arguments.get(1), arguments.get(2));
+				break;
+			case ONE_TO_MANY:
+				renderOneToManyAttribute(mappingInfo, element.getName(), arguments.get(0));
+				break;
+			default:
+				throw new IllegalStateException("Unknown element kind " + element.getKind());
+			}
+		}
+	}
 	
 	@Override
 	public void renderClassAsMappedSuperclass(Class<?> clazz){
@@ -186,73 +292,112 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 	@Override
 	public void addInheritanceStrategyElementForClass(Class<?> clazz,
 			String inheritanceStrategyName) {
-		getMappingInfoForClass(clazz).appendToClassContent("<inheritance strategy=\""+inheritanceStrategyName+"\" />");
+		addInheritanceStrategyElement(getMappingInfoForClass(clazz), inheritanceStrategyName);
 	}
 	@Override
 	public void addDiscriminatorColumnElementForClass(Class<?> clazz,
 			String discriminatorColumnName) {
-		getMappingInfoForClass(clazz).appendToClassContent("<discriminator-column name=\""+discriminatorColumnName+"\"/>");
+		addDiscriminatorColumnElement(getMappingInfoForClass(clazz), discriminatorColumnName);
 	}
 	@Override
 	public void addTableElementForClass(Class<?> clazz, String tableName) {
-		getMappingInfoForClass(clazz).appendToClassContent("<table name=\"" + tableName + "\"/>");
+		addTableElement(getMappingInfoForClass(clazz), tableName);
 	}
 	@Override
 	public void addDiscriminatorValueElementForClass(Class<?> clazz,String discriminatorValue) {
-		getMappingInfoForClass(clazz).appendToClassContent("<discriminator-value>"+ discriminatorValue + "</discriminator-value>");
+		addDiscriminatorValueElement(getMappingInfoForClass(clazz), discriminatorValue);
 	}
 	
 	@Override
 	public void renderTransientAttributeForClass(Class<?> clazz,
 			String transientPropertyName) {
-		getMappingInfoForClass(clazz).addToAttributes("transient","<transient name=\""+ transientPropertyName + "\"/>");
+		renderTransientAttribute(getMappingInfoForClass(clazz), transientPropertyName);
 	}
 
 	@Override
 	public void renderEmbeddedIdForClass(Class<?> clazz, Field embeddedIdField) {
-		getMappingInfoForClass(clazz).addToAttributes("embedded-id", "<embedded-id name=\"" + embeddedIdField.getName()+"\"/>");
+		renderEmbeddedId(getMappingInfoForClass(clazz), embeddedIdField.getName());
 	}
 
 	@Override
 	public void renderIdForClass(Class<?> clazz, Field idField,
 			String generatedValueStrategyName) {
-		getMappingInfoForClass(clazz).addToAttributes("id","<id name=\"" + idField.getName()
-				+ "\"><generated-value strategy=\""+generatedValueStrategyName+"\"/></id>");
+		renderId(getMappingInfoForClass(clazz), idField.getName(), generatedValueStrategyName);
 	}
 	
 	@Override
 	public void renderEmbeddedAttributeForClass(Class<?> clazz, Field embeddedField) {
-		getMappingInfoForClass(clazz).addToAttributes("embedded","<embedded name=\""+ embeddedField.getName() + "\"/>");
+		renderEmbeddedAttribute(getMappingInfoForClass(clazz), embeddedField.getName());
 	}
 	@Override
 	public void renderManyToOneAttributeForClass(Class<?> clazz,
 			Field manyToOneField, String fetchType, String joinColumnName) {
-		getMappingInfoForClass(clazz).addToAttributes("many-to-one","<many-to-one name=\""
-				+ manyToOneField.getName() + "\" fetch=\""+fetchType+"\"><join-column name=\"" + joinColumnName + "\"/></many-to-one>");
+		renderManyToOneAttribute(getMappingInfoForClass(clazz), manyToOneField.getName(), fetchType, joinColumnName);
 	}
 	
 	@Override
 	public void renderSimpleCollectionAttributeForClass(Class<?> clazz,
 			Field collectionField, String valueColumnName,
 			String collectionTableName) {
-		getMappingInfoForClass(clazz).addToAttributes("element-collection","<element-collection name=\""
-				+ collectionField.getName() + "\"><column name=\""
-				+ valueColumnName + "\"/><collection-table name=\""
-						+ collectionTableName + "\"/></element-collection>");
+		renderSimpleCollectionAttribute(getMappingInfoForClass(clazz), collectionField.getName(), valueColumnName, collectionTableName);
 	}
 	@Override
 	public void renderManyToManyAttributeForClass(Class<?> clazz,
 			Field collectionField, String joinTableName, String joinColumnName,
 			String inverseJoinColumnName) {
-		getMappingInfoForClass(clazz).addToAttributes("many-to-many","<many-to-many name=\""
-				+ collectionField.getName() + "\"><join-table name=\""
-				+ joinTableName + "\"><join-column name=\"" + joinColumnName + "\" /><inverse-join-column name=\""
-				+ inverseJoinColumnName + "\" /></join-table></many-to-many>");
+		renderManyToManyAttribute(getMappingInfoForClass(clazz), collectionField.getName(), joinTableName, joinColumnName, inverseJoinColumnName);
 	}
 	@Override
 	public void renderOneToManyAttributeForClass(Class<?> clazz,
 			Field collectionField, String mappedByFieldName) {
-		getMappingInfoForClass(clazz).addToAttributes("one-to-many","<one-to-many name=\"" + collectionField.getName() 
+		renderOneToManyAttribute(getMappingInfoForClass(clazz), collectionField.getName(), mappedByFieldName);
+	}
+
+	private void addInheritanceStrategyElement(MappingInfo mappingInfo, String inheritanceStrategyName) {
+		mappingInfo.appendToClassContent("<inheritance strategy=\""+inheritanceStrategyName+"\" />");
+	}
+	private void addDiscriminatorColumnElement(MappingInfo mappingInfo, String discriminatorColumnName) {
+		mappingInfo.appendToClassContent("<discriminator-column name=\""+discriminatorColumnName+"\"/>");
+	}
+	private void addTableElement(MappingInfo mappingInfo, String tableName) {
+		mappingInfo.appendToClassContent("<table name=\"" + tableName + "\"/>");
+	}
+	private void addDiscriminatorValueElement(MappingInfo mappingInfo, String discriminatorValue) {
+		mappingInfo.appendToClassContent("<discriminator-value>"+ discriminatorValue + "</discriminator-value>");
+	}
+	private void renderTransientAttribute(MappingInfo mappingInfo, String transientPropertyName) {
+		mappingInfo.addToAttributes("transient","<transient name=\""+ transientPropertyName + "\"/>");
+	}
+	private void renderEmbeddedId(MappingInfo mappingInfo, String embeddedIdFieldName) {
+		mappingInfo.addToAttributes("embedded-id", "<embedded-id name=\"" + embeddedIdFieldName+"\"/>");
+	}
+	private void renderId(MappingInfo mappingInfo, String idFieldName, String generatedValueStrategyName) {
+		mappingInfo.addToAttributes("id","<id name=\"" + idFieldName
+				+ "\"><generated-value strategy=\""+generatedValueStrategyName+"\"/></id>");
+	}
+	private void renderEmbeddedAttribute(MappingInfo mappingInfo, String embeddedFieldName) {
+		mappingInfo.addToAttributes("embedded","<embedded name=\""+ embeddedFieldName + "\"/>");
+	}
+	private void renderManyToOneAttribute(MappingInfo mappingInfo, String manyToOneFieldName, String fetchType, String joinColumnName) {
+		mappingInfo.addToAttributes("many-to-one","<many-to-one name=\""
+				+ manyToOneFieldName + "\" fetch=\""+fetchType+"\"><join-column name=\"" + joinColumnName + "\"/></many-to-one>");
+	}
+	private void renderSimpleCollectionAttribute(MappingInfo mappingInfo, String collectionFieldName, String valueColumnName,
+			String collectionTableName) {
+		mappingInfo.addToAttributes("element-collection","<element-collection name=\""
+				+ collectionFieldName + "\"><column name=\""
+				+ valueColumnName + "\"/><collection-table name=\""
+						+ collectionTableName + "\"/></element-collection>");
+	}
+	private void renderManyToManyAttribute(MappingInfo mappingInfo, String collectionFieldName, String joinTableName, String joinColumnName,
+			String inverseJoinColumnName) {
+		mappingInfo.addToAttributes("many-to-many","<many-to-many name=\""
+				+ collectionFieldName + "\"><join-table name=\""
+				+ joinTableName + "\"><join-column name=\"" + joinColumnName + "\" /><inverse-join-column name=\""
+				+ inverseJoinColumnName + "\" /></join-table></many-to-many>");
+	}
+	private void renderOneToManyAttribute(MappingInfo mappingInfo, String collectionFieldName, String mappedByFieldName) {
+		mappingInfo.addToAttributes("one-to-many","<one-to-many name=\"" + collectionFieldName 
 				+ "\" mapped-by=\"" + mappedByFieldName + "\" />");
 	}
 
@@ -265,7 +410,7 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 
 	private Map<String, List<MappingInfo>> getMappingInfosPerTopLevelElement(){
 		Map<String, List<MappingInfo>> mappingInfosPerTopLevelElement = new HashMap<String, List<MappingInfo>>();
-		for (MappingInfo mappingInfo: jpaMappingPerClass.values()){
+		for (MappingInfo mappingInfo: jpaMappingPerClassName.values()){
 			List<MappingInfo> mappingInfos = mappingInfosPerTopLevelElement.get(mappingInfo.getMappingType());
 			if (mappingInfos == null){
 				mappingInfos = new ArrayList<MappingInfo>();
@@ -273,6 +418,9 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 			}
 			mappingInfos.add(mappingInfo);
 		}
+		for (List<MappingInfo> mappingInfos: mappingInfosPerTopLevelElement.values()){
+			Collections.sort(mappingInfos, CLASS_NAME_ORDER);
+		}
 		return mappingInfosPerTopLevelElement;
 	}
 	
@@ -295,18 +443,43 @@ public class JpaMappingRendererDefaultImpl implements JpaMappingRenderer{
 		return files;
 	}
 
+	/**
+	 * Creates the mapped files on disk. Every file is written to a temporary file first, which then replaces the file,
+	 * so a concurrent reader(f.e. a running application watching the file) never sees a partially written mapping.
+	 */
 	@Override
 	public void createMappedFiles() throws IOException{
 		Map<String,String> mappedFiles = getMappedFilesAsStringMap();
 		for (String mappedFilename: mappedFiles.keySet()){
-			FileUtils.writeStringToFile(new File(mappedFilename), mappedFiles.get(mappedFilename));
+			File mappedFile = new File(mappedFilename);
+			File temporaryFile = new File(mappedFilename + ".tmp");
+			FileUtils.writeStringToFile(temporaryFile, mappedFiles.get(mappedFilename), MAPPING_ENCODING);
+			try {
+				FileUtil.replaceFile(temporaryFile, mappedFile);
+			} catch (IOException e) {
+				temporaryFile.delete();
+				throw new IOException("Could not replace mapped file " + mappedFile + ".", e);
+			}
 		}
 	}
 
 	/**
-	 * @return the jpaMappingPerClass
+	 * @return the mappings of all rendered classes, by class name
+	 */
+	Map<String, MappingInfo> getJpaMappingPerClassName() {
+		return new HashMap<String, MappingInfo>(jpaMappingPerClassName);
+	}
+
+	/**
+	 * @return the mappings of the classes that were rendered through the methods of the interface, by class
 	 */
 	Map<Class<?>, MappingInfo> getJpaMappingPerClass() {
+		Map<Class<?>, MappingInfo> jpaMappingPerClass = new HashMap<Class<?>, MappingInfo>();
+		for (MappingInfo mappingInfo: jpaMappingPerClassName.values()){
+			if (mappingInfo.getClazz() != null){
+				jpaMappingPerClass.put(mappingInfo.getClazz(), mappingInfo);
+			}
+		}
 		return jpaMappingPerClass;
 	}
 	
@@ -0,0 +1,57 @@
+package com.ceardannan.java2jpa;
+
+/**
+ * Enum that represents the kind of an element of the mapping of a class in a {@link JpaMappingModel},
+ * one for every element rendering method of the {@link JpaMappingRenderer}.
+ *
+ */
+public enum MappingElementKind {
+	/**
+	 * Represents the inheritance strategy of an entity, argument: the strategy name
+	 */
+	INHERITANCE_STRATEGY,
+	/**
+	 * Represents the table of an entity, argument: the table name
+	 */
+	TABLE,
+	/**
+	 * Represents the discriminator column of an entity, argument: the column name
+	 */
+	DISCRIMINATOR_COLUMN,
+	/**
+	 * Represents the discriminator value of an entity, argument: the value
+	 */
+	DISCRIMINATOR_VALUE,
+	/**
+	 * Represents a transient attribute, name: the property name
+	 */
+	TRANSIENT,
+	/**
+	 * Represents an embedded id attribute, name: the field name
+	 */
+	EMBEDDED_ID,
+	/**
+	 * Represents an id attribute, name: the field name, argument: the generated value strategy name
+	 */
+	ID,
+	/**
+	 * Represents an embedded attribute, name: the field name
+	 */
+	EMBEDDED,
+	/**
+	 * Represents a many-to-one attribute, name: the field name, arguments: the fetch type and the join column name
+	 */
+	MANY_TO_ONE,
+	/**
+	 * Represents an element collection attribute, name: the field name, arguments: the value column name and the collection table name
+	 */
+	ELEMENT_COLLECTION,
+	/**
+	 * Represents a many-to-many attribute, name: the field name, arguments: the join table name, the join column name and the inverse join column name
+	 */
+	MANY_TO_MANY,
+	/**
+	 * Represents a one-to-many attribute, name: the field name, argument: the name of the mapped-by field
+	 */
+	ONE_TO_MANY;
+}
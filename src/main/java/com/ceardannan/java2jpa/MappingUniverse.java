@@ -0,0 +1,191 @@
+package com.ceardannan.java2jpa;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The complete, unmodifiable set of classes of a generation, indexed for the lookups the {@link Java2JpaMappingGenerator} and the
+ * {@link RenderJpaMappingForClassStrategy} do on it for every field.
+ * <p>
+ * Being a Collection, a universe is passed wherever allClassesToMap is expected. It iterates the classes in the order they were given,
+ * answers contains in constant time(instead of the linear scan of a list), groups the classes by package and holds the render type
+ * of every class as decided by the strategy, so it is asked once per class.
+ * It also holds the {@link ClassHierarchy} of the classes, built when it is first asked for: as the universe cannot be modified,
+ * the graph cannot get stale, and it is released together with the universe once the generation is done.
+ * </p>
+ *
+ */
+public class MappingUniverse extends AbstractCollection<Class<?>> {
+
+	/**
+	 * Stands for a null render type, as the render types cannot hold null values
+	 */
+	private static final Object NO_RENDER_TYPE = new Object();
+
+	/**
+	 * The classes, in the order they were given
+	 */
+	private List<Class<?>> classes;
+
+	private Set<Class<?>> classSet;
+
+	private Map<String, List<Class<?>>> classesByPackage = new HashMap<String, List<Class<?>>>();
+
+	private RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy;
+
+	/**
+	 * The render types decided so far, by class
+	 */
+	private ConcurrentMap<Class<?>, Object> renderTypes = new ConcurrentHashMap<Class<?>, Object>();
+
+	/**
+	 * The hierarchy graph of the classes, null until it is first asked for
+	 */
+	private volatile ClassHierarchy classHierarchy;
+
+	/**
+	 * @param classes - all classes of the generation
+	 * @param renderJpaMappingForClassStrategy - the strategy that decides the render types of the classes
+	 */
+	public MappingUniverse(Collection<Class<?>> classes, RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy){
+		this.classes = Collections.unmodifiableList(new ArrayList<Class<?>>(classes));
+		this.classSet = new HashSet<Class<?>>(classes);
+		this.renderJpaMappingForClassStrategy = renderJpaMappingForClassStrategy;
+		for (Class<?> clazz: this.classes){
+			String packageName = getPackageName(clazz);
+			List<Class<?>> classesInPackage = classesByPackage.get(packageName);
+			if (classesInPackage == null){
+				classesInPackage = new ArrayList<Class<?>>();
+				classesByPackage.put(packageName, classesInPackage);
+			}
+			classesInPackage.add(clazz);
+		}
+		for (Map.Entry<String, List<Class<?>>> classesInPackage: classesByPackage.entrySet()){
+			classesInPackage.setValue(Collections.unmodifiableList(classesInPackage.getValue()));
+		}
+	}
+
+	/**
+	 * Returns the given classes as a universe: the collection itself if it is a universe for the same strategy already.
+	 *
+	 * @param classes - all classes of the generation
+	 * @param renderJpaMappingForClassStrategy - the strategy that decides the render types of the classes
+	 * @return the universe of the classes
+	 */
+	public static MappingUniverse of(Collection<Class<?>> classes, RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy){
+		if (classes instanceof MappingUniverse && ((MappingUniverse) classes).renderJpaMappingForClassStrategy == renderJpaMappingForClassStrategy){
+			return (MappingUniverse) classes;
+		}
+		return new MappingUniverse(classes, renderJpaMappingForClassStrategy);
+	}
+
+	private static String getPackageName(Class<?> clazz){
+		int lastDot = clazz.getName().lastIndexOf('.');
+		return lastDot < 0 ? "" : clazz.getName().substring(0, lastDot);
+	}
+
+	@Override
+	public Iterator<Class<?>> iterator() {
+		return classes.iterator();
+	}
+
+	@Override
+	public int size() {
+		return classes.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return classSet.contains(o);
+	}
+
+	/**
+	 * Returns the strategy that decides the render types of the classes
+	 *
+	 * @return the renderJpaMappingForClassStrategy
+	 */
+	public RenderJpaMappingForClassStrategy getRenderJpaMappingForClassStrategy() {
+		return renderJpaMappingForClassStrategy;
+	}
+
+	/**
+	 * Returns the classes of the universe in a package, subpackages excluded.
+	 *
+	 * @param packageName - name of the package, "" for the default package
+	 * @return the unmodifiable list of the classes in the package, in the order they were given
+	 */
+	public List<Class<?>> getClassesInPackage(String packageName) {
+		List<Class<?>> classesInPackage = classesByPackage.get(packageName);
+		return classesInPackage == null ? Collections.<Class<?>>emptyList() : classesInPackage;
+	}
+
+	/**
+	 * Returns the names of the packages of the classes of the universe.
+	 *
+	 * @return the unmodifiable package names
+	 */
+	public Set<String> getPackageNames() {
+		return Collections.unmodifiableSet(classesByPackage.keySet());
+	}
+
+	/**
+	 * Returns the render type of a class of the universe, as decided by {@link RenderJpaMappingForClassStrategy#getRenderTypeFor(Class)}.
+	 * The strategy is asked once per class.
+	 *
+	 * @param clazz - the class
+	 * @return the render type of the class, null if the strategy decides none or if the class is not part of the universe
+	 */
+	public ClassRenderType getRenderTypeFor(Class<?> clazz) {
+		if (! contains(clazz)){
+			return null;
+		}
+		Object renderType = renderTypes.get(clazz);
+		if (renderType == null){
+			ClassRenderType decidedRenderType = renderJpaMappingForClassStrategy.getRenderTypeFor(clazz);
+			renderType = decidedRenderType == null ? NO_RENDER_TYPE : decidedRenderType;
+			renderTypes.putIfAbsent(clazz, renderType);
+		}
+		return renderType == NO_RENDER_TYPE ? null : (ClassRenderType) renderType;
+	}
+
+	/**
+	 * Returns the hierarchy graph of the classes of the universe, deciding which classes are entities with the strategy of the universe.
+	 * The graph is built once, when it is first asked for.
+	 *
+	 * @return the hierarchy graph of the classes
+	 */
+	public ClassHierarchy getClassHierarchy() {
+		ClassHierarchy hierarchy = classHierarchy;
+		if (hierarchy == null){
+			synchronized (this) {
+				hierarchy = classHierarchy;
+				if (hierarchy == null){
+					hierarchy = ClassHierarchy.forClasses(classes, renderJpaMappingForClassStrategy);
+					classHierarchy = hierarchy;
+				}
+			}
+		}
+		return hierarchy;
+	}
+
+	/**
+	 * Returns whether a class is part of the universe and is mapped as an entity.
+	 *
+	 * @param clazz - the class
+	 * @return whether the class will be mapped as an entity
+	 */
+	public boolean isMappedAsEntity(Class<?> clazz) {
+		return ClassRenderType.ENTITY.equals(getRenderTypeFor(clazz));
+	}
+
+}
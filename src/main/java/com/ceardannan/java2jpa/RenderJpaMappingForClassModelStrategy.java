@@ -0,0 +1,69 @@
+package com.ceardannan.java2jpa;
+
+import java.util.Collection;
+
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.FieldModel;
+
+/**
+ * Counterpart of {@link RenderJpaMappingForClassStrategy} that takes its decisions on {@link ClassModel}s,
+ * read from the class files, instead of on loaded classes.
+ * <p>
+ * When the renderJpaMappingForClassStrategy of a {@link Java2JpaMappingGenerator} also implements this interface,
+ * the generator selects the classes to map on their class files, so classes that do not need mapping are never loaded,
+ * and the classes that do need mapping are never initialized.
+ * When the strategy takes all its decisions on class models, the mappings are analyzed on the class models as well, and no class is loaded at all.
+ * Implementations should take the same decisions as their {@link RenderJpaMappingForClassStrategy} counterpart.
+ * </p>
+ *
+ */
+public interface RenderJpaMappingForClassModelStrategy {
+
+	/**
+	 * Returns whether a class needs a jpa mapping(any of {@link ClassRenderType}).
+	 *
+	 * @param classModel
+	 * @return Whether the class needs a jpa mapping.
+	 */
+	public boolean classNeedsMapping(ClassModel classModel);
+	/**
+	 * Returns how a class should be mapped: any of {@link ClassRenderType}.
+	 *
+	 * @param classModel
+	 * @return how to map the class
+	 */
+	public ClassRenderType getRenderTypeFor(ClassModel classModel);
+
+	/**
+	 * Returns how the inheritance of the class should be mapped: any of {@link InheritanceMappingType}.
+	 *
+	 * @param classModel
+	 * @param allClassModelsToMap - list of all classes to map
+	 * @return how to map the inheritance of the class
+	 */
+	public InheritanceMappingType getInheritanceMappingTypeForClass(ClassModel classModel, Collection<ClassModel> allClassModelsToMap);
+	/**
+	 * Returns how a collection field should be mapped: any of {@link CollectionRenderType}.
+	 *
+	 * @param field - collection field to map for its class
+	 * @return how to render the collection represented by the field
+	 */
+	public CollectionRenderType getCollectionRenderTypeForField(FieldModel field);
+
+	/**
+	 * Returns the field that represents the database id for the given class
+	 *
+	 * @param classModel
+	 * @return the field that represents the id for the given class
+	 */
+	public FieldModel getIdFieldForClass(ClassModel classModel);
+
+	/**
+	 * Returns whether a certain field requires a many-to-one mapping.
+	 *
+	 * @param field
+	 * @return whether a field requires a many-to-one mapping
+	 */
+	public boolean fieldNeedsManyToOneMapping(FieldModel field);
+
+}
@@ -0,0 +1,185 @@
+package com.ceardannan.java2jpa;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link RenderJpaMappingForClassStrategy} that caches the decisions of another strategy, so the cost of every decision is paid once per class or field.
+ * <p>
+ * The results of classNeedsMapping, getRenderTypeFor and getIdFieldForClass are cached per class,
+ * the results of getCollectionRenderTypeForField and fieldNeedsManyToOneMapping per field.
+ * getInheritanceMappingTypeForClass depends on the classes to map and is always delegated.
+ * The caches can be used concurrently: if two threads ask the same uncached decision at the same time, both compute it and the first result is kept.
+ * The number of cache hits and misses is counted, see {@link #getHitCount()} and {@link #getMissCount()}.
+ * </p>
+ * <p>
+ * This strategy does not implement {@link RenderJpaMappingForClassModelStrategy}, so the {@link Java2JpaMappingGenerator} generates the mappings
+ * by reflection when it is used, even if the wrapped strategy also decides on class models.
+ * </p>
+ * Usage:
+ * <pre>
+ * java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyCachingImpl(new MyStrategy()));
+ * </pre>
+ *
+ */
+public class RenderJpaMappingForClassStrategyCachingImpl implements RenderJpaMappingForClassStrategy {
+
+	/**
+	 * Stands for a cached null result, as the caches cannot hold null values
+	 */
+	private static final Object NULL = new Object();
+
+	/**
+	 * the strategy of which the decisions are cached
+	 */
+	private RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy;
+
+	private ConcurrentMap<Class<?>, Boolean> classNeedsMappingCache = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	private ConcurrentMap<Class<?>, Object> renderTypeCache = new ConcurrentHashMap<Class<?>, Object>();
+
+	private ConcurrentMap<Class<?>, Object> idFieldCache = new ConcurrentHashMap<Class<?>, Object>();
+
+	private ConcurrentMap<Field, Object> collectionRenderTypeCache = new ConcurrentHashMap<Field, Object>();
+
+	private ConcurrentMap<Field, Boolean> fieldNeedsManyToOneMappingCache = new ConcurrentHashMap<Field, Boolean>();
+
+	private AtomicLong hitCount = new AtomicLong();
+
+	private AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * @param renderJpaMappingForClassStrategy - the strategy of which the decisions are cached
+	 */
+	public RenderJpaMappingForClassStrategyCachingImpl(RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy){
+		if (renderJpaMappingForClassStrategy == null){
+			throw new IllegalArgumentException("The renderJpaMappingForClassStrategy to cache is required.");
+		}
+		this.renderJpaMappingForClassStrategy = renderJpaMappingForClassStrategy;
+	}
+
+	/**
+	 * Returns the strategy of which the decisions are cached
+	 *
+	 * @return the renderJpaMappingForClassStrategy
+	 */
+	public RenderJpaMappingForClassStrategy getRenderJpaMappingForClassStrategy() {
+		return renderJpaMappingForClassStrategy;
+	}
+
+	/**
+	 * Returns the number of decisions answered from the caches
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of decisions that were delegated to the cached strategy
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Clears all cached decisions and resets the hit and miss counts,
+	 * f.e. when the classes of a {@link com.ceardannan.util.scan.ScanSession} are released.
+	 */
+	public void clearCache() {
+		classNeedsMappingCache.clear();
+		renderTypeCache.clear();
+		idFieldCache.clear();
+		collectionRenderTypeCache.clear();
+		fieldNeedsManyToOneMappingCache.clear();
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	/**
+	 * Returns the cached value for the key and counts a hit, or null and counts a miss.
+	 */
+	private <K, V> V lookup(ConcurrentMap<K, V> cache, K key){
+		V value = cache.get(key);
+		if (value != null){
+			hitCount.incrementAndGet();
+		}
+		else {
+			missCount.incrementAndGet();
+		}
+		return value;
+	}
+
+	/**
+	 * Caches the value for the key, unless another thread cached a value first, and returns the cached value.
+	 */
+	private <K, V> V store(ConcurrentMap<K, V> cache, K key, V value){
+		V previousValue = cache.putIfAbsent(key, value);
+		return previousValue != null ? previousValue : value;
+	}
+
+	private static Object maskNull(Object value){
+		return value == null ? NULL : value;
+	}
+
+	private static Object unmaskNull(Object value){
+		return value == NULL ? null : value;
+	}
+
+	@Override
+	public boolean classNeedsMapping(Class<?> clazz) {
+		Boolean needsMapping = lookup(classNeedsMappingCache, clazz);
+		if (needsMapping == null){
+			needsMapping = store(classNeedsMappingCache, clazz, renderJpaMappingForClassStrategy.classNeedsMapping(clazz));
+		}
+		return needsMapping;
+	}
+
+	@Override
+	public ClassRenderType getRenderTypeFor(Class<?> clazz) {
+		Object renderType = lookup(renderTypeCache, clazz);
+		if (renderType == null){
+			renderType = store(renderTypeCache, clazz, maskNull(renderJpaMappingForClassStrategy.getRenderTypeFor(clazz)));
+		}
+		return (ClassRenderType) unmaskNull(renderType);
+	}
+
+	@Override
+	public InheritanceMappingType getInheritanceMappingTypeForClass(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
+		return renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(clazz, allClassesToMap);
+	}
+
+	@Override
+	public CollectionRenderType getCollectionRenderTypeForField(Field field) {
+		Object collectionRenderType = lookup(collectionRenderTypeCache, field);
+		if (collectionRenderType == null){
+			collectionRenderType = store(collectionRenderTypeCache, field, maskNull(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(field)));
+		}
+		return (CollectionRenderType) unmaskNull(collectionRenderType);
+	}
+
+	@Override
+	public Field getIdFieldForClass(Class<?> clazz) {
+		Object idField = lookup(idFieldCache, clazz);
+		if (idField == null){
+			idField = store(idFieldCache, clazz, maskNull(renderJpaMappingForClassStrategy.getIdFieldForClass(clazz)));
+		}
+		return (Field) unmaskNull(idField);
+	}
+
+	@Override
+	public boolean fieldNeedsManyToOneMapping(Field field) {
+		Boolean needsManyToOneMapping = lookup(fieldNeedsManyToOneMappingCache, field);
+		if (needsManyToOneMapping == null){
+			needsManyToOneMapping = store(fieldNeedsManyToOneMappingCache, field, renderJpaMappingForClassStrategy.fieldNeedsManyToOneMapping(field));
+		}
+		return needsManyToOneMapping;
+	}
+
+}
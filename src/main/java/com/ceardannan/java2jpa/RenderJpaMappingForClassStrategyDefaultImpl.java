@@ -2,7 +2,6 @@ package com.ceardannan.java2jpa;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -10,20 +9,58 @@ import java.util.List;
 import org.apache.log4j.Logger;
 
 import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.ClassModelRepository;
+import com.ceardannan.util.classfile.FieldModel;
 
 /**
  * Default implementation of the RenderJpaMappingForClassStrategy interface.
+ * Also implements the RenderJpaMappingForClassModelStrategy interface, taking the same decisions on class models.
  * 
  * @author Steffen Luypaert
  *
  */
-public class RenderJpaMappingForClassStrategyDefaultImpl implements RenderJpaMappingForClassStrategy{
+public class RenderJpaMappingForClassStrategyDefaultImpl implements RenderJpaMappingForClassStrategy, RenderJpaMappingForClassModelStrategy{
 
 	/**
 	 * the log
 	 */
 	private transient Logger log = Logger.getLogger(this.getClass());
 	
+	/**
+	 * the repository used to resolve the models of superclasses and field types
+	 */
+	private ClassModelRepository classModelRepository = new ClassModelRepository();
+	
+	/**
+	 * Returns the classModelRepository
+	 * 
+	 * @return the classModelRepository
+	 */
+	public ClassModelRepository getClassModelRepository() {
+		return classModelRepository;
+	}
+	
+	/**
+	 * Sets the repository used to resolve the models of superclasses and field types
+	 * 
+	 * @param classModelRepository
+	 */
+	public void setClassModelRepository(ClassModelRepository classModelRepository) {
+		this.classModelRepository = classModelRepository;
+	}
+	
+	/**
+	 * Returns a fingerprint of the configuration of this strategy: strategies of the same class with another fingerprint can take other decisions.
+	 * The mappings cached by an {@link IncrementalMappingCache} are only reused by a strategy of the same class with the same fingerprint.
+	 * This implementation has no configuration and returns an empty string; configurable subclasses return f.e. their configuration itself.
+	 * 
+	 * @return the fingerprint of the configuration
+	 */
+	public String getConfigurationFingerprint() {
+		return "";
+	}
+	
 	/**
 	 * Default implementation of {@link RenderJpaMappingForClassStrategy#classNeedsMapping(Class)}
 	 * Needs mapping if top level class, if not interface and if not enum.
@@ -108,44 +145,43 @@ public class RenderJpaMappingForClassStrategyDefaultImpl implements RenderJpaMap
 	/**
 	 * Default implementation of {@link RenderJpaMappingForClassStrategy#getInheritanceMappingTypeForClass(Class,Collection)}<br/>
 	 * <br/>
-	 * Returns null if {@link RenderJpaMappingForClassStrategy#getRenderTypeFor(Class)} of class is not ENTITY.<br/>
-	 * Returns SUBCLASS_WITH_DISCRIMINATOR if rendertype of class is ENTITY and rendertype of superclass of class is ENTITY.<br/>
-	 * Returns NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE if rendertype of class is ENTITY, rendertype of superclass of class is not ENTITY and clazz is superclass of another class.<br/>
-	 * Returns NONE if rendertype of class is ENTITY, rendertype of superclass of class is not ENTITY and clazz is not superclass of another class.
+	 * Returns NONE if {@link RenderJpaMappingForClassStrategy#getRenderTypeFor(Class)} of class is not ENTITY.<br/>
+	 * Returns SUBCLASS_WITH_DISCRIMINATOR if rendertype of class is ENTITY and any superclass of class is ENTITY, also through intermediate superclasses that are not(f.e. mapped superclasses).<br/>
+	 * Returns NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE if rendertype of class is ENTITY, no superclass of class is ENTITY and any subclass of class within the classes to map is ENTITY.<br/>
+	 * Returns NONE if rendertype of class is ENTITY, no superclass of class is ENTITY and no subclass of class within the classes to map is ENTITY.<br/>
+	 * The decisions are looked up in the {@link ClassHierarchy} of the classes to map: the one of the {@link MappingUniverse} 
+	 * if the classes are given as a universe(as the {@link Java2JpaMappingGenerator} does), so it is built once per generation.
+	 * For other collections, the graph is built for the call.
 	 */
 	@Override
 	public InheritanceMappingType getInheritanceMappingTypeForClass(Class<?> clazz, Collection<Class<?>> allClassesToMap) {
-		boolean classIsEntity = getRenderTypeFor(clazz).equals(ClassRenderType.ENTITY);
-		
-		if (classIsEntity){
-			Class<?> superClass = clazz.getSuperclass();
-			boolean superClassIsEntity;
-			if (! superClass.equals(Object.class)){
-				superClassIsEntity = getRenderTypeFor(superClass).equals(ClassRenderType.ENTITY);
-			}
-			else {
-				superClassIsEntity = false;
-			}
-			
-			if (! superClassIsEntity){
-				//is superclass itself?
-				boolean entityIsSuperClass = false;
-				for (Class<?> otherClass: allClassesToMap){
-					if (otherClass.getSuperclass() != null && otherClass.getSuperclass().equals(clazz)){
-						entityIsSuperClass = true;
-						break;
-					}
-				}
-				if (entityIsSuperClass){
-					return InheritanceMappingType.NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE;
-				}
-				else {
-					return InheritanceMappingType.NONE;
-				}
-			}
-			else {
-				return InheritanceMappingType.SUBCLASS_WITH_DISCRIMINATOR;
+		ClassHierarchy hierarchy = allClassesToMap instanceof MappingUniverse ? ((MappingUniverse) allClassesToMap).getClassHierarchy() : null;
+		if (hierarchy == null || ! hierarchy.contains(clazz.getName())){
+			List<Class<?>> classes = new ArrayList<Class<?>>(allClassesToMap);
+			if (! allClassesToMap.contains(clazz)){
+				classes.add(clazz);
 			}
+			hierarchy = ClassHierarchy.forClasses(classes, this);
+		}
+		return getInheritanceMappingTypeForClass(clazz.getName(), hierarchy);
+	}
+	
+	/**
+	 * Returns the inheritance mapping type of a class of a hierarchy graph.
+	 * 
+	 * @param className - fully qualified name of the class
+	 * @param hierarchy - the hierarchy graph of the classes to map
+	 * @return the inheritance mapping type of the class
+	 */
+	protected InheritanceMappingType getInheritanceMappingTypeForClass(String className, ClassHierarchy hierarchy) {
+		if (! hierarchy.isEntity(className)){
+			return InheritanceMappingType.NONE;
+		}
+		else if (hierarchy.getNearestEntitySuperclassName(className) != null){
+			return InheritanceMappingType.SUBCLASS_WITH_DISCRIMINATOR;
+		}
+		else if (hierarchy.hasEntitySubclass(className)){
+			return InheritanceMappingType.NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE;
 		}
 		else {
 			return InheritanceMappingType.NONE;
@@ -156,7 +192,8 @@ public class RenderJpaMappingForClassStrategyDefaultImpl implements RenderJpaMap
 	 * Default implementation of {@link RenderJpaMappingForClassStrategy#getCollectionRenderTypeForField(Field)}<br/>
 	 * <br/>
 	 * "class being rendered" = Class that declares collectionField<br/>
-	 * "other class" = ParameterizedType of Collection<br/>
+	 * "other class" = ParameterizedType of Collection, resolved by {@link ReflectionUtil#getCollectionElementClass(Class, Field)}
+	 * (f.e. Item for List&lt;? extends Item&gt;, the bound of T for List&lt;T&gt;)<br/>
 	 * <br/>
 	 * Returns null if ParameterizedType of Collection(="other class") unknown.<br/>
 	 * Returns ONETOMANY if field of type "class being rendered" is present on "other class".<br/>
@@ -165,10 +202,9 @@ public class RenderJpaMappingForClassStrategyDefaultImpl implements RenderJpaMap
 	 */
 	@Override
 	public CollectionRenderType getCollectionRenderTypeForField(Field collectionField) {
-		if (collectionField.getGenericType() instanceof ParameterizedType){
-			ParameterizedType collectionListType = (ParameterizedType) collectionField.getGenericType();
-			Class<?> classBeingRendered = collectionField.getDeclaringClass();
-			Class<?> otherClass = (Class<?>) collectionListType.getActualTypeArguments()[0];
+		Class<?> classBeingRendered = collectionField.getDeclaringClass();
+		Class<?> otherClass = ReflectionUtil.getCollectionElementClass(classBeingRendered, collectionField);
+		if (otherClass != null){
 			List<Field> possibleFields = ReflectionUtil.getAllFieldsOfTypeClassOnOtherClass(classBeingRendered, otherClass);
 			if (possibleFields.size() == 0){
 				if (ReflectionUtil.isSimpleClass(otherClass) || otherClass.isEnum()){
@@ -188,4 +224,131 @@ public class RenderJpaMappingForClassStrategyDefaultImpl implements RenderJpaMap
 		}
 	}
 	
+	/**
+	 * Default implementation of {@link RenderJpaMappingForClassModelStrategy#classNeedsMapping(ClassModel)}
+	 * Needs mapping if top level class, if not interface and if not enum.
+	 */
+	@Override
+	public boolean classNeedsMapping(ClassModel classModel) {
+		return (! classModel.isEnum()) && (! classModel.isInterface()) && (! classModel.isLocalClass()) && (! classModel.isAnonymousClass()) && (! classModel.isMemberClass());
+	}
+	
+	/**
+	 *  Default implementation of {@link RenderJpaMappingForClassModelStrategy#getRenderTypeFor(ClassModel)}<br/>
+	 *  Same decisions as {@link #getRenderTypeFor(Class)}.
+	 */
+	@Override
+	public ClassRenderType getRenderTypeFor(ClassModel classModel) {
+		if (classNeedsMapping(classModel)){
+			if (classModel.isAbstract()){
+				return ClassRenderType.MAPPEDSUPERCLASS;
+			}
+			else {
+				if (getIdFieldForClass(classModel) != null){
+					return ClassRenderType.ENTITY;
+				}
+				else {
+					return ClassRenderType.EMBEDDABLE;
+				}
+			}
+		}
+		else {
+			return null;
+		}
+	}
+	
+	/**
+	 *  Default implementation of {@link RenderJpaMappingForClassModelStrategy#getIdFieldForClass(ClassModel)}<br/>
+	 *  Same decisions as {@link #getIdFieldForClass(Class)}.
+	 */
+	@Override
+	public FieldModel getIdFieldForClass(ClassModel classModel){
+		List<ClassModel> classesInFieldOrder = classModelRepository.getAllSuperclasses(classModel);
+		classesInFieldOrder.add(classModel);
+		List<FieldModel> potentialOtherIdFields = new ArrayList<FieldModel>();
+		for (ClassModel declaringClass: classesInFieldOrder){
+			for (FieldModel field: declaringClass.getDeclaredFields()){
+				if (field.getName().toLowerCase().equals("id")){
+					return field;
+				}
+				else if (field.getName().toLowerCase().equals(declaringClass.getSimpleName().toLowerCase()+"id")){
+					potentialOtherIdFields.add(field);
+				}
+			}
+		}
+		if (! potentialOtherIdFields.isEmpty()){
+			return potentialOtherIdFields.get(0);
+		}
+		else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Default implementation of {@link RenderJpaMappingForClassModelStrategy#fieldNeedsManyToOneMapping(FieldModel)}<br/>
+	 * Same decisions as {@link #fieldNeedsManyToOneMapping(Field)}.
+	 */
+	@Override
+	public boolean fieldNeedsManyToOneMapping(FieldModel field){
+		String typeName = field.getTypeName();
+		if (ReflectionUtil.isSimpleClass(typeName) || ReflectionUtil.isStandardClass(typeName) || field.isArray() 
+				|| field.isTransient() || field.isStatic()){
+			return false;
+		}
+		ClassModel typeModel = classModelRepository.getClassModel(typeName);
+		boolean doesNotNeedManyToOneMapping = typeModel != null && (typeModel.isEnum() 
+				|| typeModel.isAnonymousClass() || typeModel.isLocalClass() || typeModel.isMemberClass());
+		return ! doesNotNeedManyToOneMapping;
+	}
+	
+	/**
+	 * Default implementation of {@link RenderJpaMappingForClassModelStrategy#getInheritanceMappingTypeForClass(ClassModel,Collection)}<br/>
+	 * Same decisions as {@link #getInheritanceMappingTypeForClass(Class, Collection)}, looked up in the {@link ClassHierarchy} of the
+	 * {@link ClassModelUniverse} if the class models are given as a universe, else in a graph built for the call.
+	 */
+	@Override
+	public InheritanceMappingType getInheritanceMappingTypeForClass(ClassModel classModel, Collection<ClassModel> allClassModelsToMap) {
+		ClassHierarchy hierarchy = allClassModelsToMap instanceof ClassModelUniverse ? ((ClassModelUniverse) allClassModelsToMap).getClassHierarchy() : null;
+		if (hierarchy == null || ! hierarchy.contains(classModel.getName())){
+			List<ClassModel> classModels = new ArrayList<ClassModel>(allClassModelsToMap);
+			if (! allClassModelsToMap.contains(classModel)){
+				classModels.add(classModel);
+			}
+			hierarchy = ClassHierarchy.forClassModels(classModels, this, classModelRepository);
+		}
+		return getInheritanceMappingTypeForClass(classModel.getName(), hierarchy);
+	}
+	
+	/**
+	 * Default implementation of {@link RenderJpaMappingForClassModelStrategy#getCollectionRenderTypeForField(FieldModel)}<br/>
+	 * Same decisions as {@link #getCollectionRenderTypeForField(Field)}.
+	 */
+	@Override
+	public CollectionRenderType getCollectionRenderTypeForField(FieldModel collectionField) {
+		String otherClassName = classModelRepository.getTypeArgumentClassName(collectionField, 0);
+		if (otherClassName == null){
+			log.warn("Collection " + collectionField.getName() + " on " + collectionField.getDeclaringClassName() + " is not parametrized and thus, cannot be mapped/rendered.");
+			return null;
+		}
+		ClassModel otherClass = classModelRepository.getClassModel(otherClassName);
+		List<FieldModel> possibleFields;
+		if (otherClass != null){
+			possibleFields = classModelRepository.getAllFieldsOfType(collectionField.getDeclaringClassName(), otherClass);
+		}
+		else {
+			possibleFields = new ArrayList<FieldModel>();
+		}
+		if (possibleFields.size() == 0){
+			if (ReflectionUtil.isSimpleClass(otherClassName) || (otherClass != null && otherClass.isEnum())){
+				return CollectionRenderType.SIMPLE;
+			}
+			else {
+				return CollectionRenderType.MANYTOMANY;
+			}
+		}
+		else {
+			return CollectionRenderType.ONETOMANY;
+		}
+	}
+	
 }
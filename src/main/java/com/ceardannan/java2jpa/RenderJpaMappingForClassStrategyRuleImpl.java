@@ -0,0 +1,598 @@
+package com.ceardannan.java2jpa;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.FieldModel;
+
+/**
+ * Implementation of the RenderJpaMappingForClassStrategy(and RenderJpaMappingForClassModelStrategy) interface of which the decisions are configured by rules,
+ * f.e. read from a properties file, instead of by subclassing {@link RenderJpaMappingForClassStrategyDefaultImpl}.
+ * Where no rule applies, the decisions of the default implementation are taken.
+ * <p>
+ * Rules:
+ * <pre>
+ * # how classes are mapped: ENTITY, EMBEDDABLE, MAPPEDSUPERCLASS or NONE(not mapped), the first matching rule(by number) applies
+ * class.rule.1.match=com.acme.model.**
+ * class.rule.1.extends=com.acme.model.Auditable
+ * class.rule.1.renderType=ENTITY
+ * class.rule.1.idField=code
+ * class.rule.2.match=com.acme.model.*Dto
+ * class.rule.2.renderType=NONE
+ * # id field naming conventions, in order of precedence, {simpleName} is the simple name of the class declaring the field; case insensitive
+ * id.fieldNames=id,{simpleName}Id,pk
+ * # how collections are mapped: SIMPLE, ONETOMANY, MANYTOMANY or TRANSIENT, matched on className.fieldName
+ * collection.rule.1.match=com.acme.model.Order.lines
+ * collection.rule.1.renderType=ONETOMANY
+ * </pre>
+ * Patterns are globs on fully qualified names: * matches within a package(no dots), ** across packages and ? a single character.
+ * A class rule matches if its pattern(if any) matches the class name and the class extends or implements the type named by extends(if any).
+ * All keys of a rule are optional, except for the renderType of collection rules.
+ * </p>
+ * <p>
+ * The rules are compiled once into patterns; the matching rule of every class and collection field is looked up once and stored
+ * in tables keyed by class name and field, as are the id fields per class, so every later decision is a table lookup.
+ * </p>
+ *
+ */
+public class RenderJpaMappingForClassStrategyRuleImpl extends RenderJpaMappingForClassStrategyDefaultImpl {
+
+	/**
+	 * Stands for no matching rule or no id field in the tables, as they cannot hold null values
+	 */
+	private static final Object NONE = new Object();
+
+	/**
+	 * the log
+	 */
+	private transient Logger log = Logger.getLogger(this.getClass());
+
+	private List<ClassRule> classRules;
+
+	private List<CollectionRule> collectionRules;
+
+	/**
+	 * The id field naming conventions, null to use those of the default implementation
+	 */
+	private List<String> idFieldNames;
+
+	/**
+	 * The matching class rule by class name
+	 */
+	private ConcurrentMap<String, Object> classRuleTable = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * The matching collection rule by className.fieldName
+	 */
+	private ConcurrentMap<String, Object> collectionRuleTable = new ConcurrentHashMap<String, Object>();
+
+	private ConcurrentMap<Class<?>, Object> idFieldTable = new ConcurrentHashMap<Class<?>, Object>();
+
+	private ConcurrentMap<String, Object> idFieldModelTable = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * The rules, sorted by key
+	 */
+	private String configurationFingerprint;
+
+	/**
+	 * Compiles the given rules.
+	 *
+	 * @param rules - the rules, see the class documentation
+	 * @throws IllegalArgumentException if a rule is invalid
+	 */
+	public RenderJpaMappingForClassStrategyRuleImpl(Properties rules){
+		SortedMap<Integer, ClassRule> classRulesByNumber = new TreeMap<Integer, ClassRule>();
+		SortedMap<Integer, CollectionRule> collectionRulesByNumber = new TreeMap<Integer, CollectionRule>();
+		StringBuilder sortedRules = new StringBuilder();
+		for (String key: new TreeSet<String>(rules.stringPropertyNames())){
+			String value = rules.getProperty(key).trim();
+			sortedRules.append(key).append('=').append(value).append('\n');
+			if (key.startsWith("class.rule.")){
+				Integer number = getRuleNumber(key, "class.rule.");
+				ClassRule rule = classRulesByNumber.get(number);
+				if (rule == null){
+					rule = new ClassRule();
+					classRulesByNumber.put(number, rule);
+				}
+				rule.set(key, key.substring(key.indexOf('.', "class.rule.".length()) + 1), value);
+			}
+			else if (key.startsWith("collection.rule.")){
+				Integer number = getRuleNumber(key, "collection.rule.");
+				CollectionRule rule = collectionRulesByNumber.get(number);
+				if (rule == null){
+					rule = new CollectionRule();
+					collectionRulesByNumber.put(number, rule);
+				}
+				rule.set(key, key.substring(key.indexOf('.', "collection.rule.".length()) + 1), value);
+			}
+			else if (key.equals("id.fieldNames")){
+				idFieldNames = new ArrayList<String>();
+				for (String idFieldName: value.split(",")){
+					if (idFieldName.trim().length() > 0){
+						idFieldNames.add(idFieldName.trim().toLowerCase());
+					}
+				}
+			}
+			else {
+				throw new IllegalArgumentException("Unknown rule " + key + ".");
+			}
+		}
+		for (CollectionRule rule: collectionRulesByNumber.values()){
+			if (rule.namePattern == null || ! rule.renderTypeSet){
+				throw new IllegalArgumentException("Collection rule " + rule + " requires a match and a renderType.");
+			}
+		}
+		this.classRules = new ArrayList<ClassRule>(classRulesByNumber.values());
+		this.collectionRules = new ArrayList<CollectionRule>(collectionRulesByNumber.values());
+		this.configurationFingerprint = sortedRules.toString();
+	}
+
+	/**
+	 * Reads and compiles the rules of a properties file.
+	 *
+	 * @param rulesFile - the properties file
+	 * @return the strategy
+	 * @throws IOException if the file cannot be read
+	 */
+	public static RenderJpaMappingForClassStrategyRuleImpl fromFile(File rulesFile) throws IOException {
+		Properties rules = new Properties();
+		InputStream in = new FileInputStream(rulesFile);
+		try {
+			rules.load(in);
+		}
+		finally {
+			in.close();
+		}
+		return new RenderJpaMappingForClassStrategyRuleImpl(rules);
+	}
+
+	private static Integer getRuleNumber(String key, String prefix){
+		int end = key.indexOf('.', prefix.length());
+		try {
+			return Integer.valueOf(key.substring(prefix.length(), end < 0 ? key.length() : end));
+		}
+		catch (NumberFormatException e){
+			throw new IllegalArgumentException("Rule " + key + " is not numbered.", e);
+		}
+	}
+
+	/**
+	 * Returns the regular expression pattern for a glob on fully qualified names.
+	 */
+	static Pattern compileGlob(String glob){
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < glob.length(); i++){
+			char c = glob.charAt(i);
+			if (c == '*'){
+				if (i + 1 < glob.length() && glob.charAt(i + 1) == '*'){
+					regex.append(".*");
+					i++;
+				}
+				else {
+					regex.append("[^.]*");
+				}
+			}
+			else if (c == '?'){
+				regex.append("[^.]");
+			}
+			else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+	/**
+	 * Returns the first class rule that matches the class, looked up once per class name.
+	 */
+	private ClassRule getClassRule(Class<?> clazz){
+		Object rule = classRuleTable.get(clazz.getName());
+		if (rule == null){
+			Set<String> superTypeNames = null;
+			rule = NONE;
+			for (ClassRule classRule: classRules){
+				if (classRule.namePattern != null && ! classRule.namePattern.matcher(clazz.getName()).matches()){
+					continue;
+				}
+				if (classRule.superTypeName != null){
+					if (superTypeNames == null){
+						superTypeNames = getSuperTypeNames(clazz);
+					}
+					if (! superTypeNames.contains(classRule.superTypeName)){
+						continue;
+					}
+				}
+				rule = classRule;
+				break;
+			}
+			classRuleTable.putIfAbsent(clazz.getName(), rule);
+		}
+		return rule == NONE ? null : (ClassRule) rule;
+	}
+
+	/**
+	 * Returns the first class rule that matches the class model, looked up once per class name.
+	 */
+	private ClassRule getClassRule(ClassModel classModel){
+		Object rule = classRuleTable.get(classModel.getName());
+		if (rule == null){
+			rule = NONE;
+			for (ClassRule classRule: classRules){
+				if ((classRule.namePattern == null || classRule.namePattern.matcher(classModel.getName()).matches())
+						&& (classRule.superTypeName == null || getClassModelRepository().isAssignableFrom(classRule.superTypeName, classModel.getName()))){
+					rule = classRule;
+					break;
+				}
+			}
+			classRuleTable.putIfAbsent(classModel.getName(), rule);
+		}
+		return rule == NONE ? null : (ClassRule) rule;
+	}
+
+	/**
+	 * Returns the names of the class, its superclasses and all interfaces they implement.
+	 */
+	private static Set<String> getSuperTypeNames(Class<?> clazz){
+		Set<String> superTypeNames = new HashSet<String>();
+		List<Class<?>> typesToVisit = new ArrayList<Class<?>>();
+		typesToVisit.add(clazz);
+		while (! typesToVisit.isEmpty()){
+			Class<?> type = typesToVisit.remove(typesToVisit.size() - 1);
+			if (superTypeNames.add(type.getName())){
+				if (type.getSuperclass() != null){
+					typesToVisit.add(type.getSuperclass());
+				}
+				Collections.addAll(typesToVisit, type.getInterfaces());
+			}
+		}
+		return superTypeNames;
+	}
+
+	/**
+	 * Returns the first collection rule that matches className.fieldName, looked up once per field.
+	 */
+	private CollectionRule getCollectionRule(String declaringClassName, String fieldName){
+		String qualifiedFieldName = declaringClassName + "." + fieldName;
+		Object rule = collectionRuleTable.get(qualifiedFieldName);
+		if (rule == null){
+			rule = NONE;
+			for (CollectionRule collectionRule: collectionRules){
+				if (collectionRule.namePattern.matcher(qualifiedFieldName).matches()){
+					rule = collectionRule;
+					break;
+				}
+			}
+			collectionRuleTable.putIfAbsent(qualifiedFieldName, rule);
+		}
+		return rule == NONE ? null : (CollectionRule) rule;
+	}
+
+	/**
+	 * Returns whether a field name is an id field name by the id.fieldNames conventions, and at which precedence.
+	 *
+	 * @return the index of the convention the name matches, -1 if none
+	 */
+	private int getIdFieldNameIndex(String fieldName, String declaringClassSimpleName){
+		String lowerCaseFieldName = fieldName.toLowerCase();
+		for (int i = 0; i < idFieldNames.size(); i++){
+			if (idFieldNames.get(i).replace("{simplename}", declaringClassSimpleName.toLowerCase()).equals(lowerCaseFieldName)){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the rules, sorted by key.
+	 */
+	@Override
+	public String getConfigurationFingerprint() {
+		return configurationFingerprint;
+	}
+
+	/**
+	 * Returns false if the matching rule has render type NONE, else the decision of the default implementation.
+	 */
+	@Override
+	public boolean classNeedsMapping(Class<?> clazz) {
+		ClassRule rule = getClassRule(clazz);
+		if (rule != null && rule.renderTypeSet && rule.renderType == null){
+			return false;
+		}
+		return super.classNeedsMapping(clazz);
+	}
+
+	/**
+	 * Returns the render type of the matching rule if it has one, else the decision of the default implementation.
+	 */
+	@Override
+	public ClassRenderType getRenderTypeFor(Class<?> clazz) {
+		if (! classNeedsMapping(clazz)){
+			return null;
+		}
+		ClassRule rule = getClassRule(clazz);
+		if (rule != null && rule.renderTypeSet){
+			return rule.renderType;
+		}
+		return super.getRenderTypeFor(clazz);
+	}
+
+	/**
+	 * Returns the idField of the matching rule if it has one, else the first field by the id.fieldNames conventions if they are configured,
+	 * else the decision of the default implementation. Looked up once per class.
+	 */
+	@Override
+	public Field getIdFieldForClass(Class<?> clazz) {
+		Object idField = idFieldTable.get(clazz);
+		if (idField == null){
+			idField = findIdFieldForClass(clazz);
+			idFieldTable.putIfAbsent(clazz, idField == null ? NONE : idField);
+		}
+		return idField == NONE ? null : (Field) idField;
+	}
+
+	private Field findIdFieldForClass(Class<?> clazz) {
+		ClassRule rule = getClassRule(clazz);
+		if (rule != null && rule.idFieldName != null){
+			Field idField = ReflectionUtil.getFieldOfClass(clazz, rule.idFieldName);
+			if (idField == null){
+				log.warn("Id field " + rule.idFieldName + " of rule " + rule + " not found on " + clazz.getName() + ".");
+			}
+			return idField;
+		}
+		if (idFieldNames == null){
+			return super.getIdFieldForClass(clazz);
+		}
+		Field idField = null;
+		int idFieldNameIndex = idFieldNames.size();
+		for (Field field: ReflectionUtil.getAllFieldsFor(clazz)){
+			int index = getIdFieldNameIndex(field.getName(), field.getDeclaringClass().getSimpleName());
+			if (index >= 0 && index < idFieldNameIndex){
+				idField = field;
+				idFieldNameIndex = index;
+			}
+		}
+		return idField;
+	}
+
+	/**
+	 * Returns the render type of the matching collection rule if any(null for TRANSIENT), else the decision of the default implementation.
+	 * A collection that is not parametrized cannot be mapped, whatever its rule: null is returned.
+	 * A rule forcing ONETOMANY on a collection of which the elements have no field referring back to the class declaring the collection,
+	 * falls back to MANYTOMANY.
+	 */
+	@Override
+	public CollectionRenderType getCollectionRenderTypeForField(Field field) {
+		CollectionRule rule = getCollectionRule(field.getDeclaringClass().getName(), field.getName());
+		if (rule != null){
+			if (rule.renderType == null){
+				return null;
+			}
+			Class<?> elementClass = ReflectionUtil.getCollectionElementClass(field.getDeclaringClass(), field);
+			if (elementClass == null){
+				log.warn(getNotParametrizedWarning(rule, field.getDeclaringClass().getName(), field.getName()));
+				return null;
+			}
+			if (CollectionRenderType.ONETOMANY.equals(rule.renderType)
+					&& ReflectionUtil.getAllFieldsOfTypeClassOnOtherClass(field.getDeclaringClass(), elementClass).isEmpty()){
+				log.warn(getNoMappedByFieldWarning(rule, field.getDeclaringClass().getName(), field.getName(), elementClass.getName()));
+				return CollectionRenderType.MANYTOMANY;
+			}
+			return rule.renderType;
+		}
+		return super.getCollectionRenderTypeForField(field);
+	}
+
+	private static String getNotParametrizedWarning(CollectionRule rule, String className, String fieldName){
+		return "Collection " + fieldName + " on " + className + " is not parametrized and thus, cannot be mapped/rendered as " + rule.renderType
+				+ " by rule " + rule + ".";
+	}
+
+	private static String getNoMappedByFieldWarning(CollectionRule rule, String className, String fieldName, String elementClassName){
+		return "No field of type " + className + " found on " + elementClassName + " to map collection " + fieldName + " on " + className
+				+ " as ONETOMANY by rule " + rule + ". Mapping it as MANYTOMANY instead.";
+	}
+
+	/**
+	 * Same decisions as {@link #classNeedsMapping(Class)}.
+	 */
+	@Override
+	public boolean classNeedsMapping(ClassModel classModel) {
+		ClassRule rule = getClassRule(classModel);
+		if (rule != null && rule.renderTypeSet && rule.renderType == null){
+			return false;
+		}
+		return super.classNeedsMapping(classModel);
+	}
+
+	/**
+	 * Same decisions as {@link #getRenderTypeFor(Class)}.
+	 */
+	@Override
+	public ClassRenderType getRenderTypeFor(ClassModel classModel) {
+		if (! classNeedsMapping(classModel)){
+			return null;
+		}
+		ClassRule rule = getClassRule(classModel);
+		if (rule != null && rule.renderTypeSet){
+			return rule.renderType;
+		}
+		return super.getRenderTypeFor(classModel);
+	}
+
+	/**
+	 * Same decisions as {@link #getIdFieldForClass(Class)}.
+	 */
+	@Override
+	public FieldModel getIdFieldForClass(ClassModel classModel) {
+		Object idField = idFieldModelTable.get(classModel.getName());
+		if (idField == null){
+			idField = findIdFieldForClass(classModel);
+			idFieldModelTable.putIfAbsent(classModel.getName(), idField == null ? NONE : idField);
+		}
+		return idField == NONE ? null : (FieldModel) idField;
+	}
+
+	private FieldModel findIdFieldForClass(ClassModel classModel) {
+		ClassRule rule = getClassRule(classModel);
+		if (rule == null || rule.idFieldName == null){
+			if (idFieldNames == null){
+				return super.getIdFieldForClass(classModel);
+			}
+		}
+		List<ClassModel> classesInFieldOrder = getClassModelRepository().getAllSuperclasses(classModel);
+		classesInFieldOrder.add(classModel);
+		FieldModel idField = null;
+		int idFieldNameIndex = idFieldNames == null ? 0 : idFieldNames.size();
+		for (ClassModel declaringClass: classesInFieldOrder){
+			for (FieldModel field: declaringClass.getDeclaredFields()){
+				if (rule != null && rule.idFieldName != null){
+					if (idField == null && field.getName().equals(rule.idFieldName)){
+						idField = field;
+					}
+				}
+				else {
+					int index = getIdFieldNameIndex(field.getName(), declaringClass.getSimpleName());
+					if (index >= 0 && index < idFieldNameIndex){
+						idField = field;
+						idFieldNameIndex = index;
+					}
+				}
+			}
+		}
+		if (idField == null && rule != null && rule.idFieldName != null){
+			log.warn("Id field " + rule.idFieldName + " of rule " + rule + " not found on " + classModel.getName() + ".");
+		}
+		return idField;
+	}
+
+	/**
+	 * Same decisions as {@link #getCollectionRenderTypeForField(Field)}.
+	 */
+	@Override
+	public CollectionRenderType getCollectionRenderTypeForField(FieldModel collectionField) {
+		CollectionRule rule = getCollectionRule(collectionField.getDeclaringClassName(), collectionField.getName());
+		if (rule != null){
+			if (rule.renderType == null){
+				return null;
+			}
+			String elementClassName = getClassModelRepository().getTypeArgumentClassName(collectionField, 0);
+			if (elementClassName == null){
+				log.warn(getNotParametrizedWarning(rule, collectionField.getDeclaringClassName(), collectionField.getName()));
+				return null;
+			}
+			if (CollectionRenderType.ONETOMANY.equals(rule.renderType)){
+				ClassModel elementClass = getClassModelRepository().getClassModel(elementClassName);
+				if (elementClass == null || getClassModelRepository().getAllFieldsOfType(collectionField.getDeclaringClassName(), elementClass).isEmpty()){
+					log.warn(getNoMappedByFieldWarning(rule, collectionField.getDeclaringClassName(), collectionField.getName(), elementClassName));
+					return CollectionRenderType.MANYTOMANY;
+				}
+			}
+			return rule.renderType;
+		}
+		return super.getCollectionRenderTypeForField(collectionField);
+	}
+
+	/**
+	 * A compiled rule on classes
+	 */
+	private static class ClassRule {
+		private String ruleName;
+		private Pattern namePattern;
+		private String superTypeName;
+		private boolean renderTypeSet;
+		/**
+		 * null for NONE
+		 */
+		private ClassRenderType renderType;
+		private String idFieldName;
+
+		void set(String key, String attribute, String value){
+			ruleName = key.substring(0, key.length() - attribute.length() - 1);
+			if (attribute.equals("match")){
+				namePattern = compileGlob(value);
+			}
+			else if (attribute.equals("extends")){
+				superTypeName = value;
+			}
+			else if (attribute.equals("renderType")){
+				renderTypeSet = true;
+				try {
+					renderType = value.equals("NONE") ? null : ClassRenderType.valueOf(value);
+				}
+				catch (IllegalArgumentException e){
+					throw new IllegalArgumentException("Invalid renderType " + value + " for " + key + ".", e);
+				}
+			}
+			else if (attribute.equals("idField")){
+				idFieldName = value;
+			}
+			else {
+				throw new IllegalArgumentException("Unknown rule " + key + ".");
+			}
+		}
+
+		@Override
+		public String toString() {
+			return ruleName;
+		}
+	}
+
+	/**
+	 * A compiled rule on collection fields
+	 */
+	private static class CollectionRule {
+		private String ruleName;
+		private Pattern namePattern;
+		private boolean renderTypeSet;
+		/**
+		 * null for TRANSIENT
+		 */
+		private CollectionRenderType renderType;
+
+		void set(String key, String attribute, String value){
+			ruleName = key.substring(0, key.length() - attribute.length() - 1);
+			if (attribute.equals("match")){
+				namePattern = compileGlob(value);
+			}
+			else if (attribute.equals("renderType")){
+				renderTypeSet = true;
+				try {
+					renderType = value.equals("TRANSIENT") ? null : CollectionRenderType.valueOf(value);
+				}
+				catch (IllegalArgumentException e){
+					throw new IllegalArgumentException("Invalid renderType " + value + " for " + key + ".", e);
+				}
+			}
+			else {
+				throw new IllegalArgumentException("Unknown rule " + key + ".");
+			}
+		}
+
+		@Override
+		public String toString() {
+			return ruleName;
+		}
+	}
+
+}
@@ -0,0 +1,325 @@
+package com.ceardannan.java2jpa.processing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.FieldModel;
+import com.ceardannan.util.classfile.MethodModel;
+
+/**
+ * Creates {@link ClassModel}s from the {@link TypeElement}s of a compiler, so classes can be analyzed while they are being compiled,
+ * before any class file exists.
+ * <p>
+ * The models hold the same information as the ones the {@link com.ceardannan.util.classfile.ClassFileParser} reads from the class files
+ * of the classes: names in the format of {@link Class#getName()}, access flags, and descriptors and generic signatures in the class file format.
+ * Members generated by the compiler(synthetic fields, bridge methods, ...) are not part of the elements, and thus not of the models.
+ * </p>
+ *
+ */
+public class ElementClassModelFactory {
+
+	/**
+	 * Enum flag(ACC_ENUM) of a class
+	 */
+	private static final int ENUM = 0x4000;
+
+	/**
+	 * Annotation flag(ACC_ANNOTATION) of a class
+	 */
+	private static final int ANNOTATION = 0x2000;
+
+	private Elements elements;
+
+	private Types types;
+
+	/**
+	 * @param elements - the element utilities of the compiler
+	 * @param types - the type utilities of the compiler
+	 */
+	public ElementClassModelFactory(Elements elements, Types types){
+		this.elements = elements;
+		this.types = types;
+	}
+
+	/**
+	 * Returns the name of a class, in the format of {@link Class#getName()}.
+	 *
+	 * @param typeElement - the class
+	 * @return the fully qualified(binary) name of the class
+	 */
+	public String getClassName(TypeElement typeElement){
+		return elements.getBinaryName(typeElement).toString();
+	}
+
+	/**
+	 * Creates the model of a class.
+	 *
+	 * @param typeElement - the class
+	 * @return the model of the class
+	 */
+	public ClassModel createClassModel(TypeElement typeElement){
+		String className = getClassName(typeElement);
+		List<String> interfaceNames = new ArrayList<String>();
+		for (TypeMirror interfaceType: typeElement.getInterfaces()){
+			interfaceNames.add(getClassName(interfaceType));
+		}
+		List<FieldModel> fields = new ArrayList<FieldModel>();
+		List<MethodModel> methods = new ArrayList<MethodModel>();
+		for (Element enclosedElement: typeElement.getEnclosedElements()){
+			if (enclosedElement.getKind() == ElementKind.FIELD || enclosedElement.getKind() == ElementKind.ENUM_CONSTANT){
+				fields.add(createFieldModel(className, (VariableElement) enclosedElement));
+			}
+			else if (enclosedElement.getKind() == ElementKind.METHOD){
+				methods.add(createMethodModel((ExecutableElement) enclosedElement));
+			}
+		}
+		return new ClassModel(className, getSuperclassName(typeElement), interfaceNames, getClassModifiers(typeElement),
+				ClassModel.NestingKind.valueOf(typeElement.getNestingKind().name()), typeElement.getSimpleName().toString(),
+				isGenericClass(typeElement) ? getClassSignature(typeElement) : null, fields, methods);
+	}
+
+	/**
+	 * Returns whether a class needs a generic signature in a class file: whether it has type parameters or generic supertypes.
+	 */
+	private boolean isGenericClass(TypeElement typeElement){
+		if (! typeElement.getTypeParameters().isEmpty() || isGeneric(typeElement.getSuperclass())){
+			return true;
+		}
+		for (TypeMirror interfaceType: typeElement.getInterfaces()){
+			if (isGeneric(interfaceType)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the generic signature of a class, f.e. "&lt;T:Lcom/test/model/Item;&gt;Ljava/lang/Object;" for a class Document&lt;T extends Item&gt;.
+	 */
+	private String getClassSignature(TypeElement typeElement){
+		StringBuilder signature = new StringBuilder();
+		if (! typeElement.getTypeParameters().isEmpty()){
+			signature.append('<');
+			for (TypeParameterElement typeParameter: typeElement.getTypeParameters()){
+				signature.append(typeParameter.getSimpleName());
+				boolean first = true;
+				for (TypeMirror bound: typeParameter.getBounds()){
+					//the class bound is left empty if the first bound is an interface
+					if (first && bound.getKind() == TypeKind.DECLARED && ((DeclaredType) bound).asElement().getKind().isInterface()){
+						signature.append(':');
+					}
+					signature.append(':').append(getSignature(bound));
+					first = false;
+				}
+			}
+			signature.append('>');
+		}
+		TypeMirror superclass = typeElement.getSuperclass();
+		signature.append(superclass.getKind() == TypeKind.DECLARED ? getSignature(superclass) : "Ljava/lang/Object;");
+		for (TypeMirror interfaceType: typeElement.getInterfaces()){
+			signature.append(getSignature(interfaceType));
+		}
+		return signature.toString();
+	}
+
+	private FieldModel createFieldModel(String declaringClassName, VariableElement field){
+		TypeMirror type = field.asType();
+		return new FieldModel(declaringClassName, field.getSimpleName().toString(), getModifiers(field.getModifiers()), getDescriptor(type),
+				isGeneric(type) ? getSignature(type) : null);
+	}
+
+	private MethodModel createMethodModel(ExecutableElement method){
+		StringBuilder descriptor = new StringBuilder("(");
+		for (VariableElement parameter: method.getParameters()){
+			descriptor.append(getDescriptor(parameter.asType()));
+		}
+		descriptor.append(')').append(getDescriptor(method.getReturnType()));
+		return new MethodModel(method.getSimpleName().toString(), getModifiers(method.getModifiers()), descriptor.toString());
+	}
+
+	/**
+	 * Returns the name of the superclass as in a class file: interfaces have java.lang.Object as their superclass, java.lang.Object has none.
+	 */
+	private String getSuperclassName(TypeElement typeElement){
+		TypeMirror superclass = typeElement.getSuperclass();
+		if (superclass.getKind() == TypeKind.DECLARED){
+			return getClassName(superclass);
+		}
+		if (typeElement.getKind().isInterface()){
+			return Object.class.getName();
+		}
+		return null;
+	}
+
+	private int getClassModifiers(TypeElement typeElement){
+		int modifiers = getModifiers(typeElement.getModifiers());
+		switch (typeElement.getKind()) {
+		case ANNOTATION_TYPE:
+			return modifiers | java.lang.reflect.Modifier.INTERFACE | java.lang.reflect.Modifier.ABSTRACT | ANNOTATION;
+		case INTERFACE:
+			return modifiers | java.lang.reflect.Modifier.INTERFACE | java.lang.reflect.Modifier.ABSTRACT;
+		case ENUM:
+			return modifiers | ENUM;
+		default:
+			return modifiers;
+		}
+	}
+
+	private static int getModifiers(Set<Modifier> modifiers){
+		int flags = 0;
+		for (Modifier modifier: modifiers){
+			switch (modifier) {
+			case PUBLIC:
+				flags |= java.lang.reflect.Modifier.PUBLIC;
+				break;
+			case PROTECTED:
+				flags |= java.lang.reflect.Modifier.PROTECTED;
+				break;
+			case PRIVATE:
+				flags |= java.lang.reflect.Modifier.PRIVATE;
+				break;
+			case ABSTRACT:
+				flags |= java.lang.reflect.Modifier.ABSTRACT;
+				break;
+			case STATIC:
+				flags |= java.lang.reflect.Modifier.STATIC;
+				break;
+			case FINAL:
+				flags |= java.lang.reflect.Modifier.FINAL;
+				break;
+			case TRANSIENT:
+				flags |= java.lang.reflect.Modifier.TRANSIENT;
+				break;
+			case VOLATILE:
+				flags |= java.lang.reflect.Modifier.VOLATILE;
+				break;
+			case SYNCHRONIZED:
+				flags |= java.lang.reflect.Modifier.SYNCHRONIZED;
+				break;
+			case NATIVE:
+				flags |= java.lang.reflect.Modifier.NATIVE;
+				break;
+			case STRICTFP:
+				flags |= java.lang.reflect.Modifier.STRICT;
+				break;
+			default:
+				break;
+			}
+		}
+		return flags;
+	}
+
+	/**
+	 * Returns the name of the erasure of a class type, in the format of {@link Class#getName()}.
+	 */
+	private String getClassName(TypeMirror type){
+		TypeMirror erasure = types.erasure(type);
+		if (erasure.getKind() == TypeKind.DECLARED){
+			return getClassName((TypeElement) ((DeclaredType) erasure).asElement());
+		}
+		return Object.class.getName();
+	}
+
+	/**
+	 * Returns the descriptor of the erasure of a type, f.e. "Ljava/util/List;" for a List&lt;Item&gt;.
+	 */
+	private String getDescriptor(TypeMirror type){
+		switch (type.getKind()) {
+		case BOOLEAN:
+			return "Z";
+		case BYTE:
+			return "B";
+		case CHAR:
+			return "C";
+		case SHORT:
+			return "S";
+		case INT:
+			return "I";
+		case LONG:
+			return "J";
+		case FLOAT:
+			return "F";
+		case DOUBLE:
+			return "D";
+		case VOID:
+			return "V";
+		case ARRAY:
+			return "[" + getDescriptor(((ArrayType) type).getComponentType());
+		default:
+			return "L" + getClassName(type).replace('.', '/') + ";";
+		}
+	}
+
+	/**
+	 * Returns whether a type needs a generic signature in a class file: whether it is parameterized, a type variable, or an array of those.
+	 */
+	private boolean isGeneric(TypeMirror type){
+		switch (type.getKind()) {
+		case ARRAY:
+			return isGeneric(((ArrayType) type).getComponentType());
+		case DECLARED:
+			return ! ((DeclaredType) type).getTypeArguments().isEmpty();
+		case TYPEVAR:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the generic signature of a type, f.e. "Ljava/util/List&lt;Lcom/test/model/Item;&gt;;" for a List&lt;Item&gt;.
+	 */
+	private String getSignature(TypeMirror type){
+		switch (type.getKind()) {
+		case ARRAY:
+			return "[" + getSignature(((ArrayType) type).getComponentType());
+		case TYPEVAR:
+			return "T" + ((TypeVariable) type).asElement().getSimpleName() + ";";
+		case DECLARED:
+			List<? extends TypeMirror> typeArguments = ((DeclaredType) type).getTypeArguments();
+			if (typeArguments.isEmpty()){
+				return getDescriptor(type);
+			}
+			StringBuilder signature = new StringBuilder("L").append(getClassName(type).replace('.', '/')).append('<');
+			for (TypeMirror typeArgument: typeArguments){
+				signature.append(getTypeArgumentSignature(typeArgument));
+			}
+			return signature.append(">;").toString();
+		default:
+			return getDescriptor(type);
+		}
+	}
+
+	private String getTypeArgumentSignature(TypeMirror typeArgument){
+		if (typeArgument.getKind() == TypeKind.WILDCARD){
+			WildcardType wildcardType = (WildcardType) typeArgument;
+			if (wildcardType.getExtendsBound() != null){
+				return "+" + getSignature(wildcardType.getExtendsBound());
+			}
+			if (wildcardType.getSuperBound() != null){
+				return "-" + getSignature(wildcardType.getSuperBound());
+			}
+			return "*";
+		}
+		return getSignature(typeArgument);
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.ceardannan.java2jpa.processing;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.ClassModelRepository;
+
+/**
+ * Repository that finds the {@link ClassModel}s of classes that are not registered in the elements of a compiler,
+ * instead of in their class files: the classes being compiled do not have class files yet,
+ * and the other classes(f.e. those of the libraries on the classpath) are resolved as the compiler sees them.
+ * <p>
+ * The elements of a compiler can only be used by the thread of the compiler, so unlike its superclass, this repository
+ * should not be used concurrently.
+ * </p>
+ *
+ */
+public class ElementClassModelRepository extends ClassModelRepository {
+
+	private Elements elements;
+
+	private ElementClassModelFactory elementClassModelFactory;
+
+	/**
+	 * @param elements - the element utilities of the compiler
+	 * @param elementClassModelFactory - the factory that creates the models of the elements
+	 */
+	public ElementClassModelRepository(Elements elements, ElementClassModelFactory elementClassModelFactory){
+		super(ElementClassModelRepository.class.getClassLoader());
+		this.elements = elements;
+		this.elementClassModelFactory = elementClassModelFactory;
+	}
+
+	/**
+	 * Finds the model of a class in the elements of the compiler.
+	 * Member classes are looked up by their canonical name, f.e. com.test.Outer.Inner for com.test.Outer$Inner.
+	 */
+	@Override
+	protected ClassModel findClassModel(String className) {
+		TypeElement typeElement = elements.getTypeElement(className.replace('$', '.'));
+		if (typeElement == null || ! className.equals(elementClassModelFactory.getClassName(typeElement))){
+			return null;
+		}
+		return elementClassModelFactory.createClassModel(typeElement);
+	}
+
+}
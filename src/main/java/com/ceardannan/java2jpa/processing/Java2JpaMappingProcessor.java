@@ -0,0 +1,269 @@
+package com.ceardannan.java2jpa.processing;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.ceardannan.java2jpa.Java2JpaMappingGenerator;
+import com.ceardannan.java2jpa.JpaMappingModel;
+import com.ceardannan.java2jpa.JpaMappingRendererDefaultImpl;
+import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategyDefaultImpl;
+import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategyRuleImpl;
+import com.ceardannan.util.classfile.ClassModel;
+
+/**
+ * Annotation processor that generates the jpa mapping file of the classes of the configured packages while they are compiled,
+ * without loading or scanning any class at runtime.
+ * <p>
+ * The classes are taken from the sources being compiled, from the already compiled classes of the configured packages themselves
+ * and from the classes mapped by the previous compilation, turned into {@link ClassModel}s by an {@link ElementClassModelFactory}, and analyzed by
+ * {@link Java2JpaMappingGenerator#analyzeJpaMappingsForClassModels(java.util.Collection)}, so the same decisions are taken as by a
+ * generation at runtime. The mapping file is written to the class output(next to the class files) in the last round of the compilation.
+ * </p>
+ * <p>
+ * The compiler cannot list the subpackages of a package, so an incremental compilation would lose the unchanged classes of the subpackages.
+ * Therefore the names of the mapped classes are written to a resource next to the mapping file(the name of the mapping file with
+ * {@value #CLASS_NAMES_SUFFIX} appended), and the classes named in it by the previous compilation are mapped again, unless they no longer exist.
+ * </p>
+ * <p>
+ * Options:
+ * <ul>
+ * <li>java2jpa.packages: comma separated names of the packages(subpackages included) to generate mappings for, required</li>
+ * <li>java2jpa.outputFile: path of the mapping file, relative to the class output, META-INF/orm.xml by default</li>
+ * <li>java2jpa.strategyRules: properties file with the rules of a {@link RenderJpaMappingForClassStrategyRuleImpl}.
+ * If not set, a {@link RenderJpaMappingForClassStrategyDefaultImpl} is used.</li>
+ * </ul>
+ * The processor is not registered as a service: it processes all classes being compiled, so it should not run in every compilation
+ * that has java2jpa on its classpath(f.e. of an application generating its mapping at runtime), only when it is asked for.
+ * </p>
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * {@code
+ * javac -processor com.ceardannan.java2jpa.processing.Java2JpaMappingProcessor -Ajava2jpa.packages=com.test.model ...
+ * }
+ * </pre>
+ * </p>
+ *
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions({Java2JpaMappingProcessor.PACKAGES_OPTION, Java2JpaMappingProcessor.OUTPUT_FILE_OPTION, Java2JpaMappingProcessor.STRATEGY_RULES_OPTION})
+public class Java2JpaMappingProcessor extends AbstractProcessor {
+
+	public static final String PACKAGES_OPTION = "java2jpa.packages";
+
+	public static final String OUTPUT_FILE_OPTION = "java2jpa.outputFile";
+
+	public static final String STRATEGY_RULES_OPTION = "java2jpa.strategyRules";
+
+	private static final String DEFAULT_OUTPUT_FILE = "META-INF/orm.xml";
+
+	/**
+	 * Suffix of the name of the resource with the names of the mapped classes, appended to the name of the mapping file
+	 */
+	public static final String CLASS_NAMES_SUFFIX = ".classes";
+
+	private static final String CLASS_NAMES_ENCODING = "UTF-8";
+
+	private List<String> packageNames = new ArrayList<String>();
+
+	private ElementClassModelFactory elementClassModelFactory;
+
+	/**
+	 * The models of the classes to map, by class name
+	 */
+	private Map<String, ClassModel> classModels = new LinkedHashMap<String, ClassModel>();
+
+	@Override
+	public synchronized void init(ProcessingEnvironment processingEnv) {
+		super.init(processingEnv);
+		String packages = processingEnv.getOptions().get(PACKAGES_OPTION);
+		if (packages != null){
+			for (String packageName: packages.split(",")){
+				if (packageName.trim().length() > 0){
+					packageNames.add(packageName.trim());
+				}
+			}
+		}
+		if (packageNames.isEmpty()){
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "No packages configured by the " + PACKAGES_OPTION
+					+ " option, no jpa mapping will be generated.");
+		}
+		elementClassModelFactory = new ElementClassModelFactory(processingEnv.getElementUtils(), processingEnv.getTypeUtils());
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (packageNames.isEmpty()){
+			return false;
+		}
+		for (Element rootElement: roundEnv.getRootElements()){
+			addClasses(rootElement);
+		}
+		if (roundEnv.processingOver()){
+			for (String packageName: packageNames){
+				PackageElement packageElement = processingEnv.getElementUtils().getPackageElement(packageName);
+				if (packageElement != null){
+					for (Element element: packageElement.getEnclosedElements()){
+						addClasses(element);
+					}
+				}
+			}
+			String outputFile = getOutputFile();
+			for (String className: readMappedClassNames(outputFile)){
+				if (! classModels.containsKey(className)){
+					// member classes are named by their canonical name, they are added with their enclosing class otherwise
+					TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+					if (typeElement != null){
+						addClasses(typeElement);
+					}
+				}
+			}
+			generate(outputFile);
+		}
+		// other processors can still process the annotations of the classes
+		return false;
+	}
+
+	/**
+	 * Adds the given class and its member classes if they are part of the configured packages.
+	 */
+	private void addClasses(Element element){
+		if (! element.getKind().isClass() && ! element.getKind().isInterface()){
+			return;
+		}
+		TypeElement typeElement = (TypeElement) element;
+		String className = elementClassModelFactory.getClassName(typeElement);
+		if (! isInConfiguredPackage(className) || classModels.containsKey(className)){
+			return;
+		}
+		classModels.put(className, elementClassModelFactory.createClassModel(typeElement));
+		for (Element enclosedElement: typeElement.getEnclosedElements()){
+			addClasses(enclosedElement);
+		}
+	}
+
+	private boolean isInConfiguredPackage(String className){
+		for (String packageName: packageNames){
+			if (className.startsWith(packageName + ".")){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String getOutputFile(){
+		String outputFile = processingEnv.getOptions().get(OUTPUT_FILE_OPTION);
+		if (outputFile == null){
+			outputFile = DEFAULT_OUTPUT_FILE;
+		}
+		return outputFile;
+	}
+
+	/**
+	 * Returns the names of the classes mapped by the previous compilation, empty if there was none.
+	 */
+	private List<String> readMappedClassNames(String outputFile){
+		List<String> classNames = new ArrayList<String>();
+		try {
+			FileObject fileObject = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", outputFile + CLASS_NAMES_SUFFIX);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(fileObject.openInputStream(), CLASS_NAMES_ENCODING));
+			try {
+				String className;
+				while ((className = reader.readLine()) != null){
+					if (className.trim().length() > 0){
+						classNames.add(className.trim());
+					}
+				}
+			}
+			finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			// no previous compilation, only the classes found in this one are mapped
+		}
+		return classNames;
+	}
+
+	private void writeMappedClassNames(String outputFile) throws IOException {
+		FileObject fileObject = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", outputFile + CLASS_NAMES_SUFFIX);
+		Writer writer = new OutputStreamWriter(fileObject.openOutputStream(), CLASS_NAMES_ENCODING);
+		try {
+			for (String className: classModels.keySet()){
+				writer.write(className + "\n");
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	private void generate(String outputFile){
+		try {
+			Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+			java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(createStrategy());
+			JpaMappingModel jpaMappingModel = java2JpaMappingGenerator.analyzeJpaMappingsForClassModels(classModels.values());
+
+			JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl(outputFile);
+			for (JpaMappingModel.ClassMapping classMapping: jpaMappingModel.getClassMappings()){
+				jpaMappingRenderer.renderClassMapping(classMapping);
+			}
+			FileObject fileObject = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", outputFile);
+			Writer writer = new OutputStreamWriter(fileObject.openOutputStream(), JpaMappingRendererDefaultImpl.MAPPING_ENCODING);
+			try {
+				writer.write(jpaMappingRenderer.getMappedFilesAsStringMap().get(outputFile));
+			}
+			finally {
+				writer.close();
+			}
+			writeMappedClassNames(outputFile);
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Generated jpa mapping " + outputFile + " for "
+					+ jpaMappingModel.getClassMappings().size() + " classes.");
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not generate jpa mapping " + outputFile + ": " + e.getMessage());
+		} catch (IllegalArgumentException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Invalid configuration to generate jpa mapping " + outputFile + ": " + e.getMessage());
+		}
+	}
+
+	private RenderJpaMappingForClassStrategyDefaultImpl createStrategy() throws IOException {
+		String strategyRules = processingEnv.getOptions().get(STRATEGY_RULES_OPTION);
+		RenderJpaMappingForClassStrategyDefaultImpl strategy;
+		if (strategyRules != null){
+			strategy = RenderJpaMappingForClassStrategyRuleImpl.fromFile(new File(strategyRules));
+		}
+		else {
+			strategy = new RenderJpaMappingForClassStrategyDefaultImpl();
+		}
+		strategy.setClassModelRepository(new ElementClassModelRepository(processingEnv.getElementUtils(), elementClassModelFactory));
+		return strategy;
+	}
+
+}
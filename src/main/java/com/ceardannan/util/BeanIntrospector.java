@@ -0,0 +1,120 @@
+package com.ceardannan.util;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.MethodModel;
+
+/**
+ * Lightweight replacement for the read side of {@link java.beans.Introspector}, as used through commons-beanutils.
+ * <p>
+ * Only the methods declared by the class itself are inspected, once, without going through the global caches
+ * and locks of java.beans, so classes can be introspected concurrently.
+ * A method is a getter when it is public, not static, not generated by the compiler(bridge or synthetic), has no parameters, and is either
+ * named getXxx with a non-void return type or isXxx with a boolean return type.
+ * The property names are derived as by {@link java.beans.Introspector#decapitalize(String)}.
+ * The same rules are applied to {@link ClassModel}s, so classes can be introspected without loading them.
+ * </p>
+ *
+ */
+public class BeanIntrospector {
+
+	/**
+	 * Returns the names of the readable properties of which the getter is declared by the class itself, sorted by name
+	 * (the order of {@link org.apache.commons.beanutils.PropertyUtils#getPropertyDescriptors(Class)}).
+	 *
+	 * @param clazz - the class to introspect
+	 * @return the sorted names of the readable properties declared by the class
+	 */
+	public static List<String> getDeclaredReadablePropertyNames(Class<?> clazz){
+		SortedSet<String> propertyNames = new TreeSet<String>();
+		for (Method method: clazz.getDeclaredMethods()){
+			String propertyName = getReadPropertyName(method);
+			if (propertyName != null){
+				propertyNames.add(propertyName);
+			}
+		}
+		return new ArrayList<String>(propertyNames);
+	}
+
+	/**
+	 * Returns the name of the property read by a getter.
+	 *
+	 * @param method - the method to inspect
+	 * @return the name of the property, or null if the method is not a getter
+	 */
+	public static String getReadPropertyName(Method method){
+		int modifiers = method.getModifiers();
+		if (! Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || method.isBridge() || method.isSynthetic()
+				|| method.getParameterTypes().length != 0){
+			return null;
+		}
+		String name = method.getName();
+		if (name.startsWith("get") && name.length() > 3 && method.getReturnType() != void.class){
+			return decapitalize(name.substring(3));
+		}
+		if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class){
+			return decapitalize(name.substring(2));
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the names of the readable properties of which the getter is declared by the class itself, sorted by name,
+	 * like {@link #getDeclaredReadablePropertyNames(Class)} does for a loaded class.
+	 *
+	 * @param classModel - the model of the class to introspect
+	 * @return the sorted names of the readable properties declared by the class
+	 */
+	public static List<String> getDeclaredReadablePropertyNames(ClassModel classModel){
+		SortedSet<String> propertyNames = new TreeSet<String>();
+		for (MethodModel method: classModel.getDeclaredMethods()){
+			String propertyName = getReadPropertyName(method);
+			if (propertyName != null){
+				propertyNames.add(propertyName);
+			}
+		}
+		return new ArrayList<String>(propertyNames);
+	}
+
+	/**
+	 * Returns the name of the property read by a getter, like {@link #getReadPropertyName(Method)} does for a loaded method.
+	 *
+	 * @param method - the model of the method to inspect
+	 * @return the name of the property, or null if the method is not a getter
+	 */
+	public static String getReadPropertyName(MethodModel method){
+		if (! method.isPublicInstanceMethod() || ! method.hasNoParameters()){
+			return null;
+		}
+		String name = method.getName();
+		String returnTypeName = method.getReturnTypeName();
+		if (name.startsWith("get") && name.length() > 3 && ! "void".equals(returnTypeName)){
+			return decapitalize(name.substring(3));
+		}
+		if (name.startsWith("is") && name.length() > 2 && "boolean".equals(returnTypeName)){
+			return decapitalize(name.substring(2));
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the property name for the part of a getter name after its prefix:
+	 * the first character is lower cased, unless the first two characters are upper case(f.e. "URL" stays "URL").
+	 *
+	 * @param name - the part of the getter name after get or is
+	 * @return the property name
+	 */
+	static String decapitalize(String name){
+		if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))){
+			return name;
+		}
+		return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.ceardannan.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reflection metadata of a single class, computed once and cached by {@link ReflectionUtil}.
+ * <p>
+ * Holds the superclass chain, the declared fields and all fields(superclass fields included) of the class,
+ * an index of all fields by generic type, the field types resolved against the class(see {@link GenericTypeResolver}) and its readable properties. All lists are unmodifiable views on arrays that are never changed,
+ * so they can be handed out without copying and shared between threads.
+ * The index by type, the resolved field types and the readable properties are computed on first use only.
+ * </p>
+ *
+ */
+public final class ClassMetadata {
+
+	private final Class<?> clazz;
+
+	/**
+	 * The superclasses, in order going up from the class
+	 */
+	private final List<Class<?>> superclasses;
+
+	private final List<Field> declaredFields;
+
+	/**
+	 * All fields, in the order of {@link ReflectionUtil#getAllFields(Class)}
+	 */
+	private final List<Field> allFields;
+
+	/**
+	 * All fields by name; if a field is shadowed, the first one in the order of allFields
+	 */
+	private final Map<String, Field> allFieldsByName;
+
+	/**
+	 * All fields by generic type, in the order of allFields; null as long as no field is looked up by type
+	 */
+	private volatile Map<Type, List<Field>> allFieldsByGenericType;
+
+	/**
+	 * The assignments of the type variables of the superclasses, null as long as no field type is resolved
+	 */
+	private volatile Map<TypeVariable<?>, Type> typeVariableAssignments;
+
+	/**
+	 * The generic types of fields resolved against the class, by field
+	 */
+	private final ConcurrentMap<Field, Type> resolvedFieldTypes = new ConcurrentHashMap<Field, Type>();
+
+	/**
+	 * The readable properties declared by the class itself, null as long as they are not introspected
+	 */
+	private volatile List<String> readablePropertyNames;
+
+	/**
+	 * The readable properties declared by the class itself for which no field is present, null as long as they are not introspected
+	 */
+	private volatile List<String> nonFieldReadablePropertyNames;
+
+	/**
+	 * Computes the metadata of a class. The metadata of the superclasses is reused.
+	 *
+	 * @param clazz - the class to introspect
+	 * @param superclassMetadata - the metadata of the superclass, null if the class has no superclass
+	 */
+	ClassMetadata(Class<?> clazz, ClassMetadata superclassMetadata){
+		this.clazz = clazz;
+		this.declaredFields = unmodifiableList(clazz.getDeclaredFields());
+		if (superclassMetadata == null){
+			this.superclasses = Collections.emptyList();
+			this.allFields = this.declaredFields;
+		}
+		else {
+			Class<?>[] superclassArray = new Class<?>[superclassMetadata.superclasses.size() + 1];
+			superclassArray[0] = superclassMetadata.clazz;
+			for (int i = 1; i < superclassArray.length; i++){
+				superclassArray[i] = superclassMetadata.superclasses.get(i - 1);
+			}
+			this.superclasses = unmodifiableList(superclassArray);
+
+			// the fields of the superclasses going up, followed by the fields of the class itself
+			List<Field> fields = new ArrayList<Field>();
+			for (Class<?> superclass: superclassArray){
+				fields.addAll(ReflectionUtil.getClassMetadata(superclass).declaredFields);
+			}
+			fields.addAll(declaredFields);
+			this.allFields = unmodifiableList(fields.toArray(new Field[fields.size()]));
+		}
+		Map<String, Field> fieldsByName = new HashMap<String, Field>();
+		for (Field field: allFields){
+			if (! fieldsByName.containsKey(field.getName())){
+				fieldsByName.put(field.getName(), field);
+			}
+		}
+		this.allFieldsByName = fieldsByName;
+	}
+
+	private static <T> List<T> unmodifiableList(T[] array){
+		return Collections.unmodifiableList(Arrays.asList(array));
+	}
+
+	/**
+	 * Returns the introspected class
+	 *
+	 * @return the class
+	 */
+	public Class<?> getIntrospectedClass() {
+		return clazz;
+	}
+
+	/**
+	 * Returns the superclasses, in order going up from the class
+	 *
+	 * @return the superclasses
+	 */
+	public List<Class<?>> getSuperclasses() {
+		return superclasses;
+	}
+
+	/**
+	 * Returns the fields declared by the class itself
+	 *
+	 * @return the declared fields
+	 */
+	public List<Field> getDeclaredFields() {
+		return declaredFields;
+	}
+
+	/**
+	 * Returns all fields of the class, superclass fields included
+	 *
+	 * @return all fields
+	 */
+	public List<Field> getAllFields() {
+		return allFields;
+	}
+
+	/**
+	 * Returns the field with the given name, superclass fields included.
+	 *
+	 * @param fieldName - name of the field
+	 * @return the field, or null if the class has no field with the given name
+	 */
+	public Field getField(String fieldName) {
+		return allFieldsByName.get(fieldName);
+	}
+
+	/**
+	 * Returns the fields(superclass fields included) of which the generic type equals the given type.
+	 * The fields are indexed by type on the first lookup, so every lookup afterwards is a single hash probe.
+	 *
+	 * @param genericType - the type to look for, f.e. a class or a parameterized type
+	 * @return an unmodifiable list of the fields of the type, in the order of {@link #getAllFields()}
+	 */
+	public List<Field> getAllFieldsOfGenericType(Type genericType) {
+		Map<Type, List<Field>> fieldsByGenericType = allFieldsByGenericType;
+		if (fieldsByGenericType == null){
+			fieldsByGenericType = new HashMap<Type, List<Field>>();
+			for (Field field: allFields){
+				List<Field> fieldsOfType = fieldsByGenericType.get(field.getGenericType());
+				if (fieldsOfType == null){
+					fieldsOfType = new ArrayList<Field>(1);
+					fieldsByGenericType.put(field.getGenericType(), fieldsOfType);
+				}
+				fieldsOfType.add(field);
+			}
+			for (Map.Entry<Type, List<Field>> fieldsOfType: fieldsByGenericType.entrySet()){
+				fieldsOfType.setValue(Collections.unmodifiableList(fieldsOfType.getValue()));
+			}
+			allFieldsByGenericType = fieldsByGenericType;
+		}
+		List<Field> fields = fieldsByGenericType.get(genericType);
+		return fields == null ? Collections.<Field>emptyList() : fields;
+	}
+
+	/**
+	 * Returns the assignments of the type variables of all superclasses of the class, see {@link GenericTypeResolver#getTypeVariableAssignments(Class, Map)}.
+	 *
+	 * @return the unmodifiable assignments, by type variable
+	 */
+	public Map<TypeVariable<?>, Type> getTypeVariableAssignments() {
+		Map<TypeVariable<?>, Type> assignments = typeVariableAssignments;
+		if (assignments == null){
+			Map<TypeVariable<?>, Type> superclassAssignments = superclasses.isEmpty() ? Collections.<TypeVariable<?>, Type>emptyMap()
+					: ReflectionUtil.getClassMetadata(superclasses.get(0)).getTypeVariableAssignments();
+			assignments = GenericTypeResolver.getTypeVariableAssignments(clazz, superclassAssignments);
+			typeVariableAssignments = assignments;
+		}
+		return assignments;
+	}
+
+	/**
+	 * Returns the generic type of a field(declared by the class or one of its superclasses) with the type variables of the superclasses
+	 * resolved as assigned by the class, f.e. List&lt;LineItem&gt; for a field List&lt;T&gt; of a superclass Document&lt;T&gt; of the class.
+	 * The type is resolved once per field.
+	 *
+	 * @param field - the field
+	 * @return the resolved generic type of the field
+	 */
+	public Type getResolvedFieldType(Field field) {
+		Type resolvedFieldType = resolvedFieldTypes.get(field);
+		if (resolvedFieldType == null){
+			resolvedFieldType = GenericTypeResolver.resolve(field.getGenericType(), getTypeVariableAssignments());
+			resolvedFieldTypes.putIfAbsent(field, resolvedFieldType);
+		}
+		return resolvedFieldType;
+	}
+
+	/**
+	 * Returns the readable(has getter) property names declared by the class itself, see {@link BeanIntrospector}.
+	 *
+	 * @return the readable property names
+	 */
+	public List<String> getReadablePropertyNames() {
+		List<String> propertyNames = readablePropertyNames;
+		if (propertyNames == null){
+			propertyNames = Collections.unmodifiableList(BeanIntrospector.getDeclaredReadablePropertyNames(clazz));
+			readablePropertyNames = propertyNames;
+		}
+		return propertyNames;
+	}
+
+	/**
+	 * Returns the readable(has getter) property names declared by the class itself for which no field is present.
+	 * Every property is checked against the names of all fields with a single hash lookup.
+	 *
+	 * @return the non-field readable property names
+	 */
+	public List<String> getNonFieldReadablePropertyNames() {
+		List<String> propertyNames = nonFieldReadablePropertyNames;
+		if (propertyNames == null){
+			List<String> names = new ArrayList<String>();
+			for (String propertyName: getReadablePropertyNames()){
+				if (! allFieldsByName.containsKey(propertyName)){
+					names.add(propertyName);
+				}
+			}
+			propertyNames = Collections.unmodifiableList(names);
+			nonFieldReadablePropertyNames = propertyNames;
+		}
+		return propertyNames;
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.ceardannan.util;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Utility class with file related methods.
+ *
+ */
+public class FileUtil {
+
+	/**
+	 * Replaces a file by another one, f.e. a temporary file that was written completely.
+	 * The file is renamed to the target first, which replaces an existing target atomically where the platform supports it(f.e. POSIX),
+	 * so a concurrent reader of the target never finds it missing. Only if that fails(f.e. on Windows, where a file cannot be renamed
+	 * to an existing one) is the target deleted before renaming again.
+	 * 
+	 * @param file - the file that replaces the target
+	 * @param target - the file to replace, which does not need to exist
+	 * @throws IOException if the target could not be replaced
+	 */
+	public static void replaceFile(File file, File target) throws IOException {
+		if (file.renameTo(target)){
+			return;
+		}
+		if (target.exists() && ! target.delete() || ! file.renameTo(target)){
+			throw new IOException("Could not replace " + target + " by " + file + ".");
+		}
+	}
+
+}
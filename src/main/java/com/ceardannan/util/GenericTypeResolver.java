@@ -0,0 +1,253 @@
+package com.ceardannan.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves generic types against a concrete class.
+ * <p>
+ * The type variables of the superclasses of a class are assigned by the type arguments of its generic superclass declarations
+ * (f.e. for Order extends Document&lt;LineItem&gt; the type variable T of Document is LineItem), so a field List&lt;T&gt; declared by Document
+ * resolves to List&lt;LineItem&gt; for Order. Type variables that are not assigned remain, and are erased to their first bound;
+ * wildcards are erased to their upper bound.
+ * The results are memoized per class by {@link ClassMetadata}, see {@link ReflectionUtil#getResolvedFieldType(Class, java.lang.reflect.Field)}.
+ * </p>
+ *
+ */
+public class GenericTypeResolver {
+
+	/**
+	 * Returns the assignments of the type variables of all superclasses of a class.
+	 *
+	 * @param clazz - the class
+	 * @param superclassAssignments - the assignments of the type variables of all superclasses of the superclass of the class
+	 * @return the unmodifiable assignments, by type variable
+	 */
+	public static Map<TypeVariable<?>, Type> getTypeVariableAssignments(Class<?> clazz, Map<TypeVariable<?>, Type> superclassAssignments){
+		Type genericSuperclass = clazz.getGenericSuperclass();
+		if (! (genericSuperclass instanceof ParameterizedType)){
+			return superclassAssignments;
+		}
+		ParameterizedType parameterizedSuperclass = (ParameterizedType) genericSuperclass;
+		TypeVariable<?>[] typeVariables = ((Class<?>) parameterizedSuperclass.getRawType()).getTypeParameters();
+		Type[] typeArguments = parameterizedSuperclass.getActualTypeArguments();
+		Map<TypeVariable<?>, Type> assignments = new HashMap<TypeVariable<?>, Type>();
+		for (int i = 0; i < typeVariables.length; i++){
+			assignments.put(typeVariables[i], typeArguments[i]);
+		}
+		// the assignments further up can refer to the type variables of the superclass
+		for (Map.Entry<TypeVariable<?>, Type> superclassAssignment: superclassAssignments.entrySet()){
+			assignments.put(superclassAssignment.getKey(), resolve(superclassAssignment.getValue(), assignments));
+		}
+		return Collections.unmodifiableMap(assignments);
+	}
+
+	/**
+	 * Returns the type with all assigned type variables replaced, also within type arguments, wildcard bounds and array components.
+	 *
+	 * @param type - the type to resolve
+	 * @param assignments - the assignments of type variables
+	 * @return the resolved type, the type itself if it contains no assigned type variables
+	 */
+	public static Type resolve(Type type, Map<TypeVariable<?>, Type> assignments){
+		if (type instanceof Class<?> || assignments.isEmpty()){
+			return type;
+		}
+		else if (type instanceof TypeVariable<?>){
+			Type assignment = assignments.get(type);
+			return assignment != null ? assignment : type;
+		}
+		else if (type instanceof ParameterizedType){
+			ParameterizedType parameterizedType = (ParameterizedType) type;
+			Type[] typeArguments = resolve(parameterizedType.getActualTypeArguments(), assignments);
+			if (typeArguments == null){
+				return type;
+			}
+			return new ResolvedParameterizedType((Class<?>) parameterizedType.getRawType(), typeArguments, parameterizedType.getOwnerType());
+		}
+		else if (type instanceof WildcardType){
+			WildcardType wildcardType = (WildcardType) type;
+			Type[] upperBounds = resolve(wildcardType.getUpperBounds(), assignments);
+			Type[] lowerBounds = resolve(wildcardType.getLowerBounds(), assignments);
+			if (upperBounds == null && lowerBounds == null){
+				return type;
+			}
+			return new ResolvedWildcardType(upperBounds != null ? upperBounds : wildcardType.getUpperBounds(),
+					lowerBounds != null ? lowerBounds : wildcardType.getLowerBounds());
+		}
+		else if (type instanceof GenericArrayType){
+			Type componentType = resolve(((GenericArrayType) type).getGenericComponentType(), assignments);
+			if (componentType instanceof Class<?>){
+				return Array.newInstance((Class<?>) componentType, 0).getClass();
+			}
+			return type;
+		}
+		return type;
+	}
+
+	/**
+	 * Resolves all types of an array.
+	 *
+	 * @return the resolved types, or null if no type changed
+	 */
+	private static Type[] resolve(Type[] types, Map<TypeVariable<?>, Type> assignments){
+		Type[] resolvedTypes = null;
+		for (int i = 0; i < types.length; i++){
+			Type resolvedType = resolve(types[i], assignments);
+			if (resolvedType != types[i]){
+				if (resolvedTypes == null){
+					resolvedTypes = types.clone();
+				}
+				resolvedTypes[i] = resolvedType;
+			}
+		}
+		return resolvedTypes;
+	}
+
+	/**
+	 * Returns the class a type erases to: the raw type of a parameterized type, the first bound of a type variable,
+	 * the upper bound of a wildcard and the array class of a generic array.
+	 *
+	 * @param type - the type
+	 * @return the erased class
+	 */
+	public static Class<?> getRawClass(Type type){
+		if (type instanceof Class<?>){
+			return (Class<?>) type;
+		}
+		else if (type instanceof ParameterizedType){
+			return (Class<?>) ((ParameterizedType) type).getRawType();
+		}
+		else if (type instanceof TypeVariable<?>){
+			return getRawClass(((TypeVariable<?>) type).getBounds()[0]);
+		}
+		else if (type instanceof WildcardType){
+			return getRawClass(((WildcardType) type).getUpperBounds()[0]);
+		}
+		else if (type instanceof GenericArrayType){
+			return Array.newInstance(getRawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+		}
+		return Object.class;
+	}
+
+	/**
+	 * Returns the erased class of a type argument of a parameterized type, f.e. Item for the element type of List&lt;? extends Item&gt;.
+	 *
+	 * @param type - the type
+	 * @param index - index of the type argument
+	 * @return the erased class of the type argument, or null if the type is not parameterized
+	 */
+	public static Class<?> getTypeArgumentClass(Type type, int index){
+		if (type instanceof ParameterizedType){
+			return getRawClass(((ParameterizedType) type).getActualTypeArguments()[index]);
+		}
+		return null;
+	}
+
+	/**
+	 * A parameterized type of which type arguments were resolved. Equal to any other ParameterizedType with the same raw type, owner type and type arguments.
+	 */
+	private static class ResolvedParameterizedType implements ParameterizedType {
+		private final Class<?> rawType;
+		private final Type[] actualTypeArguments;
+		private final Type ownerType;
+
+		ResolvedParameterizedType(Class<?> rawType, Type[] actualTypeArguments, Type ownerType){
+			this.rawType = rawType;
+			this.actualTypeArguments = actualTypeArguments;
+			this.ownerType = ownerType;
+		}
+
+		@Override
+		public Type[] getActualTypeArguments() {
+			return actualTypeArguments.clone();
+		}
+
+		@Override
+		public Type getRawType() {
+			return rawType;
+		}
+
+		@Override
+		public Type getOwnerType() {
+			return ownerType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (! (obj instanceof ParameterizedType)){
+				return false;
+			}
+			ParameterizedType other = (ParameterizedType) obj;
+			return rawType.equals(other.getRawType()) && (ownerType == null ? other.getOwnerType() == null : ownerType.equals(other.getOwnerType()))
+					&& Arrays.equals(actualTypeArguments, other.getActualTypeArguments());
+		}
+
+		@Override
+		public int hashCode() {
+			// same hash code as the parameterized types of the JDK
+			return Arrays.hashCode(actualTypeArguments) ^ (ownerType == null ? 0 : ownerType.hashCode()) ^ rawType.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(rawType.getName()).append('<');
+			for (int i = 0; i < actualTypeArguments.length; i++){
+				sb.append(i == 0 ? "" : ", ").append(actualTypeArguments[i] instanceof Class<?> ? ((Class<?>) actualTypeArguments[i]).getName() : actualTypeArguments[i].toString());
+			}
+			return sb.append('>').toString();
+		}
+	}
+
+	/**
+	 * A wildcard type of which the bounds were resolved. Equal to any other WildcardType with the same bounds.
+	 */
+	private static class ResolvedWildcardType implements WildcardType {
+		private final Type[] upperBounds;
+		private final Type[] lowerBounds;
+
+		ResolvedWildcardType(Type[] upperBounds, Type[] lowerBounds){
+			this.upperBounds = upperBounds;
+			this.lowerBounds = lowerBounds;
+		}
+
+		@Override
+		public Type[] getUpperBounds() {
+			return upperBounds.clone();
+		}
+
+		@Override
+		public Type[] getLowerBounds() {
+			return lowerBounds.clone();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (! (obj instanceof WildcardType)){
+				return false;
+			}
+			WildcardType other = (WildcardType) obj;
+			return Arrays.equals(upperBounds, other.getUpperBounds()) && Arrays.equals(lowerBounds, other.getLowerBounds());
+		}
+
+		@Override
+		public int hashCode() {
+			// same hash code as the wildcard types of the JDK
+			return Arrays.hashCode(upperBounds) ^ Arrays.hashCode(lowerBounds);
+		}
+
+		@Override
+		public String toString() {
+			return lowerBounds.length > 0 ? "? super " + lowerBounds[0] : "? extends " + upperBounds[0];
+		}
+	}
+
+}
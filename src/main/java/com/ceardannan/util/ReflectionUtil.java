@@ -1,57 +1,108 @@
 package com.ceardannan.util;
 
-import java.beans.PropertyDescriptor;
-import java.io.File;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.net.URL;
-import java.net.URLDecoder;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.beanutils.PropertyUtils;
+import com.ceardannan.util.scan.ClasspathScanner;
 
 /**
  * Utility class with reflection related methods.
+ * The reflection metadata of classes(fields, superclasses, readable properties) is computed once per class and cached, see {@link ClassMetadata}.
  * 
  * @author Steffen Luypaert
  *
  */
 public class ReflectionUtil {
 
+	/**
+	 * Cache of the reflection metadata per class
+	 */
+	private static final ConcurrentMap<Class<?>, ClassMetadata> CLASS_METADATA = new ConcurrentHashMap<Class<?>, ClassMetadata>();
+	
+	/**
+	 * Returns the reflection metadata of a class, computes it if it is not cached yet.
+	 * The metadata is cached until {@link #clearClassMetadataCache()} is called.
+	 * 
+	 * @param clazz - class to return the metadata for
+	 * @return the metadata of the class
+	 */
+	public static ClassMetadata getClassMetadata(Class<?> clazz){
+		ClassMetadata classMetadata = CLASS_METADATA.get(clazz);
+		if (classMetadata == null){
+			Class<?> superclass = clazz.getSuperclass();
+			classMetadata = new ClassMetadata(clazz, superclass == null ? null : getClassMetadata(superclass));
+			ClassMetadata existing = CLASS_METADATA.putIfAbsent(clazz, classMetadata);
+			if (existing != null){
+				classMetadata = existing;
+			}
+		}
+		return classMetadata;
+	}
+	
+	/**
+	 * Clears the cached reflection metadata of all classes, f.e. between generation sessions, 
+	 * so the cache does not keep classes(and their classloaders) from being garbage collected.
+	 */
+	public static void clearClassMetadataCache(){
+		CLASS_METADATA.clear();
+	}
+	
+	/**
+	 * Clears the cached reflection metadata of the classes defined by the given classLoader.
+	 * 
+	 * @param classLoader - the classLoader of which the classes should be removed from the cache
+	 */
+	public static void clearClassMetadataCache(ClassLoader classLoader){
+		for (Iterator<Class<?>> classes = CLASS_METADATA.keySet().iterator(); classes.hasNext();){
+			if (classes.next().getClassLoader() == classLoader){
+				classes.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Clears the cached reflection metadata of the classes defined by the given classLoader or by any of its ancestors below the boundary.
+	 * The metadata of a class includes the one of its superclasses, so metadata is cached for classes of the parents of a classLoader as well,
+	 * f.e. for the classes of the {@link java.net.URLClassLoader} a {@link com.ceardannan.util.scan.ScanSession} is created on.
+	 * 
+	 * @param classLoader - the classLoader of which the classes should be removed from the cache
+	 * @param boundary - the ancestor of the classLoader of which the classes(and the ones of its own ancestors) stay cached, 
+	 * null to clear all ancestors except the bootstrap classLoader
+	 */
+	public static void clearClassMetadataCache(ClassLoader classLoader, ClassLoader boundary){
+		Set<ClassLoader> classLoaders = Collections.newSetFromMap(new IdentityHashMap<ClassLoader, Boolean>());
+		for (ClassLoader ancestor = classLoader; ancestor != null && ancestor != boundary; ancestor = ancestor.getParent()){
+			classLoaders.add(ancestor);
+		}
+		for (Iterator<Class<?>> classes = CLASS_METADATA.keySet().iterator(); classes.hasNext();){
+			if (classLoaders.contains(classes.next().getClassLoader())){
+				classes.remove();
+			}
+		}
+	}
+	
 	/**
 	 * Returns all the readable(has getter) property names of a class for which no instance field is present (itself).
 	 * Does not return the property names for its superclasses.
 	 * 
 	 * @param clazz - class to return the property names for
-	 * @return a list of the non-field property names of the class
+	 * @return an unmodifiable list of the non-field property names of the class
 	 */
 	public static List<String> getNonFieldReadablePropertyNamesOfClass(Class<?>clazz){
-		List<Field> allFields = getAllFieldsFor(clazz);
-		List<String> nonFieldPropertyNamesOfClass= new ArrayList<String>();
-		for (String propertyName: getReadablePropertyNamesOfClass(clazz)){
-			boolean found = false;
-			for (Field field: allFields){
-				if (field.getName().equals(propertyName)){
-					found = true;
-					break;
-				}
-			}
-			if (! found){
-				nonFieldPropertyNamesOfClass.add(propertyName);
-			}
-		}
-		return nonFieldPropertyNamesOfClass;
+		return getClassMetadata(clazz).getNonFieldReadablePropertyNames();
 	}
 	
 	/**
@@ -59,20 +110,10 @@ public class ReflectionUtil {
 	 * Does not return the property names for its superclasses.
 	 * 
 	 * @param clazz - class to return the property names for
-	 * @return a list of the property names of the class
+	 * @return an unmodifiable list of the property names of the class
 	 */
 	public static List<String> getReadablePropertyNamesOfClass(Class<?>clazz){
-		PropertyDescriptor[] descriptors = PropertyUtils.getPropertyDescriptors(clazz);
-		List<String> propertyNamesOfClass= new ArrayList<String>();
-		for (int i = 0; i < descriptors.length; i++) {
-			PropertyDescriptor propertyDescriptor = descriptors[i];
-			String name = propertyDescriptor.getName();
-			//only readmethods on class itself!
-			if (propertyDescriptor.getReadMethod() != null && propertyDescriptor.getReadMethod().getDeclaringClass().equals(clazz)) {
-				propertyNamesOfClass.add(name);
-			}
-		}
-		return propertyNamesOfClass;
+		return getClassMetadata(clazz).getReadablePropertyNames();
 	}
 	
 	/**
@@ -95,6 +136,41 @@ public class ReflectionUtil {
 		return clazz.getName().startsWith("java.lang") || clazz.equals(Calendar.class)|| clazz.equals(BigDecimal.class)|| clazz.equals(BigInteger.class) || clazz.equals(Date.class)|| clazz.isPrimitive();
 	}
 	
+	/**
+	 * Returns whether the class with the given name is a standard Java class(part of a java.* package).
+	 * Does the same as {@link #isStandardClass(Class)}, without loading the class.
+	 * 
+	 * @param className - fully qualified name of the class
+	 * @return whether the class is a standard class
+	 */
+	public static boolean isStandardClass(String className){
+		return className.startsWith("java.");
+	}
+	
+	/**
+	 * Returns whether the class with the given name is a simple Java class.
+	 * Does the same as {@link #isSimpleClass(Class)}, without loading the class.
+	 * 
+	 * @param className - fully qualified name of the class, or the name of a primitive type
+	 * @return whether the class is a simple class
+	 */
+	public static boolean isSimpleClass(String className){
+		return className.startsWith("java.lang") || className.equals(Calendar.class.getName()) || className.equals(BigDecimal.class.getName()) 
+			|| className.equals(BigInteger.class.getName()) || className.equals(Date.class.getName()) || isPrimitiveClassName(className);
+	}
+	
+	/**
+	 * Returns whether the given name is the name of a primitive type(or void), as returned by {@link Class#getName()}.
+	 * 
+	 * @param className - the class name
+	 * @return whether the name is the name of a primitive type
+	 */
+	public static boolean isPrimitiveClassName(String className){
+		return className.equals("int") || className.equals("long") || className.equals("boolean") || className.equals("byte")
+			|| className.equals("char") || className.equals("short") || className.equals("float") || className.equals("double")
+			|| className.equals("void");
+	}
+	
 	/**
 	 * Returns the field of a class, given a fieldName.
 	 * Does also return fields for superclass fields.
@@ -104,159 +180,114 @@ public class ReflectionUtil {
 	 * @return field with the given fieldName of the class
 	 */
 	public static Field getFieldOfClass(Class<?>clazz, String fieldName){
-		for (Field field: getAllFieldsFor(clazz)){
-			if (field.getName().equals(fieldName)){
-				return field;
-			}
-		}
-		return null;
+		return getClassMetadata(clazz).getField(fieldName);
 	}
 	
 	/**
-	 * Returns a collection of all classes present in the packages with the given packageNames.
+	 * Returns a collection of all classes present in the packages(and their sub-packages) with the given packageNames.
+	 * All classpath roots containing the packages are scanned once, for all packages together, see {@link ClasspathScanner}.
+	 * Every class is returned only once, also when packages overlap.
 	 * 
 	 * @param packageNames - names of the packages to scan for classes
 	 * @return all classes present in the packages with the given packageNames
 	 */
 	public static Collection<Class<?>> getAllClassesIn(String... packageNames) {
-		Collection<Class<?>> allClasses = new ArrayList<Class<?>>();
-		for (String packageName: packageNames){
-			allClasses.addAll(getAllClassesIn(packageName));
-		}
-		return allClasses;
+		return new ClasspathScanner().getAllClassesIn(packageNames);
 	}
 	
 	/**
-	 * Returns a collection of all classes present in the package with the given packageName.
+	 * Returns a collection of all classes present in the package(and its sub-packages) with the given packageName.
 	 * 
 	 * @param packageName - name of the package to scan for classes
 	 * @return all classes present in the packages with the given packageName
 	 */
 	public static Collection<Class<?>> getAllClassesIn(String packageName) {
-		Collection<String> classNames = getFullyQualifiedClassNamesForPackage(packageName);
-
-		Collection<Class<?>> allClasses = new ArrayList<Class<?>>();
-		for (String className: classNames){
-			try {
-				allClasses.add(Class.forName(className));
-			} catch (ClassNotFoundException e) {
-				//cannot happen, ensured by getFullyQualifiedClassNamesForPackage call?
-				e.printStackTrace();
-			}
-		}
-
-		return allClasses;
+		return new ClasspathScanner().getAllClassesIn(packageName);
 	}
 	
 	/**
-	 * Returns all the fully qualified class names of the classes within a package.
-	 * Starts from the Classloader of the current thread and then uses a filebased approach to scan files.
+	 * Returns all the fully qualified class names of the classes within a package(and its sub-packages).
+	 * Starts from the Classloader of the current thread and then scans all classpath roots containing the package.
 	 * 
 	 * @param packageName - the name of the package to get class names for
 	 * @return a list of fully qualified class names present in the package with given packageName
 	 */
 	public static Collection<String> getFullyQualifiedClassNamesForPackage(String packageName){
-		List<String> fullyQualifiedClassNames = new ArrayList<String>();
-		for (String className: getSimpleClassNamesForPackage(packageName)){
-			fullyQualifiedClassNames.add(packageName+"."+className);
-		}
-		return fullyQualifiedClassNames;
+		return new ClasspathScanner().getFullyQualifiedClassNames(packageName);
 	}
 	
 	/**
-	 * Returns all the simple class names of the classes within a package.
-	 * Starts from the Classloader of the current thread and then uses a filebased approach to scan files.
+	 * Returns all the simple class names of the classes directly within a package(sub-packages are not scanned).
+	 * Starts from the Classloader of the current thread and then scans all classpath roots containing the package.
 	 * 
 	 * @param packageName - the name of the package to get class names for
 	 * @return a list of simple(without package) class names present in the package with given packageName
 	 */
 	public static Collection<String> getSimpleClassNamesForPackage(String packageName){
-	    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-	    URL packageURL;
-	    ArrayList<String> names = new ArrayList<String>();
-	    
-	    String packageFolder = packageName.replace(".", "/");
-	    packageURL = classLoader.getResource(packageFolder);
-
-	    if(packageURL.getProtocol().equals("jar")){
-	        String jarFileName;
-	        JarFile jf ;
-	        Enumeration<JarEntry> jarEntries;
-	        String entryName;
-
-	        // build jar file name, then loop through zipped entries
-	        try {
-				jarFileName = URLDecoder.decode(packageURL.getFile(), "UTF-8");
-				jarFileName = jarFileName.substring(5,jarFileName.indexOf("!"));
-				System.out.println(">"+jarFileName);
-				jf = new JarFile(jarFileName);
-				jarEntries = jf.entries();
-				while(jarEntries.hasMoreElements()){
-				    entryName = jarEntries.nextElement().getName();
-				    if(entryName.startsWith(packageFolder) && entryName.length()>packageFolder.length()+5){
-				        entryName = entryName.substring(packageFolder.length(),entryName.lastIndexOf('.'));
-				        names.add(entryName);
-				    }
-				}
-			} catch (UnsupportedEncodingException e) {
-				//Cannot happen? UTF-8 always supported?
-				e.printStackTrace();
-			} catch (IOException e) {
-				//Cannot happen? Jar file always present?
-				e.printStackTrace();
-			}
-
-	    // loop through files in classpath
-	    }
-	    else {
-	        File folder = new File(packageURL.getFile());
-	        File[] contenuti = folder.listFiles();
-	        String entryName;
-	        for(File actual: contenuti){
-	            entryName = actual.getName();
-	            if (actual.getName().endsWith(".class")){
-	        		entryName = entryName.substring(0, entryName.lastIndexOf('.'));
-	        		names.add(entryName);
-	        	}
-	        }
-	    }
-	    return names;
+		ClasspathScanner classpathScanner = new ClasspathScanner();
+		classpathScanner.setRecursive(false);
+		List<String> names = new ArrayList<String>();
+		for (String className: classpathScanner.getFullyQualifiedClassNames(packageName)){
+			names.add(className.substring(packageName.length() + 1));
+		}
+		return names;
 	}
 	
 	/**
 	 * Returns all the fields that have the given propertyClass as their type on the given classToScan.
+	 * The fields of a class are indexed by type once(see {@link ClassMetadata#getAllFieldsOfGenericType(java.lang.reflect.Type)}), 
+	 * so this is a hash lookup for every call after the first one on the same classToScan.
 	 * 
 	 * @param propertyClass - type of the fields to look for
 	 * @param classToScan - class to introspect
-	 * @return list of fields of the classToScan with the given propertyClass type
+	 * @return unmodifiable list of fields of the classToScan with the given propertyClass type
 	 */
 	public static List<Field> getAllFieldsOfTypeClassOnOtherClass(Class<?>propertyClass, Class<?>classToScan){
-		List<Field> fields = new ArrayList<Field>();
-		for (Field field: getAllFields(classToScan)){
-			if (field.getGenericType().equals(propertyClass)){
-				fields.add(field);
-			}
-		}
-		return fields;
+		return getClassMetadata(classToScan).getAllFieldsOfGenericType(propertyClass);
+	}
+	
+	/**
+	 * Returns the generic type of a field resolved against a class, see {@link ClassMetadata#getResolvedFieldType(Field)}.
+	 * The type is resolved once per class and field.
+	 * 
+	 * @param clazz - the class the field is resolved for: the class declaring the field or a subclass of it
+	 * @param field - the field
+	 * @return the resolved generic type of the field
+	 */
+	public static Type getResolvedFieldType(Class<?> clazz, Field field){
+		return getClassMetadata(clazz).getResolvedFieldType(field);
+	}
+	
+	/**
+	 * Returns the class of the elements of a collection field resolved against a class, 
+	 * f.e. Item for List&lt;? extends Item&gt; or for List&lt;T&gt; declared by a superclass Document&lt;T&gt; of a class extending Document&lt;Item&gt;.
+	 * Type variables that are not assigned by the class resolve to their first bound.
+	 * 
+	 * @param clazz - the class the field is resolved for: the class declaring the field or a subclass of it
+	 * @param collectionField - the collection field
+	 * @return the class of the elements, or null if the type of the field is not parameterized
+	 */
+	public static Class<?> getCollectionElementClass(Class<?> clazz, Field collectionField){
+		return GenericTypeResolver.getTypeArgumentClass(getResolvedFieldType(clazz, collectionField), 0);
 	}
 	
 	/**
 	 * Returns all the declared fields of a class as a List.
 	 * 
 	 * @param clazz - class to introspect
-	 * @return list of the declared fields of a class
+	 * @return unmodifiable list of the declared fields of a class
 	 */
 	public static List<Field> getAllDeclaredFieldsFor(Class<?>clazz){
-		return Arrays.asList(clazz.getDeclaredFields());
+		return getClassMetadata(clazz).getDeclaredFields();
 	}
 	/**
 	 * Returns all(also adds superclass fields) the fields of a class as a List.
 	 * 
 	 * @param clazz - class to introspect
-	 * @returnlist of the all of the fields of a class
+	 * @return unmodifiable list of the all of the fields of a class
 	 */
 	public static List<Field> getAllFieldsFor(Class<?>clazz){
-		return Arrays.asList(getAllFields(clazz));
+		return getClassMetadata(clazz).getAllFields();
 	}
 	
 	/**
@@ -265,48 +296,24 @@ public class ReflectionUtil {
 	   * This is like a union of {@link Class#getDeclaredFields()} which
 	   * ignores and super-classes, and {@link Class#getFields()} which ignores
 	   * non-public fields.
+	   * The fields of the superclasses(going up) come first, followed by the fields of the class itself.
+	   * Returns a new array on every call, prefer {@link #getAllFieldsFor(Class)} which does not copy the fields.
 	   * 
 	   * @param clazz - the class to introspect
 	   * @return the complete list of fields
 	   */
 	  public static Field[] getAllFields(Class<?> clazz){
-	      List<Class<?>> classes = getAllSuperclasses(clazz);
-	      classes.add(clazz);
-	      return getAllFields(classes);
-	  }
-	  /**
-	   * As {@link #getAllFields(Class)} but acts on a list of {@link Class}s and
-	   * uses only {@link Class#getDeclaredFields()}.
-	   * 
-	   * @param classes - the list of classes to reflect on
-	   * @return the complete list of fields
-	   */
-	  private static Field[] getAllFields(List<Class<?>> classes){
-	      Collection<Field> fields = new ArrayList<Field>();
-	      for (Class<?> clazz : classes)
-	      {
-	          fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
-	      }
-
+	      List<Field> fields = getClassMetadata(clazz).getAllFields();
 	      return fields.toArray(new Field[fields.size()]);
 	  }
 	  /**
 	   * Returns a List of superclasses for the given class.
 	   * 
 	   * @param clazz - the class to look up
-	   * @return the List of super-classes in order going up from this one
+	   * @return the unmodifiable List of super-classes in order going up from this one
 	   */
 	  public static List<Class<?>> getAllSuperclasses(Class<?> clazz) {
-	      List<Class<?>> classes = new ArrayList<Class<?>>();
-
-	      Class<?> superclass = clazz.getSuperclass();
-	      while (superclass != null)
-	      {
-	          classes.add(superclass);
-	          superclass = superclass.getSuperclass();
-	      }
-
-	      return classes;
+	      return getClassMetadata(clazz).getSuperclasses();
 	  }
 	
 }
@@ -0,0 +1,311 @@
+package com.ceardannan.util.classfile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ceardannan.util.classfile.ClassModel.NestingKind;
+
+/**
+ * Lightweight parser that reads a {@link ClassModel} straight from the bytes of a class file.
+ * <p>
+ * Only the constant pool, the class header, the fields, the methods and the
+ * Signature, InnerClasses and EnclosingMethod attributes are interpreted; code and all other attributes are skipped.
+ * The parsed class is never loaded, so none of its static initializers run.
+ * </p>
+ *
+ */
+public class ClassFileParser {
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+	/**
+	 * The super flag(ACC_SUPER) shares its bit with {@link java.lang.reflect.Modifier#SYNCHRONIZED}, and is not a modifier of a class.
+	 */
+	private static final int SUPER = 0x0020;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	private static final int CONSTANT_METHOD_TYPE = 16;
+	private static final int CONSTANT_DYNAMIC = 17;
+	private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+
+	/**
+	 * Parses a class file, supplied as a stream. The stream is read completely, but not closed.
+	 *
+	 * @param inputStream - stream with the bytes of the class file
+	 * @return the model of the class
+	 * @throws IOException if the stream cannot be read or does not contain a valid class file
+	 */
+	public ClassModel parse(InputStream inputStream) throws IOException {
+		return parse(readFully(inputStream));
+	}
+
+	/**
+	 * Parses a class file, supplied as a byte array.
+	 *
+	 * @param classFile - the bytes of the class file
+	 * @return the model of the class
+	 * @throws IOException if the bytes do not represent a valid class file
+	 */
+	public ClassModel parse(byte[] classFile) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+		if (in.readInt() != MAGIC){
+			throw new IOException("Not a class file: invalid magic number.");
+		}
+		//minor and major version
+		in.readUnsignedShort();
+		in.readUnsignedShort();
+
+		int constantPoolCount = in.readUnsignedShort();
+		String[] utf8s = new String[constantPoolCount];
+		int[] classNameIndexes = new int[constantPoolCount];
+		for (int i = 1; i < constantPoolCount; i++){
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+			case CONSTANT_UTF8:
+				utf8s[i] = in.readUTF();
+				break;
+			case CONSTANT_CLASS:
+				classNameIndexes[i] = in.readUnsignedShort();
+				break;
+			case CONSTANT_STRING:
+			case CONSTANT_METHOD_TYPE:
+			case CONSTANT_MODULE:
+			case CONSTANT_PACKAGE:
+				skip(in, 2);
+				break;
+			case CONSTANT_METHOD_HANDLE:
+				skip(in, 3);
+				break;
+			case CONSTANT_INTEGER:
+			case CONSTANT_FLOAT:
+			case CONSTANT_FIELDREF:
+			case CONSTANT_METHODREF:
+			case CONSTANT_INTERFACE_METHODREF:
+			case CONSTANT_NAME_AND_TYPE:
+			case CONSTANT_DYNAMIC:
+			case CONSTANT_INVOKE_DYNAMIC:
+				skip(in, 4);
+				break;
+			case CONSTANT_LONG:
+			case CONSTANT_DOUBLE:
+				skip(in, 8);
+				//takes two entries in the constant pool
+				i++;
+				break;
+			default:
+				throw new IOException("Not a class file: unknown constant pool tag " + tag + ".");
+			}
+		}
+		ConstantPool constantPool = new ConstantPool(utf8s, classNameIndexes);
+
+		int accessFlags = in.readUnsignedShort();
+		String name = constantPool.getClassName(in.readUnsignedShort());
+		String superclassName = constantPool.getClassName(in.readUnsignedShort());
+		int interfacesCount = in.readUnsignedShort();
+		List<String> interfaceNames = new ArrayList<String>(interfacesCount);
+		for (int i = 0; i < interfacesCount; i++){
+			interfaceNames.add(constantPool.getClassName(in.readUnsignedShort()));
+		}
+
+		int fieldsCount = in.readUnsignedShort();
+		List<FieldModel> fields = new ArrayList<FieldModel>(fieldsCount);
+		for (int i = 0; i < fieldsCount; i++){
+			int fieldAccessFlags = in.readUnsignedShort();
+			String fieldName = constantPool.getUtf8(in.readUnsignedShort());
+			String descriptor = constantPool.getUtf8(in.readUnsignedShort());
+			String signature = null;
+			int attributesCount = in.readUnsignedShort();
+			for (int j = 0; j < attributesCount; j++){
+				String attributeName = constantPool.getUtf8(in.readUnsignedShort());
+				int length = in.readInt();
+				if (attributeName.equals("Signature")){
+					signature = constantPool.getUtf8(in.readUnsignedShort());
+				}
+				else {
+					skip(in, length);
+				}
+			}
+			fields.add(new FieldModel(name, fieldName, fieldAccessFlags, descriptor, signature));
+		}
+
+		int methodsCount = in.readUnsignedShort();
+		List<MethodModel> methods = new ArrayList<MethodModel>(methodsCount);
+		for (int i = 0; i < methodsCount; i++){
+			int methodAccessFlags = in.readUnsignedShort();
+			String methodName = constantPool.getUtf8(in.readUnsignedShort());
+			String descriptor = constantPool.getUtf8(in.readUnsignedShort());
+			skipAttributes(in);
+			if (! methodName.startsWith("<")){
+				methods.add(new MethodModel(methodName, methodAccessFlags, descriptor));
+			}
+		}
+
+		String signature = null;
+		boolean hasEnclosingMethod = false;
+		boolean isInnerClass = false;
+		String innerName = null;
+		int innerAccessFlags = 0;
+		int attributesCount = in.readUnsignedShort();
+		for (int i = 0; i < attributesCount; i++){
+			String attributeName = constantPool.getUtf8(in.readUnsignedShort());
+			int length = in.readInt();
+			if (attributeName.equals("Signature")){
+				signature = constantPool.getUtf8(in.readUnsignedShort());
+			}
+			else if (attributeName.equals("EnclosingMethod")){
+				hasEnclosingMethod = true;
+				skip(in, length);
+			}
+			else if (attributeName.equals("InnerClasses")){
+				int classesCount = in.readUnsignedShort();
+				for (int j = 0; j < classesCount; j++){
+					int innerClassIndex = in.readUnsignedShort();
+					in.readUnsignedShort();
+					int innerNameIndex = in.readUnsignedShort();
+					int innerClassAccessFlags = in.readUnsignedShort();
+					if (name.equals(constantPool.getClassName(innerClassIndex))){
+						isInnerClass = true;
+						innerName = innerNameIndex == 0 ? null : constantPool.getUtf8(innerNameIndex);
+						innerAccessFlags = innerClassAccessFlags;
+					}
+				}
+			}
+			else {
+				skip(in, length);
+			}
+		}
+
+		NestingKind nestingKind;
+		String simpleName;
+		int modifiers;
+		if (isInnerClass){
+			modifiers = innerAccessFlags & ~SUPER;
+			if (hasEnclosingMethod){
+				nestingKind = innerName == null ? NestingKind.ANONYMOUS : NestingKind.LOCAL;
+			}
+			else {
+				nestingKind = NestingKind.MEMBER;
+			}
+			simpleName = innerName == null ? "" : innerName;
+		}
+		else {
+			modifiers = accessFlags & ~SUPER;
+			nestingKind = NestingKind.TOP_LEVEL;
+			simpleName = name.substring(name.lastIndexOf('.') + 1);
+		}
+		return new ClassModel(name, superclassName, interfaceNames, modifiers, nestingKind, simpleName, signature, fields, methods);
+	}
+
+	/**
+	 * Converts a field descriptor to a class name, in the format of {@link Class#getName()}.
+	 * F.e. "I" becomes "int", "Ljava/util/List;" becomes "java.util.List" and "[Ljava/lang/String;" becomes "[Ljava.lang.String;".
+	 *
+	 * @param descriptor - the field descriptor
+	 * @return the class name
+	 */
+	public static String descriptorToClassName(String descriptor){
+		switch (descriptor.charAt(0)) {
+		case 'B': return "byte";
+		case 'C': return "char";
+		case 'D': return "double";
+		case 'F': return "float";
+		case 'I': return "int";
+		case 'J': return "long";
+		case 'S': return "short";
+		case 'Z': return "boolean";
+		case 'V': return "void";
+		case 'L': return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+		case '[': return descriptor.replace('/', '.');
+		default:
+			throw new IllegalArgumentException("Invalid descriptor " + descriptor);
+		}
+	}
+
+	private static void skipAttributes(DataInputStream in) throws IOException {
+		int attributesCount = in.readUnsignedShort();
+		for (int i = 0; i < attributesCount; i++){
+			in.readUnsignedShort();
+			skip(in, in.readInt());
+		}
+	}
+
+	private static void skip(DataInputStream in, int length) throws IOException {
+		int skipped = 0;
+		while (skipped < length){
+			int skippedNow = in.skipBytes(length - skipped);
+			if (skippedNow <= 0){
+				throw new IOException("Not a class file: unexpected end of file.");
+			}
+			skipped += skippedNow;
+		}
+	}
+
+	/**
+	 * Reads a stream completely into a byte array.
+	 *
+	 * @param inputStream - the stream to read
+	 * @return the bytes of the stream
+	 * @throws IOException
+	 */
+	static byte[] readFully(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1){
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * The part of the constant pool that is needed to build a ClassModel.
+	 */
+	private static class ConstantPool {
+		private String[] utf8s;
+		private int[] classNameIndexes;
+
+		ConstantPool(String[] utf8s, int[] classNameIndexes){
+			this.utf8s = utf8s;
+			this.classNameIndexes = classNameIndexes;
+		}
+
+		String getUtf8(int index) throws IOException {
+			if (index <= 0 || index >= utf8s.length || utf8s[index] == null){
+				throw new IOException("Not a class file: invalid constant pool reference " + index + ".");
+			}
+			return utf8s[index];
+		}
+
+		/**
+		 * Returns the class name(in the format of {@link Class#getName()}) of a class constant, null for index 0.
+		 */
+		String getClassName(int index) throws IOException {
+			if (index == 0){
+				return null;
+			}
+			if (index >= classNameIndexes.length || classNameIndexes[index] == 0){
+				throw new IOException("Not a class file: invalid class reference " + index + ".");
+			}
+			return getUtf8(classNameIndexes[index]).replace('/', '.');
+		}
+	}
+
+}
@@ -0,0 +1,267 @@
+package com.ceardannan.util.classfile;
+
+import java.io.Serializable;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable description of a class, read from the bytes of its class file by the {@link ClassFileParser}.
+ * <p>
+ * This is the class-file counterpart of {@link Class}: it holds the superclass, interfaces, modifiers,
+ * declared fields(with their generic signatures) and declared methods of a class,
+ * and can be obtained without loading or initializing the class.
+ * </p>
+ *
+ */
+public final class ClassModel implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Enum flag(ACC_ENUM) of a class
+	 */
+	static final int ENUM = 0x4000;
+
+	/**
+	 * Annotation flag(ACC_ANNOTATION) of a class
+	 */
+	static final int ANNOTATION = 0x2000;
+
+	/**
+	 * The kind of nesting of a class
+	 */
+	public enum NestingKind {
+		TOP_LEVEL, MEMBER, LOCAL, ANONYMOUS;
+	}
+
+	private final String name;
+	private final String superclassName;
+	private final List<String> interfaceNames;
+	private final int modifiers;
+	private final NestingKind nestingKind;
+	private final String simpleName;
+	private final String signature;
+	private final List<FieldModel> fields;
+	private final List<MethodModel> methods;
+
+	/**
+	 * @param name - fully qualified name of the class
+	 * @param superclassName - fully qualified name of the superclass, null for java.lang.Object
+	 * @param interfaceNames - fully qualified names of the directly implemented interfaces
+	 * @param modifiers - the modifiers of the class(including the interface, enum and annotation flags)
+	 * @param nestingKind - whether the class is a top level, member, local or anonymous class
+	 * @param simpleName - the simple name as in {@link Class#getSimpleName()}
+	 * @param signature - the generic signature of the class, or null if the class is not generic
+	 * @param fields - the declared fields, in class file order
+	 * @param methods - the declared methods, in class file order
+	 */
+	public ClassModel(String name, String superclassName, List<String> interfaceNames, int modifiers, NestingKind nestingKind,
+			String simpleName, String signature, List<FieldModel> fields, List<MethodModel> methods){
+		this.name = name;
+		this.superclassName = superclassName;
+		this.interfaceNames = Collections.unmodifiableList(new ArrayList<String>(interfaceNames));
+		this.modifiers = modifiers;
+		this.nestingKind = nestingKind;
+		this.simpleName = simpleName;
+		this.signature = signature;
+		this.fields = Collections.unmodifiableList(new ArrayList<FieldModel>(fields));
+		this.methods = Collections.unmodifiableList(new ArrayList<MethodModel>(methods));
+	}
+
+	/**
+	 * @return the fully qualified name, in the format of {@link Class#getName()}
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the simple name, in the format of {@link Class#getSimpleName()}
+	 */
+	public String getSimpleName() {
+		return simpleName;
+	}
+
+	/**
+	 * @return the name of the package of the class, an empty string for the default package
+	 */
+	public String getPackageName() {
+		int lastDot = name.lastIndexOf('.');
+		return lastDot == -1 ? "" : name.substring(0, lastDot);
+	}
+
+	/**
+	 * @return the fully qualified name of the superclass, null for java.lang.Object
+	 */
+	public String getSuperclassName() {
+		return superclassName;
+	}
+
+	/**
+	 * @return the fully qualified names of the directly implemented interfaces
+	 */
+	public List<String> getInterfaceNames() {
+		return interfaceNames;
+	}
+
+	/**
+	 * @return the modifiers, as in {@link Modifier}, including the interface, enum and annotation flags
+	 */
+	public int getModifiers() {
+		return modifiers;
+	}
+
+	/**
+	 * @return the nesting kind
+	 */
+	public NestingKind getNestingKind() {
+		return nestingKind;
+	}
+
+	/**
+	 * @return the generic signature, or null if the class is not generic
+	 */
+	public String getSignature() {
+		return signature;
+	}
+
+	/**
+	 * Returns the first bound of a type parameter declared by the class, as {@link java.lang.reflect.TypeVariable#getBounds()} does:
+	 * the class bound, or the first interface bound if the type parameter has no class bound.
+	 * F.e. "Lcom/test/model/Item;" for the type parameter T of a class Document&lt;T extends Item&gt;.
+	 *
+	 * @param typeParameterName - the name of the type parameter
+	 * @return the signature of the first bound, or null if the class does not declare the type parameter
+	 */
+	public String getTypeParameterBound(String typeParameterName) {
+		if (signature == null || signature.charAt(0) != '<'){
+			return null;
+		}
+		int position = 1;
+		while (signature.charAt(position) != '>'){
+			int colon = signature.indexOf(':', position);
+			String name = signature.substring(position, colon);
+			String firstBound = null;
+			position = colon + 1;
+			//the class bound is empty if the type parameter only has interface bounds
+			if (signature.charAt(position) != ':'){
+				int end = FieldModel.skipTypeArgument(signature, position);
+				firstBound = signature.substring(position, end);
+				position = end;
+			}
+			while (signature.charAt(position) == ':'){
+				int end = FieldModel.skipTypeArgument(signature, position + 1);
+				if (firstBound == null){
+					firstBound = signature.substring(position + 1, end);
+				}
+				position = end;
+			}
+			if (name.equals(typeParameterName)){
+				return firstBound;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the declared fields
+	 */
+	public List<FieldModel> getDeclaredFields() {
+		return fields;
+	}
+
+	/**
+	 * @return the declared methods, constructors and static initializers excluded
+	 */
+	public List<MethodModel> getDeclaredMethods() {
+		return methods;
+	}
+
+	/**
+	 * Returns the declared field with the given name.
+	 *
+	 * @param fieldName - name of the field
+	 * @return the declared field, or null if no such field is declared
+	 */
+	public FieldModel getDeclaredField(String fieldName) {
+		for (FieldModel field: fields){
+			if (field.getName().equals(fieldName)){
+				return field;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return whether the class is an interface(or an annotation)
+	 */
+	public boolean isInterface() {
+		return Modifier.isInterface(modifiers);
+	}
+
+	/**
+	 * @return whether the class is an annotation
+	 */
+	public boolean isAnnotation() {
+		return (modifiers & ANNOTATION) != 0;
+	}
+
+	/**
+	 * @return whether the class is an enum, as in {@link Class#isEnum()}
+	 */
+	public boolean isEnum() {
+		return (modifiers & ENUM) != 0 && "java.lang.Enum".equals(superclassName);
+	}
+
+	/**
+	 * @return whether the class is abstract
+	 */
+	public boolean isAbstract() {
+		return Modifier.isAbstract(modifiers);
+	}
+
+	/**
+	 * @return whether the class is a member class, as in {@link Class#isMemberClass()}
+	 */
+	public boolean isMemberClass() {
+		return nestingKind == NestingKind.MEMBER;
+	}
+
+	/**
+	 * @return whether the class is a local class, as in {@link Class#isLocalClass()}
+	 */
+	public boolean isLocalClass() {
+		return nestingKind == NestingKind.LOCAL;
+	}
+
+	/**
+	 * @return whether the class is an anonymous class, as in {@link Class#isAnonymousClass()}
+	 */
+	public boolean isAnonymousClass() {
+		return nestingKind == NestingKind.ANONYMOUS;
+	}
+
+	@Override
+	public String toString() {
+		return (isInterface() ? "interface " : "class ") + name;
+	}
+
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj){
+			return true;
+		}
+		if (! (obj instanceof ClassModel)){
+			return false;
+		}
+		return name.equals(((ClassModel) obj).name);
+	}
+
+}
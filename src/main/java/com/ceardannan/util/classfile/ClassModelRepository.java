@@ -0,0 +1,277 @@
+package com.ceardannan.util.classfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+
+import com.ceardannan.util.ReflectionUtil;
+
+/**
+ * Resolves and caches {@link ClassModel}s by class name.
+ * <p>
+ * Models can be registered up front(f.e. the models found by a classpath scan);
+ * all other models(superclasses, field types, ...) are parsed on demand from the class files found through the classLoader,
+ * without loading the classes themselves.
+ * This repository is safe for concurrent use.
+ * </p>
+ *
+ */
+public class ClassModelRepository {
+
+	private transient Logger log = Logger.getLogger(this.getClass());
+
+	/**
+	 * Marker for class names for which no class file could be found
+	 */
+	private static final ClassModel MISSING = new ClassModel("", null, new ArrayList<String>(), 0, ClassModel.NestingKind.TOP_LEVEL, "", null,
+			new ArrayList<FieldModel>(), new ArrayList<MethodModel>());
+
+	/**
+	 * The classLoader used to find the class files of models that are not registered
+	 */
+	private ClassLoader classLoader;
+
+	private ClassFileParser classFileParser = new ClassFileParser();
+
+	private ConcurrentMap<String, ClassModel> classModels = new ConcurrentHashMap<String, ClassModel>();
+
+	/**
+	 * Creates a repository that uses the classloader of the current thread.
+	 */
+	public ClassModelRepository(){
+		this(Thread.currentThread().getContextClassLoader());
+	}
+
+	/**
+	 * Creates a repository that uses the given classLoader to find class files.
+	 *
+	 * @param classLoader - the classLoader used to find class files
+	 */
+	public ClassModelRepository(ClassLoader classLoader){
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * Registers the given classModels in this repository.
+	 *
+	 * @param classModelsToAdd - the models to register
+	 */
+	public void addAll(Collection<ClassModel> classModelsToAdd){
+		for (ClassModel classModel: classModelsToAdd){
+			classModels.put(classModel.getName(), classModel);
+		}
+	}
+
+	/**
+	 * Returns the model of the class with the given name.
+	 * Primitive and array types do not have a model.
+	 *
+	 * @param className - fully qualified name of the class
+	 * @return the model of the class, or null if no class file can be found for the class
+	 */
+	public ClassModel getClassModel(String className){
+		if (className == null || ReflectionUtil.isPrimitiveClassName(className) || className.startsWith("[")){
+			return null;
+		}
+		ClassModel classModel = classModels.get(className);
+		if (classModel == null){
+			classModel = findClassModel(className);
+			if (classModel == null){
+				classModel = MISSING;
+			}
+			ClassModel existing = classModels.putIfAbsent(className, classModel);
+			if (existing != null){
+				classModel = existing;
+			}
+		}
+		return classModel == MISSING ? null : classModel;
+	}
+
+	/**
+	 * Finds the model of a class that is not registered yet. The result is cached by {@link #getClassModel(String)}.
+	 * By default the class file is parsed; subclasses can find models elsewhere(f.e. in the sources being compiled).
+	 *
+	 * @param className - fully qualified name of the class
+	 * @return the model of the class, or null if it cannot be found
+	 */
+	protected ClassModel findClassModel(String className){
+		InputStream inputStream = classLoader.getResourceAsStream(className.replace('.', '/') + ".class");
+		if (inputStream == null){
+			log.debug("No class file found for " + className + ".");
+			return null;
+		}
+		try {
+			return classFileParser.parse(inputStream);
+		} catch (IOException e) {
+			log.warn("Could not read class file of " + className + ".", e);
+			return null;
+		}
+		finally {
+			try {
+				inputStream.close();
+			} catch (IOException e) {
+				log.warn("Could not close class file of " + className + ".", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the models of the superclasses of the given class, in order going up from the given class.
+	 * Superclasses for which no class file can be found end the chain.
+	 *
+	 * @param classModel - the class to look up
+	 * @return the superclasses, java.lang.Object included
+	 */
+	public List<ClassModel> getAllSuperclasses(ClassModel classModel){
+		List<ClassModel> superclasses = new ArrayList<ClassModel>();
+		ClassModel superclass = getClassModel(classModel.getSuperclassName());
+		while (superclass != null){
+			superclasses.add(superclass);
+			superclass = getClassModel(superclass.getSuperclassName());
+		}
+		return superclasses;
+	}
+
+	/**
+	 * Returns all the fields of a class, also the ones declared by its superclasses.
+	 * The fields are returned in the same order as {@link com.ceardannan.util.ReflectionUtil#getAllFields(Class)} does:
+	 * first those of the superclasses, going up, then those of the class itself.
+	 *
+	 * @param classModel - the class to introspect
+	 * @return all fields of the class
+	 */
+	public List<FieldModel> getAllFields(ClassModel classModel){
+		List<FieldModel> fields = new ArrayList<FieldModel>();
+		for (ClassModel superclass: getAllSuperclasses(classModel)){
+			fields.addAll(superclass.getDeclaredFields());
+		}
+		fields.addAll(classModel.getDeclaredFields());
+		return fields;
+	}
+
+	/**
+	 * Returns whether the type with the given typeName is the same as, or a subtype of, the type with the given superTypeName.
+	 * This is the class-file counterpart of {@link Class#isAssignableFrom(Class)}.
+	 *
+	 * @param superTypeName - fully qualified name of the potential supertype
+	 * @param typeName - fully qualified name of the type to check
+	 * @return whether typeName is assignable to superTypeName
+	 */
+	public boolean isAssignableFrom(String superTypeName, String typeName){
+		if (typeName == null){
+			return false;
+		}
+		if (typeName.equals(superTypeName)){
+			return true;
+		}
+		ClassModel classModel = getClassModel(typeName);
+		if (classModel == null){
+			return false;
+		}
+		if (isAssignableFrom(superTypeName, classModel.getSuperclassName())){
+			return true;
+		}
+		for (String interfaceName: classModel.getInterfaceNames()){
+			if (isAssignableFrom(superTypeName, interfaceName)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns all the fields(also those of its superclasses) of classToScan that have the type with the given typeName as their type.
+	 * Like {@link com.ceardannan.util.ReflectionUtil#getAllFieldsOfTypeClassOnOtherClass(Class, Class)},
+	 * only fields of which the type is not generic are returned.
+	 *
+	 * @param typeName - fully qualified name of the type of the fields to look for
+	 * @param classToScan - class to introspect
+	 * @return list of fields of the classToScan with the given type
+	 */
+	public List<FieldModel> getAllFieldsOfType(String typeName, ClassModel classToScan){
+		List<FieldModel> fields = new ArrayList<FieldModel>();
+		for (FieldModel field: getAllFields(classToScan)){
+			if (field.getSignature() == null && field.getTypeName().equals(typeName)){
+				fields.add(field);
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * Returns the name of the class a type argument of the type of a field erases to, resolved against the class declaring the field.
+	 * This is the class-file counterpart of {@link com.ceardannan.util.ReflectionUtil#getCollectionElementClass(Class, java.lang.reflect.Field)}
+	 * for the class declaring the field: wildcards erase to their upper bound(f.e. Item for List&lt;? extends Item&gt;)
+	 * and type variables to their first bound(f.e. Item for List&lt;T&gt; declared by a class Document&lt;T extends Item&gt;).
+	 *
+	 * @param field - the field
+	 * @param index - index of the type argument
+	 * @return the fully qualified name of the erased class of the type argument, or null if the type of the field is not parameterized
+	 */
+	public String getTypeArgumentClassName(FieldModel field, int index){
+		List<String> typeArguments = field.getTypeArgumentSignatures();
+		if (typeArguments.size() <= index){
+			return null;
+		}
+		return getErasedClassName(typeArguments.get(index), getClassModel(field.getDeclaringClassName()));
+	}
+
+	/**
+	 * Returns the name of the class a type erases to, as {@link com.ceardannan.util.GenericTypeResolver#getRawClass(java.lang.reflect.Type)} does.
+	 *
+	 * @param typeSignature - the signature of the type, or of a type argument
+	 * @param classModel - the class in which the type is used, to look up the bounds of type variables
+	 * @return the fully qualified name of the erased class
+	 */
+	private String getErasedClassName(String typeSignature, ClassModel classModel){
+		char first = typeSignature.charAt(0);
+		if (first == '+'){
+			return getErasedClassName(typeSignature.substring(1), classModel);
+		}
+		else if (first == '*' || first == '-'){
+			return Object.class.getName();
+		}
+		else if (first == 'T'){
+			String typeParameterName = typeSignature.substring(1, typeSignature.length() - 1);
+			//the type variable is declared by the class itself or, for inner classes, by an enclosing class
+			for (ClassModel declaringClass = classModel; declaringClass != null; declaringClass = getEnclosingClassModel(declaringClass)){
+				String bound = declaringClass.getTypeParameterBound(typeParameterName);
+				if (bound != null){
+					return getErasedClassName(bound, declaringClass);
+				}
+			}
+			return Object.class.getName();
+		}
+		else if (first == '['){
+			int dimensions = 0;
+			while (typeSignature.charAt(dimensions) == '['){
+				dimensions++;
+			}
+			String componentSignature = typeSignature.substring(dimensions);
+			if (componentSignature.length() == 1){
+				//primitive component
+				return typeSignature;
+			}
+			return typeSignature.substring(0, dimensions) + "L" + getErasedClassName(componentSignature, classModel) + ";";
+		}
+		int end = typeSignature.indexOf('<');
+		if (end == -1){
+			end = typeSignature.length() - 1;
+		}
+		return ClassFileParser.descriptorToClassName(typeSignature.substring(0, end) + ";");
+	}
+
+	private ClassModel getEnclosingClassModel(ClassModel classModel){
+		if (ClassModel.NestingKind.TOP_LEVEL.equals(classModel.getNestingKind()) || classModel.getName().indexOf('$') == -1){
+			return null;
+		}
+		return getClassModel(classModel.getName().substring(0, classModel.getName().lastIndexOf('$')));
+	}
+
+}
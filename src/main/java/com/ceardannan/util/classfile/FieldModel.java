@@ -0,0 +1,263 @@
+package com.ceardannan.util.classfile;
+
+import java.io.Serializable;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable description of a field, read from the bytes of a class file.
+ * This is the class-file counterpart of {@link java.lang.reflect.Field}, and can be obtained without loading the declaring class.
+ *
+ */
+public final class FieldModel implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String declaringClassName;
+	private final String name;
+	private final int modifiers;
+	private final String descriptor;
+	private final String signature;
+
+	/**
+	 * @param declaringClassName - fully qualified name of the class that declares the field
+	 * @param name - name of the field
+	 * @param modifiers - the modifiers of the field, as in {@link Modifier}
+	 * @param descriptor - the field descriptor, f.e. "Ljava/util/List;"
+	 * @param signature - the generic signature, f.e. "Ljava/util/List&lt;Lcom/test/model/Item;&gt;;", or null if the field type is not generic
+	 */
+	public FieldModel(String declaringClassName, String name, int modifiers, String descriptor, String signature){
+		this.declaringClassName = declaringClassName;
+		this.name = name;
+		this.modifiers = modifiers;
+		this.descriptor = descriptor;
+		this.signature = signature;
+	}
+
+	/**
+	 * @return the fully qualified name of the class that declares the field
+	 */
+	public String getDeclaringClassName() {
+		return declaringClassName;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the modifiers, as in {@link Modifier}
+	 */
+	public int getModifiers() {
+		return modifiers;
+	}
+
+	/**
+	 * @return the descriptor
+	 */
+	public String getDescriptor() {
+		return descriptor;
+	}
+
+	/**
+	 * @return the generic signature, or null if the field type is not generic
+	 */
+	public String getSignature() {
+		return signature;
+	}
+
+	/**
+	 * Returns the name of the type of the field, in the format of {@link Class#getName()}.
+	 *
+	 * @return the name of the type of the field, f.e. "java.util.List", "int" or "[Ljava.lang.String;"
+	 */
+	public String getTypeName() {
+		return ClassFileParser.descriptorToClassName(descriptor);
+	}
+
+	/**
+	 * @return whether the type of the field is a primitive
+	 */
+	public boolean isPrimitive() {
+		return descriptor.length() == 1;
+	}
+
+	/**
+	 * @return whether the type of the field is an array
+	 */
+	public boolean isArray() {
+		return descriptor.charAt(0) == '[';
+	}
+
+	/**
+	 * @return whether the field is static
+	 */
+	public boolean isStatic() {
+		return Modifier.isStatic(modifiers);
+	}
+
+	/**
+	 * @return whether the field is transient
+	 */
+	public boolean isTransient() {
+		return Modifier.isTransient(modifiers);
+	}
+
+	/**
+	 * Returns the type arguments of the generic type of the field.
+	 * F.e. for a List&lt;Item&gt; field, a list containing "com.test.model.Item" is returned.
+	 * Type arguments that are not a plain class or array type(wildcards, type variables) are returned as null.
+	 *
+	 * @return the type arguments of the field type, or an empty list if the field type is not parameterized
+	 */
+	public List<String> getTypeArgumentNames() {
+		if (signature == null){
+			return Collections.emptyList();
+		}
+		return parseTypeArguments(signature);
+	}
+
+	/**
+	 * Parses the type arguments of the outermost class type of a field signature.
+	 *
+	 * @param signature - the field signature
+	 * @return the type arguments
+	 */
+	static List<String> parseTypeArguments(String signature){
+		List<String> typeArguments = new ArrayList<String>();
+		for (String typeArgument: parseTypeArgumentSignatures(signature)){
+			typeArguments.add(toTypeArgumentName(typeArgument));
+		}
+		return typeArguments;
+	}
+
+	/**
+	 * Returns the signatures of the type arguments of the generic type of the field, f.e. "+Lcom/test/model/Item;" for a List&lt;? extends Item&gt; field.
+	 *
+	 * @return the signatures of the type arguments, or an empty list if the field type is not parameterized
+	 */
+	public List<String> getTypeArgumentSignatures() {
+		if (signature == null){
+			return Collections.emptyList();
+		}
+		return parseTypeArgumentSignatures(signature);
+	}
+
+	/**
+	 * Splits the type arguments of the outermost class type of a field signature.
+	 *
+	 * @param signature - the field signature
+	 * @return the signatures of the type arguments
+	 */
+	static List<String> parseTypeArgumentSignatures(String signature){
+		List<String> typeArguments = new ArrayList<String>();
+		if (signature.charAt(0) != 'L'){
+			return typeArguments;
+		}
+		int start = signature.indexOf('<');
+		if (start == -1){
+			return typeArguments;
+		}
+		int position = start + 1;
+		while (signature.charAt(position) != '>'){
+			int end = skipTypeArgument(signature, position);
+			typeArguments.add(signature.substring(position, end));
+			position = end;
+		}
+		return typeArguments;
+	}
+
+	/**
+	 * Returns the class name for a single type argument signature.
+	 * Parameterized type arguments(f.e. Set&lt;Item&gt;) are returned as their raw type.
+	 *
+	 * @param typeArgument - signature of the type argument, f.e. "Lcom/test/model/Item;"
+	 * @return the class name of the type argument, or null for a wildcard or type variable
+	 */
+	private static String toTypeArgumentName(String typeArgument){
+		int dimensions = 0;
+		while (typeArgument.charAt(dimensions) == '['){
+			dimensions++;
+		}
+		char first = typeArgument.charAt(dimensions);
+		if (first == 'L'){
+			int end = typeArgument.indexOf('<');
+			if (end == -1){
+				end = typeArgument.length() - 1;
+			}
+			String rawDescriptor = typeArgument.substring(0, end) + ";";
+			return ClassFileParser.descriptorToClassName(rawDescriptor);
+		}
+		else if (dimensions > 0 && first != 'T'){
+			return typeArgument;
+		}
+		//wildcard(*,+,-) or type variable(T)
+		return null;
+	}
+
+	/**
+	 * Returns the position just after the type argument starting at the given position.
+	 *
+	 * @param signature - the signature
+	 * @param position - the start of the type argument
+	 * @return the position after the type argument
+	 */
+	static int skipTypeArgument(String signature, int position){
+		char c = signature.charAt(position);
+		if (c == '*'){
+			return position + 1;
+		}
+		if (c == '+' || c == '-' || c == '['){
+			return skipTypeArgument(signature, position + 1);
+		}
+		if (c == 'T'){
+			return signature.indexOf(';', position) + 1;
+		}
+		if (c == 'L'){
+			int depth = 0;
+			for (int i = position; i < signature.length(); i++){
+				char current = signature.charAt(i);
+				if (current == '<'){
+					depth++;
+				}
+				else if (current == '>'){
+					depth--;
+				}
+				else if (current == ';' && depth == 0){
+					return i + 1;
+				}
+			}
+			throw new IllegalArgumentException("Invalid signature " + signature);
+		}
+		//primitive(only possible as array component)
+		return position + 1;
+	}
+
+	@Override
+	public String toString() {
+		return declaringClassName + "." + name;
+	}
+
+	@Override
+	public int hashCode() {
+		return declaringClassName.hashCode() * 31 + name.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj){
+			return true;
+		}
+		if (! (obj instanceof FieldModel)){
+			return false;
+		}
+		FieldModel other = (FieldModel) obj;
+		return declaringClassName.equals(other.declaringClassName) && name.equals(other.name);
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.ceardannan.util.classfile;
+
+import java.io.Serializable;
+import java.lang.reflect.Modifier;
+
+/**
+ * Immutable description of a method, read from the bytes of a class file.
+ * Only the information needed to detect bean properties is kept.
+ *
+ */
+public final class MethodModel implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Bridge flag(ACC_BRIDGE) of a method
+	 */
+	static final int BRIDGE = 0x0040;
+
+	/**
+	 * Synthetic flag(ACC_SYNTHETIC) of a method
+	 */
+	static final int SYNTHETIC = 0x1000;
+
+	private final String name;
+	private final int modifiers;
+	private final String descriptor;
+
+	/**
+	 * @param name - name of the method
+	 * @param modifiers - the access flags of the method
+	 * @param descriptor - the method descriptor, f.e. "()Ljava/lang/String;"
+	 */
+	public MethodModel(String name, int modifiers, String descriptor){
+		this.name = name;
+		this.modifiers = modifiers;
+		this.descriptor = descriptor;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the modifiers, as in {@link Modifier}, including the bridge and synthetic flags
+	 */
+	public int getModifiers() {
+		return modifiers;
+	}
+
+	/**
+	 * @return the descriptor
+	 */
+	public String getDescriptor() {
+		return descriptor;
+	}
+
+	/**
+	 * @return whether the method takes no parameters
+	 */
+	public boolean hasNoParameters() {
+		return descriptor.startsWith("()");
+	}
+
+	/**
+	 * Returns the name of the return type of the method, in the format of {@link Class#getName()}.
+	 *
+	 * @return the name of the return type, "void" if the method does not return anything
+	 */
+	public String getReturnTypeName() {
+		return ClassFileParser.descriptorToClassName(descriptor.substring(descriptor.indexOf(')') + 1));
+	}
+
+	/**
+	 * @return whether the method is public, not static, and not generated by the compiler(bridge or synthetic)
+	 */
+	public boolean isPublicInstanceMethod() {
+		return Modifier.isPublic(modifiers) && ! Modifier.isStatic(modifiers) && (modifiers & (BRIDGE | SYNTHETIC)) == 0;
+	}
+
+	@Override
+	public String toString() {
+		return name + descriptor;
+	}
+
+}
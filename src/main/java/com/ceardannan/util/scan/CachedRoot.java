@@ -0,0 +1,89 @@
+package com.ceardannan.util.scan;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ceardannan.util.classfile.ClassModel;
+
+/**
+ * The cached scan results of a single {@link ClasspathRoot}, as stored by the {@link ScanCache}:
+ * the names of all its class entries, and the {@link ClassModel}s of the entries that were parsed so far.
+ *
+ */
+class CachedRoot implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String location;
+
+	private RootFingerprint fingerprint;
+
+	/**
+	 * Names of all class entries of the root, sorted so the entries of a package can be looked up as a range
+	 */
+	private final TreeSet<String> classEntryNames;
+
+	private final ConcurrentHashMap<String, ClassModel> classModels = new ConcurrentHashMap<String, ClassModel>();
+
+	/**
+	 * Whether this root changed since it was last stored
+	 */
+	private transient volatile boolean dirty;
+
+	CachedRoot(String location, RootFingerprint fingerprint, Collection<String> classEntryNames){
+		this.location = location;
+		this.fingerprint = fingerprint;
+		this.classEntryNames = new TreeSet<String>(classEntryNames);
+		this.dirty = true;
+	}
+
+	String getLocation() {
+		return location;
+	}
+
+	RootFingerprint getFingerprint() {
+		return fingerprint;
+	}
+
+	void setFingerprint(RootFingerprint fingerprint) {
+		this.fingerprint = fingerprint;
+		this.dirty = true;
+	}
+
+	boolean isDirty() {
+		return dirty;
+	}
+
+	void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+
+	/**
+	 * Returns the names of the class entries present in the given packageFolder, see {@link ClasspathRoot#getClassEntryNames(String, boolean)}.
+	 */
+	List<String> getClassEntryNames(String packageFolder, boolean recursive){
+		SortedSet<String> candidates = packageFolder.length() == 0 ? classEntryNames : classEntryNames.subSet(packageFolder + "/", packageFolder + "0");
+		List<String> entryNames = new ArrayList<String>();
+		for (String entryName: candidates){
+			if (ClasspathRoot.isClassEntryInPackage(entryName, packageFolder, recursive)){
+				entryNames.add(entryName);
+			}
+		}
+		return entryNames;
+	}
+
+	ClassModel getClassModel(String entryName){
+		return classModels.get(entryName);
+	}
+
+	void putClassModel(String entryName, ClassModel classModel){
+		classModels.put(entryName, classModel);
+		dirty = true;
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.ceardannan.util.scan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.ceardannan.util.classfile.ClassFileParser;
+import com.ceardannan.util.classfile.ClassModel;
+
+/**
+ * ClasspathRoot that serves the class entry names and the class models of another root from a {@link ScanCache}.
+ * The cached results are validated against the fingerprint of the root on first use;
+ * the root itself is only read for class models that are not cached yet.
+ * The cached results are stored when this root is closed.
+ *
+ */
+class CachingClasspathRoot extends ClasspathRoot {
+
+	private ScanCache scanCache;
+
+	private ClasspathRoot root;
+
+	/**
+	 * The validated cached results, null as long as the root is not used
+	 */
+	private CachedRoot cachedRoot;
+
+	CachingClasspathRoot(ScanCache scanCache, ClasspathRoot root){
+		this.scanCache = scanCache;
+		this.root = root;
+	}
+
+	/**
+	 * Returns the validated cached results of the root, validates them if necessary.
+	 */
+	private synchronized CachedRoot getCachedRoot() throws IOException {
+		if (cachedRoot == null){
+			cachedRoot = scanCache.getCachedRoot(root);
+		}
+		return cachedRoot;
+	}
+
+	@Override
+	public List<String> getClassEntryNames(String packageFolder, boolean recursive) throws IOException {
+		return getCachedRoot().getClassEntryNames(packageFolder, recursive);
+	}
+
+	@Override
+	public InputStream openEntry(String entryName) throws IOException {
+		return root.openEntry(entryName);
+	}
+
+	@Override
+	public boolean containsEntry(String entryName) {
+		return root.containsEntry(entryName);
+	}
+
+	@Override
+	public ClassModel readClassModel(String entryName, ClassFileParser classFileParser) throws IOException {
+		CachedRoot validatedRoot = getCachedRoot();
+		ClassModel classModel = validatedRoot.getClassModel(entryName);
+		if (classModel == null){
+			classModel = root.readClassModel(entryName, classFileParser);
+			validatedRoot.putClassModel(entryName, classModel);
+		}
+		return classModel;
+	}
+
+	@Override
+	public RootFingerprint getFingerprint() throws IOException {
+		return root.getFingerprint();
+	}
+
+	@Override
+	public String computeContentHash() throws IOException {
+		return root.computeContentHash();
+	}
+
+	@Override
+	public String getLocation() {
+		return root.getLocation();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			synchronized (this) {
+				if (cachedRoot != null && cachedRoot.isDirty()){
+					scanCache.store(cachedRoot);
+				}
+			}
+		}
+		finally {
+			root.close();
+		}
+	}
+
+}
@@ -0,0 +1,388 @@
+package com.ceardannan.util.scan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.ceardannan.util.classfile.ClassFileParser;
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.FieldModel;
+import com.ceardannan.util.classfile.MethodModel;
+
+/**
+ * Compact binary index of the {@link ClassModel}s of the classes in a set of packages, generated at build time
+ * and stored in the jar as {@value #RESOURCE_NAME}.
+ * <p>
+ * The index holds, for every class, its name, superclass and interfaces, modifiers, generic signature,
+ * and its declared fields(names, types and generic signatures) and methods.
+ * All strings are stored once, in a string table, and referred to by index.
+ * When a jar contains an index, the {@link ClasspathScanner} takes the classes of the indexed packages from it:
+ * scanning the jar then costs a single sequential read of the index, instead of a walk over its entries and the parsing of every class file.
+ * The index must be regenerated whenever the classes of the indexed packages change, f.e. as part of the build.
+ * The index of a classes directory is ignored by the scanner, as the classes of a directory change(f.e. when they are recompiled by an IDE)
+ * without the index being regenerated. It is only used once the directory is packaged into a jar.
+ * </p>
+ *
+ * <p>Example usage, after compilation and before packaging(f.e. from the process-classes phase of a maven build):
+ *
+ * <pre>
+ * {@code
+ * java com.ceardannan.util.scan.ClassIndex target/classes com.test.model
+ * }
+ * </pre>
+ * </p>
+ *
+ */
+public class ClassIndex {
+
+	/**
+	 * Name of the index resource within a classpath root
+	 */
+	public static final String RESOURCE_NAME = "META-INF/java2jpa.idx";
+
+	/**
+	 * First bytes of an index, "J2JI"
+	 */
+	private static final int MAGIC = 0x4A324A49;
+
+	/**
+	 * Version of the index format
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The indexed packages, in folder notation
+	 */
+	private PackageTrie packages;
+
+	/**
+	 * The models of the indexed classes, by class entry name
+	 */
+	private SortedMap<String, ClassModel> classModels = new TreeMap<String, ClassModel>();
+
+	/**
+	 * Creates an index.
+	 *
+	 * @param packageFolders - the indexed packages(sub-packages included), in folder notation, f.e. "com/test/model"
+	 * @param classModels - the models of all classes in the indexed packages
+	 */
+	public ClassIndex(Collection<String> packageFolders, Collection<ClassModel> classModels){
+		this.packages = new PackageTrie(packageFolders);
+		for (ClassModel classModel: classModels){
+			this.classModels.put(ClasspathRoot.toEntryName(classModel.getName()), classModel);
+		}
+	}
+
+	/**
+	 * Builds the index of the classes in the given packages(sub-packages included) of a classpath root, by parsing their class files.
+	 *
+	 * @param root - the root to index
+	 * @param packageNames - names of the packages to index
+	 * @return the index
+	 * @throws IOException
+	 */
+	public static ClassIndex build(ClasspathRoot root, String... packageNames) throws IOException {
+		PackageTrie packages = new PackageTrie();
+		for (String packageName: packageNames){
+			packages.add(packageName.replace('.', '/'));
+		}
+		ClassFileParser classFileParser = new ClassFileParser();
+		List<ClassModel> classModels = new ArrayList<ClassModel>();
+		for (String entryName: root.getClassEntryNames(packages, true)){
+			classModels.add(root.readClassModel(entryName, classFileParser));
+		}
+		return new ClassIndex(packages.getPackageFolders(), classModels);
+	}
+
+	/**
+	 * Builds the index of the given packages of a classes directory, and writes it to {@value #RESOURCE_NAME} in that directory.
+	 *
+	 * @param classesDirectory - the classes directory, f.e. target/classes
+	 * @param packageNames - names of the packages to index
+	 * @return the written index file
+	 * @throws IOException
+	 */
+	public static File writeIndex(File classesDirectory, String... packageNames) throws IOException {
+		ClassIndex classIndex = build(new DirectoryClasspathRoot(classesDirectory), packageNames);
+		File indexFile = new File(classesDirectory, RESOURCE_NAME);
+		indexFile.getParentFile().mkdirs();
+		OutputStream outputStream = new FileOutputStream(indexFile);
+		try {
+			classIndex.write(outputStream);
+		}
+		finally {
+			outputStream.close();
+		}
+		return indexFile;
+	}
+
+	/**
+	 * Writes the index of the given packages of a classes directory.
+	 *
+	 * @param args - the classes directory, followed by the names of the packages to index
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2){
+			System.err.println("Usage: ClassIndex <classesDirectory> <packageName>...");
+			System.exit(1);
+		}
+		String[] packageNames = new String[args.length - 1];
+		System.arraycopy(args, 1, packageNames, 0, packageNames.length);
+		File indexFile = writeIndex(new File(args[0]), packageNames);
+		System.out.println("Written " + indexFile + ".");
+	}
+
+	/**
+	 * Returns the indexed packages, in folder notation
+	 *
+	 * @return the indexed packages
+	 */
+	public List<String> getPackageFolders() {
+		return packages.getPackageFolders();
+	}
+
+	/**
+	 * Returns whether the given package is covered by this index, being an indexed package or a sub-package of one.
+	 *
+	 * @param packageFolder - the package in folder notation, f.e. "com/test/model"
+	 * @return whether the classes of the package are indexed
+	 */
+	public boolean covers(String packageFolder) {
+		return packages.getPackageOf(packageFolder + "/", true) != null;
+	}
+
+	/**
+	 * Returns the names of the indexed class entries in the given package, see {@link ClasspathRoot#getClassEntryNames(String, boolean)}.
+	 *
+	 * @param packageFolder - the package in folder notation, f.e. "com/test/model"
+	 * @param recursive - whether the class entries of sub-packages should be returned as well
+	 * @return the names of the class entries in the package
+	 */
+	public List<String> getClassEntryNames(String packageFolder, boolean recursive) {
+		Collection<String> candidates = packageFolder.length() == 0 ? classModels.keySet()
+				: classModels.subMap(packageFolder + "/", packageFolder + "0").keySet();
+		List<String> entryNames = new ArrayList<String>();
+		for (String entryName: candidates){
+			if (ClasspathRoot.isClassEntryInPackage(entryName, packageFolder, recursive)){
+				entryNames.add(entryName);
+			}
+		}
+		return entryNames;
+	}
+
+	/**
+	 * Returns the indexed model of a class entry.
+	 *
+	 * @param entryName - name of the class entry, f.e. "com/test/model/Item.class"
+	 * @return the model, or null if the class is not indexed
+	 */
+	public ClassModel getClassModel(String entryName) {
+		return classModels.get(entryName);
+	}
+
+	/**
+	 * Returns the models of all indexed classes, ordered by name.
+	 *
+	 * @return the indexed models
+	 */
+	public Collection<ClassModel> getClassModels() {
+		return classModels.values();
+	}
+
+	/**
+	 * Writes this index to the given stream. The stream is not closed.
+	 *
+	 * @param outputStream - the stream to write to
+	 * @throws IOException
+	 */
+	public void write(OutputStream outputStream) throws IOException {
+		StringTable strings = new StringTable();
+		for (String packageFolder: packages.getPackageFolders()){
+			strings.add(packageFolder);
+		}
+		for (ClassModel classModel: classModels.values()){
+			strings.add(classModel.getName());
+			strings.add(classModel.getSuperclassName());
+			for (String interfaceName: classModel.getInterfaceNames()){
+				strings.add(interfaceName);
+			}
+			strings.add(classModel.getSimpleName());
+			strings.add(classModel.getSignature());
+			for (FieldModel field: classModel.getDeclaredFields()){
+				strings.add(field.getName());
+				strings.add(field.getDescriptor());
+				strings.add(field.getSignature());
+			}
+			for (MethodModel method: classModel.getDeclaredMethods()){
+				strings.add(method.getName());
+				strings.add(method.getDescriptor());
+			}
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+		out.writeInt(MAGIC);
+		writeNumber(out, VERSION);
+		writeNumber(out, strings.strings.size());
+		for (String string: strings.strings){
+			out.writeUTF(string);
+		}
+		writeNumber(out, packages.getPackageFolders().size());
+		for (String packageFolder: packages.getPackageFolders()){
+			strings.write(out, packageFolder);
+		}
+		writeNumber(out, classModels.size());
+		for (ClassModel classModel: classModels.values()){
+			strings.write(out, classModel.getName());
+			strings.write(out, classModel.getSuperclassName());
+			writeNumber(out, classModel.getInterfaceNames().size());
+			for (String interfaceName: classModel.getInterfaceNames()){
+				strings.write(out, interfaceName);
+			}
+			writeNumber(out, classModel.getModifiers());
+			writeNumber(out, classModel.getNestingKind().ordinal());
+			strings.write(out, classModel.getSimpleName());
+			strings.write(out, classModel.getSignature());
+			writeNumber(out, classModel.getDeclaredFields().size());
+			for (FieldModel field: classModel.getDeclaredFields()){
+				strings.write(out, field.getName());
+				writeNumber(out, field.getModifiers());
+				strings.write(out, field.getDescriptor());
+				strings.write(out, field.getSignature());
+			}
+			writeNumber(out, classModel.getDeclaredMethods().size());
+			for (MethodModel method: classModel.getDeclaredMethods()){
+				strings.write(out, method.getName());
+				writeNumber(out, method.getModifiers());
+				strings.write(out, method.getDescriptor());
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads an index from the given stream, and closes the stream.
+	 *
+	 * @param inputStream - the stream to read from
+	 * @return the index
+	 * @throws IOException if the stream does not contain a valid index
+	 */
+	public static ClassIndex read(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+		try {
+			if (in.readInt() != MAGIC){
+				throw new IOException("Not a class index.");
+			}
+			int version = readNumber(in);
+			if (version != VERSION){
+				throw new IOException("Unsupported class index version " + version + ".");
+			}
+			String[] strings = new String[readNumber(in)];
+			for (int i = 0; i < strings.length; i++){
+				strings[i] = in.readUTF();
+			}
+			int packageCount = readNumber(in);
+			List<String> packageFolders = new ArrayList<String>(packageCount);
+			for (int i = 0; i < packageCount; i++){
+				packageFolders.add(readString(in, strings));
+			}
+			int classCount = readNumber(in);
+			List<ClassModel> classModels = new ArrayList<ClassModel>(classCount);
+			ClassModel.NestingKind[] nestingKinds = ClassModel.NestingKind.values();
+			for (int i = 0; i < classCount; i++){
+				String name = readString(in, strings);
+				String superclassName = readString(in, strings);
+				int interfaceCount = readNumber(in);
+				List<String> interfaceNames = new ArrayList<String>(interfaceCount);
+				for (int j = 0; j < interfaceCount; j++){
+					interfaceNames.add(readString(in, strings));
+				}
+				int modifiers = readNumber(in);
+				ClassModel.NestingKind nestingKind = nestingKinds[readNumber(in)];
+				String simpleName = readString(in, strings);
+				String signature = readString(in, strings);
+				int fieldCount = readNumber(in);
+				List<FieldModel> fields = new ArrayList<FieldModel>(fieldCount);
+				for (int j = 0; j < fieldCount; j++){
+					fields.add(new FieldModel(name, readString(in, strings), readNumber(in), readString(in, strings), readString(in, strings)));
+				}
+				int methodCount = readNumber(in);
+				List<MethodModel> methods = new ArrayList<MethodModel>(methodCount);
+				for (int j = 0; j < methodCount; j++){
+					methods.add(new MethodModel(readString(in, strings), readNumber(in), readString(in, strings)));
+				}
+				classModels.add(new ClassModel(name, superclassName, interfaceNames, modifiers, nestingKind, simpleName, signature, fields, methods));
+			}
+			return new ClassIndex(packageFolders, classModels);
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Corrupt class index: " + e.getMessage(), e);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes a non-negative number in 7 bit groups, so small numbers(most modifiers, counts and string references) take a single byte.
+	 */
+	private static void writeNumber(DataOutputStream out, int number) throws IOException {
+		while ((number & ~0x7F) != 0){
+			out.writeByte((number & 0x7F) | 0x80);
+			number >>>= 7;
+		}
+		out.writeByte(number);
+	}
+
+	private static int readNumber(DataInputStream in) throws IOException {
+		int number = 0;
+		for (int shift = 0; shift < 32; shift += 7){
+			int b = in.readUnsignedByte();
+			number |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0){
+				return number;
+			}
+		}
+		throw new IOException("Corrupt class index: invalid number.");
+	}
+
+	/**
+	 * Reads a string reference: 0 for null, otherwise the index in the string table plus one.
+	 */
+	private static String readString(DataInputStream in, String[] strings) throws IOException {
+		int reference = readNumber(in);
+		return reference == 0 ? null : strings[reference - 1];
+	}
+
+	/**
+	 * Table of the distinct strings of an index, in order of addition.
+	 */
+	private static class StringTable {
+		private List<String> strings = new ArrayList<String>();
+		private Map<String, Integer> references = new HashMap<String, Integer>();
+
+		void add(String string){
+			if (string != null && ! references.containsKey(string)){
+				strings.add(string);
+				references.put(string, Integer.valueOf(strings.size()));
+			}
+		}
+
+		void write(DataOutputStream out, String string) throws IOException {
+			writeNumber(out, string == null ? 0 : references.get(string).intValue());
+		}
+	}
+
+}
@@ -0,0 +1,220 @@
+package com.ceardannan.util.scan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ceardannan.util.classfile.ClassFileParser;
+import com.ceardannan.util.classfile.ClassModel;
+
+/**
+ * Represents a single root(a directory or a jar file) on the classpath that can be scanned for classes.
+ *
+ */
+public abstract class ClasspathRoot implements Closeable {
+
+	/**
+	 * Suffix of class file entries
+	 */
+	static final String CLASS_SUFFIX = ".class";
+
+	/**
+	 * Returns the names of the class entries (f.e. "com/test/model/Item.class") present in the given packageFolder of this root.
+	 *
+	 * @param packageFolder - the package to scan, in folder notation, f.e. "com/test/model"
+	 * @param recursive - whether the class entries of sub-packages should be returned as well
+	 * @return the names of the class entries in the package
+	 * @throws IOException
+	 */
+	public abstract List<String> getClassEntryNames(String packageFolder, boolean recursive) throws IOException;
+
+	/**
+	 * Returns the names of the class entries present in any of the given packages of this root, in a single pass over the root.
+	 * By default, the outermost packages are listed(or, if not recursive, all packages), so every entry is returned only once.
+	 *
+	 * @param packages - the packages to scan
+	 * @param recursive - whether the class entries of sub-packages should be returned as well
+	 * @return the names of the class entries in the packages
+	 * @throws IOException
+	 */
+	public List<String> getClassEntryNames(PackageTrie packages, boolean recursive) throws IOException {
+		List<String> entryNames = new ArrayList<String>();
+		for (String packageFolder: recursive ? packages.getOutermostPackageFolders() : packages.getPackageFolders()){
+			entryNames.addAll(getClassEntryNames(packageFolder, recursive));
+		}
+		return entryNames;
+	}
+
+	/**
+	 * Opens the entry with the given name(f.e. "com/test/model/Item.class") of this root.
+	 * The caller is responsible for closing the returned stream.
+	 *
+	 * @param entryName - name of the entry to open
+	 * @return a stream with the content of the entry
+	 * @throws IOException if the entry does not exist or cannot be read
+	 */
+	public abstract InputStream openEntry(String entryName) throws IOException;
+
+	/**
+	 * Returns whether this root contains an entry with the given name(f.e. "META-INF/java2jpa.idx").
+	 * By default, the entry is opened to find out.
+	 *
+	 * @param entryName - name of the entry
+	 * @return whether the entry exists
+	 */
+	public boolean containsEntry(String entryName) {
+		try {
+			openEntry(entryName).close();
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the {@link ClassModel} of the class entry with the given name.
+	 *
+	 * @param entryName - name of the class entry, f.e. "com/test/model/Item.class"
+	 * @param classFileParser - the parser to use
+	 * @return the model of the class
+	 * @throws IOException if the entry does not exist or is not a valid class file
+	 */
+	public ClassModel readClassModel(String entryName, ClassFileParser classFileParser) throws IOException {
+		InputStream inputStream = openEntry(entryName);
+		try {
+			return classFileParser.parse(inputStream);
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Returns the size and the last modification time of this root, without a content hash.
+	 * Computing the fingerprint should be cheap(only file stats), it is used to detect changes to the root.
+	 *
+	 * @return the fingerprint of this root
+	 * @throws IOException
+	 */
+	public abstract RootFingerprint getFingerprint() throws IOException;
+
+	/**
+	 * Computes a hash over the content of this root, used to detect changes to a root of which only the modification time changed.
+	 *
+	 * @return the hash of the content, in hexadecimal notation
+	 * @throws IOException
+	 */
+	public abstract String computeContentHash() throws IOException;
+
+	/**
+	 * Returns the location of this root, f.e. the absolute path of the directory or the jar file.
+	 * Two roots with the same location represent the same classpath entry.
+	 *
+	 * @return the location of this root
+	 */
+	public abstract String getLocation();
+
+	/**
+	 * Releases the resources(f.e. open file handles) held by this root.
+	 * Does nothing by default.
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+
+	/**
+	 * Returns whether the given entry name is a class entry in the given packageFolder.
+	 *
+	 * @param entryName - name of the entry, f.e. "com/test/model/Item.class"
+	 * @param packageFolder - the package in folder notation, f.e. "com/test/model"
+	 * @param recursive - whether entries of sub-packages are accepted as well
+	 * @return whether the entry is a class entry in the package
+	 */
+	static boolean isClassEntryInPackage(String entryName, String packageFolder, boolean recursive){
+		if (packageFolder.length() == 0){
+			return entryName.endsWith(CLASS_SUFFIX) && (recursive || entryName.indexOf('/') == -1);
+		}
+		if (! entryName.endsWith(CLASS_SUFFIX) || entryName.length() <= packageFolder.length() + 1 + CLASS_SUFFIX.length()
+				|| ! entryName.startsWith(packageFolder) || entryName.charAt(packageFolder.length()) != '/'){
+			return false;
+		}
+		return recursive || entryName.indexOf('/', packageFolder.length() + 1) == -1;
+	}
+
+	/**
+	 * Returns the fully qualified class name for a class entry name.
+	 *
+	 * @param entryName - name of the class entry, f.e. "com/test/model/Item.class"
+	 * @return the fully qualified class name, f.e. "com.test.model.Item"
+	 */
+	public static String toClassName(String entryName){
+		return entryName.substring(0, entryName.length() - CLASS_SUFFIX.length()).replace('/', '.');
+	}
+
+	/**
+	 * Returns the class entry name for a fully qualified class name.
+	 *
+	 * @param className - the fully qualified class name, f.e. "com.test.model.Item"
+	 * @return name of the class entry, f.e. "com/test/model/Item.class"
+	 */
+	public static String toEntryName(String className){
+		return className.replace('.', '/') + CLASS_SUFFIX;
+	}
+
+	/**
+	 * Creates the digest used to compute content hashes.
+	 *
+	 * @return a new digest
+	 */
+	protected static MessageDigest createContentDigest(){
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			//cannot happen, SHA-1 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Adds the remaining content of the inputStream to the digest, and closes the stream.
+	 *
+	 * @param digest - the digest to update
+	 * @param inputStream - the content to add
+	 * @throws IOException
+	 */
+	protected static void updateDigest(MessageDigest digest, InputStream inputStream) throws IOException {
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1){
+				digest.update(buffer, 0, read);
+			}
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Returns the hexadecimal notation of a digest.
+	 *
+	 * @param digest - the digest
+	 * @return the digest in hexadecimal notation
+	 */
+	protected static String toHex(byte[] digest){
+		StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b: digest){
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getLocation();
+	}
+}
@@ -0,0 +1,562 @@
+package com.ceardannan.util.scan;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import com.ceardannan.util.classfile.ClassFileParser;
+import com.ceardannan.util.classfile.ClassModel;
+
+/**
+ * Scans the classpath for the classes present in a set of packages.
+ * <p>
+ * In contrast to a simple {@link ClassLoader#getResource(String)} lookup, every classpath root(directory or jar) that contains
+ * the package is scanned, by resolving the package through {@link ClassLoader#getResources(String)}.
+ * Sub-packages are scanned as well, unless recursive is set to false.
+ * The roots are scanned in parallel on a bounded pool of at most maxThreads threads.
+ * If a jar contains a {@link ClassIndex}, the classes(and class models) of the indexed packages are taken from the index instead.
+ * The index of a directory is ignored: the classes of a directory(f.e. target/classes) change without the index being regenerated.
+ * Otherwise, if a scanCache is set, the scan results of roots that did not change since a previous scan are taken from the cache.
+ * </p>
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * {@code
+ * Collection<Class<?>> classes = new ClasspathScanner().getAllClassesIn("com.test.model");
+ * }
+ * </pre>
+ * </p>
+ *
+ */
+public class ClasspathScanner {
+
+	private transient Logger log = Logger.getLogger(this.getClass());
+
+	/**
+	 * The classLoader used to find the classpath roots and to load the classes
+	 */
+	private ClassLoader classLoader;
+
+	/**
+	 * Maximum number of threads used to scan the classpath roots
+	 */
+	private int maxThreads;
+
+	/**
+	 * Whether sub-packages are scanned as well
+	 */
+	private boolean recursive = true;
+
+	/**
+	 * The cache of scan results, null if scan results are not cached
+	 */
+	private ScanCache scanCache;
+
+	/**
+	 * Whether the class indexes present in the classpath roots are used
+	 */
+	private boolean useClassIndex = true;
+
+	/**
+	 * Creates a scanner that uses the classloader of the current thread.
+	 */
+	public ClasspathScanner(){
+		this(Thread.currentThread().getContextClassLoader());
+	}
+
+	/**
+	 * Creates a scanner that uses the given classLoader.
+	 *
+	 * @param classLoader - the classLoader used to find the classpath roots and to load the classes
+	 */
+	public ClasspathScanner(ClassLoader classLoader){
+		this.classLoader = classLoader;
+		this.maxThreads = Runtime.getRuntime().availableProcessors();
+		this.scanCache = ScanCache.getDefault();
+	}
+
+	/**
+	 * Returns the classLoader
+	 *
+	 * @return the classLoader
+	 */
+	public ClassLoader getClassLoader() {
+		return classLoader;
+	}
+
+	/**
+	 * Returns the maxThreads
+	 *
+	 * @return the maxThreads
+	 */
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	/**
+	 * Sets the maximum number of threads used to scan the classpath roots.
+	 * 1 means the roots are scanned on the calling thread.
+	 *
+	 * @param maxThreads
+	 */
+	public void setMaxThreads(int maxThreads) {
+		if (maxThreads < 1){
+			throw new IllegalArgumentException("maxThreads should be at least 1, but was " + maxThreads);
+		}
+		this.maxThreads = maxThreads;
+	}
+
+	/**
+	 * Returns whether sub-packages are scanned as well
+	 *
+	 * @return the recursive
+	 */
+	public boolean isRecursive() {
+		return recursive;
+	}
+
+	/**
+	 * Sets whether sub-packages are scanned as well
+	 *
+	 * @param recursive
+	 */
+	public void setRecursive(boolean recursive) {
+		this.recursive = recursive;
+	}
+
+	/**
+	 * Returns the scanCache
+	 *
+	 * @return the scanCache, null if scan results are not cached
+	 */
+	public ScanCache getScanCache() {
+		return scanCache;
+	}
+
+	/**
+	 * Sets the cache of scan results. Defaults to {@link ScanCache#getDefault()}.
+	 *
+	 * @param scanCache - the cache to use, null to not cache scan results
+	 */
+	public void setScanCache(ScanCache scanCache) {
+		this.scanCache = scanCache;
+	}
+
+	/**
+	 * Returns whether the class indexes present in the classpath roots are used
+	 *
+	 * @return the useClassIndex
+	 */
+	public boolean isUseClassIndex() {
+		return useClassIndex;
+	}
+
+	/**
+	 * Sets whether the {@link ClassIndex} present in a jar is used instead of scanning the jar. Defaults to true.
+	 *
+	 * @param useClassIndex
+	 */
+	public void setUseClassIndex(boolean useClassIndex) {
+		this.useClassIndex = useClassIndex;
+	}
+
+	/**
+	 * Returns a collection of all classes present in the packages with the given packageNames.
+	 *
+	 * @param packageNames - names of the packages to scan for classes
+	 * @return all classes present in the packages with the given packageNames
+	 */
+	public Collection<Class<?>> getAllClassesIn(String... packageNames) {
+		return loadClasses(getFullyQualifiedClassNames(packageNames), true);
+	}
+
+	/**
+	 * Returns all the fully qualified class names of the classes within the packages with the given packageNames.
+	 * Every classpath root that contains a package is scanned; if a class is present in more than one root,
+	 * it is only returned once.
+	 *
+	 * @param packageNames - names of the packages to scan for classes
+	 * @return the fully qualified class names present in the packages
+	 */
+	public Collection<String> getFullyQualifiedClassNames(String... packageNames) {
+		return scan(new EntryVisitor<String>() {
+			@Override
+			public String visit(ClasspathRoot root, String entryName) {
+				return ClasspathRoot.toClassName(entryName);
+			}
+		}, packageNames);
+	}
+
+	/**
+	 * Scans the packages with the given packageNames, and puts the fully qualified name of every class found on the given queue
+	 * as soon as it is found, so the classes can be processed while the scan is still running.
+	 * Every class name is put only once, but not necessarily in the order of {@link #getFullyQualifiedClassNames(String...)}.
+	 * The scan blocks while the queue is full. This method returns when the scan is done.
+	 *
+	 * @param classNames - the queue to put the class names on
+	 * @param packageNames - names of the packages to scan for classes
+	 */
+	public void streamFullyQualifiedClassNames(final BlockingQueue<String> classNames, String... packageNames) {
+		final Set<String> streamedClassNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		scan(new EntryVisitor<String>() {
+			@Override
+			public String visit(ClasspathRoot root, String entryName) {
+				String className = ClasspathRoot.toClassName(entryName);
+				if (streamedClassNames.add(className)){
+					put(classNames, className);
+				}
+				return null;
+			}
+		}, packageNames);
+	}
+
+	/**
+	 * Puts an element on a queue, waiting for space if necessary.
+	 *
+	 * @param queue - the queue
+	 * @param element - the element to put
+	 * @throws IllegalStateException if interrupted while waiting
+	 */
+	static <T> void put(BlockingQueue<T> queue, T element) {
+		try {
+			queue.put(element);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while streaming the scanned classes.", e);
+		}
+	}
+
+	/**
+	 * Returns the {@link ClassModel}s of all classes within the packages with the given packageNames.
+	 * The models are read straight from the class files: the classes themselves are not loaded.
+	 * Class files that cannot be parsed are skipped.
+	 *
+	 * @param packageNames - names of the packages to scan for classes
+	 * @return the models of the classes present in the packages
+	 */
+	public Collection<ClassModel> getAllClassModelsIn(String... packageNames) {
+		final ClassFileParser classFileParser = new ClassFileParser();
+		return scan(new EntryVisitor<ClassModel>() {
+			@SuppressWarnings("synthetic-access")
+			@Override
+			public ClassModel visit(ClasspathRoot root, String entryName) {
+				try {
+					return root.readClassModel(entryName, classFileParser);
+				} catch (IOException e) {
+					log.warn("Could not parse class file " + entryName + " of " + root + ".", e);
+					return null;
+				}
+			}
+		}, packageNames);
+	}
+
+	/**
+	 * Loads the classes with the given names through the classLoader of this scanner.
+	 * Classes that cannot be loaded are logged and skipped.
+	 *
+	 * @param classNames - fully qualified names of the classes to load
+	 * @param initialize - whether the classes should be initialized(their static initializers run)
+	 * @return the loaded classes
+	 */
+	public Collection<Class<?>> loadClasses(Collection<String> classNames, boolean initialize) {
+		Collection<Class<?>> classes = new ArrayList<Class<?>>();
+		for (String className: classNames){
+			try {
+				classes.add(Class.forName(className, initialize, classLoader));
+			} catch (ClassNotFoundException e) {
+				log.warn("Class " + className + " found on the classpath, but could not be loaded.", e);
+			} catch (LinkageError e) {
+				log.warn("Class " + className + " found on the classpath, but could not be linked.", e);
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * Scans the packages with the given packageNames: the visitor is called for every class entry found.
+	 * Every classpath root that contains any of the packages is visited only once, for all packages together:
+	 * its class entries are routed to the package they belong to through a {@link PackageTrie}.
+	 * If packages overlap, a class belongs to the deepest package that contains it, so every class is returned only once.
+	 * If a class is present in more than one root, only the result for its first entry is kept.
+	 *
+	 * @param visitor - the visitor to call for every class entry
+	 * @param packageNames - names of the packages to scan for classes
+	 * @return the non-null results of the visitor, per package in the given order
+	 */
+	protected <T> Collection<T> scan(EntryVisitor<T> visitor, String... packageNames) {
+		PackageTrie packages = new PackageTrie();
+		for (String packageName: packageNames){
+			packages.add(packageName.replace('.', '/'));
+		}
+
+		Map<String, ClasspathRoot> rootsPerLocation = new LinkedHashMap<String, ClasspathRoot>();
+		try {
+			for (String packageFolder: packages.getPackageFolders()){
+				for (ClasspathRoot root: getClasspathRoots(packageFolder)){
+					if (! rootsPerLocation.containsKey(root.getLocation())){
+						rootsPerLocation.put(root.getLocation(), prepareRoot(root));
+					}
+				}
+			}
+			List<ScanTask<T>> scanTasks = new ArrayList<ScanTask<T>>();
+			for (ClasspathRoot root: rootsPerLocation.values()){
+				scanTasks.add(new ScanTask<T>(root, packages, visitor));
+			}
+
+			Map<String, Map<String, T>> resultsPerPackage = new LinkedHashMap<String, Map<String, T>>();
+			for (String packageFolder: packages.getPackageFolders()){
+				resultsPerPackage.put(packageFolder, new LinkedHashMap<String, T>());
+			}
+			for (Map<String, T> resultsOfRoot: execute(scanTasks)){
+				for (Map.Entry<String, T> result: resultsOfRoot.entrySet()){
+					Map<String, T> resultsOfPackage = resultsPerPackage.get(packages.getPackageOf(result.getKey(), recursive));
+					String className = ClasspathRoot.toClassName(result.getKey());
+					if (! resultsOfPackage.containsKey(className)){
+						resultsOfPackage.put(className, result.getValue());
+					}
+				}
+			}
+
+			Collection<T> allResults = new ArrayList<T>();
+			for (Map<String, T> resultsOfPackage: resultsPerPackage.values()){
+				allResults.addAll(resultsOfPackage.values());
+			}
+			return allResults;
+		}
+		finally {
+			releaseRoots(rootsPerLocation.values());
+		}
+	}
+
+	/**
+	 * Prepares a root to be scanned: a jar with a {@link ClassIndex} is served from its index,
+	 * other roots are served from the scanCache if one is set.
+	 *
+	 * @param root - the root to scan
+	 * @return the root to scan instead
+	 */
+	protected ClasspathRoot prepareRoot(ClasspathRoot root) {
+		if (useClassIndex && ! (root instanceof DirectoryClasspathRoot) && root.containsEntry(ClassIndex.RESOURCE_NAME)){
+			try {
+				return new IndexedClasspathRoot(root, ClassIndex.read(root.openEntry(ClassIndex.RESOURCE_NAME)));
+			} catch (IOException e) {
+				log.warn("Could not read the class index of " + root + ", the root is scanned instead.", e);
+			}
+		}
+		return scanCache == null ? root : scanCache.cache(root);
+	}
+
+	/**
+	 * Called at the end of a scan, with all roots that were scanned. Closes the roots by default.
+	 *
+	 * @param roots - the scanned roots
+	 */
+	protected void releaseRoots(Collection<ClasspathRoot> roots) {
+		for (ClasspathRoot root: roots){
+			closeQuietly(root);
+		}
+	}
+
+	/**
+	 * Returns the classpath roots that contain the given package.
+	 *
+	 * @param packageFolder - the package in folder notation, f.e. "com/test/model"
+	 * @return the classpath roots that contain the package
+	 */
+	protected List<ClasspathRoot> getClasspathRoots(String packageFolder) {
+		List<ClasspathRoot> roots = new ArrayList<ClasspathRoot>();
+		try {
+			Enumeration<URL> packageURLs = classLoader.getResources(packageFolder);
+			while (packageURLs.hasMoreElements()){
+				URL packageURL = packageURLs.nextElement();
+				ClasspathRoot root = createClasspathRoot(packageURL, packageFolder);
+				if (root != null){
+					roots.add(root);
+				}
+				else {
+					log.warn("Unsupported classpath location " + packageURL + " for package " + packageFolder + " is not scanned.");
+				}
+			}
+		} catch (IOException e) {
+			log.error("Could not resolve the classpath roots for package " + packageFolder + ".", e);
+		}
+		return roots;
+	}
+
+	/**
+	 * Creates the classpath root for the url of a package.
+	 *
+	 * @param packageURL - the url of the package, as returned by the classLoader
+	 * @param packageFolder - the package in folder notation, f.e. "com/test/model"
+	 * @return the classpath root for the url, or null if the url is not supported
+	 */
+	protected ClasspathRoot createClasspathRoot(URL packageURL, String packageFolder) {
+		try {
+			if (packageURL.getProtocol().equals("jar")){
+				return createJarClasspathRoot(packageURL.getFile());
+			}
+			else if (packageURL.getProtocol().equals("file")){
+				String packageDirectory = new File(packageURL.toURI()).getPath();
+				String rootDirectory = packageDirectory.substring(0, packageDirectory.length() - packageFolder.length());
+				return new DirectoryClasspathRoot(new File(rootDirectory));
+			}
+			else {
+				return null;
+			}
+		} catch (URISyntaxException e) {
+			log.warn("Invalid classpath location " + packageURL + ".", e);
+			return null;
+		} catch (IOException e) {
+			log.warn("Invalid classpath location " + packageURL + ".", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the classpath root for the path of a jar url, f.e. "file:/app.jar!/com/test/model".
+	 * Besides plain jars, folders and jars nested in a jar are supported, both in the classic notation
+	 * "file:/app.jar!/BOOT-INF/lib/model.jar!/com/test/model" and in the notation "nested:/app.jar/!BOOT-INF/lib/model.jar!/com/test/model".
+	 *
+	 * @param jarPath - the path of the jar url
+	 * @return the classpath root for the url, or null if the url is not supported
+	 */
+	protected ClasspathRoot createJarClasspathRoot(String jarPath) throws IOException, URISyntaxException {
+		String[] parts = jarPath.split("!/", -1);
+		String jarFileUrl = parts[0];
+		String nestedPath = parts.length > 2 ? parts[1] : null;
+		if (parts.length > 3){
+			return null;
+		}
+		if (jarFileUrl.startsWith("nested:")){
+			int nestedIndex = jarFileUrl.indexOf("/!");
+			if (nestedIndex == -1 || nestedPath != null){
+				return null;
+			}
+			nestedPath = jarFileUrl.substring(nestedIndex + 2);
+			jarFileUrl = "file:" + jarFileUrl.substring("nested:".length(), nestedIndex);
+		}
+		File jarFile = new File(new URL(jarFileUrl).toURI());
+		if (nestedPath == null){
+			return new JarClasspathRoot(jarFile);
+		}
+		if (nestedPath.endsWith(".jar")){
+			return new NestedJarClasspathRoot(jarFile, nestedPath);
+		}
+		return new JarClasspathRoot(jarFile, nestedPath);
+	}
+
+	/**
+	 * Executes the scanTasks, in parallel if more than one thread is allowed.
+	 *
+	 * @param scanTasks - the tasks to execute
+	 * @return the results of the tasks, in the order of the tasks
+	 */
+	private <T> List<Map<String, T>> execute(List<ScanTask<T>> scanTasks) {
+		List<Map<String, T>> results = new ArrayList<Map<String, T>>();
+		if (maxThreads == 1 || scanTasks.size() <= 1){
+			for (ScanTask<T> scanTask: scanTasks){
+				results.add(scanTask.call());
+			}
+			return results;
+		}
+
+		ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxThreads, scanTasks.size()));
+		try {
+			for (Future<Map<String, T>> future: executorService.invokeAll(scanTasks)){
+				results.add(future.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while scanning the classpath.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Scanning the classpath failed.", e.getCause());
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Closes a root, logging instead of throwing any exception.
+	 *
+	 * @param root - the root to close
+	 */
+	protected void closeQuietly(ClasspathRoot root){
+		try {
+			root.close();
+		} catch (IOException e) {
+			log.warn("Could not close classpath root " + root + ".", e);
+		}
+	}
+
+	/**
+	 * Visitor for the class entries found while scanning.
+	 */
+	protected interface EntryVisitor<T> {
+		/**
+		 * Visits a class entry.
+		 *
+		 * @param root - the root the entry was found in
+		 * @param entryName - name of the class entry, f.e. "com/test/model/Item.class"
+		 * @return the result for the entry, null if the entry should be skipped
+		 * @throws IOException
+		 */
+		T visit(ClasspathRoot root, String entryName) throws IOException;
+	}
+
+	/**
+	 * Scans all requested packages of a single classpath root.
+	 */
+	private class ScanTask<T> implements Callable<Map<String, T>> {
+		private ClasspathRoot root;
+		private PackageTrie packages;
+		private EntryVisitor<T> visitor;
+
+		ScanTask(ClasspathRoot root, PackageTrie packages, EntryVisitor<T> visitor){
+			this.root = root;
+			this.packages = packages;
+			this.visitor = visitor;
+		}
+
+		/**
+		 * Returns the results of the visitor, keyed by entry name.
+		 */
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public Map<String, T> call() {
+			Map<String, T> results = new LinkedHashMap<String, T>();
+			try {
+				for (String entryName: root.getClassEntryNames(packages, recursive)){
+					T result = visitor.visit(root, entryName);
+					if (result != null){
+						results.put(entryName, result);
+					}
+				}
+			} catch (IOException e) {
+				log.error("Could not scan " + root + " for packages " + packages.getPackageFolders() + ".", e);
+			}
+			return results;
+		}
+	}
+
+}
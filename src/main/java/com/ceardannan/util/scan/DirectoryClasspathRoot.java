@@ -0,0 +1,136 @@
+package com.ceardannan.util.scan;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ClasspathRoot for a directory on the classpath, f.e. target/classes.
+ *
+ */
+public class DirectoryClasspathRoot extends ClasspathRoot {
+
+	/**
+	 * The directory
+	 */
+	private File directory;
+
+	public DirectoryClasspathRoot(File directory){
+		this.directory = directory.getAbsoluteFile();
+	}
+
+	/**
+	 * Returns the directory
+	 *
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	@Override
+	public List<String> getClassEntryNames(String packageFolder, boolean recursive) {
+		List<String> entryNames = new ArrayList<String>();
+		File packageDirectory = new File(directory, packageFolder);
+		if (packageDirectory.isDirectory()){
+			addClassEntryNames(packageDirectory, packageFolder, recursive, entryNames);
+		}
+		return entryNames;
+	}
+
+	/**
+	 * Adds the class entries of a package directory to the entryNames list.
+	 * Files are visited in name order, so the result does not depend on the order of the file system.
+	 *
+	 * @param packageDirectory - the directory of the package
+	 * @param packageFolder - the package in folder notation
+	 * @param recursive - whether sub-packages should be visited as well
+	 * @param entryNames - list to add the class entry names to
+	 */
+	private void addClassEntryNames(File packageDirectory, String packageFolder, boolean recursive, List<String> entryNames){
+		File[] files = packageDirectory.listFiles();
+		if (files == null){
+			return;
+		}
+		Arrays.sort(files);
+		List<File> subDirectories = new ArrayList<File>();
+		for (File file: files){
+			if (file.isDirectory()){
+				subDirectories.add(file);
+			}
+			else if (file.getName().endsWith(CLASS_SUFFIX)){
+				entryNames.add(toEntryName(packageFolder, file));
+			}
+		}
+		if (recursive){
+			for (File subDirectory: subDirectories){
+				addClassEntryNames(subDirectory, toEntryName(packageFolder, subDirectory), recursive, entryNames);
+			}
+		}
+	}
+
+	private static String toEntryName(String packageFolder, File file){
+		return packageFolder.length() == 0 ? file.getName() : packageFolder + "/" + file.getName();
+	}
+
+	/**
+	 * Returns a fingerprint over all files in the directory:
+	 * the sum of their sizes(plus their count, so removed empty files are noticed as well) and their latest modification time.
+	 */
+	@Override
+	public RootFingerprint getFingerprint() {
+		long[] sizeAndLastModified = new long[2];
+		addFingerprint(directory, sizeAndLastModified);
+		return new RootFingerprint(sizeAndLastModified[0], sizeAndLastModified[1], null);
+	}
+
+	private void addFingerprint(File file, long[] sizeAndLastModified){
+		File[] files = file.listFiles();
+		if (files == null){
+			return;
+		}
+		for (File child: files){
+			if (child.isDirectory()){
+				addFingerprint(child, sizeAndLastModified);
+			}
+			else {
+				sizeAndLastModified[0] += child.length() + 1;
+				sizeAndLastModified[1] = Math.max(sizeAndLastModified[1], child.lastModified());
+			}
+		}
+	}
+
+	/**
+	 * Returns a hash over the names and the content of all class files in the directory.
+	 */
+	@Override
+	public String computeContentHash() throws IOException {
+		MessageDigest digest = createContentDigest();
+		for (String entryName: getClassEntryNames("", true)){
+			digest.update(entryName.getBytes("UTF-8"));
+			updateDigest(digest, openEntry(entryName));
+		}
+		return toHex(digest.digest());
+	}
+
+	@Override
+	public InputStream openEntry(String entryName) throws IOException {
+		return new FileInputStream(new File(directory, entryName));
+	}
+
+	@Override
+	public boolean containsEntry(String entryName) {
+		return new File(directory, entryName).isFile();
+	}
+
+	@Override
+	public String getLocation() {
+		return directory.getPath();
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.ceardannan.util.scan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.ceardannan.util.classfile.ClassFileParser;
+import com.ceardannan.util.classfile.ClassModel;
+
+/**
+ * ClasspathRoot that serves the class entry names and the class models of the packages covered by the {@link ClassIndex} of another root
+ * straight from that index. Packages that are not covered by the index are scanned in the root itself.
+ *
+ */
+class IndexedClasspathRoot extends ClasspathRoot {
+
+	private ClasspathRoot root;
+
+	private ClassIndex classIndex;
+
+	IndexedClasspathRoot(ClasspathRoot root, ClassIndex classIndex){
+		this.root = root;
+		this.classIndex = classIndex;
+	}
+
+	@Override
+	public List<String> getClassEntryNames(String packageFolder, boolean recursive) throws IOException {
+		if (classIndex.covers(packageFolder)){
+			return classIndex.getClassEntryNames(packageFolder, recursive);
+		}
+		return root.getClassEntryNames(packageFolder, recursive);
+	}
+
+	@Override
+	public InputStream openEntry(String entryName) throws IOException {
+		return root.openEntry(entryName);
+	}
+
+	@Override
+	public boolean containsEntry(String entryName) {
+		return root.containsEntry(entryName);
+	}
+
+	@Override
+	public ClassModel readClassModel(String entryName, ClassFileParser classFileParser) throws IOException {
+		ClassModel classModel = classIndex.getClassModel(entryName);
+		if (classModel == null){
+			classModel = root.readClassModel(entryName, classFileParser);
+		}
+		return classModel;
+	}
+
+	@Override
+	public RootFingerprint getFingerprint() throws IOException {
+		return root.getFingerprint();
+	}
+
+	@Override
+	public String computeContentHash() throws IOException {
+		return root.computeContentHash();
+	}
+
+	@Override
+	public String getLocation() {
+		return root.getLocation();
+	}
+
+	@Override
+	public void close() throws IOException {
+		root.close();
+	}
+
+}
@@ -0,0 +1,486 @@
+package com.ceardannan.util.scan;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only index over the central directory of a zip(jar) file.
+ * <p>
+ * The central directory is memory-mapped once, and the entries are sorted by name into an index of offsets into the mapped buffer.
+ * Prefix queries(f.e. all entries of a package) are answered by a binary search on that index,
+ * so only the names of the matching entries are decoded, and no entry is decompressed or copied.
+ * Entries are only read(and decompressed) when they are explicitly opened.
+ * </p>
+ * <p>
+ * Zip64 archives are supported, as are archives with data in front of them(f.e. executable jars with a launch script prepended).
+ * Instances are safe for concurrent use.
+ * Note that the mapping itself is only released when the buffer is garbage collected, not when the directory is closed.
+ * </p>
+ *
+ */
+public class JarCentralDirectory implements Closeable {
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+	private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+	private static final int LOCAL_FILE_HEADER_SIZE = 30;
+	private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+
+	/**
+	 * The zip file
+	 */
+	private File file;
+
+	private RandomAccessFile randomAccessFile;
+
+	private FileChannel channel;
+
+	/**
+	 * The mapped central directory
+	 */
+	private ByteBuffer centralDirectory;
+
+	/**
+	 * Position in the file where the archive starts, the offsets in the archive are relative to this position
+	 */
+	private long archiveStart;
+
+	/**
+	 * Offsets of the entry headers in the centralDirectory, sorted by entry name
+	 */
+	private int[] sortedEntryOffsets;
+
+	/**
+	 * Opens the zip file and indexes its central directory.
+	 *
+	 * @param file - the zip(jar) file
+	 * @throws IOException if the file cannot be read or is not a valid zip file
+	 */
+	public JarCentralDirectory(File file) throws IOException {
+		this.file = file;
+		this.randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			this.channel = randomAccessFile.getChannel();
+			mapCentralDirectory();
+			indexEntries();
+		} catch (IOException e) {
+			randomAccessFile.close();
+			throw e;
+		} catch (RuntimeException e) {
+			randomAccessFile.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the file
+	 *
+	 * @return the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of entries in the zip file.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return sortedEntryOffsets.length;
+	}
+
+	/**
+	 * Returns the names of all entries that start with the given prefix, in name order.
+	 *
+	 * @param prefix - the prefix, f.e. "com/test/model/"
+	 * @return the names of the matching entries
+	 */
+	public List<String> getEntryNames(String prefix) {
+		byte[] prefixBytes = toBytes(prefix);
+		List<String> entryNames = new ArrayList<String>();
+		for (int i = lowerBound(prefixBytes); i < sortedEntryOffsets.length && startsWith(sortedEntryOffsets[i], prefixBytes); i++){
+			entryNames.add(getName(sortedEntryOffsets[i]));
+		}
+		return entryNames;
+	}
+
+	/**
+	 * Returns whether an entry with the given name exists.
+	 *
+	 * @param entryName - name of the entry
+	 * @return whether the entry exists
+	 */
+	public boolean containsEntry(String entryName) {
+		return findEntry(toBytes(entryName)) != -1;
+	}
+
+	/**
+	 * Opens the entry with the given name. The entry is read(and decompressed) while the stream is read,
+	 * so large entries(f.e. nested jars) are never held in memory completely.
+	 *
+	 * @param entryName - name of the entry
+	 * @return a stream with the(uncompressed) content of the entry
+	 * @throws IOException if the entry does not exist or cannot be read
+	 */
+	public InputStream openEntry(String entryName) throws IOException {
+		int entryOffset = findEntry(toBytes(entryName));
+		if (entryOffset == -1){
+			throw new FileNotFoundException("Entry " + entryName + " not found in " + file + ".");
+		}
+		int method = getUnsignedShort(entryOffset + 10);
+		long compressedSize = getUnsignedInt(entryOffset + 20);
+		long uncompressedSize = getUnsignedInt(entryOffset + 24);
+		long localHeaderOffset = getUnsignedInt(entryOffset + 42);
+		if (compressedSize == ZIP64_MAGIC || uncompressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC){
+			//the zip64 extra field only contains the values that did not fit, in this order
+			int extraOffset = findExtraField(entryOffset, ZIP64_EXTRA_FIELD_ID);
+			if (extraOffset == -1){
+				throw new ZipException("Missing zip64 extra field for entry " + entryName + " in " + file + ".");
+			}
+			int position = extraOffset + 4;
+			if (uncompressedSize == ZIP64_MAGIC){
+				position += 8;
+			}
+			if (compressedSize == ZIP64_MAGIC){
+				compressedSize = centralDirectory.getLong(position);
+				position += 8;
+			}
+			if (localHeaderOffset == ZIP64_MAGIC){
+				localHeaderOffset = centralDirectory.getLong(position);
+			}
+		}
+		localHeaderOffset += archiveStart;
+		ByteBuffer localHeader = read(localHeaderOffset, LOCAL_FILE_HEADER_SIZE);
+		if (localHeader.getInt(0) != LOCAL_FILE_HEADER_SIGNATURE){
+			throw new ZipException("Invalid local header for entry " + entryName + " in " + file + ".");
+		}
+		long dataOffset = localHeaderOffset + LOCAL_FILE_HEADER_SIZE + (localHeader.getShort(26) & 0xFFFF) + (localHeader.getShort(28) & 0xFFFF);
+
+		switch (method) {
+		case STORED:
+			return new EntryInputStream(dataOffset, compressedSize, false);
+		case DEFLATED:
+			final Inflater inflater = new Inflater(true);
+			//an extra dummy byte is needed by the inflater in nowrap mode
+			return new InflaterInputStream(new EntryInputStream(dataOffset, compressedSize, true), inflater){
+				@Override
+				public void close() throws IOException {
+					super.close();
+					inflater.end();
+				}
+			};
+		default:
+			throw new ZipException("Unsupported compression method " + method + " for entry " + entryName + " in " + file + ".");
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		randomAccessFile.close();
+	}
+
+	/**
+	 * Locates the(zip64) end of central directory record, and maps the central directory it points to.
+	 * The central directory directly precedes that record, so the difference between the actual and the recorded position
+	 * of the central directory is the position where the archive starts, as java.util.zip computes it.
+	 */
+	private void mapCentralDirectory() throws IOException {
+		long fileSize = channel.size();
+		if (fileSize < END_OF_CENTRAL_DIRECTORY_SIZE){
+			throw new ZipException(file + " is not a zip file.");
+		}
+		int tailSize = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE + ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE);
+		long tailOffset = fileSize - tailSize;
+		ByteBuffer tail = read(tailOffset, tailSize);
+		int endOffset = -1;
+		for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--){
+			if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE){
+				endOffset = i;
+				break;
+			}
+		}
+		if (endOffset == -1){
+			throw new ZipException(file + " is not a zip file: no end of central directory found.");
+		}
+		long centralDirectoryEnd = tailOffset + endOffset;
+		long centralDirectorySize = tail.getInt(endOffset + 12) & ZIP64_MAGIC;
+		long centralDirectoryOffset = tail.getInt(endOffset + 16) & ZIP64_MAGIC;
+
+		int locatorOffset = endOffset - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE;
+		if (locatorOffset >= 0 && tail.getInt(locatorOffset) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE){
+			long zip64EndOffset = tail.getLong(locatorOffset + 8);
+			ByteBuffer zip64End = zip64EndOffset >= 0 && zip64EndOffset + ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE <= fileSize
+					? read(zip64EndOffset, ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE) : null;
+			if (zip64End == null || zip64End.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE){
+				//the recorded offset does not take data in front of the archive into account, the record normally precedes the locator
+				zip64EndOffset = tailOffset + locatorOffset - ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE;
+				zip64End = zip64EndOffset >= 0 ? read(zip64EndOffset, ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE) : null;
+			}
+			if (zip64End == null || zip64End.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE){
+				throw new ZipException(file + " has an invalid zip64 end of central directory.");
+			}
+			centralDirectoryEnd = zip64EndOffset;
+			centralDirectorySize = zip64End.getLong(40);
+			centralDirectoryOffset = zip64End.getLong(48);
+		}
+		archiveStart = centralDirectoryEnd - centralDirectorySize - centralDirectoryOffset;
+		if (centralDirectorySize > Integer.MAX_VALUE || centralDirectoryOffset < 0 || archiveStart < 0){
+			throw new ZipException(file + " has an invalid central directory.");
+		}
+		centralDirectory = channel.map(FileChannel.MapMode.READ_ONLY, archiveStart + centralDirectoryOffset, centralDirectorySize).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Collects the offsets of all entry headers in the central directory, and sorts them by entry name.
+	 */
+	private void indexEntries() throws IOException {
+		List<Integer> entryOffsets = new ArrayList<Integer>();
+		int offset = 0;
+		int limit = centralDirectory.limit();
+		while (offset < limit){
+			if (offset + CENTRAL_DIRECTORY_HEADER_SIZE > limit){
+				throw new ZipException(file + " has a truncated central directory.");
+			}
+			if (centralDirectory.getInt(offset) != CENTRAL_DIRECTORY_HEADER_SIGNATURE){
+				throw new ZipException(file + " has an invalid central directory header at entry " + entryOffsets.size() + ".");
+			}
+			entryOffsets.add(Integer.valueOf(offset));
+			offset += CENTRAL_DIRECTORY_HEADER_SIZE + getUnsignedShort(offset + 28) + getUnsignedShort(offset + 30) + getUnsignedShort(offset + 32);
+		}
+		if (offset > limit){
+			throw new ZipException(file + " has a truncated central directory.");
+		}
+		Integer[] offsets = entryOffsets.toArray(new Integer[entryOffsets.size()]);
+		Arrays.sort(offsets, new Comparator<Integer>() {
+			@SuppressWarnings("synthetic-access")
+			@Override
+			public int compare(Integer offset1, Integer offset2) {
+				return compareNames(offset1.intValue(), offset2.intValue());
+			}
+		});
+		sortedEntryOffsets = new int[offsets.length];
+		for (int i = 0; i < offsets.length; i++){
+			sortedEntryOffsets[i] = offsets[i].intValue();
+		}
+	}
+
+	/**
+	 * Returns the index in sortedEntryOffsets of the first entry with a name that is not smaller than the given key.
+	 */
+	private int lowerBound(byte[] key){
+		int low = 0;
+		int high = sortedEntryOffsets.length;
+		while (low < high){
+			int middle = (low + high) >>> 1;
+			if (compareName(sortedEntryOffsets[middle], key) < 0){
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the header offset of the entry with exactly the given name, -1 if there is no such entry.
+	 */
+	private int findEntry(byte[] name){
+		int index = lowerBound(name);
+		if (index < sortedEntryOffsets.length && compareName(sortedEntryOffsets[index], name) == 0){
+			return sortedEntryOffsets[index];
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the offset of the extra field with the given id of an entry, -1 if the entry does not have such a field.
+	 */
+	private int findExtraField(int entryOffset, int id){
+		int position = entryOffset + CENTRAL_DIRECTORY_HEADER_SIZE + getUnsignedShort(entryOffset + 28);
+		int end = position + getUnsignedShort(entryOffset + 30);
+		while (position + 4 <= end){
+			if (getUnsignedShort(position) == id){
+				return position;
+			}
+			position += 4 + getUnsignedShort(position + 2);
+		}
+		return -1;
+	}
+
+	private int compareNames(int entryOffset1, int entryOffset2){
+		int length1 = getUnsignedShort(entryOffset1 + 28);
+		int length2 = getUnsignedShort(entryOffset2 + 28);
+		int start1 = entryOffset1 + CENTRAL_DIRECTORY_HEADER_SIZE;
+		int start2 = entryOffset2 + CENTRAL_DIRECTORY_HEADER_SIZE;
+		int length = Math.min(length1, length2);
+		for (int i = 0; i < length; i++){
+			int difference = (centralDirectory.get(start1 + i) & 0xFF) - (centralDirectory.get(start2 + i) & 0xFF);
+			if (difference != 0){
+				return difference;
+			}
+		}
+		return length1 - length2;
+	}
+
+	private int compareName(int entryOffset, byte[] key){
+		int nameLength = getUnsignedShort(entryOffset + 28);
+		int start = entryOffset + CENTRAL_DIRECTORY_HEADER_SIZE;
+		int length = Math.min(nameLength, key.length);
+		for (int i = 0; i < length; i++){
+			int difference = (centralDirectory.get(start + i) & 0xFF) - (key[i] & 0xFF);
+			if (difference != 0){
+				return difference;
+			}
+		}
+		return nameLength - key.length;
+	}
+
+	private boolean startsWith(int entryOffset, byte[] prefix){
+		if (getUnsignedShort(entryOffset + 28) < prefix.length){
+			return false;
+		}
+		int start = entryOffset + CENTRAL_DIRECTORY_HEADER_SIZE;
+		for (int i = 0; i < prefix.length; i++){
+			if (centralDirectory.get(start + i) != prefix[i]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String getName(int entryOffset){
+		byte[] name = new byte[getUnsignedShort(entryOffset + 28)];
+		for (int i = 0; i < name.length; i++){
+			name[i] = centralDirectory.get(entryOffset + CENTRAL_DIRECTORY_HEADER_SIZE + i);
+		}
+		try {
+			return new String(name, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			//cannot happen, UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private int getUnsignedShort(int position){
+		return centralDirectory.getShort(position) & 0xFFFF;
+	}
+
+	private long getUnsignedInt(int position){
+		return centralDirectory.getInt(position) & ZIP64_MAGIC;
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(buffer, position);
+		return buffer;
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		long currentPosition = position;
+		while (buffer.hasRemaining()){
+			int read = channel.read(buffer, currentPosition);
+			if (read < 0){
+				throw new ZipException("Unexpected end of " + file + ".");
+			}
+			currentPosition += read;
+		}
+	}
+
+	private static byte[] toBytes(String s){
+		try {
+			return s.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			//cannot happen, UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Reads the raw data of an entry straight from the file, through a small buffer.
+	 */
+	private class EntryInputStream extends InputStream {
+		private long position;
+		private long remaining;
+		private boolean addDummyByte;
+		private ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+		EntryInputStream(long position, long length, boolean addDummyByte){
+			this.position = position;
+			this.remaining = length;
+			this.addDummyByte = addDummyByte;
+			buffer.flip();
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0){
+				return 0;
+			}
+			if (! buffer.hasRemaining() && ! fill()){
+				if (addDummyByte){
+					addDummyByte = false;
+					bytes[offset] = 0;
+					return 1;
+				}
+				return -1;
+			}
+			int read = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, read);
+			return read;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, buffer.remaining() + remaining);
+		}
+
+		@SuppressWarnings("synthetic-access")
+		private boolean fill() throws IOException {
+			if (remaining == 0){
+				return false;
+			}
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), remaining));
+			readFully(buffer, position);
+			buffer.flip();
+			position += buffer.remaining();
+			remaining -= buffer.remaining();
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.ceardannan.util.scan;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ClasspathRoot for a jar file on the classpath.
+ * The central directory of the jar is indexed on first use(see {@link JarCentralDirectory}) and stays open until the root is closed,
+ * so looking up the classes of a package costs a binary search instead of a pass over all entries of the jar.
+ * <p>
+ * The root can also be a folder within the jar(f.e. BOOT-INF/classes or WEB-INF/classes), set by the basePath.
+ * </p>
+ *
+ */
+public class JarClasspathRoot extends ClasspathRoot {
+
+	/**
+	 * The file of the jar
+	 */
+	private File file;
+
+	/**
+	 * The folder within the jar the classes are stored in, f.e. "BOOT-INF/classes/", empty if the classes are stored in the root of the jar
+	 */
+	private String basePath;
+
+	/**
+	 * The indexed central directory of the jar, null as long as the jar is not used
+	 */
+	private JarCentralDirectory centralDirectory;
+
+	public JarClasspathRoot(File file){
+		this(file, "");
+	}
+
+	/**
+	 * Creates a root for a folder within a jar.
+	 *
+	 * @param file - the jar file
+	 * @param basePath - the folder within the jar, f.e. "BOOT-INF/classes"
+	 */
+	public JarClasspathRoot(File file, String basePath){
+		this.file = file.getAbsoluteFile();
+		this.basePath = basePath.length() == 0 || basePath.endsWith("/") ? basePath : basePath + "/";
+	}
+
+	/**
+	 * Returns the file of the jar
+	 *
+	 * @return the file of the jar
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the basePath
+	 *
+	 * @return the folder within the jar, empty if the classes are stored in the root of the jar
+	 */
+	public String getBasePath() {
+		return basePath;
+	}
+
+	/**
+	 * Returns the indexed central directory of the jar, indexes it if necessary.
+	 *
+	 * @return the central directory of the jar
+	 * @throws IOException
+	 */
+	protected synchronized JarCentralDirectory getCentralDirectory() throws IOException {
+		if (centralDirectory == null){
+			centralDirectory = new JarCentralDirectory(file);
+		}
+		return centralDirectory;
+	}
+
+	@Override
+	public List<String> getClassEntryNames(String packageFolder, boolean recursive) throws IOException {
+		String prefix = basePath + (packageFolder.length() == 0 ? "" : packageFolder + "/");
+		List<String> entryNames = new ArrayList<String>();
+		for (String jarEntryName: getCentralDirectory().getEntryNames(prefix)){
+			String entryName = jarEntryName.substring(basePath.length());
+			if (isClassEntryInPackage(entryName, packageFolder, recursive)){
+				entryNames.add(entryName);
+			}
+		}
+		return entryNames;
+	}
+
+	@Override
+	public InputStream openEntry(String entryName) throws IOException {
+		return getCentralDirectory().openEntry(basePath + entryName);
+	}
+
+	@Override
+	public boolean containsEntry(String entryName) {
+		try {
+			return getCentralDirectory().containsEntry(basePath + entryName);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public RootFingerprint getFingerprint() {
+		return new RootFingerprint(file.length(), file.lastModified(), null);
+	}
+
+	@Override
+	public String computeContentHash() throws IOException {
+		MessageDigest digest = createContentDigest();
+		updateDigest(digest, new FileInputStream(file));
+		return toHex(digest.digest());
+	}
+
+	@Override
+	public String getLocation() {
+		return basePath.length() == 0 ? file.getPath() : file.getPath() + "!/" + basePath;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (centralDirectory != null){
+			centralDirectory.close();
+			centralDirectory = null;
+		}
+	}
+
+}
@@ -0,0 +1,271 @@
+package com.ceardannan.util.scan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * ClasspathRoot for a jar nested in another jar, f.e. BOOT-INF/lib/model.jar in a Spring Boot jar, or WEB-INF/lib/model.jar in a war.
+ * <p>
+ * The nested jar is never extracted: it is streamed from the outer jar through a {@link ZipInputStream}. Every pass records the names of all
+ * its entries and the hash of its content, and reads the content of its {@link ClassIndex}, so entries can be looked up and the content hash
+ * returned without streaming the nested jar again. Only the class entries of the requested packages are decompressed, all packages being read
+ * in a single pass; a pass made before any package is requested(f.e. to look up the class index) reads no class entry at all.
+ * The content of the class entries is kept until the root is closed, so they can be opened without streaming the nested jar again;
+ * memory use is bounded by the size of the classes of the scanned packages, not by the size of the nested jar.
+ * </p>
+ *
+ */
+public class NestedJarClasspathRoot extends ClasspathRoot {
+
+	/**
+	 * The outer jar file
+	 */
+	private File file;
+
+	/**
+	 * Name of the entry of the nested jar in the outer jar, f.e. "BOOT-INF/lib/model.jar"
+	 */
+	private String nestedJarName;
+
+	/**
+	 * The indexed central directory of the outer jar, null as long as the root is not used
+	 */
+	private JarCentralDirectory centralDirectory;
+
+	/**
+	 * Content of the class entries(and the class index) that were read while scanning, by entry name
+	 */
+	private ConcurrentMap<String, byte[]> classEntries = new ConcurrentHashMap<String, byte[]>();
+
+	/**
+	 * Names of all entries of the nested jar, in the order of the nested jar, null as long as the nested jar is not streamed
+	 */
+	private Set<String> entryNames;
+
+	/**
+	 * Hash over the content of the nested jar, null as long as the nested jar is not streamed
+	 */
+	private String contentHash;
+
+	/**
+	 * Creates a root for a nested jar.
+	 *
+	 * @param file - the outer jar file
+	 * @param nestedJarName - name of the entry of the nested jar in the outer jar, f.e. "BOOT-INF/lib/model.jar"
+	 */
+	public NestedJarClasspathRoot(File file, String nestedJarName){
+		this.file = file.getAbsoluteFile();
+		this.nestedJarName = nestedJarName;
+	}
+
+	/**
+	 * Returns the outer jar file
+	 *
+	 * @return the outer jar file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the nestedJarName
+	 *
+	 * @return name of the entry of the nested jar in the outer jar
+	 */
+	public String getNestedJarName() {
+		return nestedJarName;
+	}
+
+	private synchronized JarCentralDirectory getCentralDirectory() throws IOException {
+		if (centralDirectory == null){
+			centralDirectory = new JarCentralDirectory(file);
+		}
+		return centralDirectory;
+	}
+
+	/**
+	 * Opens the nested jar as a stream of entries.
+	 */
+	private ZipInputStream openNestedJar() throws IOException {
+		return new ZipInputStream(getCentralDirectory().openEntry(nestedJarName));
+	}
+
+	/**
+	 * Streams the nested jar: records the names of all entries and the hash of the content of the nested jar,
+	 * and reads the content of the class index and of the class entries in the packages.
+	 *
+	 * @param packages - the packages of which the class entries are read, null to read no class entries
+	 * @param recursive - whether the class entries of sub-packages are read as well
+	 */
+	private synchronized void readNestedJar(PackageTrie packages, boolean recursive) throws IOException {
+		Set<String> names = new LinkedHashSet<String>();
+		MessageDigest digest = createContentDigest();
+		DigestInputStream digestInputStream = new DigestInputStream(getCentralDirectory().openEntry(nestedJarName), digest);
+		ZipInputStream zipInputStream = new ZipInputStream(digestInputStream);
+		try {
+			ZipEntry zipEntry;
+			while ((zipEntry = zipInputStream.getNextEntry()) != null){
+				String entryName = zipEntry.getName();
+				names.add(entryName);
+				if (entryName.equals(ClassIndex.RESOURCE_NAME)
+						|| (packages != null && isClassEntry(entryName) && packages.getPackageOf(entryName, recursive) != null)){
+					classEntries.put(entryName, readEntry(zipInputStream));
+				}
+			}
+			//the central directory of the nested jar is not read by the stream of entries, but is part of its content
+			byte[] buffer = new byte[8192];
+			while (digestInputStream.read(buffer) != -1){
+				//only digested
+			}
+		}
+		finally {
+			zipInputStream.close();
+		}
+		entryNames = names;
+		contentHash = toHex(digest.digest());
+	}
+
+	private static boolean isClassEntry(String entryName){
+		return entryName.endsWith(CLASS_SUFFIX) && ! entryName.endsWith("/");
+	}
+
+	/**
+	 * Returns the names of all entries of the nested jar, streaming the nested jar if it was not streamed yet.
+	 */
+	private synchronized Set<String> getEntryNames() throws IOException {
+		if (entryNames == null){
+			readNestedJar(null, true);
+		}
+		return entryNames;
+	}
+
+	/**
+	 * Reads the content of all class entries in the package, see {@link #getClassEntryNames(PackageTrie, boolean)}.
+	 */
+	@Override
+	public List<String> getClassEntryNames(String packageFolder, boolean recursive) throws IOException {
+		return getClassEntryNames(new PackageTrie(Collections.singletonList(packageFolder)), recursive);
+	}
+
+	/**
+	 * Reads the content of all class entries in the packages. The nested jar is not streamed if the entries it was streamed for before
+	 * show that the packages have no class entries, or that their class entries were read already.
+	 */
+	@Override
+	public synchronized List<String> getClassEntryNames(PackageTrie packages, boolean recursive) throws IOException {
+		if (entryNames == null || ! classEntries.keySet().containsAll(getClassEntryNames(entryNames, packages, recursive))){
+			readNestedJar(packages, recursive);
+		}
+		return getClassEntryNames(entryNames, packages, recursive);
+	}
+
+	private static List<String> getClassEntryNames(Set<String> entryNames, PackageTrie packages, boolean recursive){
+		List<String> classEntryNames = new ArrayList<String>();
+		for (String entryName: entryNames){
+			if (isClassEntry(entryName) && packages.getPackageOf(entryName, recursive) != null){
+				classEntryNames.add(entryName);
+			}
+		}
+		return classEntryNames;
+	}
+
+	/**
+	 * Opens a class entry. Entries that were not read while scanning are looked up by streaming the nested jar.
+	 */
+	@Override
+	public InputStream openEntry(String entryName) throws IOException {
+		byte[] content = classEntries.get(entryName);
+		if (content != null){
+			return new ByteArrayInputStream(content);
+		}
+		if (! containsEntry(entryName)){
+			throw new FileNotFoundException("Entry " + entryName + " not found in " + getLocation() + ".");
+		}
+		//the class index is read when the entry is looked up
+		content = classEntries.get(entryName);
+		if (content != null){
+			return new ByteArrayInputStream(content);
+		}
+		ZipInputStream zipInputStream = openNestedJar();
+		try {
+			ZipEntry zipEntry;
+			while ((zipEntry = zipInputStream.getNextEntry()) != null){
+				if (zipEntry.getName().equals(entryName)){
+					return new ByteArrayInputStream(readEntry(zipInputStream));
+				}
+			}
+		}
+		finally {
+			zipInputStream.close();
+		}
+		throw new FileNotFoundException("Entry " + entryName + " not found in " + getLocation() + ".");
+	}
+
+	private static byte[] readEntry(ZipInputStream zipInputStream) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = zipInputStream.read(buffer)) != -1){
+			outputStream.write(buffer, 0, read);
+		}
+		return outputStream.toByteArray();
+	}
+
+	@Override
+	public RootFingerprint getFingerprint() {
+		return new RootFingerprint(file.length(), file.lastModified(), null);
+	}
+
+	/**
+	 * Looks the entry up in the names of the entries of the nested jar.
+	 */
+	@Override
+	public boolean containsEntry(String entryName) {
+		try {
+			return getEntryNames().contains(entryName);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns a hash over the content of the nested jar.
+	 */
+	@Override
+	public synchronized String computeContentHash() throws IOException {
+		getEntryNames();
+		return contentHash;
+	}
+
+	@Override
+	public String getLocation() {
+		return file.getPath() + "!/" + nestedJarName;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		classEntries.clear();
+		entryNames = null;
+		contentHash = null;
+		if (centralDirectory != null){
+			centralDirectory.close();
+			centralDirectory = null;
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.ceardannan.util.scan;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix trie of a set of requested packages, in folder notation(f.e. "com/test/model").
+ * <p>
+ * Every node represents a package segment. It is used to route the class entries of a classpath root to the requested package they belong to,
+ * in a single walk over the segments of the entry name, whatever the number of requested packages.
+ * If packages overlap(f.e. "com/test" and "com/test/model"), an entry belongs to the deepest requested package that contains it,
+ * so every entry is routed to exactly one package.
+ * </p>
+ *
+ */
+public class PackageTrie {
+
+	private Node root = new Node();
+
+	/**
+	 * The requested packages, in the order they were added
+	 */
+	private List<String> packageFolders = new ArrayList<String>();
+
+	public PackageTrie(){
+	}
+
+	/**
+	 * Creates a trie of the given packages.
+	 *
+	 * @param packageFolders - the packages in folder notation, f.e. "com/test/model"
+	 */
+	public PackageTrie(Collection<String> packageFolders){
+		for (String packageFolder: packageFolders){
+			add(packageFolder);
+		}
+	}
+
+	/**
+	 * Adds a requested package. Adding the same package twice has no effect.
+	 *
+	 * @param packageFolder - the package in folder notation, f.e. "com/test/model"; the empty string for the default package
+	 */
+	public void add(String packageFolder){
+		Node node = root;
+		int start = 0;
+		while (start < packageFolder.length()){
+			int end = packageFolder.indexOf('/', start);
+			if (end == -1){
+				end = packageFolder.length();
+			}
+			node = node.getOrCreateChild(packageFolder.substring(start, end));
+			start = end + 1;
+		}
+		if (node.packageFolder == null){
+			node.packageFolder = packageFolder;
+			packageFolders.add(packageFolder);
+		}
+	}
+
+	/**
+	 * Returns the requested packages, in the order they were added.
+	 *
+	 * @return the requested packages
+	 */
+	public List<String> getPackageFolders(){
+		return packageFolders;
+	}
+
+	/**
+	 * Returns the requested packages that are not a sub-package of another requested package, in the order they were added.
+	 * Scanning these packages recursively covers all requested packages exactly once.
+	 *
+	 * @return the outermost requested packages
+	 */
+	public List<String> getOutermostPackageFolders(){
+		List<String> outermostPackageFolders = new ArrayList<String>();
+		for (String packageFolder: packageFolders){
+			if (packageFolder.length() == 0 || getPackageOfFolder(packageFolder, true, packageFolder.lastIndexOf('/')) == null){
+				outermostPackageFolders.add(packageFolder);
+			}
+		}
+		return outermostPackageFolders;
+	}
+
+	/**
+	 * Returns the requested package a class entry belongs to.
+	 *
+	 * @param entryName - name of the class entry, f.e. "com/test/model/Item.class"
+	 * @param recursive - whether entries of sub-packages of a requested package belong to it as well
+	 * @return the deepest requested package containing the entry, null if the entry does not belong to any requested package
+	 */
+	public String getPackageOf(String entryName, boolean recursive){
+		return getPackageOfFolder(entryName, recursive, entryName.lastIndexOf('/'));
+	}
+
+	/**
+	 * Returns the deepest requested package that contains the package ending at folderEnd in the given name.
+	 */
+	private String getPackageOfFolder(String name, boolean recursive, int folderEnd){
+		Node node = root;
+		String packageFolder = root.packageFolder;
+		int start = 0;
+		while (start < folderEnd){
+			int end = name.indexOf('/', start);
+			if (end == -1 || end > folderEnd){
+				end = folderEnd;
+			}
+			node = node.getChild(name.substring(start, end));
+			if (node == null){
+				return recursive ? packageFolder : null;
+			}
+			if (node.packageFolder != null){
+				packageFolder = node.packageFolder;
+			}
+			start = end + 1;
+		}
+		return recursive || node.packageFolder != null ? packageFolder : null;
+	}
+
+	private static class Node {
+		/**
+		 * The package of this node, null if the package is not requested
+		 */
+		private String packageFolder;
+
+		private Map<String, Node> children;
+
+		Node getChild(String segment){
+			return children == null ? null : children.get(segment);
+		}
+
+		Node getOrCreateChild(String segment){
+			if (children == null){
+				children = new HashMap<String, Node>();
+			}
+			Node child = children.get(segment);
+			if (child == null){
+				child = new Node();
+				children.put(segment, child);
+			}
+			return child;
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.ceardannan.util.scan;
+
+import java.io.Serializable;
+
+/**
+ * Identifies the state of a {@link ClasspathRoot}: its size, its last modification time and, if computed, a hash of its content.
+ *
+ */
+public final class RootFingerprint implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long size;
+
+	private final long lastModified;
+
+	/**
+	 * Hash of the content in hexadecimal notation, null if not computed
+	 */
+	private final String contentHash;
+
+	public RootFingerprint(long size, long lastModified, String contentHash){
+		this.size = size;
+		this.lastModified = lastModified;
+		this.contentHash = contentHash;
+	}
+
+	/**
+	 * Returns the size
+	 *
+	 * @return the size
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the lastModified
+	 *
+	 * @return the lastModified
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Returns the contentHash
+	 *
+	 * @return the contentHash, null if not computed
+	 */
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	/**
+	 * Returns a copy of this fingerprint with the given contentHash.
+	 *
+	 * @param hash - the hash of the content
+	 * @return the fingerprint with the hash
+	 */
+	public RootFingerprint withContentHash(String hash){
+		return new RootFingerprint(size, lastModified, hash);
+	}
+
+	/**
+	 * Returns whether the size and the last modification time of both fingerprints are the same.
+	 *
+	 * @param other - the fingerprint to compare with
+	 * @return whether the stats of the fingerprints are the same
+	 */
+	public boolean hasSameStats(RootFingerprint other){
+		return size == other.size && lastModified == other.lastModified;
+	}
+
+	@Override
+	public String toString() {
+		return "size=" + size + ", lastModified=" + lastModified + ", contentHash=" + contentHash;
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.ceardannan.util.scan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+
+import com.ceardannan.util.FileUtil;
+
+/**
+ * Persistent cache of classpath scan results, stored in a directory(f.e. target/java2jpa-cache).
+ * <p>
+ * For every scanned classpath root, the names of its class entries and the {@link com.ceardannan.util.classfile.ClassModel}s
+ * read from it are stored together with the {@link RootFingerprint} of the root.
+ * When the root is scanned again, the cached results are used as long as the root did not change:
+ * if its size and last modification time are the same, the root is not read at all;
+ * if only its modification time changed, its content hash decides.
+ * </p>
+ * <p>
+ * The cache is used by a {@link ClasspathScanner} with a scanCache set. By default, scanners use the cache in the directory
+ * set by the system property {@value #DIRECTORY_PROPERTY}, if any.
+ * </p>
+ *
+ */
+public class ScanCache {
+
+	private transient Logger log = Logger.getLogger(this.getClass());
+
+	/**
+	 * System property with the directory of the default cache
+	 */
+	public static final String DIRECTORY_PROPERTY = "java2jpa.scanCache";
+
+	private static final String FILE_SUFFIX = ".cache";
+
+	private static final ConcurrentMap<File, ScanCache> scanCachesPerDirectory = new ConcurrentHashMap<File, ScanCache>();
+
+	/**
+	 * The directory the cache is stored in
+	 */
+	private File directory;
+
+	/**
+	 * The cached roots that were read or stored by this cache, by location
+	 */
+	private ConcurrentMap<String, CachedRoot> cachedRoots = new ConcurrentHashMap<String, CachedRoot>();
+
+	/**
+	 * Creates a cache that is stored in the given directory. The directory is created when the first root is stored.
+	 *
+	 * @param directory - the directory to store the cache in
+	 */
+	public ScanCache(File directory){
+		this.directory = directory.getAbsoluteFile();
+	}
+
+	/**
+	 * Returns the cache in the directory set by the system property {@value #DIRECTORY_PROPERTY}.
+	 * The same instance is returned for the same directory, so the cached roots are kept in memory between scans.
+	 *
+	 * @return the default cache, null if the system property is not set
+	 */
+	public static ScanCache getDefault(){
+		String directoryName = System.getProperty(DIRECTORY_PROPERTY);
+		if (directoryName == null || directoryName.trim().length() == 0){
+			return null;
+		}
+		File directory = new File(directoryName.trim()).getAbsoluteFile();
+		ScanCache scanCache = scanCachesPerDirectory.get(directory);
+		if (scanCache == null){
+			scanCache = new ScanCache(directory);
+			ScanCache existing = scanCachesPerDirectory.putIfAbsent(directory, scanCache);
+			if (existing != null){
+				scanCache = existing;
+			}
+		}
+		return scanCache;
+	}
+
+	/**
+	 * Returns the directory
+	 *
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns a root that serves the scan results of the given root from this cache.
+	 * Closing the returned root stores the new results, and closes the given root.
+	 *
+	 * @param root - the root to cache
+	 * @return the caching root
+	 */
+	public ClasspathRoot cache(ClasspathRoot root){
+		return new CachingClasspathRoot(this, root);
+	}
+
+	/**
+	 * Removes all cached roots, from memory and from disk.
+	 */
+	public void clear(){
+		cachedRoots.clear();
+		File[] files = directory.listFiles();
+		if (files != null){
+			for (File file: files){
+				if (file.getName().endsWith(FILE_SUFFIX) && ! file.delete()){
+					log.warn("Could not delete cache file " + file + ".");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached results for the given root, validated against its fingerprint.
+	 * If the root changed(or was never cached), its class entries are listed again.
+	 *
+	 * @param root - the root to get the cached results for
+	 * @return the valid cached results
+	 * @throws IOException if the root cannot be read
+	 */
+	CachedRoot getCachedRoot(ClasspathRoot root) throws IOException {
+		RootFingerprint fingerprint = root.getFingerprint();
+		CachedRoot cachedRoot = cachedRoots.get(root.getLocation());
+		if (cachedRoot == null){
+			cachedRoot = load(root.getLocation());
+		}
+		if (cachedRoot != null){
+			cachedRoots.put(root.getLocation(), cachedRoot);
+			RootFingerprint cachedFingerprint = cachedRoot.getFingerprint();
+			if (cachedFingerprint.hasSameStats(fingerprint)){
+				log.debug("Using cached scan results for " + root + ".");
+				return cachedRoot;
+			}
+			if (cachedFingerprint.getSize() == fingerprint.getSize()){
+				fingerprint = fingerprint.withContentHash(root.computeContentHash());
+				if (fingerprint.getContentHash().equals(cachedFingerprint.getContentHash())){
+					log.debug("Using cached scan results for " + root + ", only its modification time changed.");
+					cachedRoot.setFingerprint(fingerprint);
+					return cachedRoot;
+				}
+			}
+		}
+
+		log.debug("Scanning " + root + ", it is not cached or it changed.");
+		if (fingerprint.getContentHash() == null){
+			fingerprint = fingerprint.withContentHash(root.computeContentHash());
+		}
+		cachedRoot = new CachedRoot(root.getLocation(), fingerprint, root.getClassEntryNames("", true));
+		cachedRoots.put(root.getLocation(), cachedRoot);
+		return cachedRoot;
+	}
+
+	/**
+	 * Reads the cached results for the root with the given location from disk.
+	 *
+	 * @param location - location of the root
+	 * @return the cached results, null if they are not stored or cannot be read
+	 */
+	private CachedRoot load(String location){
+		File file = getFile(location);
+		if (! file.isFile()){
+			return null;
+		}
+		try {
+			ObjectInputStream inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				CachedRoot cachedRoot = (CachedRoot) inputStream.readObject();
+				if (! cachedRoot.getLocation().equals(location)){
+					return null;
+				}
+				return cachedRoot;
+			}
+			finally {
+				inputStream.close();
+			}
+		} catch (IOException e) {
+			log.warn("Could not read cache file " + file + ", it is ignored.", e);
+			return null;
+		} catch (ClassNotFoundException e) {
+			log.warn("Could not read cache file " + file + ", it is ignored.", e);
+			return null;
+		} catch (ClassCastException e) {
+			log.warn("Could not read cache file " + file + ", it is ignored.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the cached results of a root to disk. A temporary file is written first,
+	 * so a concurrent reader never sees a partially written cache file.
+	 *
+	 * @param cachedRoot - the results to store
+	 */
+	void store(CachedRoot cachedRoot){
+		File file = getFile(cachedRoot.getLocation());
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		try {
+			if (! directory.isDirectory() && ! directory.mkdirs()){
+				throw new IOException("Could not create cache directory " + directory + ".");
+			}
+			cachedRoot.setDirty(false);
+			ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+			try {
+				outputStream.writeObject(cachedRoot);
+			}
+			finally {
+				outputStream.close();
+			}
+			FileUtil.replaceFile(temporaryFile, file);
+		} catch (IOException e) {
+			cachedRoot.setDirty(true);
+			temporaryFile.delete();
+			log.warn("Could not store the scan results of " + cachedRoot.getLocation() + " in the cache.", e);
+		}
+	}
+
+	/**
+	 * Returns the cache file for the root with the given location: the name of the root, followed by a hash of its location.
+	 */
+	private File getFile(String location){
+		String name = new File(location).getName().replaceAll("[^A-Za-z0-9._-]", "_");
+		return new File(directory, name + "-" + Integer.toHexString(location.hashCode()) + FILE_SUFFIX);
+	}
+
+}
@@ -0,0 +1,370 @@
+package com.ceardannan.util.scan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+
+import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.classfile.ClassFileParser;
+import com.ceardannan.util.classfile.ClassModel;
+
+/**
+ * Scope in which scanned classes are loaded in isolation from the rest of the application.
+ * <p>
+ * The classes found by scanning through a session are defined by a dedicated child ClassLoader of the session,
+ * straight from the scanned classpath roots, and are never initialized(their static initializers are not run).
+ * Classes that were not found by a scan of the session are loaded by the parent classLoader.
+ * The scanned roots stay open until the session is closed. Once closed, the session releases its roots and its ClassLoader,
+ * so the classes loaded through it can be garbage collected as soon as they are no longer referenced elsewhere
+ * (f.e. by a JpaMappingRenderer that still holds them).
+ * </p>
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * {@code
+ * ScanSession scanSession = new ScanSession();
+ * try {
+ *     Collection<Class<?>> classes = scanSession.getAllClassesIn("com.test.model");
+ *     ...
+ * }
+ * finally {
+ *     scanSession.close();
+ * }
+ * }
+ * </pre>
+ * </p>
+ *
+ */
+public class ScanSession implements Closeable {
+
+	private transient Logger log = Logger.getLogger(this.getClass());
+
+	/**
+	 * The scanner used to scan the classpath of the parent classLoader
+	 */
+	private SessionScanner classpathScanner;
+
+	/**
+	 * The classLoader that defines the scanned classes, null once the session is closed
+	 */
+	private SessionClassLoader classLoader;
+
+	/**
+	 * The roots that were scanned, kept open until the session is closed
+	 */
+	private List<ClasspathRoot> openRoots = new ArrayList<ClasspathRoot>();
+
+	/**
+	 * Creates a session with the classloader of the current thread as parent.
+	 */
+	public ScanSession(){
+		this(Thread.currentThread().getContextClassLoader());
+	}
+
+	/**
+	 * Creates a session with the given parent classLoader. The classpath of the parent is scanned.
+	 *
+	 * @param parent - the parent of the classLoader of the session
+	 */
+	public ScanSession(ClassLoader parent){
+		this.classpathScanner = new SessionScanner(parent);
+		this.classLoader = new SessionClassLoader(parent);
+	}
+
+	/**
+	 * Returns the scanner of this session, f.e. to configure its maxThreads.
+	 *
+	 * @return the scanner of this session
+	 */
+	public ClasspathScanner getClasspathScanner() {
+		return classpathScanner;
+	}
+
+	/**
+	 * Returns the classLoader that defines the scanned classes.
+	 *
+	 * @return the classLoader of this session
+	 */
+	public ClassLoader getClassLoader() {
+		return getOpenClassLoader();
+	}
+
+	private synchronized SessionClassLoader getOpenClassLoader(){
+		if (classLoader == null){
+			throw new IllegalStateException("The scan session is closed.");
+		}
+		return classLoader;
+	}
+
+	/**
+	 * Returns all classes present in the packages with the given packageNames, loaded(not initialized) by the classLoader of this session.
+	 *
+	 * @param packageNames - names of the packages to scan for classes
+	 * @return all classes present in the packages
+	 */
+	public Collection<Class<?>> getAllClassesIn(String... packageNames) {
+		return loadClasses(getFullyQualifiedClassNames(packageNames));
+	}
+
+	/**
+	 * Returns the fully qualified class names of the classes within the packages with the given packageNames.
+	 * The classes can be loaded through this session afterwards.
+	 *
+	 * @param packageNames - names of the packages to scan for classes
+	 * @return the fully qualified class names present in the packages
+	 */
+	public Collection<String> getFullyQualifiedClassNames(String... packageNames) {
+		Collection<String> classNames = new ArrayList<String>();
+		for (ScannedClass scannedClass: scan(false, packageNames)){
+			classNames.add(scannedClass.className);
+		}
+		return classNames;
+	}
+
+	/**
+	 * Scans the packages with the given packageNames, and puts the fully qualified name of every class found on the given queue
+	 * as soon as it is found, see {@link ClasspathScanner#streamFullyQualifiedClassNames(BlockingQueue, String...)}.
+	 * The classes can be loaded through this session as soon as their name is on the queue.
+	 *
+	 * @param classNames - the queue to put the class names on
+	 * @param packageNames - names of the packages to scan for classes
+	 */
+	public void streamFullyQualifiedClassNames(final BlockingQueue<String> classNames, String... packageNames) {
+		final SessionClassLoader sessionClassLoader = getOpenClassLoader();
+		final Set<String> streamedClassNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		classpathScanner.scan(new ClasspathScanner.EntryVisitor<String>() {
+			@Override
+			public String visit(ClasspathRoot root, String entryName) {
+				String className = ClasspathRoot.toClassName(entryName);
+				if (streamedClassNames.add(className)){
+					sessionClassLoader.addClassIfAbsent(className, root);
+					ClasspathScanner.put(classNames, className);
+				}
+				return null;
+			}
+		}, packageNames);
+	}
+
+	/**
+	 * Returns the {@link ClassModel}s of all classes within the packages with the given packageNames.
+	 * The classes can be loaded through this session afterwards.
+	 *
+	 * @param packageNames - names of the packages to scan for classes
+	 * @return the models of the classes present in the packages
+	 */
+	public Collection<ClassModel> getAllClassModelsIn(String... packageNames) {
+		Collection<ClassModel> classModels = new ArrayList<ClassModel>();
+		for (ScannedClass scannedClass: scan(true, packageNames)){
+			classModels.add(scannedClass.classModel);
+		}
+		return classModels;
+	}
+
+	/**
+	 * Scans the packages, and registers the root of every class found with the classLoader of this session.
+	 */
+	private Collection<ScannedClass> scan(final boolean readClassModels, String... packageNames) {
+		SessionClassLoader sessionClassLoader = getOpenClassLoader();
+		final ClassFileParser classFileParser = new ClassFileParser();
+		Collection<ScannedClass> scannedClasses = classpathScanner.scan(new ClasspathScanner.EntryVisitor<ScannedClass>() {
+			@SuppressWarnings("synthetic-access")
+			@Override
+			public ScannedClass visit(ClasspathRoot root, String entryName) {
+				ClassModel classModel = null;
+				if (readClassModels){
+					try {
+						classModel = root.readClassModel(entryName, classFileParser);
+					} catch (IOException e) {
+						log.warn("Could not parse class file " + entryName + " of " + root + ".", e);
+						return null;
+					}
+				}
+				return new ScannedClass(ClasspathRoot.toClassName(entryName), root, classModel);
+			}
+		}, packageNames);
+		for (ScannedClass scannedClass: scannedClasses){
+			sessionClassLoader.addClass(scannedClass.className, scannedClass.root);
+		}
+		return scannedClasses;
+	}
+
+	/**
+	 * Loads the classes with the given names through the classLoader of this session, without initializing them.
+	 * Classes that cannot be loaded are logged and skipped.
+	 *
+	 * @param classNames - fully qualified names of the classes to load
+	 * @return the loaded classes
+	 */
+	public Collection<Class<?>> loadClasses(Collection<String> classNames) {
+		Collection<Class<?>> classes = new ArrayList<Class<?>>();
+		SessionClassLoader sessionClassLoader = getOpenClassLoader();
+		for (String className: classNames){
+			try {
+				classes.add(Class.forName(className, false, sessionClassLoader));
+			} catch (ClassNotFoundException e) {
+				log.warn("Class " + className + " found on the classpath, but could not be loaded.", e);
+			} catch (LinkageError e) {
+				log.warn("Class " + className + " found on the classpath, but could not be linked.", e);
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * Closes the scanned roots, and releases the classLoader of this session.
+	 * The reflection metadata cached by {@link ReflectionUtil} for the classes of this session is cleared as well.
+	 */
+	@Override
+	public synchronized void close() {
+		if (classLoader != null){
+			ReflectionUtil.clearClassMetadataCache(classLoader);
+			classLoader.clear();
+			classLoader = null;
+		}
+		for (ClasspathRoot root: openRoots){
+			classpathScanner.closeQuietly(root);
+		}
+		openRoots.clear();
+	}
+
+	/**
+	 * Returns whether this session is closed
+	 *
+	 * @return whether this session is closed
+	 */
+	public synchronized boolean isClosed() {
+		return classLoader == null;
+	}
+
+	/**
+	 * A class found by a scan of the session.
+	 */
+	private static class ScannedClass {
+		private String className;
+		private ClasspathRoot root;
+		private ClassModel classModel;
+
+		ScannedClass(String className, ClasspathRoot root, ClassModel classModel){
+			this.className = className;
+			this.root = root;
+			this.classModel = classModel;
+		}
+	}
+
+	/**
+	 * Scanner that keeps the scanned roots open for the session.
+	 */
+	private class SessionScanner extends ClasspathScanner {
+		SessionScanner(ClassLoader classLoader){
+			super(classLoader);
+		}
+
+		@SuppressWarnings("synthetic-access")
+		@Override
+		protected void releaseRoots(Collection<ClasspathRoot> roots) {
+			synchronized (ScanSession.this) {
+				if (classLoader == null){
+					super.releaseRoots(roots);
+				}
+				else {
+					openRoots.addAll(roots);
+				}
+			}
+		}
+	}
+
+	/**
+	 * ClassLoader that defines the scanned classes itself, from their classpath roots, and delegates all other classes to its parent.
+	 */
+	private static class SessionClassLoader extends ClassLoader {
+		/**
+		 * The root each scanned class was found in
+		 */
+		private ConcurrentMap<String, ClasspathRoot> rootsPerClassName = new ConcurrentHashMap<String, ClasspathRoot>();
+
+		SessionClassLoader(ClassLoader parent){
+			super(parent);
+		}
+
+		void addClass(String className, ClasspathRoot root){
+			rootsPerClassName.put(className, root);
+		}
+
+		void addClassIfAbsent(String className, ClasspathRoot root){
+			rootsPerClassName.putIfAbsent(className, root);
+		}
+
+		void clear(){
+			rootsPerClassName.clear();
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			Class<?> clazz = findLoadedClass(name);
+			if (clazz == null){
+				if (! rootsPerClassName.containsKey(name)){
+					return super.loadClass(name, resolve);
+				}
+				clazz = findClass(name);
+			}
+			if (resolve){
+				resolveClass(clazz);
+			}
+			return clazz;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			ClasspathRoot root = rootsPerClassName.get(name);
+			if (root == null){
+				throw new ClassNotFoundException(name);
+			}
+			byte[] classBytes;
+			try {
+				classBytes = read(root.openEntry(ClasspathRoot.toEntryName(name)));
+			} catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+			definePackageOf(name);
+			return defineClass(name, classBytes, 0, classBytes.length);
+		}
+
+		private void definePackageOf(String className){
+			int lastDot = className.lastIndexOf('.');
+			if (lastDot != -1){
+				String packageName = className.substring(0, lastDot);
+				if (getPackage(packageName) == null){
+					definePackage(packageName, null, null, null, null, null, null, null);
+				}
+			}
+		}
+
+		private static byte[] read(InputStream inputStream) throws IOException {
+			try {
+				ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = inputStream.read(buffer)) != -1){
+					outputStream.write(buffer, 0, read);
+				}
+				return outputStream.toByteArray();
+			}
+			finally {
+				inputStream.close();
+			}
+		}
+	}
+
+}
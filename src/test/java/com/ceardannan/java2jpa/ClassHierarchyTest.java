@@ -0,0 +1,73 @@
+package com.ceardannan.java2jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.test.hierarchy.Car;
+import com.test.hierarchy.MotorVehicle;
+import com.test.hierarchy.Vehicle;
+import com.test.model.Company;
+import com.test.model.InternationalCompany;
+import com.test.model.Supplier;
+
+public class ClassHierarchyTest {
+
+	@Test
+	public void testHierarchy(){
+		List<Class<?>> allClassesToMap = new ArrayList<Class<?>>();
+		allClassesToMap.add(Car.class);
+		allClassesToMap.add(Vehicle.class);
+		ClassHierarchy hierarchy = ClassHierarchy.forClasses(allClassesToMap, new RenderJpaMappingForClassStrategyDefaultImpl());
+
+		// superclasses outside the classes to map are part of the graph
+		Assert.assertTrue(hierarchy.contains(MotorVehicle.class.getName()));
+		Assert.assertFalse(hierarchy.contains(Object.class.getName()));
+
+		Assert.assertNull(hierarchy.getSuperclassName(Vehicle.class.getName()));
+		Assert.assertEquals(MotorVehicle.class.getName(), hierarchy.getSuperclassName(Car.class.getName()));
+		Assert.assertEquals(Arrays.asList(MotorVehicle.class.getName()), hierarchy.getDirectSubclassNames(Vehicle.class.getName()));
+		Assert.assertEquals(Collections.emptyList(), hierarchy.getDirectSubclassNames(Car.class.getName()));
+
+		Assert.assertEquals(0, hierarchy.getDepth(Vehicle.class.getName()));
+		Assert.assertEquals(2, hierarchy.getDepth(Car.class.getName()));
+
+		Assert.assertTrue(hierarchy.isEntity(Car.class.getName()));
+		Assert.assertFalse(hierarchy.isEntity(MotorVehicle.class.getName()));
+		Assert.assertEquals(Vehicle.class.getName(), hierarchy.getNearestEntitySuperclassName(Car.class.getName()));
+		Assert.assertNull(hierarchy.getNearestEntitySuperclassName(Vehicle.class.getName()));
+		Assert.assertEquals(Vehicle.class.getName(), hierarchy.getRootEntityName(Car.class.getName()));
+		Assert.assertEquals(Vehicle.class.getName(), hierarchy.getRootEntityName(Vehicle.class.getName()));
+
+		Assert.assertTrue(hierarchy.hasEntitySubclass(Vehicle.class.getName()));
+		Assert.assertTrue(hierarchy.hasEntitySubclass(MotorVehicle.class.getName()));
+		Assert.assertFalse(hierarchy.hasEntitySubclass(Car.class.getName()));
+	}
+
+	@Test
+	public void testMappingUniverse(){
+		List<Class<?>> allClassesToMap = new ArrayList<Class<?>>();
+		allClassesToMap.add(Supplier.class);
+		allClassesToMap.add(Company.class);
+		MappingUniverse universe = new MappingUniverse(allClassesToMap, new RenderJpaMappingForClassStrategyDefaultImpl());
+		ClassHierarchy hierarchy = universe.getClassHierarchy();
+		Assert.assertSame(hierarchy, universe.getClassHierarchy());
+		Assert.assertTrue(hierarchy.contains(Company.class.getName()));
+
+		// the universe is a copy, changing the classes does not change its graph
+		allClassesToMap.add(InternationalCompany.class);
+		Assert.assertFalse(universe.getClassHierarchy().contains(InternationalCompany.class.getName()));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownClass(){
+		ClassHierarchy hierarchy = ClassHierarchy.forClasses(new ArrayList<Class<?>>(), new RenderJpaMappingForClassStrategyDefaultImpl());
+		hierarchy.getDepth(Car.class.getName());
+	}
+
+}
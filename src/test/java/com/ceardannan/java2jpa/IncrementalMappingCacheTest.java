@@ -0,0 +1,158 @@
+package com.ceardannan.java2jpa;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.ceardannan.util.ReflectionUtil;
+import com.test.hierarchy.Car;
+import com.test.hierarchy.MotorVehicle;
+import com.test.hierarchy.Vehicle;
+import com.test.model.Account;
+import com.test.model.Category;
+import com.test.model.Product;
+
+public class IncrementalMappingCacheTest {
+
+	private Java2JpaMappingGenerator createGenerator(RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy, JpaMappingRenderer jpaMappingRenderer){
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(renderJpaMappingForClassStrategy);
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		return java2JpaMappingGenerator;
+	}
+
+	private File createCacheFile() throws Exception{
+		File file = File.createTempFile("java2jpa-mappings", ".cache");
+		file.delete();
+		file.deleteOnExit();
+		return file;
+	}
+
+	private JpaMappingRendererDefaultImpl generateIncrementally(Collection<Class<?>> classes, IncrementalMappingCache incrementalMappingCache){
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		createGenerator(new RenderJpaMappingForClassStrategyDefaultImpl(), jpaMappingRenderer).generateJpaMappingsIncrementally(classes, incrementalMappingCache);
+		return jpaMappingRenderer;
+	}
+
+	@Test
+	public void testGenerateIncrementally() throws Exception{
+		Collection<Class<?>> classes = ReflectionUtil.getAllClassesIn("com.test.model", "com.test.hierarchy");
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		createGenerator(new RenderJpaMappingForClassStrategyDefaultImpl(), jpaMappingRenderer).generateJpaMappingsForPackages(classes);
+
+		File file = createCacheFile();
+		IncrementalMappingCache incrementalMappingCache = new IncrementalMappingCache(file);
+		JpaMappingRendererDefaultImpl incrementalJpaMappingRenderer = generateIncrementally(classes, incrementalMappingCache);
+		Assert.assertEquals(0, incrementalMappingCache.getHitCount());
+		Assert.assertEquals(classes.size(), incrementalMappingCache.getMissCount());
+		Assert.assertEquals(classes.size(), incrementalMappingCache.size());
+		Assert.assertTrue(file.isFile());
+		Assert.assertEquals(jpaMappingRenderer.getMappedFilesAsStringMap(), incrementalJpaMappingRenderer.getMappedFilesAsStringMap());
+
+		// nothing changed: all mappings are read from the cache file
+		IncrementalMappingCache storedIncrementalMappingCache = new IncrementalMappingCache(file);
+		incrementalJpaMappingRenderer = generateIncrementally(classes, storedIncrementalMappingCache);
+		Assert.assertEquals(classes.size(), storedIncrementalMappingCache.getHitCount());
+		Assert.assertEquals(0, storedIncrementalMappingCache.getMissCount());
+		Assert.assertEquals(jpaMappingRenderer.getMappedFilesAsStringMap(), incrementalJpaMappingRenderer.getMappedFilesAsStringMap());
+
+		storedIncrementalMappingCache.clear();
+		Assert.assertFalse(file.exists());
+		Assert.assertEquals(0, storedIncrementalMappingCache.size());
+	}
+
+	@Test
+	public void testChangedClassIsAnalyzedAgain() throws Exception{
+		Collection<Class<?>> classes = ReflectionUtil.getAllClassesIn("com.test.model");
+		IncrementalMappingCache incrementalMappingCache = new IncrementalMappingCache(createCacheFile());
+		String xmlMapping = generateIncrementally(classes, incrementalMappingCache).getMappedFilesAsStringMap().get("target/META-INF/orm.xml");
+
+		// a cached mapping with another fingerprint stands for a class that changed since
+		incrementalMappingCache.put(Account.class.getName(), "changed", null);
+		long hitCount = incrementalMappingCache.getHitCount();
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = generateIncrementally(classes, incrementalMappingCache);
+		Assert.assertEquals(classes.size() - 1, incrementalMappingCache.getHitCount() - hitCount);
+		Assert.assertEquals(classes.size() + 1, incrementalMappingCache.getMissCount());
+		Assert.assertEquals(xmlMapping, jpaMappingRenderer.getMappedFilesAsStringMap().get("target/META-INF/orm.xml"));
+
+		// removed classes are removed from the cache
+		classes.remove(Account.class);
+		generateIncrementally(classes, incrementalMappingCache);
+		Assert.assertEquals(classes.size(), incrementalMappingCache.size());
+	}
+
+	@Test
+	public void testOtherStrategy() throws Exception{
+		Collection<Class<?>> classes = ReflectionUtil.getAllClassesIn("com.test.model");
+		IncrementalMappingCache incrementalMappingCache = new IncrementalMappingCache(createCacheFile());
+		generateIncrementally(classes, incrementalMappingCache);
+
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		createGenerator(new RenderJpaMappingForClassStrategyRuleImpl(new Properties()), jpaMappingRenderer).generateJpaMappingsIncrementally(classes, incrementalMappingCache);
+		Assert.assertEquals(0, incrementalMappingCache.getHitCount());
+		Assert.assertEquals(2 * classes.size(), incrementalMappingCache.getMissCount());
+	}
+
+	private void generateIncrementally(Collection<Class<?>> classes, RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy,
+			IncrementalMappingCache incrementalMappingCache){
+		createGenerator(renderJpaMappingForClassStrategy, new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml"))
+				.generateJpaMappingsIncrementally(classes, incrementalMappingCache);
+	}
+
+	@Test
+	public void testOtherConfiguration() throws Exception{
+		Collection<Class<?>> classes = ReflectionUtil.getAllClassesIn("com.test.model");
+		Properties rules = new Properties();
+		rules.setProperty("class.rule.1.match", "com.test.model.*Type");
+		rules.setProperty("class.rule.1.renderType", "NONE");
+		File file = createCacheFile();
+		IncrementalMappingCache incrementalMappingCache = new IncrementalMappingCache(file);
+		generateIncrementally(classes, new RenderJpaMappingForClassStrategyRuleImpl(rules), incrementalMappingCache);
+
+		// the same rules, read from the cache file
+		IncrementalMappingCache storedIncrementalMappingCache = new IncrementalMappingCache(file);
+		generateIncrementally(classes, new RenderJpaMappingForClassStrategyRuleImpl((Properties) rules.clone()), storedIncrementalMappingCache);
+		Assert.assertEquals(classes.size(), storedIncrementalMappingCache.getHitCount());
+
+		// other rules
+		rules.setProperty("class.rule.1.renderType", "ENTITY");
+		generateIncrementally(classes, new RenderJpaMappingForClassStrategyRuleImpl(rules), storedIncrementalMappingCache);
+		Assert.assertEquals(classes.size(), storedIncrementalMappingCache.getHitCount());
+		Assert.assertEquals(classes.size(), storedIncrementalMappingCache.getMissCount());
+
+		// the rules of a cached strategy
+		generateIncrementally(classes, new RenderJpaMappingForClassStrategyCachingImpl(new RenderJpaMappingForClassStrategyRuleImpl(rules)),
+				storedIncrementalMappingCache);
+		generateIncrementally(classes, new RenderJpaMappingForClassStrategyCachingImpl(new RenderJpaMappingForClassStrategyRuleImpl(rules)),
+				storedIncrementalMappingCache);
+		Assert.assertEquals(2 * classes.size(), storedIncrementalMappingCache.getHitCount());
+		rules.setProperty("class.rule.1.renderType", "NONE");
+		generateIncrementally(classes, new RenderJpaMappingForClassStrategyCachingImpl(new RenderJpaMappingForClassStrategyRuleImpl(rules)),
+				storedIncrementalMappingCache);
+		Assert.assertEquals(2 * classes.size(), storedIncrementalMappingCache.getHitCount());
+	}
+
+	@Test
+	public void testDependencies() throws Exception{
+		Collection<Class<?>> classes = ReflectionUtil.getAllClassesIn("com.test.model", "com.test.hierarchy");
+		ClassMappingFingerprints fingerprints = new ClassMappingFingerprints(classes);
+
+		// elements of collections
+		Assert.assertTrue(fingerprints.getDependencies(Category.class).contains(Product.class));
+		// superclasses and subclasses
+		Assert.assertTrue(fingerprints.getDependencies(Car.class).contains(Vehicle.class));
+		Assert.assertTrue(fingerprints.getDependencies(Vehicle.class).contains(Car.class));
+		Assert.assertTrue(fingerprints.getDependencies(Vehicle.class).contains(MotorVehicle.class));
+		Assert.assertFalse(fingerprints.getDependencies(Vehicle.class).contains(Product.class));
+
+		Assert.assertEquals(fingerprints.getFingerprint(Category.class), new ClassMappingFingerprints(classes).getFingerprint(Category.class));
+		Assert.assertFalse(fingerprints.getFingerprint(Category.class).equals(fingerprints.getFingerprint(Product.class)));
+		Assert.assertFalse(fingerprints.getBytecodeHash(Category.class).length() == 0);
+		Assert.assertEquals("", fingerprints.getBytecodeHash(String.class));
+	}
+
+}
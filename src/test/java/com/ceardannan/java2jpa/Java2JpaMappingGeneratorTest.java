@@ -1,9 +1,14 @@
 package com.ceardannan.java2jpa;
 
 import java.io.File;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import junit.framework.Assert;
 
@@ -14,9 +19,20 @@ import com.ceardannan.java2jpa.Java2JpaMappingGenerator;
 import com.ceardannan.java2jpa.JpaMappingRendererDefaultImpl;
 import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategyDefaultImpl;
 import com.ceardannan.java2jpa.JpaMappingRendererDefaultImpl.MappingInfo;
+import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.FieldModel;
+import com.ceardannan.util.scan.ClasspathScanner;
+import com.ceardannan.util.scan.ScanSession;
+import com.test.hierarchy.AbstractFleet;
+import com.test.hierarchy.CarFleet;
+import com.test.hierarchy.Garage;
+import com.test.model.Account;
 import com.test.model.Address;
+import com.test.model.Describable;
 import com.test.model.LineItem;
 import com.test.model.PersistentObject;
+import com.test.model.ShippingType;
 
 public class Java2JpaMappingGeneratorTest {
 
@@ -47,10 +63,12 @@ public class Java2JpaMappingGeneratorTest {
 		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
 		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
 		
-		Map<Class<?>,MappingInfo> mappings = jpaMappingRenderer.getJpaMappingPerClass();
-		Assert.assertEquals(mappings.get(LineItem.class).getMappingType(),"entity");
-		Assert.assertEquals(mappings.get(PersistentObject.class).getMappingType(),"mapped-superclass");
-		Assert.assertEquals(mappings.get(Address.class).getMappingType(),"embeddable");
+		// the mappings are analyzed on the class models, no class is loaded
+		Assert.assertTrue(jpaMappingRenderer.getJpaMappingPerClass().isEmpty());
+		Map<String,MappingInfo> mappings = jpaMappingRenderer.getJpaMappingPerClassName();
+		Assert.assertEquals(mappings.get(LineItem.class.getName()).getMappingType(),"entity");
+		Assert.assertEquals(mappings.get(PersistentObject.class.getName()).getMappingType(),"mapped-superclass");
+		Assert.assertEquals(mappings.get(Address.class.getName()).getMappingType(),"embeddable");
 		
 		Map<String,String> mappedFiles = jpaMappingRenderer.getMappedFilesAsStringMap();
 		Assert.assertEquals(mappedFiles.size(),1);
@@ -64,6 +82,236 @@ public class Java2JpaMappingGeneratorTest {
 		checkContent(xmlContent);
 	}
 	
+	@Test
+	public void testGenerateJpaMappingsInParallel() throws Exception{
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model", "com.test.hierarchy");
+		
+		Java2JpaMappingGenerator parallelJava2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		parallelJava2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		JpaMappingRendererDefaultImpl parallelJpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		parallelJava2JpaMappingGenerator.setJpaMappingRenderer(parallelJpaMappingRenderer);
+		parallelJava2JpaMappingGenerator.setParallelism(4);
+		// the classes are given, so their mappings are analyzed in parallel by reflection instead of on their class models
+		parallelJava2JpaMappingGenerator.generateJpaMappingsForPackages(ReflectionUtil.getAllClassesIn("com.test.model", "com.test.hierarchy"));
+		
+		Map<String,MappingInfo> mappings = jpaMappingRenderer.getJpaMappingPerClassName();
+		Map<String,MappingInfo> parallelMappings = parallelJpaMappingRenderer.getJpaMappingPerClassName();
+		Assert.assertEquals(mappings.keySet(), parallelMappings.keySet());
+		for (String className: mappings.keySet()){
+			Assert.assertEquals(mappings.get(className).getXmlMapping(), parallelMappings.get(className).getXmlMapping());
+		}
+		Assert.assertEquals(jpaMappingRenderer.getMappedFilesAsStringMap(), parallelJpaMappingRenderer.getMappedFilesAsStringMap());
+	}
+	
+	@Test
+	public void testGenerateOneToManyWithoutBackReference() throws Exception{
+		// a strategy forcing a one-to-many on a collection of which the elements do not refer back to the class
+		RenderJpaMappingForClassStrategyDefaultImpl renderJpaMappingForClassStrategy = new RenderJpaMappingForClassStrategyDefaultImpl(){
+			@Override
+			public CollectionRenderType getCollectionRenderTypeForField(Field collectionField) {
+				return collectionField.getName().equals("creditCards") ? CollectionRenderType.ONETOMANY : super.getCollectionRenderTypeForField(collectionField);
+			}
+			@Override
+			public CollectionRenderType getCollectionRenderTypeForField(FieldModel collectionField) {
+				return collectionField.getName().equals("creditCards") ? CollectionRenderType.ONETOMANY : super.getCollectionRenderTypeForField(collectionField);
+			}
+		};
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(renderJpaMappingForClassStrategy);
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
+		Assert.assertTrue(jpaMappingRenderer.getMappedFilesAsStringMap().get("target/META-INF/orm.xml").contains("<many-to-many name=\"creditCards\""));
+		Assert.assertEquals(java2JpaMappingGenerator.analyzeJpaMappings(ReflectionUtil.getAllClassesIn("com.test.model")),
+				java2JpaMappingGenerator.analyzeJpaMappingsForClassModels(new ClasspathScanner().getAllClassModelsIn("com.test.model")));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidParallelism() throws Exception{
+		new Java2JpaMappingGenerator().setParallelism(0);
+	}
+	
+	@Test
+	public void testGenerateJpaMappingsForGenericClasses() throws Exception{
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm-hierarchy.xml");
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.hierarchy");
+		
+		Map<String,MappingInfo> mappings = jpaMappingRenderer.getJpaMappingPerClassName();
+		Assert.assertEquals(mappings.get(AbstractFleet.class.getName()).getMappingType(),"mapped-superclass");
+		Assert.assertEquals(mappings.get(CarFleet.class.getName()).getMappingType(),"entity");
+		Assert.assertEquals(mappings.get(Garage.class.getName()).getMappingType(),"entity");
+		Assert.assertTrue(mappings.get(AbstractFleet.class.getName()).getXmlMapping().contains("many-to-many"));
+		Assert.assertTrue(mappings.get(Garage.class.getName()).getXmlMapping().contains("many-to-many"));
+	}
+	
+	@Test
+	public void testGenerateJpaMappingsForPackagesInScanSession() throws Exception{
+		ScanSession scanSession = new ScanSession();
+		try {
+			Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+			java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+			java2JpaMappingGenerator.setScanSession(scanSession);
+			JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm-session.xml");
+			java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+			java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
+
+			// the class models are read through the session, the classes are not loaded
+			Assert.assertTrue(jpaMappingRenderer.getJpaMappingPerClass().isEmpty());
+			Assert.assertEquals(jpaMappingRenderer.getJpaMappingPerClassName().get(LineItem.class.getName()).getMappingType(),"entity");
+			checkContent(jpaMappingRenderer.getMappedFilesAsStringMap().values().iterator().next());
+		}
+		finally {
+			scanSession.close();
+		}
+	}
+	
+	private JpaMappingRendererDefaultImpl generate(boolean pipelined, int pipelineQueueSize) throws Exception{
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		java2JpaMappingGenerator.setPipelined(pipelined);
+		java2JpaMappingGenerator.setPipelineQueueSize(pipelineQueueSize);
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm-pipelined.xml");
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
+		return jpaMappingRenderer;
+	}
+	
+	@Test
+	public void testGenerateJpaMappingsPipelined() throws Exception{
+		Map<String,MappingInfo> sequentialMappings = generate(false, 1).getJpaMappingPerClassName();
+		for (int pipelineQueueSize: new int[]{1, 256}){
+			Map<String,MappingInfo> pipelinedMappings = generate(true, pipelineQueueSize).getJpaMappingPerClassName();
+			Assert.assertEquals(sequentialMappings.keySet(), pipelinedMappings.keySet());
+			for (String className: sequentialMappings.keySet()){
+				Assert.assertEquals(sequentialMappings.get(className).getXmlMapping(), pipelinedMappings.get(className).getXmlMapping());
+			}
+		}
+	}
+	
+	@Test(timeout=30000)
+	public void testGenerateJpaMappingsPipelinedFailingAnalysis() throws Exception{
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl(){
+			@Override
+			public boolean classNeedsMapping(Class<?> clazz) {
+				throw new UnsupportedOperationException("Failing analysis of " + clazz.getName());
+			}
+		});
+		java2JpaMappingGenerator.setPipelined(true);
+		// the scan stage fills its queue long before it is done
+		java2JpaMappingGenerator.setPipelineQueueSize(1);
+		java2JpaMappingGenerator.setJpaMappingRenderer(new JpaMappingRendererDefaultImpl("target/META-INF/orm-pipelined.xml"));
+		try {
+			java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model", "com.test.hierarchy");
+			Assert.fail("The failing analysis should fail the generation");
+		}
+		catch (IllegalStateException e){
+			Assert.assertTrue(e.getCause() instanceof UnsupportedOperationException);
+		}
+	}
+	
+	@Test
+	public void testGenerateJpaMappingsSelectingOnClasses() throws Exception{
+		final Set<String> askedClassNames = Collections.synchronizedSet(new HashSet<String>());
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl(){
+			@Override
+			public boolean classNeedsMapping(Class<?> clazz) {
+				askedClassNames.add(clazz.getName());
+				return super.classNeedsMapping(clazz);
+			}
+		});
+		Assert.assertFalse(java2JpaMappingGenerator.canSelectOnClassModels());
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm-selected.xml");
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
+
+		// the overridden selection is asked for every class, also for those that are not selected on their class models
+		Assert.assertTrue(askedClassNames.contains(ShippingType.class.getName()));
+		Assert.assertTrue(askedClassNames.contains(Describable.class.getName()));
+		Assert.assertEquals(generate(false, 1).getMappedFilesAsStringMap().values().iterator().next(), 
+				jpaMappingRenderer.getMappedFilesAsStringMap().values().iterator().next());
+	}
+	
+	@Test
+	public void testCanSelectOnClassModels() throws Exception{
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		Assert.assertTrue(java2JpaMappingGenerator.canSelectOnClassModels());
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl(){
+			@Override
+			public boolean classNeedsMapping(Class<?> clazz) {
+				return super.classNeedsMapping(clazz) && ! clazz.equals(LineItem.class);
+			}
+
+			@Override
+			public boolean classNeedsMapping(ClassModel classModel) {
+				return super.classNeedsMapping(classModel) && ! classModel.getName().equals(LineItem.class.getName());
+			}
+		});
+		Assert.assertTrue(java2JpaMappingGenerator.canSelectOnClassModels());
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyCachingImpl(new RenderJpaMappingForClassStrategyDefaultImpl()));
+		Assert.assertFalse(java2JpaMappingGenerator.canSelectOnClassModels());
+	}
+	
+	@Test
+	public void testCanAnalyzeOnClassModels() throws Exception{
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		Assert.assertTrue(java2JpaMappingGenerator.canAnalyzeOnClassModels());
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl(){
+			@Override
+			public boolean fieldNeedsManyToOneMapping(Field field) {
+				return ! field.getName().equals("account") && super.fieldNeedsManyToOneMapping(field);
+			}
+		});
+		Assert.assertTrue(java2JpaMappingGenerator.canSelectOnClassModels());
+		Assert.assertFalse(java2JpaMappingGenerator.canAnalyzeOnClassModels());
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm-reflected.xml");
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
+
+		// the overridden decision is taken on the loaded classes
+		Assert.assertFalse(jpaMappingRenderer.getJpaMappingPerClass().isEmpty());
+		String manyToOneAccount = "(?s).*<many-to-one[^>]*name=\"account\".*";
+		Assert.assertTrue(generate(false, 1).getMappedFilesAsStringMap().values().iterator().next().matches(manyToOneAccount));
+		Assert.assertFalse(jpaMappingRenderer.getMappedFilesAsStringMap().get("target/META-INF/orm-reflected.xml").matches(manyToOneAccount));
+	}
+	
+	@Test
+	public void testCompileMappingPlan() throws Exception{
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		List<Class<?>> allClassesToMap = new ArrayList<Class<?>>();
+		allClassesToMap.add(Account.class);
+		ClassMappingPlan plan = java2JpaMappingGenerator.compileMappingPlan(Account.class, allClassesToMap);
+		Assert.assertEquals(ClassRenderType.ENTITY, plan.getRenderType());
+		Assert.assertEquals("accountId", plan.getIdField().getName());
+		Assert.assertEquals(InheritanceMappingType.NONE, plan.getInheritanceMappingType());
+		Assert.assertEquals(Account.class.getDeclaredFields().length, plan.getFieldMappings().size());
+		Map<String, ClassMappingPlan.FieldMapping> fieldMappings = new HashMap<String, ClassMappingPlan.FieldMapping>();
+		for (ClassMappingPlan.FieldMapping fieldMapping: plan.getFieldMappings()){
+			fieldMappings.put(fieldMapping.getField().getName(), fieldMapping);
+		}
+		Assert.assertEquals(FieldMappingAction.ID, fieldMappings.get("accountId").getAction());
+		Assert.assertEquals(FieldMappingAction.SKIP, fieldMappings.get("userName").getAction());
+		Assert.assertEquals(FieldMappingAction.REFERENCE, fieldMappings.get("homeAddress").getAction());
+		Assert.assertEquals(FieldMappingAction.TRANSIENT, fieldMappings.get("anyInfo").getAction());
+		Assert.assertEquals(FieldMappingAction.COLLECTION, fieldMappings.get("statements").getAction());
+		Assert.assertEquals(CollectionRenderType.MANYTOMANY, fieldMappings.get("statements").getCollectionRenderType());
+		Assert.assertEquals(Collections.singletonList("firstStatement"), plan.getTransientPropertyNames());
+
+		//without all classes, the inheritance is not decided
+		Assert.assertNull(java2JpaMappingGenerator.compileMappingPlan(Account.class, null).getInheritanceMappingType());
+	}
+	
 	@Test
 	public void testGenerateJpaMappingsForPackagesForSimpleModel() throws Exception{
 		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
@@ -0,0 +1,90 @@
+package com.ceardannan.java2jpa;
+
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.test.model.Account;
+
+public class Java2JpaMappingWatcherTest {
+
+	private File directory;
+
+	private File classDirectory;
+
+	@Before
+	public void createClassDirectory() throws Exception{
+		directory = File.createTempFile("java2jpa-watcher", "");
+		directory.delete();
+		classDirectory = new File(directory, "classes");
+		File packageDirectory = new File(Account.class.getResource("Account.class").toURI()).getParentFile();
+		FileUtils.copyDirectory(packageDirectory, new File(classDirectory, "com/test/model"));
+	}
+
+	@After
+	public void deleteClassDirectory() throws Exception{
+		FileUtils.deleteDirectory(directory);
+	}
+
+	private Java2JpaMappingWatcher createWatcher(String filename){
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		Java2JpaMappingWatcher watcher = new Java2JpaMappingWatcher(java2JpaMappingGenerator, new IncrementalMappingCache(new File(directory, "mappings.cache")),
+				filename, Arrays.asList(classDirectory), "com.test.model");
+		watcher.setPollInterval(10);
+		watcher.setQuietPeriod(0);
+		return watcher;
+	}
+
+	@Test
+	public void testRegenerateIfChanged() throws Exception{
+		String filename = new File(directory, "orm.xml").getPath();
+		Java2JpaMappingWatcher watcher = createWatcher(filename);
+		Assert.assertTrue(watcher.regenerateIfChanged());
+		File mappingFile = new File(filename);
+		Assert.assertTrue(mappingFile.isFile());
+
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl(filename);
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
+		Assert.assertEquals(jpaMappingRenderer.getMappedFilesAsStringMap().get(filename), FileUtils.readFileToString(mappingFile));
+
+		// nothing changed
+		Assert.assertFalse(watcher.regenerateIfChanged());
+
+		// a class file is rewritten without changes: the mapping is regenerated, but the mapping file is not rewritten
+		mappingFile.setLastModified(1000);
+		new File(classDirectory, "com/test/model/Account.class").setLastModified(System.currentTimeMillis() + 10000);
+		Assert.assertTrue(watcher.regenerateIfChanged());
+		Assert.assertEquals(1000, mappingFile.lastModified());
+		Assert.assertFalse(watcher.regenerateIfChanged());
+	}
+
+	@Test
+	public void testStartAndStop() throws Exception{
+		File mappingFile = new File(directory, "orm.xml");
+		Java2JpaMappingWatcher watcher = createWatcher(mappingFile.getPath());
+		watcher.start();
+		Assert.assertTrue(watcher.isStarted());
+		for (int i = 0; i < 500 && ! mappingFile.isFile(); i++){
+			Thread.sleep(10);
+		}
+		watcher.stop();
+		Assert.assertFalse(watcher.isStarted());
+		Assert.assertTrue(mappingFile.isFile());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidPollInterval(){
+		createWatcher("orm.xml").setPollInterval(0);
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.ceardannan.java2jpa;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.ceardannan.java2jpa.JpaMappingRendererDefaultImpl.MappingInfo;
+import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.scan.ClasspathScanner;
+import com.test.model.Account;
+import com.test.model.Address;
+
+public class JpaMappingModelTest {
+
+	private Java2JpaMappingGenerator createGenerator(JpaMappingRenderer jpaMappingRenderer){
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		return java2JpaMappingGenerator;
+	}
+
+	@Test
+	public void testRenderModel() throws Exception{
+		Collection<Class<?>> classes = ReflectionUtil.getAllClassesIn("com.test.model", "com.test.hierarchy");
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		createGenerator(jpaMappingRenderer).generateJpaMappingsForPackages(classes);
+
+		JpaMappingRendererDefaultImpl twoPhaseJpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		Java2JpaMappingGenerator java2JpaMappingGenerator = createGenerator(twoPhaseJpaMappingRenderer);
+		JpaMappingModel jpaMappingModel = java2JpaMappingGenerator.analyzeJpaMappings(classes);
+		Assert.assertTrue(twoPhaseJpaMappingRenderer.getJpaMappingPerClass().isEmpty());
+		java2JpaMappingGenerator.renderJpaMappingModel(jpaMappingModel);
+
+		Map<Class<?>,MappingInfo> mappings = jpaMappingRenderer.getJpaMappingPerClass();
+		Map<Class<?>,MappingInfo> twoPhaseMappings = twoPhaseJpaMappingRenderer.getJpaMappingPerClass();
+		Assert.assertEquals(mappings.keySet(), twoPhaseMappings.keySet());
+		for (Class<?> clazz: mappings.keySet()){
+			Assert.assertEquals(mappings.get(clazz).getXmlMapping(), twoPhaseMappings.get(clazz).getXmlMapping());
+		}
+		Assert.assertEquals(jpaMappingRenderer.getMappedFilesAsStringMap(), twoPhaseJpaMappingRenderer.getMappedFilesAsStringMap());
+	}
+
+	@Test
+	public void testModel() throws Exception{
+		Collection<Class<?>> classes = ReflectionUtil.getAllClassesIn("com.test.model");
+		JpaMappingModel jpaMappingModel = createGenerator(null).analyzeJpaMappings(classes);
+
+		JpaMappingModel.ClassMapping accountMapping = jpaMappingModel.getClassMapping(Account.class.getName());
+		Assert.assertEquals(ClassRenderType.ENTITY, accountMapping.getRenderType());
+		Assert.assertTrue(accountMapping.getElements().contains(new JpaMappingModel.Element(MappingElementKind.ID, "accountId", "AUTO")));
+		Assert.assertEquals(ClassRenderType.EMBEDDABLE, jpaMappingModel.getClassMapping(Address.class.getName()).getRenderType());
+		Assert.assertNull(jpaMappingModel.getClassMapping(String.class.getName()));
+
+		// the same classes give the same model
+		Assert.assertEquals(jpaMappingModel, createGenerator(null).analyzeJpaMappings(classes));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(jpaMappingModel);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		JpaMappingModel readJpaMappingModel = (JpaMappingModel) in.readObject();
+		in.close();
+		Assert.assertEquals(jpaMappingModel, readJpaMappingModel);
+		Assert.assertEquals(accountMapping, readJpaMappingModel.getClassMapping(Account.class.getName()));
+	}
+
+	@Test
+	public void testAnalyzeClassModels() throws Exception{
+		JpaMappingModel jpaMappingModel = createGenerator(null).analyzeJpaMappings(ReflectionUtil.getAllClassesIn("com.test.model"));
+		JpaMappingModel classModelJpaMappingModel = createGenerator(null).analyzeJpaMappingsForClassModels(
+				new ClasspathScanner().getAllClassModelsIn("com.test.model"));
+		Assert.assertEquals(jpaMappingModel, classModelJpaMappingModel);
+	}
+
+	@Test
+	public void testRenderClassMappingByName() throws Exception{
+		Collection<Class<?>> classes = ReflectionUtil.getAllClassesIn("com.test.model", "com.test.hierarchy");
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		createGenerator(jpaMappingRenderer).generateJpaMappingsForPackages(classes);
+
+		JpaMappingRendererDefaultImpl byNameJpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		for (JpaMappingModel.ClassMapping classMapping: createGenerator(null).analyzeJpaMappings(classes).getClassMappings()){
+			byNameJpaMappingRenderer.renderClassMapping(classMapping);
+		}
+		Assert.assertTrue(byNameJpaMappingRenderer.getJpaMappingPerClass().isEmpty());
+		Assert.assertEquals(jpaMappingRenderer.getMappedFilesAsStringMap(), byNameJpaMappingRenderer.getMappedFilesAsStringMap());
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testElementBeforeRenderType(){
+		new JpaMappingModelBuilder().addTableElementForClass(Account.class, "ACCOUNT");
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testClassMappedTwice(){
+		JpaMappingModel.ClassMapping classMapping = new JpaMappingModel.ClassMapping(Account.class.getName(), ClassRenderType.ENTITY,
+				Arrays.<JpaMappingModel.Element>asList());
+		new JpaMappingModel(Arrays.asList(classMapping, classMapping));
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.ceardannan.java2jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.test.hierarchy.Car;
+import com.test.hierarchy.Vehicle;
+import com.test.model.Account;
+import com.test.model.Address;
+import com.test.model.PersistentObject;
+
+public class MappingUniverseTest {
+
+	@Test
+	public void testUniverse(){
+		final AtomicInteger renderTypeCalls = new AtomicInteger();
+		RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy = new RenderJpaMappingForClassStrategyDefaultImpl(){
+			@Override
+			public ClassRenderType getRenderTypeFor(Class<?> clazz) {
+				renderTypeCalls.incrementAndGet();
+				return super.getRenderTypeFor(clazz);
+			}
+		};
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		classes.add(Account.class);
+		classes.add(Vehicle.class);
+		classes.add(Address.class);
+		classes.add(Car.class);
+		MappingUniverse universe = new MappingUniverse(classes, renderJpaMappingForClassStrategy);
+
+		Assert.assertEquals(classes, new ArrayList<Class<?>>(universe));
+		Assert.assertEquals(4, universe.size());
+		Assert.assertTrue(universe.contains(Car.class));
+		Assert.assertFalse(universe.contains(PersistentObject.class));
+
+		Assert.assertEquals(Arrays.asList(Account.class, Address.class), universe.getClassesInPackage("com.test.model"));
+		Assert.assertEquals(Arrays.asList(Vehicle.class, Car.class), universe.getClassesInPackage("com.test.hierarchy"));
+		Assert.assertEquals(Collections.emptyList(), universe.getClassesInPackage("com.test"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("com.test.model", "com.test.hierarchy")), universe.getPackageNames());
+
+		Assert.assertTrue(universe.isMappedAsEntity(Account.class));
+		Assert.assertTrue(universe.isMappedAsEntity(Account.class));
+		Assert.assertFalse(universe.isMappedAsEntity(Address.class));
+		Assert.assertEquals(ClassRenderType.EMBEDDABLE, universe.getRenderTypeFor(Address.class));
+		// not part of the universe
+		Assert.assertNull(universe.getRenderTypeFor(PersistentObject.class));
+		Assert.assertEquals(2, renderTypeCalls.get());
+
+		Assert.assertSame(universe, MappingUniverse.of(universe, renderJpaMappingForClassStrategy));
+		Assert.assertNotSame(universe, MappingUniverse.of(universe, new RenderJpaMappingForClassStrategyDefaultImpl()));
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void testUnmodifiable(){
+		MappingUniverse universe = new MappingUniverse(new ArrayList<Class<?>>(), new RenderJpaMappingForClassStrategyDefaultImpl());
+		universe.add(Account.class);
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.ceardannan.java2jpa;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.ceardannan.java2jpa.JpaMappingRendererDefaultImpl.MappingInfo;
+import com.ceardannan.util.ReflectionUtil;
+import com.test.model.Account;
+import com.test.model.Address;
+import com.test.model.PersistentObject;
+import com.test.model.StatusType;
+
+public class RenderJpaMappingForClassStrategyCachingImplTest {
+
+	@Test
+	public void testDecisionsAreCached(){
+		final AtomicInteger renderTypeCalls = new AtomicInteger();
+		RenderJpaMappingForClassStrategyCachingImpl renderJpaMappingForClassStrategy = new RenderJpaMappingForClassStrategyCachingImpl(
+				new RenderJpaMappingForClassStrategyDefaultImpl(){
+					@Override
+					public ClassRenderType getRenderTypeFor(Class<?> clazz) {
+						renderTypeCalls.incrementAndGet();
+						return super.getRenderTypeFor(clazz);
+					}
+				});
+
+		Assert.assertEquals(ClassRenderType.ENTITY, renderJpaMappingForClassStrategy.getRenderTypeFor(Account.class));
+		Assert.assertEquals(ClassRenderType.ENTITY, renderJpaMappingForClassStrategy.getRenderTypeFor(Account.class));
+		Assert.assertEquals(ClassRenderType.EMBEDDABLE, renderJpaMappingForClassStrategy.getRenderTypeFor(Address.class));
+		// null results are cached too
+		Assert.assertNull(renderJpaMappingForClassStrategy.getRenderTypeFor(StatusType.class));
+		Assert.assertNull(renderJpaMappingForClassStrategy.getRenderTypeFor(StatusType.class));
+		Assert.assertEquals(3, renderTypeCalls.get());
+		Assert.assertEquals(2, renderJpaMappingForClassStrategy.getHitCount());
+		Assert.assertEquals(3, renderJpaMappingForClassStrategy.getMissCount());
+
+		Assert.assertEquals(ReflectionUtil.getFieldOfClass(PersistentObject.class, "id"), renderJpaMappingForClassStrategy.getIdFieldForClass(PersistentObject.class));
+		Assert.assertNull(renderJpaMappingForClassStrategy.getIdFieldForClass(Address.class));
+		Assert.assertNull(renderJpaMappingForClassStrategy.getIdFieldForClass(Address.class));
+		Assert.assertEquals(CollectionRenderType.MANYTOMANY, renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(ReflectionUtil.getFieldOfClass(Account.class, "creditCards")));
+		Assert.assertNull(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(ReflectionUtil.getFieldOfClass(Account.class, "anyInfo")));
+		Assert.assertNull(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(ReflectionUtil.getFieldOfClass(Account.class, "anyInfo")));
+		Assert.assertEquals(4, renderJpaMappingForClassStrategy.getHitCount());
+		Assert.assertEquals(7, renderJpaMappingForClassStrategy.getMissCount());
+
+		renderJpaMappingForClassStrategy.clearCache();
+		Assert.assertEquals(0, renderJpaMappingForClassStrategy.getHitCount());
+		Assert.assertEquals(ClassRenderType.ENTITY, renderJpaMappingForClassStrategy.getRenderTypeFor(Account.class));
+		Assert.assertEquals(4, renderTypeCalls.get());
+	}
+
+	@Test
+	public void testSameMappings() throws Exception{
+		Map<Class<?>, MappingInfo> mappings = generateMappings(new RenderJpaMappingForClassStrategyDefaultImpl());
+		RenderJpaMappingForClassStrategyCachingImpl renderJpaMappingForClassStrategy = new RenderJpaMappingForClassStrategyCachingImpl(new RenderJpaMappingForClassStrategyDefaultImpl());
+		Map<Class<?>, MappingInfo> cachedMappings = generateMappings(renderJpaMappingForClassStrategy);
+
+		Assert.assertEquals(mappings.keySet(), cachedMappings.keySet());
+		for (Class<?> clazz: mappings.keySet()){
+			Assert.assertEquals(clazz.getName(), mappings.get(clazz).getXmlMapping(), cachedMappings.get(clazz).getXmlMapping());
+		}
+		Assert.assertTrue(renderJpaMappingForClassStrategy.getHitCount() > 0);
+	}
+
+	private Map<Class<?>, MappingInfo> generateMappings(RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy) throws Exception{
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(renderJpaMappingForClassStrategy);
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages(ReflectionUtil.getAllClassesIn("com.test.model"));
+		return jpaMappingRenderer.getJpaMappingPerClass();
+	}
+
+}
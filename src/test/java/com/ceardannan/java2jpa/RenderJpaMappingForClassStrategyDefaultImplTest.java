@@ -13,6 +13,14 @@ import com.ceardannan.java2jpa.InheritanceMappingType;
 import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategy;
 import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategyDefaultImpl;
 import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.ClassModelRepository;
+import com.ceardannan.util.classfile.FieldModel;
+import com.test.hierarchy.AbstractFleet;
+import com.test.hierarchy.Car;
+import com.test.hierarchy.Garage;
+import com.test.hierarchy.MotorVehicle;
+import com.test.hierarchy.Vehicle;
 import com.test.model.Account;
 import com.test.model.Address;
 import com.test.model.Category;
@@ -98,6 +106,56 @@ public class RenderJpaMappingForClassStrategyDefaultImplTest {
 		Assert.assertEquals(renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(Address.class, allClassesToMap),InheritanceMappingType.NONE);
 	}
 	
+	@Test
+	public void testGetInheritanceMappingTypeForChangedClasses() throws Exception{
+		RenderJpaMappingForClassStrategyDefaultImpl renderJpaMappingForClassStrategy = 
+			new RenderJpaMappingForClassStrategyDefaultImpl();
+		
+		List<Class<?>> allClassesToMap = new ArrayList<Class<?>>();
+		allClassesToMap.add(Supplier.class);
+		allClassesToMap.add(Company.class);
+		Assert.assertEquals(InheritanceMappingType.NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(Supplier.class, allClassesToMap));
+		
+		// same collection, same size, other classes
+		allClassesToMap.set(1, Address.class);
+		Assert.assertEquals(InheritanceMappingType.NONE, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(Supplier.class, allClassesToMap));
+	}
+	
+	@Test
+	public void testGetInheritanceMappingTypeThroughMappedSuperclass() throws Exception{
+		RenderJpaMappingForClassStrategyDefaultImpl renderJpaMappingForClassStrategy = 
+			new RenderJpaMappingForClassStrategyDefaultImpl();
+		
+		List<Class<?>> allClassesToMap = new ArrayList<Class<?>>();
+		allClassesToMap.add(Vehicle.class);
+		allClassesToMap.add(MotorVehicle.class);
+		allClassesToMap.add(Car.class);
+		
+		Assert.assertEquals(InheritanceMappingType.NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(Vehicle.class, allClassesToMap));
+		Assert.assertEquals(InheritanceMappingType.NONE, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(MotorVehicle.class, allClassesToMap));
+		Assert.assertEquals(InheritanceMappingType.SUBCLASS_WITH_DISCRIMINATOR, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(Car.class, allClassesToMap));
+		MappingUniverse universe = new MappingUniverse(allClassesToMap, renderJpaMappingForClassStrategy);
+		Assert.assertEquals(InheritanceMappingType.SUBCLASS_WITH_DISCRIMINATOR, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(Car.class, universe));
+		Assert.assertEquals(InheritanceMappingType.NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(Vehicle.class, universe));
+		
+		List<ClassModel> allClassModelsToMap = new ArrayList<ClassModel>();
+		allClassModelsToMap.add(getClassModel(Vehicle.class));
+		allClassModelsToMap.add(getClassModel(MotorVehicle.class));
+		allClassModelsToMap.add(getClassModel(Car.class));
+		
+		Assert.assertEquals(InheritanceMappingType.NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(getClassModel(Vehicle.class), allClassModelsToMap));
+		Assert.assertEquals(InheritanceMappingType.NONE, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(getClassModel(MotorVehicle.class), allClassModelsToMap));
+		Assert.assertEquals(InheritanceMappingType.SUBCLASS_WITH_DISCRIMINATOR, renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(getClassModel(Car.class), allClassModelsToMap));
+	}
+	
+	@Test
+	public void testGetCollectionRenderTypeForGenericField() throws Exception{
+		RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy = 
+			new RenderJpaMappingForClassStrategyDefaultImpl();
+		Assert.assertEquals(CollectionRenderType.MANYTOMANY, renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getFieldOfClass(Garage.class, "parkedVehicles")));
+		Assert.assertEquals(CollectionRenderType.MANYTOMANY, renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getFieldOfClass(AbstractFleet.class, "vehicles")));
+	}
+	
 	@Test
 	public void testGetCollectionRenderTypeForField() throws Exception{
 		RenderJpaMappingForClassStrategy renderJpaMappingForClassStrategy = 
@@ -107,4 +165,75 @@ public class RenderJpaMappingForClassStrategyDefaultImplTest {
 		Assert.assertEquals(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getFieldOfClass(Item.class, "attributes")),CollectionRenderType.SIMPLE);
 		Assert.assertNull(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getFieldOfClass(Account.class, "anyInfo")));
 	}
+	
+	private ClassModel getClassModel(Class<?> clazz){
+		return new ClassModelRepository().getClassModel(clazz.getName());
+	}
+	
+	private FieldModel getFieldModelOfClass(Class<?> clazz, String fieldName){
+		ClassModelRepository classModelRepository = new ClassModelRepository();
+		for (FieldModel field: classModelRepository.getAllFields(classModelRepository.getClassModel(clazz.getName()))){
+			if (field.getName().equals(fieldName)){
+				return field;
+			}
+		}
+		return null;
+	}
+	
+	@Test
+	public void testClassModelDecisionsMatchClassDecisions() throws Exception{
+		RenderJpaMappingForClassStrategyDefaultImpl renderJpaMappingForClassStrategy = 
+			new RenderJpaMappingForClassStrategyDefaultImpl();
+		Class<?>[] classes = {PersistentObject.class, LineItem.class, Address.class, Describable.class, StatusType.class, Product.class, Item.class, 
+				Supplier.class, Company.class, InternationalCompany.class, Account.class, Category.class};
+		for (Class<?> clazz: classes){
+			ClassModel classModel = getClassModel(clazz);
+			Assert.assertEquals(renderJpaMappingForClassStrategy.classNeedsMapping(clazz), renderJpaMappingForClassStrategy.classNeedsMapping(classModel));
+			Assert.assertEquals(renderJpaMappingForClassStrategy.getRenderTypeFor(clazz), renderJpaMappingForClassStrategy.getRenderTypeFor(classModel));
+			Field idField = renderJpaMappingForClassStrategy.getIdFieldForClass(clazz);
+			FieldModel idFieldModel = renderJpaMappingForClassStrategy.getIdFieldForClass(classModel);
+			Assert.assertEquals(idField == null ? null : idField.getName(), idFieldModel == null ? null : idFieldModel.getName());
+		}
+	}
+	
+	@Test
+	public void testFieldModelNeedsManyToOneMapping() throws Exception{
+		RenderJpaMappingForClassModelStrategy renderJpaMappingForClassStrategy = 
+			new RenderJpaMappingForClassStrategyDefaultImpl();
+		Assert.assertTrue(renderJpaMappingForClassStrategy.fieldNeedsManyToOneMapping(getFieldModelOfClass(Account.class, "homeAddress")));
+		Assert.assertTrue(! renderJpaMappingForClassStrategy.fieldNeedsManyToOneMapping(getFieldModelOfClass(Account.class, "creditCards")));
+		Assert.assertTrue(! renderJpaMappingForClassStrategy.fieldNeedsManyToOneMapping(getFieldModelOfClass(Account.class, "homePhone")));
+		Assert.assertTrue(! renderJpaMappingForClassStrategy.fieldNeedsManyToOneMapping(getFieldModelOfClass(Item.class, "itemId")));
+		Assert.assertTrue(! renderJpaMappingForClassStrategy.fieldNeedsManyToOneMapping(getFieldModelOfClass(Category.class, "serialVersionUID")));
+		Assert.assertTrue(! renderJpaMappingForClassStrategy.fieldNeedsManyToOneMapping(getFieldModelOfClass(Address.class, "log")));
+	}
+	
+	@Test
+	public void testGetInheritanceMappingTypeForClassModel() throws Exception{
+		RenderJpaMappingForClassModelStrategy renderJpaMappingForClassStrategy = 
+			new RenderJpaMappingForClassStrategyDefaultImpl();
+		
+		List<ClassModel> allClassModelsToMap = new ArrayList<ClassModel>();
+		allClassModelsToMap.add(getClassModel(Supplier.class));
+		allClassModelsToMap.add(getClassModel(Company.class));
+		allClassModelsToMap.add(getClassModel(InternationalCompany.class));
+		allClassModelsToMap.add(getClassModel(PersistentObject.class));
+		allClassModelsToMap.add(getClassModel(Address.class));
+		
+		Assert.assertEquals(renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(getClassModel(Supplier.class), allClassModelsToMap),InheritanceMappingType.NO_SUBCLASS_BUT_IS_SUPERCLASS_SINGLE_TABLE);
+		Assert.assertEquals(renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(getClassModel(Company.class), allClassModelsToMap),InheritanceMappingType.SUBCLASS_WITH_DISCRIMINATOR);
+		Assert.assertEquals(renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(getClassModel(InternationalCompany.class), allClassModelsToMap),InheritanceMappingType.SUBCLASS_WITH_DISCRIMINATOR);
+		Assert.assertEquals(renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(getClassModel(PersistentObject.class), allClassModelsToMap),InheritanceMappingType.NONE);
+		Assert.assertEquals(renderJpaMappingForClassStrategy.getInheritanceMappingTypeForClass(getClassModel(Address.class), allClassModelsToMap),InheritanceMappingType.NONE);
+	}
+	
+	@Test
+	public void testGetCollectionRenderTypeForFieldModel() throws Exception{
+		RenderJpaMappingForClassModelStrategy renderJpaMappingForClassStrategy = 
+			new RenderJpaMappingForClassStrategyDefaultImpl();
+		Assert.assertEquals(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getFieldModelOfClass(Account.class, "creditCards")),CollectionRenderType.MANYTOMANY);
+		Assert.assertEquals(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getFieldModelOfClass(Category.class, "associatedProducts")),CollectionRenderType.ONETOMANY);
+		Assert.assertEquals(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getFieldModelOfClass(Item.class, "attributes")),CollectionRenderType.SIMPLE);
+		Assert.assertNull(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getFieldModelOfClass(Account.class, "anyInfo")));
+	}
 }
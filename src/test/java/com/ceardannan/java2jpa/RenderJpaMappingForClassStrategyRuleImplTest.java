@@ -0,0 +1,133 @@
+package com.ceardannan.java2jpa;
+
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.ceardannan.util.ReflectionUtil;
+import com.ceardannan.util.classfile.ClassModel;
+import com.ceardannan.util.classfile.ClassModelRepository;
+import com.ceardannan.util.classfile.FieldModel;
+import com.ceardannan.util.scan.ClasspathScanner;
+import com.test.hierarchy.Car;
+import com.test.hierarchy.MotorVehicle;
+import com.test.hierarchy.Vehicle;
+import com.test.model.Account;
+import com.test.model.Address;
+import com.test.model.Category;
+import com.test.model.Company;
+import com.test.model.Item;
+import com.test.model.PersistentObject;
+
+public class RenderJpaMappingForClassStrategyRuleImplTest {
+
+	private Properties getRules(){
+		Properties rules = new Properties();
+		rules.setProperty("id.fieldNames", "userName, id, {simpleName}Id");
+		rules.setProperty("class.rule.1.match", "com.test.model.Address");
+		rules.setProperty("class.rule.1.renderType", "NONE");
+		rules.setProperty("class.rule.2.match", "com.test.model.*");
+		rules.setProperty("class.rule.2.extends", "com.test.model.Describable");
+		rules.setProperty("class.rule.2.renderType", "MAPPEDSUPERCLASS");
+		rules.setProperty("class.rule.10.match", "com.test.hierarchy.**");
+		rules.setProperty("class.rule.10.idField", "horsePower");
+		rules.setProperty("collection.rule.1.match", "com.test.model.Account.creditCards");
+		rules.setProperty("collection.rule.1.renderType", "TRANSIENT");
+		rules.setProperty("collection.rule.2.match", "com.test.**.associated*");
+		rules.setProperty("collection.rule.2.renderType", "SIMPLE");
+		return rules;
+	}
+
+	@Test
+	public void testRules(){
+		RenderJpaMappingForClassStrategyRuleImpl renderJpaMappingForClassStrategy = new RenderJpaMappingForClassStrategyRuleImpl(getRules());
+
+		Assert.assertFalse(renderJpaMappingForClassStrategy.classNeedsMapping(Address.class));
+		Assert.assertNull(renderJpaMappingForClassStrategy.getRenderTypeFor(Address.class));
+		Assert.assertEquals(ClassRenderType.MAPPEDSUPERCLASS, renderJpaMappingForClassStrategy.getRenderTypeFor(Company.class));
+		Assert.assertEquals(ClassRenderType.ENTITY, renderJpaMappingForClassStrategy.getRenderTypeFor(Item.class));
+
+		Assert.assertEquals(ReflectionUtil.getFieldOfClass(Account.class, "userName"), renderJpaMappingForClassStrategy.getIdFieldForClass(Account.class));
+		Assert.assertEquals(ReflectionUtil.getFieldOfClass(PersistentObject.class, "id"), renderJpaMappingForClassStrategy.getIdFieldForClass(PersistentObject.class));
+		Assert.assertEquals(ReflectionUtil.getFieldOfClass(MotorVehicle.class, "horsePower"), renderJpaMappingForClassStrategy.getIdFieldForClass(Car.class));
+		Assert.assertNull(renderJpaMappingForClassStrategy.getIdFieldForClass(Vehicle.class));
+		Assert.assertEquals(ClassRenderType.EMBEDDABLE, renderJpaMappingForClassStrategy.getRenderTypeFor(Vehicle.class));
+
+		Assert.assertNull(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(ReflectionUtil.getFieldOfClass(Account.class, "creditCards")));
+		Assert.assertEquals(CollectionRenderType.SIMPLE, renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(ReflectionUtil.getFieldOfClass(Category.class, "associatedProducts")));
+		// no rule
+		Assert.assertEquals(CollectionRenderType.SIMPLE, renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(ReflectionUtil.getFieldOfClass(Item.class, "attributes")));
+	}
+
+	@Test
+	public void testRulesOnClassModels(){
+		RenderJpaMappingForClassStrategyRuleImpl renderJpaMappingForClassStrategy = new RenderJpaMappingForClassStrategyRuleImpl(getRules());
+
+		Assert.assertFalse(renderJpaMappingForClassStrategy.classNeedsMapping(getClassModel(Address.class)));
+		Assert.assertNull(renderJpaMappingForClassStrategy.getRenderTypeFor(getClassModel(Address.class)));
+		Assert.assertEquals(ClassRenderType.MAPPEDSUPERCLASS, renderJpaMappingForClassStrategy.getRenderTypeFor(getClassModel(Company.class)));
+		Assert.assertEquals(ClassRenderType.ENTITY, renderJpaMappingForClassStrategy.getRenderTypeFor(getClassModel(Item.class)));
+
+		Assert.assertEquals("userName", renderJpaMappingForClassStrategy.getIdFieldForClass(getClassModel(Account.class)).getName());
+		Assert.assertEquals("id", renderJpaMappingForClassStrategy.getIdFieldForClass(getClassModel(PersistentObject.class)).getName());
+		FieldModel carIdField = renderJpaMappingForClassStrategy.getIdFieldForClass(getClassModel(Car.class));
+		Assert.assertEquals("horsePower", carIdField.getName());
+		Assert.assertEquals(MotorVehicle.class.getName(), carIdField.getDeclaringClassName());
+		Assert.assertNull(renderJpaMappingForClassStrategy.getIdFieldForClass(getClassModel(Vehicle.class)));
+
+		Assert.assertNull(renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getClassModel(Account.class).getDeclaredField("creditCards")));
+		Assert.assertEquals(CollectionRenderType.SIMPLE, renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getClassModel(Category.class).getDeclaredField("associatedProducts")));
+	}
+
+	@Test
+	public void testOneToManyRuleWithoutBackReference() throws Exception{
+		Properties rules = new Properties();
+		rules.setProperty("collection.rule.1.match", "com.test.model.Account.creditCards");
+		rules.setProperty("collection.rule.1.renderType", "ONETOMANY");
+		RenderJpaMappingForClassStrategyRuleImpl renderJpaMappingForClassStrategy = new RenderJpaMappingForClassStrategyRuleImpl(rules);
+		// CreditCard has no field of type Account
+		Assert.assertEquals(CollectionRenderType.MANYTOMANY,
+				renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(ReflectionUtil.getFieldOfClass(Account.class, "creditCards")));
+		Assert.assertEquals(CollectionRenderType.MANYTOMANY,
+				renderJpaMappingForClassStrategy.getCollectionRenderTypeForField(getClassModel(Account.class).getDeclaredField("creditCards")));
+
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("target/META-INF/orm.xml");
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(renderJpaMappingForClassStrategy);
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
+		Assert.assertTrue(jpaMappingRenderer.getMappedFilesAsStringMap().get("target/META-INF/orm.xml").contains("<many-to-many name=\"creditCards\""));
+		Assert.assertEquals(java2JpaMappingGenerator.analyzeJpaMappings(ReflectionUtil.getAllClassesIn("com.test.model")),
+				java2JpaMappingGenerator.analyzeJpaMappingsForClassModels(new ClasspathScanner().getAllClassModelsIn("com.test.model")));
+	}
+
+	@Test
+	public void testCompileGlob(){
+		Assert.assertTrue(RenderJpaMappingForClassStrategyRuleImpl.compileGlob("com.test.*").matcher("com.test.Order").matches());
+		Assert.assertFalse(RenderJpaMappingForClassStrategyRuleImpl.compileGlob("com.test.*").matcher("com.test.model.Order").matches());
+		Assert.assertTrue(RenderJpaMappingForClassStrategyRuleImpl.compileGlob("com.**.Order").matcher("com.test.model.Order").matches());
+		Assert.assertTrue(RenderJpaMappingForClassStrategyRuleImpl.compileGlob("com.test.Orde?").matcher("com.test.Order").matches());
+		Assert.assertFalse(RenderJpaMappingForClassStrategyRuleImpl.compileGlob("com.test.Order").matcher("comXtest.Order").matches());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidRenderType(){
+		Properties rules = new Properties();
+		rules.setProperty("class.rule.1.renderType", "TABLE");
+		new RenderJpaMappingForClassStrategyRuleImpl(rules);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testCollectionRuleWithoutRenderType(){
+		Properties rules = new Properties();
+		rules.setProperty("collection.rule.1.match", "com.test.**");
+		new RenderJpaMappingForClassStrategyRuleImpl(rules);
+	}
+
+	private ClassModel getClassModel(Class<?> clazz){
+		return new ClassModelRepository().getClassModel(clazz.getName());
+	}
+
+}
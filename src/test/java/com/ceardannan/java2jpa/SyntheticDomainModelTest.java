@@ -0,0 +1,120 @@
+package com.ceardannan.java2jpa;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.tools.ToolProvider;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceardannan.util.scan.ScanSession;
+import com.test.synthetic.SyntheticDomainModelGenerator;
+
+public class SyntheticDomainModelTest {
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws Exception{
+		directory = File.createTempFile("java2jpa-synthetic", "");
+		directory.delete();
+	}
+
+	@After
+	public void deleteDirectory() throws Exception{
+		FileUtils.deleteDirectory(directory);
+	}
+
+	private SyntheticDomainModelGenerator createSyntheticDomainModelGenerator(long seed){
+		SyntheticDomainModelGenerator syntheticDomainModelGenerator = new SyntheticDomainModelGenerator();
+		syntheticDomainModelGenerator.setSeed(seed);
+		syntheticDomainModelGenerator.setClassCount(300);
+		syntheticDomainModelGenerator.setClassesPerPackage(100);
+		return syntheticDomainModelGenerator;
+	}
+
+	@Test
+	public void testDeterministic() throws Exception{
+		List<File> sources = createSyntheticDomainModelGenerator(7).writeSources(new File(directory, "first"));
+		List<File> sameSources = createSyntheticDomainModelGenerator(7).writeSources(new File(directory, "second"));
+		Assert.assertEquals(300, sources.size());
+		Assert.assertEquals(sources.size(), sameSources.size());
+		for (int i = 0; i < sources.size(); i++){
+			Assert.assertEquals(FileUtils.readFileToString(sources.get(i)), FileUtils.readFileToString(sameSources.get(i)));
+		}
+		List<File> otherSources = createSyntheticDomainModelGenerator(8).writeSources(new File(directory, "third"));
+		boolean different = false;
+		for (int i = 0; i < sources.size() && ! different; i++){
+			different = ! FileUtils.readFileToString(sources.get(i)).equals(FileUtils.readFileToString(otherSources.get(i)));
+		}
+		Assert.assertTrue(different);
+	}
+
+	@Test
+	public void testGenerateMappings() throws Exception{
+		Assume.assumeNotNull(ToolProvider.getSystemJavaCompiler());
+		SyntheticDomainModelGenerator syntheticDomainModelGenerator = createSyntheticDomainModelGenerator(1);
+		File classesDirectory = syntheticDomainModelGenerator.compile(directory);
+
+		ScanSession scanSession = new ScanSession(new URLClassLoader(new URL[]{classesDirectory.toURI().toURL()}, getClass().getClassLoader()));
+		try {
+			Collection<Class<?>> classes = scanSession.getAllClassesIn(syntheticDomainModelGenerator.getPackageName());
+			Assert.assertEquals(syntheticDomainModelGenerator.getClassNames().size(), classes.size());
+
+			Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+			java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+			java2JpaMappingGenerator.setScanSession(scanSession);
+			JpaMappingModel jpaMappingModel = java2JpaMappingGenerator.analyzeJpaMappings(classes);
+
+			Set<String> entityClassNames = new HashSet<String>();
+			Set<String> embeddableClassNames = new HashSet<String>();
+			Set<MappingElementKind> elementKinds = EnumSet.noneOf(MappingElementKind.class);
+			for (JpaMappingModel.ClassMapping classMapping: jpaMappingModel.getClassMappings()){
+				if (ClassRenderType.ENTITY.equals(classMapping.getRenderType())){
+					entityClassNames.add(classMapping.getClassName());
+				}
+				else if (ClassRenderType.EMBEDDABLE.equals(classMapping.getRenderType())){
+					embeddableClassNames.add(classMapping.getClassName());
+				}
+				for (JpaMappingModel.Element element: classMapping.getElements()){
+					elementKinds.add(element.getKind());
+				}
+			}
+			Assert.assertEquals(new HashSet<String>(syntheticDomainModelGenerator.getEntityClassNames()), entityClassNames);
+			Assert.assertEquals(new HashSet<String>(syntheticDomainModelGenerator.getEmbeddableClassNames()), embeddableClassNames);
+			Assert.assertEquals(EnumSet.allOf(MappingElementKind.class), elementKinds);
+
+			// the class models of the synthetic model give the same mappings
+			Java2JpaMappingGenerator classModelJpaMappingGenerator = new Java2JpaMappingGenerator();
+			classModelJpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+			Assert.assertEquals(jpaMappingModel, classModelJpaMappingGenerator.analyzeJpaMappingsForClassModels(
+					scanSession.getAllClassModelsIn(syntheticDomainModelGenerator.getPackageName())));
+
+			JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("orm.xml");
+			java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+			java2JpaMappingGenerator.renderJpaMappingModel(jpaMappingModel);
+			Assert.assertEquals(jpaMappingModel.getClassMappings().size(), jpaMappingRenderer.getJpaMappingPerClass().size());
+		}
+		finally {
+			scanSession.close();
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidRatio(){
+		new SyntheticDomainModelGenerator().setBidirectionalCollectionRatio(1.5);
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.ceardannan.java2jpa.processing;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceardannan.java2jpa.Java2JpaMappingGenerator;
+import com.ceardannan.java2jpa.JpaMappingRendererDefaultImpl;
+import com.ceardannan.java2jpa.RenderJpaMappingForClassStrategyDefaultImpl;
+
+public class Java2JpaMappingProcessorTest {
+
+	private File outputDirectory;
+
+	@Before
+	public void createOutputDirectory() throws Exception{
+		outputDirectory = File.createTempFile("java2jpa-processor", "");
+		outputDirectory.delete();
+		outputDirectory.mkdirs();
+	}
+
+	@After
+	public void deleteOutputDirectory() throws Exception{
+		FileUtils.deleteDirectory(outputDirectory);
+	}
+
+	/**
+	 * Runs the processor over the sources of the test model, without compiling them.
+	 */
+	private boolean process(String... processorOptions) throws Exception{
+		return process(new File("src/test/java/com/test/model"), processorOptions);
+	}
+
+	/**
+	 * Runs the processor over the sources in the given directory, without compiling them.
+	 */
+	private boolean process(File sourceDirectory, String... processorOptions) throws Exception{
+		return process(FileUtils.listFiles(sourceDirectory, new String[]{"java"}, true), processorOptions);
+	}
+
+	/**
+	 * Runs the processor over the given sources, without compiling them.
+	 */
+	private boolean process(Collection<File> sources, String... processorOptions) throws Exception{
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeNotNull(compiler);
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try {
+			List<String> options = new ArrayList<String>(Arrays.asList("-proc:only", "-d", outputDirectory.getPath(),
+					"-classpath", System.getProperty("java.class.path")));
+			for (String processorOption: processorOptions){
+				options.add("-A" + processorOption);
+			}
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjectsFromFiles(sources));
+			task.setProcessors(Arrays.asList(new Java2JpaMappingProcessor()));
+			return task.call();
+		}
+		finally {
+			fileManager.close();
+		}
+	}
+
+	@Test
+	public void testProcess() throws Exception{
+		Assert.assertTrue(process(Java2JpaMappingProcessor.PACKAGES_OPTION + "=com.test.model"));
+		File mappingFile = new File(outputDirectory, "META-INF/orm.xml");
+		Assert.assertTrue(mappingFile.isFile());
+
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("orm.xml");
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.model");
+		Assert.assertEquals(jpaMappingRenderer.getMappedFilesAsStringMap().get("orm.xml"), FileUtils.readFileToString(mappingFile));
+	}
+
+	@Test
+	public void testProcessGenericCollections() throws Exception{
+		Assert.assertTrue(process(new File("src/test/java/com/test/hierarchy"), Java2JpaMappingProcessor.PACKAGES_OPTION + "=com.test.hierarchy"));
+		String mapping = FileUtils.readFileToString(new File(outputDirectory, "META-INF/orm.xml"));
+		// List<? extends Vehicle> of Garage and List<T extends Vehicle> of AbstractFleet are mapped as collections of vehicles
+		Assert.assertFalse(mapping.contains("<transient name=\"parkedVehicles\""));
+		Assert.assertFalse(mapping.contains("<transient name=\"vehicles\""));
+
+		JpaMappingRendererDefaultImpl jpaMappingRenderer = new JpaMappingRendererDefaultImpl("orm.xml");
+		Java2JpaMappingGenerator java2JpaMappingGenerator = new Java2JpaMappingGenerator();
+		java2JpaMappingGenerator.setRenderJpaMappingForClassStrategy(new RenderJpaMappingForClassStrategyDefaultImpl());
+		java2JpaMappingGenerator.setJpaMappingRenderer(jpaMappingRenderer);
+		java2JpaMappingGenerator.generateJpaMappingsForPackages("com.test.hierarchy");
+		Assert.assertEquals(jpaMappingRenderer.getMappedFilesAsStringMap().get("orm.xml"), mapping);
+	}
+
+	@Test
+	public void testProcessIncrementally() throws Exception{
+		Assert.assertTrue(process(Java2JpaMappingProcessor.PACKAGES_OPTION + "=com.test.model"));
+		File mappingFile = new File(outputDirectory, "META-INF/orm.xml");
+		String mapping = FileUtils.readFileToString(mappingFile);
+		Assert.assertTrue(mapping.contains("com.test.model.simple.Course"));
+
+		// only a class of the package itself changed, the classes of its subpackages are mapped again as well
+		Assert.assertTrue(process(Arrays.asList(new File("src/test/java/com/test/model/Account.java")),
+				Java2JpaMappingProcessor.PACKAGES_OPTION + "=com.test.model"));
+		Assert.assertEquals(mapping, FileUtils.readFileToString(mappingFile));
+	}
+
+	@Test
+	public void testOutputFile() throws Exception{
+		Assert.assertTrue(process(Java2JpaMappingProcessor.PACKAGES_OPTION + "=com.test.model.simple",
+				Java2JpaMappingProcessor.OUTPUT_FILE_OPTION + "=META-INF/simple-orm.xml"));
+		String mapping = FileUtils.readFileToString(new File(outputDirectory, "META-INF/simple-orm.xml"));
+		Assert.assertTrue(mapping.contains("com.test.model.simple.Course"));
+		Assert.assertFalse(mapping.contains("com.test.model.Account"));
+		Assert.assertFalse(new File(outputDirectory, "META-INF/orm.xml").exists());
+	}
+
+	@Test
+	public void testNoPackages() throws Exception{
+		Assert.assertTrue(process());
+		Assert.assertFalse(new File(outputDirectory, "META-INF/orm.xml").exists());
+	}
+
+}
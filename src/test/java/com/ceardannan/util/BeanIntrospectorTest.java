@@ -0,0 +1,75 @@
+package com.ceardannan.util;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.junit.Test;
+
+import com.ceardannan.util.scan.ClasspathScanner;
+
+public class BeanIntrospectorTest {
+
+	/**
+	 * Returns the readable property names declared by the class, as commons-beanutils returns them.
+	 */
+	private static List<String> getReadablePropertyNamesWithBeanUtils(Class<?> clazz){
+		List<String> propertyNames = new ArrayList<String>();
+		for (PropertyDescriptor propertyDescriptor: PropertyUtils.getPropertyDescriptors(clazz)){
+			if (propertyDescriptor.getReadMethod() != null && propertyDescriptor.getReadMethod().getDeclaringClass().equals(clazz)){
+				propertyNames.add(propertyDescriptor.getName());
+			}
+		}
+		return propertyNames;
+	}
+
+	@Test
+	public void testSamePropertiesAsBeanUtils(){
+		for (Class<?> clazz: new ClasspathScanner().getAllClassesIn("com.test.model")){
+			Assert.assertEquals(clazz.getName(), getReadablePropertyNamesWithBeanUtils(clazz), BeanIntrospector.getDeclaredReadablePropertyNames(clazz));
+		}
+		Assert.assertEquals(getReadablePropertyNamesWithBeanUtils(Getters.class), BeanIntrospector.getDeclaredReadablePropertyNames(Getters.class));
+	}
+
+	@Test
+	public void testGetters(){
+		Assert.assertEquals(Arrays.asList("URL", "active", "name", "x"), BeanIntrospector.getDeclaredReadablePropertyNames(Getters.class));
+	}
+
+	public static class Getters {
+		public String getName(){
+			return null;
+		}
+		public boolean isActive(){
+			return false;
+		}
+		public String getURL(){
+			return null;
+		}
+		public int getX(){
+			return 0;
+		}
+		public Boolean isWrapped(){
+			return null;
+		}
+		public static String getStatic(){
+			return null;
+		}
+		public String getIndexed(int index){
+			return null;
+		}
+		public void getNothing(){
+		}
+		public String get(){
+			return null;
+		}
+		protected String getProtected(){
+			return null;
+		}
+	}
+
+}
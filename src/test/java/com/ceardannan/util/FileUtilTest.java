@@ -0,0 +1,30 @@
+package com.ceardannan.util;
+
+import java.io.File;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class FileUtilTest {
+
+	@Test
+	public void testReplaceFile() throws Exception{
+		File directory = new File("target/file-util-test");
+		FileUtils.deleteDirectory(directory);
+		File target = new File(directory, "target.txt");
+		File file = new File(directory, "target.txt.tmp");
+
+		FileUtils.writeStringToFile(file, "first");
+		FileUtil.replaceFile(file, target);
+		Assert.assertEquals("first", FileUtils.readFileToString(target));
+		Assert.assertFalse(file.exists());
+
+		FileUtils.writeStringToFile(file, "second");
+		FileUtil.replaceFile(file, target);
+		Assert.assertEquals("second", FileUtils.readFileToString(target));
+		Assert.assertFalse(file.exists());
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.ceardannan.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.test.hierarchy.AbstractFleet;
+import com.test.hierarchy.Car;
+import com.test.hierarchy.CarFleet;
+import com.test.hierarchy.Garage;
+import com.test.hierarchy.Vehicle;
+
+public class GenericTypeResolverTest {
+
+	@Test
+	public void testCollectionElementClass(){
+		Field vehicles = ReflectionUtil.getFieldOfClass(AbstractFleet.class, "vehicles");
+		Assert.assertEquals(Car.class, ReflectionUtil.getCollectionElementClass(CarFleet.class, vehicles));
+		// not assigned on the declaring class, so the bound
+		Assert.assertEquals(Vehicle.class, ReflectionUtil.getCollectionElementClass(AbstractFleet.class, vehicles));
+		// wildcard
+		Assert.assertEquals(Vehicle.class, ReflectionUtil.getCollectionElementClass(Garage.class, ReflectionUtil.getFieldOfClass(Garage.class, "parkedVehicles")));
+		// not parameterized
+		Assert.assertNull(ReflectionUtil.getCollectionElementClass(Leaf.class, ReflectionUtil.getFieldOfClass(Leaf.class, "raw")));
+	}
+
+	@Test
+	public void testResolveThroughHierarchy() throws Exception{
+		Type stringsType = ReflectionUtil.getResolvedFieldType(Leaf.class, Base.class.getDeclaredField("as"));
+		Assert.assertEquals(Leaf.class.getDeclaredField("strings").getGenericType(), stringsType);
+		Assert.assertEquals(stringsType, Leaf.class.getDeclaredField("strings").getGenericType());
+		Assert.assertEquals(stringsType.hashCode(), Leaf.class.getDeclaredField("strings").getGenericType().hashCode());
+
+		Type mapType = ReflectionUtil.getResolvedFieldType(Leaf.class, Base.class.getDeclaredField("map"));
+		Assert.assertEquals(Leaf.class.getDeclaredField("integerMap").getGenericType(), mapType);
+
+		Assert.assertEquals(String[].class, ReflectionUtil.getResolvedFieldType(Leaf.class, Base.class.getDeclaredField("array")));
+		Assert.assertEquals(Integer.class, GenericTypeResolver.getRawClass(ReflectionUtil.getResolvedFieldType(Leaf.class, Middle.class.getDeclaredField("x"))));
+
+		// partially resolved on the middle class
+		Type middleMapType = ReflectionUtil.getResolvedFieldType(Middle.class, Base.class.getDeclaredField("map"));
+		Assert.assertTrue(middleMapType instanceof ParameterizedType);
+		Assert.assertEquals(Object.class, GenericTypeResolver.getTypeArgumentClass(middleMapType, 0));
+		Assert.assertEquals(List.class, GenericTypeResolver.getTypeArgumentClass(middleMapType, 1));
+
+		// memoized
+		Assert.assertSame(mapType, ReflectionUtil.getResolvedFieldType(Leaf.class, Base.class.getDeclaredField("map")));
+	}
+
+	public static class Base<A, B> {
+		private List<A> as;
+		private Map<B, List<A>> map;
+		private A[] array;
+	}
+
+	public static class Middle<X> extends Base<String, X> {
+		private X x;
+	}
+
+	public static class Leaf extends Middle<Integer> {
+		@SuppressWarnings("rawtypes")
+		private List raw;
+		private List<String> strings;
+		private Map<Integer, List<String>> integerMap;
+	}
+
+}
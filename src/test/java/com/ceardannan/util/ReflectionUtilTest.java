@@ -1,6 +1,11 @@
 package com.ceardannan.util;
 
+import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -10,10 +15,14 @@ import junit.framework.Assert;
 import org.junit.Test;
 
 import com.ceardannan.util.ReflectionUtil;
+import com.test.hierarchy.Car;
 import com.test.model.Account;
 import com.test.model.Address;
 import com.test.model.Category;
 import com.test.model.Item;
+import com.test.model.LineItem;
+import com.test.model.Order;
+import com.test.model.PersistentObject;
 import com.test.model.Product;
 import com.test.model.StatusType;
 
@@ -64,4 +73,63 @@ public class ReflectionUtilTest {
 		Assert.assertNotNull(ReflectionUtil.getFieldOfClass(Address.class, "log"));
 	}
 	
+	@Test
+	public void testClassMetadataIsCached(){
+		ReflectionUtil.clearClassMetadataCache();
+		ClassMetadata classMetadata = ReflectionUtil.getClassMetadata(Item.class);
+		Assert.assertSame(classMetadata, ReflectionUtil.getClassMetadata(Item.class));
+		Assert.assertSame(classMetadata.getAllFields(), ReflectionUtil.getAllFieldsFor(Item.class));
+		Assert.assertEquals(Arrays.asList(Item.class.getDeclaredFields()), ReflectionUtil.getAllDeclaredFieldsFor(Item.class));
+		
+		List<Class<?>> superclasses = new ArrayList<Class<?>>();
+		List<Field> allFields = new ArrayList<Field>();
+		for (Class<?> superclass = Item.class.getSuperclass(); superclass != null; superclass = superclass.getSuperclass()){
+			superclasses.add(superclass);
+			allFields.addAll(Arrays.asList(superclass.getDeclaredFields()));
+		}
+		allFields.addAll(Arrays.asList(Item.class.getDeclaredFields()));
+		Assert.assertEquals(superclasses, ReflectionUtil.getAllSuperclasses(Item.class));
+		Assert.assertEquals(allFields, Arrays.asList(ReflectionUtil.getAllFields(Item.class)));
+		
+		ReflectionUtil.clearClassMetadataCache(Item.class.getClassLoader());
+		Assert.assertNotSame(classMetadata, ReflectionUtil.getClassMetadata(Item.class));
+	}
+	
+	@Test
+	public void testClearClassMetadataCacheOfAncestors() throws Exception{
+		URL classesLocation = Car.class.getProtectionDomain().getCodeSource().getLocation();
+		URLClassLoader parentClassLoader = new URLClassLoader(new URL[]{classesLocation}, ReflectionUtil.class.getClassLoader().getParent());
+		URLClassLoader childClassLoader = new URLClassLoader(new URL[0], parentClassLoader);
+		Class<?> car = Class.forName(Car.class.getName(), false, childClassLoader);
+		Assert.assertSame(parentClassLoader, car.getClassLoader());
+		ClassMetadata classMetadata = ReflectionUtil.getClassMetadata(car);
+		ClassMetadata itemClassMetadata = ReflectionUtil.getClassMetadata(Item.class);
+		
+		//the class is defined by the parent, not by the child itself
+		ReflectionUtil.clearClassMetadataCache(childClassLoader);
+		Assert.assertSame(classMetadata, ReflectionUtil.getClassMetadata(car));
+		//the parent is the boundary, its classes stay cached
+		ReflectionUtil.clearClassMetadataCache(childClassLoader, parentClassLoader);
+		Assert.assertSame(classMetadata, ReflectionUtil.getClassMetadata(car));
+		
+		ReflectionUtil.clearClassMetadataCache(childClassLoader, parentClassLoader.getParent());
+		Assert.assertNotSame(classMetadata, ReflectionUtil.getClassMetadata(car));
+		Assert.assertSame(itemClassMetadata, ReflectionUtil.getClassMetadata(Item.class));
+	}
+	
+	@Test
+	public void testGetAllFieldsOfTypeClassOnOtherClass() throws Exception{
+		Assert.assertEquals(Arrays.asList(Order.class.getDeclaredField("account")), 
+				ReflectionUtil.getAllFieldsOfTypeClassOnOtherClass(Account.class, Order.class));
+		Assert.assertEquals(Arrays.asList(PersistentObject.class.getDeclaredField("id")), 
+				ReflectionUtil.getAllFieldsOfTypeClassOnOtherClass(Long.class, LineItem.class));
+		Assert.assertTrue(ReflectionUtil.getAllFieldsOfTypeClassOnOtherClass(Order.class, Account.class).isEmpty());
+		//only the raw list matches the raw type
+		Assert.assertEquals(Arrays.asList(Account.class.getDeclaredField("anyInfo")), 
+				ReflectionUtil.getAllFieldsOfTypeClassOnOtherClass(List.class, Account.class));
+		Field statements = Account.class.getDeclaredField("statements");
+		Assert.assertEquals(Arrays.asList(statements), 
+				ReflectionUtil.getClassMetadata(Account.class).getAllFieldsOfGenericType(statements.getGenericType()));
+	}
+	
 }
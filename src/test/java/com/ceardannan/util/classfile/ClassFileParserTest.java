@@ -0,0 +1,163 @@
+package com.ceardannan.util.classfile;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.ceardannan.util.ReflectionUtil;
+import com.test.model.Account;
+import com.test.model.Category;
+import com.test.model.Describable;
+import com.test.model.PersistentObject;
+import com.test.model.StatusType;
+
+public class ClassFileParserTest {
+
+	static class Nested {
+		@SuppressWarnings("unused")
+		private Map<String, List<Integer>> map;
+		@SuppressWarnings("unused")
+		private List<? extends Number> wildcards;
+		@SuppressWarnings("unused")
+		private List<String[]> arrays;
+	}
+
+	static class Bounded<T extends Number, C extends Comparable<C>, U> {
+		@SuppressWarnings("unused")
+		private List<T> numbers;
+		@SuppressWarnings("unused")
+		private List<C> comparables;
+		@SuppressWarnings("unused")
+		private List<U> objects;
+		@SuppressWarnings("unused")
+		private List<? extends T> wildcards;
+		@SuppressWarnings("unused")
+		private List<? super Integer> superWildcards;
+		@SuppressWarnings("unused")
+		private List<T[]> arrays;
+		@SuppressWarnings("unused")
+		private List<int[]> primitiveArrays;
+		@SuppressWarnings("unused")
+		private List<List<T>> lists;
+
+		class Inner {
+			@SuppressWarnings("unused")
+			private List<T> enclosingNumbers;
+		}
+	}
+
+	static ClassModel parse(Class<?> clazz) throws Exception{
+		InputStream inputStream = clazz.getClassLoader().getResourceAsStream(clazz.getName().replace('.', '/') + ".class");
+		try {
+			return new ClassFileParser().parse(inputStream);
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	@Test
+	public void testParseFieldsAndSignatures() throws Exception{
+		ClassModel account = parse(Account.class);
+		Assert.assertEquals(Account.class.getName(), account.getName());
+		Assert.assertEquals("Account", account.getSimpleName());
+		Assert.assertEquals("com.test.model", account.getPackageName());
+		Assert.assertEquals(Object.class.getName(), account.getSuperclassName());
+		Assert.assertEquals(Account.class.getDeclaredFields().length, account.getDeclaredFields().size());
+
+		FieldModel creditCards = account.getDeclaredField("creditCards");
+		Assert.assertEquals(List.class.getName(), creditCards.getTypeName());
+		Assert.assertEquals(Arrays.asList("com.test.model.CreditCard"), creditCards.getTypeArgumentNames());
+
+		FieldModel anyInfo = account.getDeclaredField("anyInfo");
+		Assert.assertNull(anyInfo.getSignature());
+		Assert.assertTrue(anyInfo.getTypeArgumentNames().isEmpty());
+
+		Assert.assertEquals("java.lang.String", account.getDeclaredField("accountId").getTypeName());
+		Assert.assertTrue(Modifier.isPrivate(account.getDeclaredField("accountId").getModifiers()));
+	}
+
+	@Test
+	public void testParseTypeArguments() throws Exception{
+		ClassModel nested = parse(Nested.class);
+		Assert.assertEquals(Arrays.asList("java.lang.String", "java.util.List"), nested.getDeclaredField("map").getTypeArgumentNames());
+		Assert.assertEquals(Arrays.asList((String) null), nested.getDeclaredField("wildcards").getTypeArgumentNames());
+		Assert.assertEquals(Arrays.asList("[Ljava.lang.String;"), nested.getDeclaredField("arrays").getTypeArgumentNames());
+	}
+
+	@Test
+	public void testTypeArgumentClassName() throws Exception{
+		ClassModelRepository classModelRepository = new ClassModelRepository();
+		Assert.assertNull(classModelRepository.getTypeArgumentClassName(parse(Account.class).getDeclaredField("anyInfo"), 0));
+		for (Class<?> clazz: Arrays.<Class<?>>asList(Bounded.class, Bounded.Inner.class)){
+			ClassModel classModel = parse(clazz);
+			for (Field field: clazz.getDeclaredFields()){
+				if (List.class.equals(field.getType())){
+					Assert.assertEquals(field.getName(), ReflectionUtil.getCollectionElementClass(clazz, field).getName(),
+							classModelRepository.getTypeArgumentClassName(classModel.getDeclaredField(field.getName()), 0));
+				}
+			}
+		}
+		Assert.assertEquals(Number.class.getName(), classModelRepository.getTypeArgumentClassName(parse(Bounded.class).getDeclaredField("wildcards"), 0));
+	}
+
+	@Test
+	public void testParseKinds() throws Exception{
+		ClassModel category = parse(Category.class);
+		Assert.assertEquals(Arrays.asList(Serializable.class.getName()), category.getInterfaceNames());
+		FieldModel serialVersionUID = category.getDeclaredField("serialVersionUID");
+		Assert.assertTrue(serialVersionUID.isStatic());
+		Assert.assertTrue(serialVersionUID.isPrimitive());
+		Assert.assertEquals("long", serialVersionUID.getTypeName());
+
+		Assert.assertTrue(parse(StatusType.class).isEnum());
+		Assert.assertTrue(parse(Describable.class).isInterface());
+		Assert.assertTrue(parse(PersistentObject.class).isAbstract());
+		Assert.assertTrue(! parse(PersistentObject.class).isMemberClass());
+
+		ClassModel nested = parse(Nested.class);
+		Assert.assertTrue(nested.isMemberClass());
+		Assert.assertTrue(Modifier.isStatic(nested.getModifiers()));
+		Assert.assertEquals("Nested", nested.getSimpleName());
+
+		Object anonymous = new Object(){};
+		Assert.assertTrue(parse(anonymous.getClass()).isAnonymousClass());
+		class Local {}
+		Assert.assertTrue(parse(Local.class).isLocalClass());
+	}
+
+	@Test
+	public void testParseMethods() throws Exception{
+		ClassModel account = parse(Account.class);
+		boolean found = false;
+		for (MethodModel method: account.getDeclaredMethods()){
+			if (method.getName().equals("getFirstStatement")){
+				found = true;
+				Assert.assertTrue(method.hasNoParameters());
+				Assert.assertTrue(method.isPublicInstanceMethod());
+				Assert.assertEquals("com.test.model.Statement", method.getReturnTypeName());
+			}
+		}
+		Assert.assertTrue(found);
+	}
+
+	@Test
+	public void testClassModelRepository() throws Exception{
+		ClassModelRepository classModelRepository = new ClassModelRepository();
+		Assert.assertNull(classModelRepository.getClassModel("int"));
+		Assert.assertNull(classModelRepository.getClassModel("com.test.model.DoesNotExist"));
+		Assert.assertTrue(classModelRepository.isAssignableFrom("java.util.Collection", "java.util.ArrayList"));
+		Assert.assertTrue(! classModelRepository.isAssignableFrom("java.util.Collection", "java.util.HashMap"));
+		Assert.assertEquals(1, classModelRepository.getAllFields(classModelRepository.getClassModel("com.test.model.LineItem")).size()
+				- classModelRepository.getClassModel("com.test.model.LineItem").getDeclaredFields().size());
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.ceardannan.util.scan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import com.ceardannan.util.classfile.ClassModel;
+import com.test.model.LineItem;
+import com.test.model.simple.Course;
+
+public class ClassIndexTest {
+
+	private static ClassIndex buildTestModelIndex() throws Exception{
+		File classesDirectory = new File(LineItem.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		return ClassIndex.build(new DirectoryClasspathRoot(classesDirectory), "com.test.model");
+	}
+
+	@Test
+	public void testWriteAndRead() throws Exception{
+		ClassIndex classIndex = buildTestModelIndex();
+		Assert.assertEquals(Arrays.asList("com/test/model"), classIndex.getPackageFolders());
+		Assert.assertNotNull(classIndex.getClassModel(ClasspathRoot.toEntryName(Course.class.getName())));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		classIndex.write(outputStream);
+		ClassIndex readIndex = ClassIndex.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+		Assert.assertEquals(classIndex.getPackageFolders(), readIndex.getPackageFolders());
+		Assert.assertEquals(classIndex.getClassModels().size(), readIndex.getClassModels().size());
+		Iterator<ClassModel> readModels = readIndex.getClassModels().iterator();
+		for (ClassModel classModel: classIndex.getClassModels()){
+			ClassModel readModel = readModels.next();
+			Assert.assertEquals(classModel, readModel);
+			Assert.assertEquals(classModel.getSuperclassName(), readModel.getSuperclassName());
+			Assert.assertEquals(classModel.getInterfaceNames(), readModel.getInterfaceNames());
+			Assert.assertEquals(classModel.getModifiers(), readModel.getModifiers());
+			Assert.assertEquals(classModel.getNestingKind(), readModel.getNestingKind());
+			Assert.assertEquals(classModel.getSimpleName(), readModel.getSimpleName());
+			Assert.assertEquals(classModel.getSignature(), readModel.getSignature());
+			Assert.assertEquals(classModel.getDeclaredFields(), readModel.getDeclaredFields());
+			Assert.assertEquals(classModel.getDeclaredMethods().toString(), readModel.getDeclaredMethods().toString());
+		}
+	}
+
+	@Test
+	public void testPackagesAreCovered() throws Exception{
+		ClassIndex classIndex = buildTestModelIndex();
+		Assert.assertTrue(classIndex.covers("com/test/model"));
+		Assert.assertTrue(classIndex.covers("com/test/model/simple"));
+		Assert.assertTrue(! classIndex.covers("com/test"));
+		Assert.assertTrue(! classIndex.covers("com/test/modelling"));
+		Assert.assertEquals(Arrays.asList(ClasspathRoot.toEntryName(Course.class.getName()), "com/test/model/simple/Student.class"),
+				classIndex.getClassEntryNames("com/test/model/simple", false));
+	}
+
+	@Test
+	public void testScannerUsesIndex() throws Exception{
+		ClassIndex classIndex = buildTestModelIndex();
+		//a jar that only contains the index, so the classes can only be found through the index
+		File jar = new File("target/scan-test/indexed.jar");
+		jar.getParentFile().mkdirs();
+		JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			for (String folder: new String[]{"com/", "com/test/", "com/test/model/", "META-INF/"}){
+				jarOutputStream.putNextEntry(new ZipEntry(folder));
+				jarOutputStream.closeEntry();
+			}
+			jarOutputStream.putNextEntry(new ZipEntry(ClassIndex.RESOURCE_NAME));
+			classIndex.write(jarOutputStream);
+			jarOutputStream.closeEntry();
+		}
+		finally {
+			jarOutputStream.close();
+		}
+
+		ClasspathScanner classpathScanner = new ClasspathScanner(new URLClassLoader(new URL[]{jar.toURI().toURL()}, null));
+		classpathScanner.setScanCache(null);
+		Collection<String> classNames = classpathScanner.getFullyQualifiedClassNames("com.test.model");
+		Assert.assertEquals(classIndex.getClassModels().size(), classNames.size());
+		Assert.assertTrue(classNames.contains(LineItem.class.getName()));
+		Assert.assertEquals(new HashSet<ClassModel>(classIndex.getClassModels()),
+				new HashSet<ClassModel>(classpathScanner.getAllClassModelsIn("com.test.model")));
+
+		classpathScanner.setUseClassIndex(false);
+		Assert.assertEquals(new ArrayList<String>(), classpathScanner.getFullyQualifiedClassNames("com.test.model"));
+	}
+
+	@Test
+	public void testScannerIgnoresIndexOfDirectory() throws Exception{
+		//a directory that only contains the index, as if all indexed classes were removed since it was written
+		File directory = new File("target/scan-test/indexed");
+		FileUtils.deleteDirectory(directory);
+		File indexFile = new File(directory, ClassIndex.RESOURCE_NAME);
+		indexFile.getParentFile().mkdirs();
+		new File(directory, "com/test/model").mkdirs();
+		OutputStream outputStream = new FileOutputStream(indexFile);
+		try {
+			buildTestModelIndex().write(outputStream);
+		}
+		finally {
+			outputStream.close();
+		}
+
+		ClasspathScanner classpathScanner = new ClasspathScanner(new URLClassLoader(new URL[]{directory.toURI().toURL()}, null));
+		classpathScanner.setScanCache(null);
+		Assert.assertEquals(new ArrayList<String>(), classpathScanner.getFullyQualifiedClassNames("com.test.model"));
+	}
+
+	@Test
+	public void testReadCorruptIndex() throws Exception{
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		buildTestModelIndex().write(outputStream);
+		byte[] bytes = outputStream.toByteArray();
+		//the number of strings is stored right after the magic and the version
+		bytes[5] = 1;
+		try {
+			ClassIndex.read(new ByteArrayInputStream(bytes));
+			Assert.fail("A corrupt index should not be read.");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getCause() instanceof ArrayIndexOutOfBoundsException);
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.ceardannan.util.scan;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.test.model.LineItem;
+import com.test.model.simple.Course;
+
+public class ClasspathScannerTest {
+
+	static File createJar(String fileName, String... entryNames) throws IOException{
+		File file = new File("target/scan-test/" + fileName);
+		file.getParentFile().mkdirs();
+		JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(file));
+		try {
+			for (String entryName: entryNames){
+				jarOutputStream.putNextEntry(new ZipEntry(entryName));
+				if (! entryName.endsWith("/")){
+					jarOutputStream.write(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+				}
+				jarOutputStream.closeEntry();
+			}
+		}
+		finally {
+			jarOutputStream.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testGetAllClassesInIsRecursive(){
+		Collection<Class<?>> classes = new ClasspathScanner().getAllClassesIn("com.test.model");
+		Assert.assertTrue(classes.contains(LineItem.class));
+		Assert.assertTrue(classes.contains(Course.class));
+	}
+
+	@Test
+	public void testGetAllClassesInNotRecursive(){
+		ClasspathScanner classpathScanner = new ClasspathScanner();
+		classpathScanner.setRecursive(false);
+		Collection<Class<?>> classes = classpathScanner.getAllClassesIn("com.test.model");
+		Assert.assertTrue(classes.contains(LineItem.class));
+		Assert.assertTrue(! classes.contains(Course.class));
+	}
+
+	@Test
+	public void testGetFullyQualifiedClassNamesOverMultipleJars() throws Exception{
+		File jar1 = createJar("scan1.jar", "com/", "com/jar/", "com/jar/model/", "com/jar/model/Foo.class", "com/jar/model/sub/", "com/jar/model/sub/Bar.class", "com/jar/other/Baz.class");
+		File jar2 = createJar("scan2.jar", "com/", "com/jar/", "com/jar/model/", "com/jar/model/Qux.class", "com/jar/model/Foo.class", "com/jar/model/readme.txt");
+		URLClassLoader classLoader = new URLClassLoader(new URL[]{jar1.toURI().toURL(), jar2.toURI().toURL()}, null);
+
+		for (int maxThreads = 1; maxThreads <= 2; maxThreads++){
+			ClasspathScanner classpathScanner = new ClasspathScanner(classLoader);
+			classpathScanner.setMaxThreads(maxThreads);
+			Collection<String> classNames = classpathScanner.getFullyQualifiedClassNames("com.jar.model");
+			Assert.assertEquals(3, classNames.size());
+			Assert.assertTrue(classNames.contains("com.jar.model.Foo"));
+			Assert.assertTrue(classNames.contains("com.jar.model.sub.Bar"));
+			Assert.assertTrue(classNames.contains("com.jar.model.Qux"));
+		}
+	}
+
+	@Test
+	public void testOverlappingPackagesAreScannedOnce() throws Exception{
+		Collection<Class<?>> classes = new ClasspathScanner().getAllClassesIn("com.test.model", "com.test.model.simple", "com.test.model");
+		Assert.assertEquals(new HashSet<Class<?>>(classes).size(), classes.size());
+		Assert.assertTrue(classes.contains(Course.class));
+		Assert.assertEquals(new ClasspathScanner().getAllClassesIn("com.test.model").size(), classes.size());
+
+		File jar = createJar("overlap.jar", "com/", "com/jar/", "com/jar/model/", "com/jar/model/Foo.class", "com/jar/model/sub/", "com/jar/model/sub/Bar.class",
+				"com/jar/other/Baz.class");
+		ClasspathScanner classpathScanner = new ClasspathScanner(new URLClassLoader(new URL[]{jar.toURI().toURL()}, null));
+		//a class belongs to the deepest package containing it, results are returned per package in the given order
+		Assert.assertEquals(Arrays.asList("com.jar.model.sub.Bar", "com.jar.model.Foo"),
+				new ArrayList<String>(classpathScanner.getFullyQualifiedClassNames("com.jar.model.sub", "com.jar.model")));
+	}
+
+	@Test
+	public void testIsClassEntryInPackage(){
+		Assert.assertTrue(ClasspathRoot.isClassEntryInPackage("com/test/model/Item.class", "com/test/model", false));
+		Assert.assertTrue(! ClasspathRoot.isClassEntryInPackage("com/test/model/simple/Course.class", "com/test/model", false));
+		Assert.assertTrue(ClasspathRoot.isClassEntryInPackage("com/test/model/simple/Course.class", "com/test/model", true));
+		Assert.assertTrue(! ClasspathRoot.isClassEntryInPackage("com/test/modelx/Item.class", "com/test/model", true));
+		Assert.assertTrue(! ClasspathRoot.isClassEntryInPackage("com/test/model/readme.txt", "com/test/model", true));
+	}
+
+}
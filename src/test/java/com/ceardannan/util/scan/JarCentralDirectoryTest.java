@@ -0,0 +1,180 @@
+package com.ceardannan.util.scan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class JarCentralDirectoryTest {
+
+	private static byte[] readFully(InputStream inputStream) throws IOException{
+		try {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1){
+				outputStream.write(buffer, 0, read);
+			}
+			return outputStream.toByteArray();
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	@Test
+	public void testPrefixQueries() throws Exception{
+		File file = ClasspathScannerTest.createJar("directory.jar", "com/", "com/jar/", "com/jar/model/", "com/jar/model/sub/Bar.class",
+				"com/jar/model/Foo.class", "com/jar/modelx/Baz.class", "com/other/Qux.class");
+		JarCentralDirectory directory = new JarCentralDirectory(file);
+		try {
+			Assert.assertEquals(7, directory.size());
+			Assert.assertEquals(Arrays.asList("com/jar/model/", "com/jar/model/Foo.class", "com/jar/model/sub/Bar.class"), directory.getEntryNames("com/jar/model/"));
+			Assert.assertEquals(Arrays.asList("com/jar/modelx/Baz.class"), directory.getEntryNames("com/jar/modelx/"));
+			Assert.assertTrue(directory.getEntryNames("org/").isEmpty());
+			Assert.assertEquals(7, directory.getEntryNames("").size());
+			Assert.assertTrue(directory.containsEntry("com/other/Qux.class"));
+			Assert.assertTrue(! directory.containsEntry("com/other/Qux"));
+		}
+		finally {
+			directory.close();
+		}
+	}
+
+	@Test
+	public void testOpenEntry() throws Exception{
+		byte[] content = "stored content".getBytes("UTF-8");
+		File file = new File("target/scan-test/stored.jar");
+		file.getParentFile().mkdirs();
+		JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(file));
+		try {
+			ZipEntry deflated = new ZipEntry("a/Deflated.class");
+			jarOutputStream.putNextEntry(deflated);
+			for (int i = 0; i < 100; i++){
+				jarOutputStream.write(content);
+			}
+			jarOutputStream.closeEntry();
+			ZipEntry stored = new ZipEntry("a/Stored.class");
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(content.length);
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			stored.setCrc(crc.getValue());
+			jarOutputStream.putNextEntry(stored);
+			jarOutputStream.write(content);
+			jarOutputStream.closeEntry();
+		}
+		finally {
+			jarOutputStream.close();
+		}
+
+		JarCentralDirectory directory = new JarCentralDirectory(file);
+		try {
+			Assert.assertTrue(Arrays.equals(content, readFully(directory.openEntry("a/Stored.class"))));
+			Assert.assertEquals(100 * content.length, readFully(directory.openEntry("a/Deflated.class")).length);
+			try {
+				directory.openEntry("a/Missing.class");
+				Assert.fail();
+			} catch (IOException e) {
+				//expected
+			}
+		}
+		finally {
+			directory.close();
+		}
+	}
+
+	@Test
+	public void testPrefixedJar() throws Exception{
+		File jar = ClasspathScannerTest.createJar("unprefixed.jar", "com/", "com/jar/", "com/jar/model/Foo.class", "com/other/Qux.class");
+		//an executable jar, with a launch script in front of the archive
+		File file = new File("target/scan-test/prefixed.jar");
+		FileOutputStream outputStream = new FileOutputStream(file);
+		try {
+			outputStream.write("#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n".getBytes("UTF-8"));
+			outputStream.write(readFully(new FileInputStream(jar)));
+		}
+		finally {
+			outputStream.close();
+		}
+
+		List<String> expected = new ArrayList<String>();
+		JarFile jarFile = new JarFile(file);
+		JarCentralDirectory directory = new JarCentralDirectory(file);
+		try {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()){
+				expected.add(entries.nextElement().getName());
+			}
+			Collections.sort(expected);
+			Assert.assertEquals(4, expected.size());
+			Assert.assertEquals(expected, directory.getEntryNames(""));
+			Assert.assertTrue(Arrays.equals(readFully(jarFile.getInputStream(jarFile.getEntry("com/jar/model/Foo.class"))),
+					readFully(directory.openEntry("com/jar/model/Foo.class"))));
+		}
+		finally {
+			directory.close();
+			jarFile.close();
+		}
+	}
+
+	@Test(expected=ZipException.class)
+	public void testInvalidCentralDirectoryHeader() throws Exception{
+		File file = ClasspathScannerTest.createJar("invalid.jar", "com/jar/model/Foo.class", "com/other/Qux.class");
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			byte[] content = new byte[(int) randomAccessFile.length()];
+			randomAccessFile.readFully(content);
+			//corrupt the signature of the last central directory header
+			int headerOffset = new String(content, "ISO-8859-1").lastIndexOf("PK\u0001\u0002");
+			randomAccessFile.seek(headerOffset);
+			randomAccessFile.write(0);
+		}
+		finally {
+			randomAccessFile.close();
+		}
+		new JarCentralDirectory(file).close();
+	}
+
+	@Test
+	public void testSameEntriesAsJarFile() throws Exception{
+		File file = new File(Test.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		List<String> expected = new ArrayList<String>();
+		JarFile jarFile = new JarFile(file);
+		JarCentralDirectory directory = new JarCentralDirectory(file);
+		try {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()){
+				expected.add(entries.nextElement().getName());
+			}
+			Collections.sort(expected);
+			Assert.assertEquals(expected, directory.getEntryNames(""));
+
+			String entryName = "org/junit/Test.class";
+			Assert.assertTrue(Arrays.equals(readFully(jarFile.getInputStream(jarFile.getEntry(entryName))), readFully(directory.openEntry(entryName))));
+		}
+		finally {
+			directory.close();
+			jarFile.close();
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+package com.ceardannan.util.scan;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class NestedJarClasspathRootTest {
+
+	/**
+	 * Creates a Spring Boot like jar, with a nested jar in BOOT-INF/lib and classes in BOOT-INF/classes.
+	 */
+	private static File createOuterJar() throws IOException{
+		File nestedJar = ClasspathScannerTest.createJar("nested.jar", "com/", "com/jar/", "com/jar/model/", "com/jar/model/Foo.class",
+				"com/jar/model/sub/Bar.class", "com/jar/other/Baz.class");
+		File file = new File("target/scan-test/outer.jar");
+		JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(file));
+		try {
+			jarOutputStream.putNextEntry(new ZipEntry("BOOT-INF/lib/model.jar"));
+			InputStream inputStream = new FileInputStream(nestedJar);
+			try {
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = inputStream.read(buffer)) != -1){
+					jarOutputStream.write(buffer, 0, read);
+				}
+			}
+			finally {
+				inputStream.close();
+			}
+			jarOutputStream.closeEntry();
+			jarOutputStream.putNextEntry(new ZipEntry("BOOT-INF/classes/com/jar/model/Boot.class"));
+			jarOutputStream.write(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+			jarOutputStream.closeEntry();
+		}
+		finally {
+			jarOutputStream.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testScanNestedJar() throws Exception{
+		NestedJarClasspathRoot root = new NestedJarClasspathRoot(createOuterJar(), "BOOT-INF/lib/model.jar");
+		try {
+			Assert.assertEquals(Arrays.asList("com/jar/model/Foo.class", "com/jar/model/sub/Bar.class"), root.getClassEntryNames("com/jar/model", true));
+			Assert.assertEquals(Arrays.asList("com/jar/model/Foo.class"), root.getClassEntryNames("com/jar/model", false));
+			Assert.assertEquals(0xCA, root.openEntry("com/jar/model/Foo.class").read());
+			//not read while scanning
+			Assert.assertEquals(0xCA, root.openEntry("com/jar/other/Baz.class").read());
+			try {
+				root.openEntry("com/jar/other/Missing.class");
+				Assert.fail();
+			} catch (IOException e) {
+				//expected
+			}
+		}
+		finally {
+			root.close();
+		}
+	}
+
+	@Test
+	public void testReadRequestedPackagesOnly() throws Exception{
+		File outerJar = createOuterJar();
+		MessageDigest digest = ClasspathRoot.createContentDigest();
+		ClasspathRoot.updateDigest(digest, new FileInputStream("target/scan-test/nested.jar"));
+		String contentHash = ClasspathRoot.toHex(digest.digest());
+
+		NestedJarClasspathRoot root = new NestedJarClasspathRoot(outerJar, "BOOT-INF/lib/model.jar");
+		try {
+			// looking up the class index does not read any class entry
+			Assert.assertFalse(root.containsEntry(ClassIndex.RESOURCE_NAME));
+			Assert.assertTrue(root.containsEntry("com/jar/model/Foo.class"));
+			Assert.assertEquals(Arrays.asList("com/jar/model/Foo.class", "com/jar/model/sub/Bar.class"), root.getClassEntryNames("com/jar/model", true));
+			// the nested jar is not streamed again: its data in the outer jar can be overwritten
+			RandomAccessFile randomAccessFile = new RandomAccessFile(outerJar, "rw");
+			try {
+				randomAccessFile.seek(64);
+				randomAccessFile.write(new byte[64]);
+			}
+			finally {
+				randomAccessFile.close();
+			}
+			Assert.assertEquals(contentHash, root.computeContentHash());
+			Assert.assertEquals(Arrays.asList("com/jar/model/Foo.class"), root.getClassEntryNames("com/jar/model", false));
+			Assert.assertTrue(root.getClassEntryNames("com/jar/none", true).isEmpty());
+			Assert.assertEquals(0xCA, root.openEntry("com/jar/model/sub/Bar.class").read());
+			try {
+				root.openEntry("com/jar/other/Missing.class");
+				Assert.fail();
+			} catch (IOException e) {
+				//expected
+			}
+			// the class entries of other packages were not read
+			try {
+				root.openEntry("com/jar/other/Baz.class");
+				Assert.fail();
+			} catch (IOException e) {
+				//expected, the nested jar is streamed from the overwritten data
+			}
+		}
+		finally {
+			root.close();
+		}
+	}
+
+	@Test
+	public void testCreateClasspathRootForNestedUrls() throws Exception{
+		File outerJar = createOuterJar();
+		ClasspathScanner classpathScanner = new ClasspathScanner();
+		String jarUrl = "jar:" + outerJar.toURI();
+
+		ClasspathRoot nestedRoot = classpathScanner.createClasspathRoot(new URL(jarUrl + "!/BOOT-INF/lib/model.jar!/com/jar/model"), "com/jar/model");
+		Assert.assertTrue(nestedRoot instanceof NestedJarClasspathRoot);
+		Assert.assertEquals("BOOT-INF/lib/model.jar", ((NestedJarClasspathRoot) nestedRoot).getNestedJarName());
+		nestedRoot.close();
+
+		ClasspathRoot classesRoot = classpathScanner.createClasspathRoot(new URL(jarUrl + "!/BOOT-INF/classes!/com/jar/model"), "com/jar/model");
+		try {
+			Assert.assertEquals(Arrays.asList("com/jar/model/Boot.class"), classesRoot.getClassEntryNames("com/jar/model", true));
+			Assert.assertEquals(0xCA, classesRoot.openEntry("com/jar/model/Boot.class").read());
+		}
+		finally {
+			classesRoot.close();
+		}
+
+		//the url handler for this notation is not registered outside of Spring Boot, so the path is used directly
+		ClasspathRoot newNotationRoot = classpathScanner.createJarClasspathRoot("nested:" + outerJar.getAbsolutePath() + "/!BOOT-INF/lib/model.jar!/com/jar/model");
+		Assert.assertTrue(newNotationRoot instanceof NestedJarClasspathRoot);
+		Assert.assertEquals(outerJar.getAbsoluteFile(), ((NestedJarClasspathRoot) newNotationRoot).getFile());
+		newNotationRoot.close();
+	}
+
+}
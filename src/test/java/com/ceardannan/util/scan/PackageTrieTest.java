@@ -0,0 +1,40 @@
+package com.ceardannan.util.scan;
+
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class PackageTrieTest {
+
+	@Test
+	public void testGetPackageOf(){
+		PackageTrie packages = new PackageTrie(Arrays.asList("com/test", "com/test/model", "org/other"));
+		Assert.assertEquals("com/test/model", packages.getPackageOf("com/test/model/Item.class", true));
+		Assert.assertEquals("com/test/model", packages.getPackageOf("com/test/model/simple/Course.class", true));
+		Assert.assertEquals("com/test", packages.getPackageOf("com/test/Other.class", true));
+		Assert.assertEquals("com/test", packages.getPackageOf("com/test/modelx/Item.class", true));
+		Assert.assertNull(packages.getPackageOf("com/Other.class", true));
+		Assert.assertNull(packages.getPackageOf("Other.class", true));
+		Assert.assertNull(packages.getPackageOf("org/otherx/Other.class", true));
+
+		Assert.assertEquals("com/test/model", packages.getPackageOf("com/test/model/Item.class", false));
+		Assert.assertNull(packages.getPackageOf("com/test/model/simple/Course.class", false));
+		Assert.assertNull(packages.getPackageOf("com/test/modelx/Item.class", false));
+	}
+
+	@Test
+	public void testOutermostPackageFolders(){
+		PackageTrie packages = new PackageTrie(Arrays.asList("com/test/model", "org/other", "com/test", "com/test/model"));
+		Assert.assertEquals(Arrays.asList("com/test/model", "org/other", "com/test"), packages.getPackageFolders());
+		Assert.assertEquals(Arrays.asList("org/other", "com/test"), packages.getOutermostPackageFolders());
+
+		PackageTrie defaultPackage = new PackageTrie(Arrays.asList("com/test", ""));
+		Assert.assertEquals(Arrays.asList(""), defaultPackage.getOutermostPackageFolders());
+		Assert.assertEquals("", defaultPackage.getPackageOf("Other.class", false));
+		Assert.assertEquals("", defaultPackage.getPackageOf("org/Other.class", true));
+		Assert.assertNull(defaultPackage.getPackageOf("org/Other.class", false));
+	}
+
+}
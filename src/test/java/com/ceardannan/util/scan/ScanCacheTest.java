@@ -0,0 +1,73 @@
+package com.ceardannan.util.scan;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceardannan.util.classfile.ClassFileParser;
+import com.ceardannan.util.classfile.ClassModel;
+import com.test.model.LineItem;
+
+public class ScanCacheTest {
+
+	private File cacheDirectory = new File("target/scan-test/cache");
+
+	@Before
+	public void clearCache(){
+		new ScanCache(cacheDirectory).clear();
+	}
+
+	private List<String> scan(File jar) throws Exception{
+		ClasspathScanner classpathScanner = new ClasspathScanner(new URLClassLoader(new URL[]{jar.toURI().toURL()}, null));
+		classpathScanner.setScanCache(new ScanCache(cacheDirectory));
+		return new ArrayList<String>(classpathScanner.getFullyQualifiedClassNames("com.jar"));
+	}
+
+	@Test
+	public void testJarIsOnlyRescannedWhenItChanged() throws Exception{
+		File jar = ClasspathScannerTest.createJar("cached.jar", "com/", "com/jar/", "com/jar/Foo.class");
+		long lastModified = (jar.lastModified() / 1000 - 10) * 1000;
+		Assert.assertTrue(jar.setLastModified(lastModified));
+		Assert.assertEquals(Arrays.asList("com.jar.Foo"), scan(jar));
+		Assert.assertEquals(1, cacheDirectory.listFiles().length);
+
+		//same size and modification time: the cached names are used without reading the jar
+		ClasspathScannerTest.createJar("cached.jar", "com/", "com/jar/", "com/jar/Bar.class");
+		Assert.assertTrue(jar.setLastModified(lastModified));
+		Assert.assertEquals(Arrays.asList("com.jar.Foo"), scan(jar));
+
+		//same size, but another modification time: the content hash differs, so the jar is scanned again
+		Assert.assertTrue(jar.setLastModified(lastModified + 2000));
+		Assert.assertEquals(Arrays.asList("com.jar.Bar"), scan(jar));
+
+		//only the modification time changed
+		Assert.assertTrue(jar.setLastModified(lastModified + 4000));
+		Assert.assertEquals(Arrays.asList("com.jar.Bar"), scan(jar));
+	}
+
+	@Test
+	public void testClassModelsAreCached() throws Exception{
+		File classesDirectory = new File(LineItem.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		String entryName = ClasspathRoot.toEntryName(LineItem.class.getName());
+
+		ClasspathRoot root = new ScanCache(cacheDirectory).cache(new DirectoryClasspathRoot(classesDirectory));
+		ClassModel classModel = root.readClassModel(entryName, new ClassFileParser());
+		Assert.assertTrue(root.getClassEntryNames("com/test/model", false).contains(entryName));
+		root.close();
+
+		ScanCache scanCache = new ScanCache(cacheDirectory);
+		CachedRoot cachedRoot = scanCache.getCachedRoot(new DirectoryClasspathRoot(classesDirectory));
+		Assert.assertEquals(classModel, cachedRoot.getClassModel(entryName));
+		Assert.assertEquals(classModel.getDeclaredFields(), cachedRoot.getClassModel(entryName).getDeclaredFields());
+		Assert.assertTrue(! cachedRoot.isDirty());
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.ceardannan.util.scan;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.ceardannan.util.ReflectionUtil;
+import com.test.model.LineItem;
+
+public class ScanSessionTest {
+
+	private static final String PROBE_CLASS_NAME = "com.test.scan.InitializationProbe";
+
+	@Test
+	public void testClassesAreLoadedInIsolationWithoutInitialization() throws Exception{
+		ScanSession scanSession = new ScanSession();
+		try {
+			Collection<Class<?>> classes = scanSession.getAllClassesIn("com.test.scan");
+			Assert.assertEquals(1, classes.size());
+			Class<?> probeClass = classes.iterator().next();
+			Assert.assertEquals(PROBE_CLASS_NAME, probeClass.getName());
+			Assert.assertSame(scanSession.getClassLoader(), probeClass.getClassLoader());
+			Assert.assertSame(probeClass, probeClass.getDeclaredField("other").getType());
+			Assert.assertNull(System.getProperty("com.test.scan.InitializationProbe.initialized"));
+
+			Collection<Class<?>> modelClasses = scanSession.getAllClassesIn("com.test.model");
+			Class<?> lineItemClass = scanSession.getClassLoader().loadClass(LineItem.class.getName());
+			Assert.assertTrue(modelClasses.contains(lineItemClass));
+			Assert.assertTrue(lineItemClass != LineItem.class);
+			Assert.assertSame(String.class, scanSession.getClassLoader().loadClass(String.class.getName()));
+		}
+		finally {
+			scanSession.close();
+		}
+		Assert.assertTrue(scanSession.isClosed());
+		try {
+			scanSession.getAllClassesIn("com.test.scan");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void testClassLoaderCanBeCollectedAfterClose() throws Exception{
+		ScanSession scanSession = new ScanSession();
+		Collection<Class<?>> classes = scanSession.getAllClassesIn("com.test.scan");
+		Assert.assertEquals(1, classes.size());
+		//the cached reflection metadata of the classes should not keep the classLoader alive
+		ReflectionUtil.getAllFieldsFor(classes.iterator().next());
+		classes = null;
+		WeakReference<ClassLoader> classLoaderReference = new WeakReference<ClassLoader>(scanSession.getClassLoader());
+		scanSession.close();
+		for (int i = 0; i < 10 && classLoaderReference.get() != null; i++){
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertNull(classLoaderReference.get());
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.test.hierarchy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class AbstractFleet<T extends Vehicle> {
+
+	private Long id;
+
+	private List<T> vehicles = new ArrayList<T>();
+
+	/**
+	 * @return the id
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * @param id the id to set
+	 */
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return the vehicles
+	 */
+	public List<T> getVehicles() {
+		return vehicles;
+	}
+
+	/**
+	 * @param vehicles the vehicles to set
+	 */
+	public void setVehicles(List<T> vehicles) {
+		this.vehicles = vehicles;
+	}
+
+}
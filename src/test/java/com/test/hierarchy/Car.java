@@ -0,0 +1,21 @@
+package com.test.hierarchy;
+
+public class Car extends MotorVehicle {
+
+	private int numberOfDoors;
+
+	/**
+	 * @return the numberOfDoors
+	 */
+	public int getNumberOfDoors() {
+		return numberOfDoors;
+	}
+
+	/**
+	 * @param numberOfDoors the numberOfDoors to set
+	 */
+	public void setNumberOfDoors(int numberOfDoors) {
+		this.numberOfDoors = numberOfDoors;
+	}
+
+}
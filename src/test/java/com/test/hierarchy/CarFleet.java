@@ -0,0 +1,5 @@
+package com.test.hierarchy;
+
+public class CarFleet extends AbstractFleet<Car> {
+	//EMPTY IMPL
+}
@@ -0,0 +1,40 @@
+package com.test.hierarchy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Garage {
+
+	private Long id;
+
+	private List<? extends Vehicle> parkedVehicles = new ArrayList<Vehicle>();
+
+	/**
+	 * @return the id
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * @param id the id to set
+	 */
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return the parkedVehicles
+	 */
+	public List<? extends Vehicle> getParkedVehicles() {
+		return parkedVehicles;
+	}
+
+	/**
+	 * @param parkedVehicles the parkedVehicles to set
+	 */
+	public void setParkedVehicles(List<? extends Vehicle> parkedVehicles) {
+		this.parkedVehicles = parkedVehicles;
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.test.hierarchy;
+
+public abstract class MotorVehicle extends Vehicle {
+
+	private int horsePower;
+
+	/**
+	 * @return the horsePower
+	 */
+	public int getHorsePower() {
+		return horsePower;
+	}
+
+	/**
+	 * @param horsePower the horsePower to set
+	 */
+	public void setHorsePower(int horsePower) {
+		this.horsePower = horsePower;
+	}
+
+}
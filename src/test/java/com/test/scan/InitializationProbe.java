@@ -0,0 +1,20 @@
+package com.test.scan;
+
+/**
+ * Class that records its initialization in a system property, used to check that scanned classes are not initialized.
+ */
+public class InitializationProbe {
+
+	public static final String INITIALIZED_PROPERTY = "com.test.scan.InitializationProbe.initialized";
+
+	static {
+		System.setProperty(INITIALIZED_PROPERTY, "true");
+	}
+
+	private InitializationProbe other;
+
+	public InitializationProbe getOther() {
+		return other;
+	}
+
+}
@@ -0,0 +1,495 @@
+package com.test.synthetic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Generates synthetic domain models of any size, to test and benchmark the scanner, the generator and the renderer
+ * against models far larger than the test model in com.test.model.
+ * <p>
+ * The model is deterministic: the same configuration(seed included) always gives the same classes. It consists of:
+ * <ul>
+ * <li>entities: classes with a Long id field, or with an id field of a composite key class(see compositeIdRatio)</li>
+ * <li>subclasses of entities, up to maxHierarchyDepth classes deep(see subclassRatio)</li>
+ * <li>embeddables: classes without an id field(see embeddableRatio), the composite key classes are embeddables as well</li>
+ * </ul>
+ * Every entity declares a few simple fields, a collection of strings and fieldFanOut relations to other classes: references to entities or embeddables,
+ * and collections of entities(see collectionRatio). A collection is bidirectional(the elements have a reference back to the entity)
+ * with probability bidirectionalCollectionRatio, otherwise unidirectional. As other references can point back by chance as well,
+ * the ratio is approximate.
+ * All fields have a getter and a setter; every entity has a derived getter without a field as well.
+ * </p>
+ * <p>
+ * The classes are spread over subpackages(p0, p1, ...) of the packageName, classesPerPackage classes each.
+ * The model can be written as sources, see {@link #writeSources(File)}, or compiled, see {@link #compile(File)}.
+ * </p>
+ *
+ */
+public class SyntheticDomainModelGenerator {
+
+	private enum Kind {
+		ENTITY, EMBEDDABLE, COMPOSITE_KEY;
+	}
+
+	private static class SyntheticClass {
+		private String packageName;
+		private String simpleName;
+		private Kind kind;
+		private SyntheticClass superclass;
+		private int depth = 1;
+		private List<String[]> fields = new ArrayList<String[]>();
+
+		String getName(){
+			return packageName + "." + simpleName;
+		}
+
+		void addField(String type, String name){
+			fields.add(new String[]{type, name});
+		}
+	}
+
+	private long seed = 1;
+
+	private String packageName = "com.synthetic.model";
+
+	private int classCount = 100;
+
+	private int classesPerPackage = 500;
+
+	private int maxHierarchyDepth = 3;
+
+	private double subclassRatio = 0.3;
+
+	private int fieldFanOut = 4;
+
+	private double collectionRatio = 0.5;
+
+	private double bidirectionalCollectionRatio = 0.5;
+
+	private double embeddableRatio = 0.1;
+
+	private double compositeIdRatio = 0.05;
+
+	/**
+	 * The generated classes, null as long as the model is not generated
+	 */
+	private List<SyntheticClass> classes;
+
+	/**
+	 * Generates the model, once.
+	 */
+	private List<SyntheticClass> getClasses(){
+		if (classes == null){
+			classes = generateClasses();
+		}
+		return classes;
+	}
+
+	private List<SyntheticClass> generateClasses(){
+		Random random = new Random(seed);
+		List<SyntheticClass> generatedClasses = new ArrayList<SyntheticClass>();
+		List<SyntheticClass> entities = new ArrayList<SyntheticClass>();
+		List<SyntheticClass> superclassCandidates = new ArrayList<SyntheticClass>();
+		List<SyntheticClass> referenceTargets = new ArrayList<SyntheticClass>();
+		while (generatedClasses.size() < classCount){
+			int index = generatedClasses.size();
+			SyntheticClass syntheticClass = new SyntheticClass();
+			syntheticClass.packageName = packageName + ".p" + (index / classesPerPackage);
+			generatedClasses.add(syntheticClass);
+			if (random.nextDouble() < embeddableRatio){
+				syntheticClass.kind = Kind.EMBEDDABLE;
+				syntheticClass.simpleName = "Embeddable" + index;
+				syntheticClass.addField("String", "label");
+				syntheticClass.addField("int", "number");
+				referenceTargets.add(syntheticClass);
+				continue;
+			}
+			syntheticClass.kind = Kind.ENTITY;
+			syntheticClass.simpleName = "Entity" + index;
+			entities.add(syntheticClass);
+			referenceTargets.add(syntheticClass);
+			if (! superclassCandidates.isEmpty() && random.nextDouble() < subclassRatio){
+				syntheticClass.superclass = superclassCandidates.get(random.nextInt(superclassCandidates.size()));
+				syntheticClass.depth = syntheticClass.superclass.depth + 1;
+			}
+			else if (generatedClasses.size() < classCount && random.nextDouble() < compositeIdRatio){
+				SyntheticClass compositeKey = new SyntheticClass();
+				compositeKey.packageName = syntheticClass.packageName;
+				compositeKey.simpleName = syntheticClass.simpleName + "Key";
+				compositeKey.kind = Kind.COMPOSITE_KEY;
+				compositeKey.addField("Long", "part1");
+				compositeKey.addField("String", "part2");
+				generatedClasses.add(compositeKey);
+				syntheticClass.addField(compositeKey.getName(), "id");
+			}
+			else {
+				syntheticClass.addField("Long", "id");
+			}
+			if (syntheticClass.depth < maxHierarchyDepth){
+				superclassCandidates.add(syntheticClass);
+			}
+			syntheticClass.addField("String", "name" + index);
+			syntheticClass.addField("java.util.Date", "createdOn" + index);
+			syntheticClass.addField("java.math.BigDecimal", "amount" + index);
+			syntheticClass.addField("java.util.List<String>", "tags" + index);
+		}
+		for (SyntheticClass entity: entities){
+			for (int i = 0; i < fieldFanOut; i++){
+				if (random.nextDouble() < collectionRatio){
+					SyntheticClass elementClass = entities.get(random.nextInt(entities.size()));
+					entity.addField("java.util.List<" + elementClass.getName() + ">", "items" + i + "Of" + entity.simpleName);
+					if (random.nextDouble() < bidirectionalCollectionRatio){
+						elementClass.addField(entity.getName(), "owner" + entity.simpleName + "Items" + i);
+					}
+				}
+				else {
+					SyntheticClass targetClass = referenceTargets.get(random.nextInt(referenceTargets.size()));
+					entity.addField(targetClass.getName(), "ref" + i + "Of" + entity.simpleName);
+				}
+			}
+		}
+		return generatedClasses;
+	}
+
+	/**
+	 * Returns the names of all classes of the model.
+	 *
+	 * @return the fully qualified names of the classes, in the order they were generated
+	 */
+	public List<String> getClassNames(){
+		return getClassNames(null);
+	}
+
+	/**
+	 * Returns the names of the entities of the model(subclasses included), the classes that have an id field.
+	 *
+	 * @return the fully qualified names of the entities
+	 */
+	public List<String> getEntityClassNames(){
+		return getClassNames(Kind.ENTITY);
+	}
+
+	/**
+	 * Returns the names of the embeddables of the model, the composite key classes included.
+	 *
+	 * @return the fully qualified names of the embeddables
+	 */
+	public List<String> getEmbeddableClassNames(){
+		List<String> classNames = getClassNames(Kind.EMBEDDABLE);
+		classNames.addAll(getClassNames(Kind.COMPOSITE_KEY));
+		return classNames;
+	}
+
+	private List<String> getClassNames(Kind kind){
+		List<String> classNames = new ArrayList<String>();
+		for (SyntheticClass syntheticClass: getClasses()){
+			if (kind == null || syntheticClass.kind == kind){
+				classNames.add(syntheticClass.getName());
+			}
+		}
+		return classNames;
+	}
+
+	/**
+	 * Writes the sources of the model.
+	 *
+	 * @param sourceDirectory - the root directory of the sources
+	 * @return the source files
+	 * @throws IOException if a source file cannot be written
+	 */
+	public List<File> writeSources(File sourceDirectory) throws IOException {
+		List<File> sourceFiles = new ArrayList<File>();
+		for (SyntheticClass syntheticClass: getClasses()){
+			File sourceFile = new File(sourceDirectory, syntheticClass.getName().replace('.', '/') + ".java");
+			FileUtils.writeStringToFile(sourceFile, getSource(syntheticClass), "UTF-8");
+			sourceFiles.add(sourceFile);
+		}
+		return sourceFiles;
+	}
+
+	/**
+	 * Writes the sources of the model to the src subdirectory of the given directory, and compiles them
+	 * into its classes subdirectory, with the compiler of the running JDK.
+	 *
+	 * @param directory - the directory to generate the model in
+	 * @return the directory with the compiled classes
+	 * @throws IOException if the sources cannot be written
+	 * @throws IllegalStateException if no compiler is available(f.e. when running on a JRE) or the compilation fails
+	 */
+	public File compile(File directory) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null){
+			throw new IllegalStateException("No java compiler available, a JDK is required to compile the synthetic model.");
+		}
+		List<File> sourceFiles = writeSources(new File(directory, "src"));
+		File classesDirectory = new File(directory, "classes");
+		if (! classesDirectory.isDirectory() && ! classesDirectory.mkdirs()){
+			throw new IOException("Could not create directory " + classesDirectory + ".");
+		}
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try {
+			List<String> options = Arrays.asList("-d", classesDirectory.getPath(), "-proc:none", "-nowarn", "-encoding", "UTF-8");
+			if (! compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call()){
+				throw new IllegalStateException("Could not compile the synthetic model in " + directory + ".");
+			}
+		}
+		finally {
+			fileManager.close();
+		}
+		return classesDirectory;
+	}
+
+	private String getSource(SyntheticClass syntheticClass){
+		StringBuilder source = new StringBuilder();
+		source.append("package ").append(syntheticClass.packageName).append(";\n\n");
+		source.append("public class ").append(syntheticClass.simpleName);
+		if (syntheticClass.superclass != null){
+			source.append(" extends ").append(syntheticClass.superclass.getName());
+		}
+		if (syntheticClass.kind == Kind.COMPOSITE_KEY){
+			source.append(" implements java.io.Serializable");
+		}
+		source.append(" {\n\n");
+		if (syntheticClass.kind == Kind.COMPOSITE_KEY){
+			source.append("\tprivate static final long serialVersionUID = 1L;\n\n");
+		}
+		for (String[] field: syntheticClass.fields){
+			source.append("\tprivate ").append(field[0]).append(' ').append(field[1]).append(";\n");
+		}
+		for (String[] field: syntheticClass.fields){
+			String propertyName = Character.toUpperCase(field[1].charAt(0)) + field[1].substring(1);
+			source.append("\n\tpublic ").append(field[0]).append(" get").append(propertyName).append("() {\n");
+			source.append("\t\treturn ").append(field[1]).append(";\n\t}\n");
+			source.append("\n\tpublic void set").append(propertyName).append("(").append(field[0]).append(' ').append(field[1]).append(") {\n");
+			source.append("\t\tthis.").append(field[1]).append(" = ").append(field[1]).append(";\n\t}\n");
+		}
+		if (syntheticClass.kind == Kind.ENTITY){
+			source.append("\n\tpublic String getDescription").append(syntheticClass.simpleName).append("() {\n");
+			source.append("\t\treturn \"").append(syntheticClass.simpleName).append("\";\n\t}\n");
+		}
+		source.append("\n}\n");
+		return source.toString();
+	}
+
+	/**
+	 * Compiles a synthetic model, to benchmark against.
+	 * Arguments: the directory to generate the model in, the number of classes(100 by default) and the seed(1 by default).
+	 *
+	 * @param args - the arguments
+	 * @throws IOException if the model cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		SyntheticDomainModelGenerator generator = new SyntheticDomainModelGenerator();
+		if (args.length > 1){
+			generator.setClassCount(Integer.parseInt(args[1]));
+		}
+		if (args.length > 2){
+			generator.setSeed(Long.parseLong(args[2]));
+		}
+		long start = System.currentTimeMillis();
+		File classesDirectory = generator.compile(new File(args[0]));
+		System.out.println("Compiled " + generator.getClassNames().size() + " classes of package " + generator.getPackageName()
+				+ " into " + classesDirectory + " in " + (System.currentTimeMillis() - start) + " ms.");
+	}
+
+	private void checkNotGenerated(){
+		if (classes != null){
+			throw new IllegalStateException("The model is generated already, its configuration cannot be changed anymore.");
+		}
+	}
+
+	private static double checkRatio(double ratio){
+		if (ratio < 0 || ratio > 1){
+			throw new IllegalArgumentException("A ratio should be between 0 and 1, not " + ratio + ".");
+		}
+		return ratio;
+	}
+
+	/**
+	 * @return the seed of the random generator
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @param seed the seed to set
+	 */
+	public void setSeed(long seed) {
+		checkNotGenerated();
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the root package of the model
+	 */
+	public String getPackageName() {
+		return packageName;
+	}
+
+	/**
+	 * @param packageName the packageName to set
+	 */
+	public void setPackageName(String packageName) {
+		checkNotGenerated();
+		this.packageName = packageName;
+	}
+
+	/**
+	 * @return the number of classes of the model
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+	/**
+	 * @param classCount the classCount to set, at least 1
+	 */
+	public void setClassCount(int classCount) {
+		checkNotGenerated();
+		if (classCount < 1){
+			throw new IllegalArgumentException("The classCount should be at least 1, not " + classCount + ".");
+		}
+		this.classCount = classCount;
+	}
+
+	/**
+	 * @return the number of classes per subpackage
+	 */
+	public int getClassesPerPackage() {
+		return classesPerPackage;
+	}
+
+	/**
+	 * @param classesPerPackage the classesPerPackage to set, at least 1
+	 */
+	public void setClassesPerPackage(int classesPerPackage) {
+		checkNotGenerated();
+		if (classesPerPackage < 1){
+			throw new IllegalArgumentException("The classesPerPackage should be at least 1, not " + classesPerPackage + ".");
+		}
+		this.classesPerPackage = classesPerPackage;
+	}
+
+	/**
+	 * @return the maximum depth of an entity hierarchy, 1 for no subclasses
+	 */
+	public int getMaxHierarchyDepth() {
+		return maxHierarchyDepth;
+	}
+
+	/**
+	 * @param maxHierarchyDepth the maxHierarchyDepth to set, at least 1
+	 */
+	public void setMaxHierarchyDepth(int maxHierarchyDepth) {
+		checkNotGenerated();
+		if (maxHierarchyDepth < 1){
+			throw new IllegalArgumentException("The maxHierarchyDepth should be at least 1, not " + maxHierarchyDepth + ".");
+		}
+		this.maxHierarchyDepth = maxHierarchyDepth;
+	}
+
+	/**
+	 * @return the probability of an entity to be a subclass of another entity
+	 */
+	public double getSubclassRatio() {
+		return subclassRatio;
+	}
+
+	/**
+	 * @param subclassRatio the subclassRatio to set, between 0 and 1
+	 */
+	public void setSubclassRatio(double subclassRatio) {
+		checkNotGenerated();
+		this.subclassRatio = checkRatio(subclassRatio);
+	}
+
+	/**
+	 * @return the number of relations every entity declares
+	 */
+	public int getFieldFanOut() {
+		return fieldFanOut;
+	}
+
+	/**
+	 * @param fieldFanOut the fieldFanOut to set, at least 0
+	 */
+	public void setFieldFanOut(int fieldFanOut) {
+		checkNotGenerated();
+		if (fieldFanOut < 0){
+			throw new IllegalArgumentException("The fieldFanOut should be at least 0, not " + fieldFanOut + ".");
+		}
+		this.fieldFanOut = fieldFanOut;
+	}
+
+	/**
+	 * @return the probability of a relation to be a collection instead of a reference
+	 */
+	public double getCollectionRatio() {
+		return collectionRatio;
+	}
+
+	/**
+	 * @param collectionRatio the collectionRatio to set, between 0 and 1
+	 */
+	public void setCollectionRatio(double collectionRatio) {
+		checkNotGenerated();
+		this.collectionRatio = checkRatio(collectionRatio);
+	}
+
+	/**
+	 * @return the probability of a collection to be bidirectional
+	 */
+	public double getBidirectionalCollectionRatio() {
+		return bidirectionalCollectionRatio;
+	}
+
+	/**
+	 * @param bidirectionalCollectionRatio the bidirectionalCollectionRatio to set, between 0 and 1
+	 */
+	public void setBidirectionalCollectionRatio(double bidirectionalCollectionRatio) {
+		checkNotGenerated();
+		this.bidirectionalCollectionRatio = checkRatio(bidirectionalCollectionRatio);
+	}
+
+	/**
+	 * @return the probability of a class to be an embeddable
+	 */
+	public double getEmbeddableRatio() {
+		return embeddableRatio;
+	}
+
+	/**
+	 * @param embeddableRatio the embeddableRatio to set, between 0 and 1
+	 */
+	public void setEmbeddableRatio(double embeddableRatio) {
+		checkNotGenerated();
+		this.embeddableRatio = checkRatio(embeddableRatio);
+	}
+
+	/**
+	 * @return the probability of an entity(that is not a subclass) to have a composite id
+	 */
+	public double getCompositeIdRatio() {
+		return compositeIdRatio;
+	}
+
+	/**
+	 * @param compositeIdRatio the compositeIdRatio to set, between 0 and 1
+	 */
+	public void setCompositeIdRatio(double compositeIdRatio) {
+		checkNotGenerated();
+		this.compositeIdRatio = checkRatio(compositeIdRatio);
+	}
+
+}